@@ -0,0 +1,188 @@
+package org.odata4j.benchmarks;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.joda.time.LocalDateTime;
+import org.odata4j.core.Guid;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmComplexType;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmFunctionImport;
+import org.odata4j.edm.EdmFunctionParameter;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.format.xml.EdmxFormatWriter;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.Responses;
+
+/**
+ * The metadata, entities and documents the benchmarks work on.
+ */
+public class BenchmarkData {
+
+  public static final String NAMESPACE = "Benchmark";
+  public static final String CONTAINER = "Container";
+  public static final String ENTITY_SET = "Products";
+  public static final String BASE_URI = "http://localhost/benchmark.svc/";
+
+  /** The property shapes of the benchmarked entity type. */
+  public enum Shape {
+    /** A key and a name. */
+    NARROW,
+    /** A key, a name and two properties of each common simple type. */
+    WIDE
+  }
+
+  private static final EdmSimpleType<?>[] WIDE_TYPES = {
+      EdmSimpleType.STRING,
+      EdmSimpleType.INT32,
+      EdmSimpleType.INT64,
+      EdmSimpleType.DOUBLE,
+      EdmSimpleType.SINGLE,
+      EdmSimpleType.DECIMAL,
+      EdmSimpleType.BOOLEAN,
+      EdmSimpleType.DATETIME,
+      EdmSimpleType.GUID };
+
+  private BenchmarkData() {}
+
+  public static EdmDataServices metadata(Shape shape) {
+    List<EdmProperty.Builder> properties = new ArrayList<EdmProperty.Builder>();
+    properties.add(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32));
+    properties.add(EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING));
+    if (shape == Shape.WIDE) {
+      for (int i = 1; i <= 2; i++)
+        for (EdmSimpleType<?> type : WIDE_TYPES)
+          properties.add(EdmProperty.newBuilder(propertyName(type, i)).setType(type).setNullable(true));
+    }
+    EdmEntityType.Builder product = EdmEntityType.newBuilder().setNamespace(NAMESPACE).setName("Product")
+        .addKeys("Id").addProperties(properties);
+    EdmEntitySet.Builder products = EdmEntitySet.newBuilder().setName(ENTITY_SET).setEntityType(product);
+    EdmSchema.Builder schema = EdmSchema.newBuilder().setNamespace(NAMESPACE).addEntityTypes(product)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName(CONTAINER).setIsDefault(true).addEntitySets(products));
+    return EdmDataServices.newBuilder().addSchemas(schema).build();
+  }
+
+  /**
+   * Creates entities with deterministic values, every tenth optional value is null.
+   */
+  public static List<OEntity> entities(EdmDataServices metadata, int count) {
+    return entities(metadata, count, true);
+  }
+
+  /**
+   * Creates entities with deterministic values.
+   *
+   * @param withNulls  whether every tenth optional value is null
+   */
+  public static List<OEntity> entities(EdmDataServices metadata, int count, boolean withNulls) {
+    EdmEntitySet entitySet = metadata.getEdmEntitySet(ENTITY_SET);
+    EdmEntityType type = entitySet.getType();
+    List<OEntity> rt = new ArrayList<OEntity>(count);
+    for (int id = 0; id < count; id++) {
+      List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+      for (EdmProperty property : type.getProperties()) {
+        EdmSimpleType<?> propertyType = (EdmSimpleType<?>) property.getType();
+        if (withNulls && property.isNullable() && id % 10 == 9)
+          properties.add(OProperties.null_(property.getName(), propertyType));
+        else
+          properties.add(OProperties.simple(property.getName(), propertyType, value(property.getName(), propertyType, id)));
+      }
+      rt.add(OEntities.create(entitySet, OEntityKey.create(id), properties, Collections.<OLink> emptyList()));
+    }
+    return rt;
+  }
+
+  public static EntitiesResponse response(EdmDataServices metadata, List<OEntity> entities) {
+    return Responses.entities(entities, metadata.getEdmEntitySet(ENTITY_SET), null, null);
+  }
+
+  public static UriInfo uriInfo() {
+    return new ODataBatchUriInfo(URI.create(BASE_URI + ENTITY_SET), URI.create(BASE_URI));
+  }
+
+  /**
+   * Writes the CSDL of a schema with the given number of entity types of ten properties each, with an entity set,
+   * a complex type for every tenth and a function import for every fifth entity type.
+   */
+  public static String edmx(int entityTypes) {
+    List<EdmEntityType.Builder> types = new ArrayList<EdmEntityType.Builder>();
+    List<EdmComplexType.Builder> complexTypes = new ArrayList<EdmComplexType.Builder>();
+    List<EdmEntitySet.Builder> entitySets = new ArrayList<EdmEntitySet.Builder>();
+    List<EdmFunctionImport.Builder> functionImports = new ArrayList<EdmFunctionImport.Builder>();
+    for (int i = 0; i < entityTypes; i++) {
+      List<EdmProperty.Builder> properties = new ArrayList<EdmProperty.Builder>();
+      properties.add(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT64));
+      for (int j = 1; j < 10; j++)
+        properties.add(EdmProperty.newBuilder("Property" + j).setType(WIDE_TYPES[j % WIDE_TYPES.length]).setNullable(true));
+      EdmEntityType.Builder type = EdmEntityType.newBuilder().setNamespace(NAMESPACE).setName("Type" + i)
+          .addKeys("Id").addProperties(properties);
+      types.add(type);
+      entitySets.add(EdmEntitySet.newBuilder().setName("Set" + i).setEntityType(type));
+      if (i % 10 == 0)
+        complexTypes.add(EdmComplexType.newBuilder().setNamespace(NAMESPACE).setName("Complex" + i)
+            .addProperties(EdmProperty.newBuilder("Street").setType(EdmSimpleType.STRING),
+                EdmProperty.newBuilder("City").setType(EdmSimpleType.STRING)));
+      if (i % 5 == 0)
+        functionImports.add(EdmFunctionImport.newBuilder().setName("Function" + i).setHttpMethod("GET")
+            .setReturnType(EdmSimpleType.INT32)
+            .addParameters(EdmFunctionParameter.newBuilder().setName("p").setType(EdmSimpleType.STRING)));
+    }
+    EdmSchema.Builder schema = EdmSchema.newBuilder().setNamespace(NAMESPACE)
+        .addEntityTypes(types).addComplexTypes(complexTypes)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName(CONTAINER).setIsDefault(true)
+            .addEntitySets(entitySets).addFunctionImports(functionImports));
+    StringWriter sw = new StringWriter();
+    EdmxFormatWriter.write(EdmDataServices.newBuilder().addSchemas(schema).build(), sw);
+    return sw.toString();
+  }
+
+  private static String propertyName(EdmSimpleType<?> type, int index) {
+    return type.getFullyQualifiedTypeName().substring("Edm.".length()) + "_" + index;
+  }
+
+  private static Object value(String name, EdmSimpleType<?> type, int id) {
+    if (name.equals("Id"))
+      return id;
+    if (name.equals("Name"))
+      return "Product " + id;
+    if (type == EdmSimpleType.STRING)
+      return "A \"quoted\" description\nof product " + id;
+    if (type == EdmSimpleType.INT32)
+      return id % 1000;
+    if (type == EdmSimpleType.INT64)
+      return id * 1000003L;
+    if (type == EdmSimpleType.DOUBLE)
+      return id * 0.25d;
+    if (type == EdmSimpleType.SINGLE)
+      return (id % 50) / 10f;
+    if (type == EdmSimpleType.DECIMAL)
+      return BigDecimal.valueOf(id * 199L, 2);
+    if (type == EdmSimpleType.BOOLEAN)
+      return id % 2 == 0;
+    if (type == EdmSimpleType.DATETIME)
+      return new LocalDateTime(2012, 1, 1, 0, 0).plusMinutes(id);
+    if (type == EdmSimpleType.GUID)
+      return Guid.fromString(new UUID(id, id * 31L).toString());
+    throw new IllegalArgumentException(type.getFullyQualifiedTypeName());
+  }
+
+}
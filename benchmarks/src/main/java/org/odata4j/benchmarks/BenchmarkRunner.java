@@ -0,0 +1,35 @@
+package org.odata4j.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with the JMH command line, writing the results as JSON to <code>jmh-result.json</code>
+ * unless a result format or file is given, so that the results of two releases can be diffed.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar                       # all benchmarks
+ * java -jar benchmarks/target/benchmarks.jar FeedWriter -p format=JSON -rff writer.json
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+  public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  public static void main(String[] args) throws Exception {
+    List<String> options = new ArrayList<String>(Arrays.asList(args));
+    if (!options.contains("-rf")) {
+      options.add("-rf");
+      options.add("json");
+    }
+    if (!options.contains("-rff")) {
+      options.add("-rff");
+      options.add(DEFAULT_RESULT_FILE);
+    }
+    Main.main(options.toArray(new String[options.size()]));
+  }
+
+}
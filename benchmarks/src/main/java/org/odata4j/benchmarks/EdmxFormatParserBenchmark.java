@@ -0,0 +1,47 @@
+package org.odata4j.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.xml.EdmxFormatParser;
+import org.odata4j.stax2.util.StaxUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses a large CSDL document with the <code>EdmxFormatParser</code>, as a consumer does on its first request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EdmxFormatParserBenchmark {
+
+  @Param({ "100", "1000" })
+  public int entityTypes;
+
+  private String edmx;
+
+  @Setup
+  public void setup() {
+    edmx = BenchmarkData.edmx(entityTypes);
+  }
+
+  @Benchmark
+  public EdmDataServices parseMetadata() {
+    return new EdmxFormatParser().parseMetadata(StaxUtil.newXMLEventReader(new StringReader(edmx)));
+  }
+
+}
@@ -0,0 +1,101 @@
+package org.odata4j.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.odata4j.benchmarks.BenchmarkData.Shape;
+import org.odata4j.core.OEntity;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.expression.BoolCommonExpression;
+import org.odata4j.expression.CommonExpression;
+import org.odata4j.expression.ExpressionParser;
+import org.odata4j.producer.CompiledFilter;
+import org.odata4j.producer.ExpressionEvaluator;
+import org.odata4j.producer.ExpressionEvaluator.VariableResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses $filter expressions with <code>ExpressionParser</code> and applies them to entities,
+ * with the <code>ExpressionEvaluator</code> and compiled once into a <code>CompiledFilter</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+  @Param({
+      "Id eq 500",
+      "Name eq 'Product 500' or Name eq 'Product 501'",
+      "Int32_1 ge 200 and Boolean_1 eq true and Double_2 lt 100.5",
+      "substringof('99', Name) or (Int64_1 sub Id) div 2 lt 5000000" })
+  public String filter;
+
+  @Param({ "1000" })
+  public int entityCount;
+
+  private List<OEntity> entities;
+  private BoolCommonExpression expression;
+  private CompiledFilter compiled;
+
+  @Setup
+  public void setup() {
+    EdmDataServices metadata = BenchmarkData.metadata(Shape.WIDE);
+    // the evaluator does not order null values
+    entities = BenchmarkData.entities(metadata, entityCount, false);
+    expression = (BoolCommonExpression) ExpressionParser.parse(filter);
+    compiled = CompiledFilter.compile(expression, metadata.getEdmEntitySet(BenchmarkData.ENTITY_SET).getType());
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public CommonExpression parse() {
+    return ExpressionParser.parse(filter);
+  }
+
+  @Benchmark
+  public int evaluate() {
+    int rt = 0;
+    for (OEntity entity : entities)
+      if (new ExpressionEvaluator(new EntityResolver(entity)).evaluate(expression))
+        rt++;
+    return rt;
+  }
+
+  @Benchmark
+  public int evaluateCompiled() {
+    int rt = 0;
+    for (OEntity entity : entities)
+      if (compiled.apply(new EntityResolver(entity)))
+        rt++;
+    return rt;
+  }
+
+  private static class EntityResolver implements VariableResolver {
+
+    private final OEntity entity;
+
+    EntityResolver(OEntity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public Object resolveVariable(String path) {
+      return entity.getProperty(path).getValue();
+    }
+
+  }
+
+}
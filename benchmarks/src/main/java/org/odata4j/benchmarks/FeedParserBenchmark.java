@@ -0,0 +1,75 @@
+package org.odata4j.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.odata4j.benchmarks.BenchmarkData.Shape;
+import org.odata4j.core.ODataVersion;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.Entry;
+import org.odata4j.format.Feed;
+import org.odata4j.format.FormatParser;
+import org.odata4j.format.FormatParserFactory;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.Settings;
+import org.odata4j.producer.EntitiesResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses a feed written by the producer with the Atom (<code>AtomFeedFormatParser</code>)
+ * and verbose JSON (<code>JsonFeedFormatParser</code>) parsers, as a consumer does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedParserBenchmark {
+
+  @Param({ "ATOM", "JSONVERBOSE" })
+  public String format;
+
+  @Param({ "10", "1000", "10000" })
+  public int entityCount;
+
+  @Param({ "NARROW", "WIDE" })
+  public Shape shape;
+
+  private FormatParser<Feed> parser;
+  private String document;
+
+  @Setup
+  public void setup() {
+    EdmDataServices metadata = BenchmarkData.metadata(shape);
+    FormatType formatType = FormatType.parse(format);
+    EntitiesResponse response = BenchmarkData.response(metadata, BenchmarkData.entities(metadata, entityCount));
+    CharArrayWriter out = new CharArrayWriter();
+    FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, formatType.toString(), null)
+        .write(BenchmarkData.uriInfo(), out, response);
+    document = out.toString();
+    parser = FormatParserFactory.getParser(Feed.class, formatType,
+        new Settings(ODataVersion.V2, metadata, BenchmarkData.ENTITY_SET, null, null));
+  }
+
+  @Benchmark
+  public void parseFeed(Blackhole blackhole) {
+    Feed feed = parser.parse(new StringReader(document));
+    for (Entry entry : feed.getEntries())
+      blackhole.consume(entry.getEntity());
+  }
+
+}
@@ -0,0 +1,109 @@
+package org.odata4j.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.odata4j.benchmarks.BenchmarkData.Shape;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriter;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.json.JsonFeedFormatWriter;
+import org.odata4j.format.json.JsonWriter;
+import org.odata4j.format.jsonlite.JsonLiteFeedFormatWriter;
+import org.odata4j.format.jsonlite.OdataJsonLiteConstant;
+import org.odata4j.producer.EntitiesResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes a feed with the Atom (<code>AtomFeedFormatWriter</code>), verbose JSON (<code>JsonFeedFormatWriter</code>)
+ * and JSON lite (<code>JsonLiteFeedFormatWriter</code>) writers.
+ *
+ * <p>{@link #writeFeedWithLegacyJsonWriter()} writes the same feed with the JSON writers on top of
+ * {@link LegacyJsonWriter}, the unbuffered <code>JsonWriter</code> they used before, as the baseline of
+ * {@link #writeFeed()}. The Atom writer does not use a <code>JsonWriter</code>, so for Atom both write the feed
+ * the same way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedWriterBenchmark {
+
+  @Param({ "ATOM", "JSONVERBOSE", "JSON" })
+  public String format;
+
+  @Param({ "10", "1000", "10000" })
+  public int entityCount;
+
+  @Param({ "NARROW", "WIDE" })
+  public Shape shape;
+
+  private FormatWriter<EntitiesResponse> writer;
+  private FormatWriter<EntitiesResponse> legacyWriter;
+  private EntitiesResponse response;
+  private UriInfo uriInfo;
+  private CharArrayWriter out;
+
+  @Setup
+  public void setup() {
+    EdmDataServices metadata = BenchmarkData.metadata(shape);
+    FormatType formatType = FormatType.parse(format);
+    writer = FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, formatType.toString(), null);
+    legacyWriter = legacyWriter(formatType, writer);
+    response = BenchmarkData.response(metadata, BenchmarkData.entities(metadata, entityCount));
+    uriInfo = BenchmarkData.uriInfo();
+    out = new CharArrayWriter(entityCount * 1024);
+  }
+
+  @Benchmark
+  public int writeFeed() {
+    out.reset();
+    writer.write(uriInfo, out, response);
+    return out.size();
+  }
+
+  @Benchmark
+  public int writeFeedWithLegacyJsonWriter() {
+    out.reset();
+    legacyWriter.write(uriInfo, out, response);
+    return out.size();
+  }
+
+  private static FormatWriter<EntitiesResponse> legacyWriter(FormatType formatType, FormatWriter<EntitiesResponse> writer) {
+    switch (formatType) {
+    case JSONVERBOSE:
+      return new JsonFeedFormatWriter(null) {
+        @Override
+        protected JsonWriter newJsonWriter(Writer w) {
+          return new LegacyJsonWriter(w);
+        }
+      };
+    case JSON:
+      return new JsonLiteFeedFormatWriter(null, OdataJsonLiteConstant.METADATA_TYPE_MINIMALMETADATA) {
+        @Override
+        protected JsonWriter newJsonWriter(Writer w) {
+          return new LegacyJsonWriter(w);
+        }
+      };
+    default:
+      return writer;
+    }
+  }
+
+}
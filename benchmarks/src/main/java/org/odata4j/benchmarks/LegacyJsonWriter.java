@@ -0,0 +1,161 @@
+package org.odata4j.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+import org.odata4j.core.Throwables;
+import org.odata4j.format.json.JsonWriter;
+
+/**
+ * A copy of the <code>JsonWriter</code> before it buffered its output, the baseline of
+ * {@link FeedWriterBenchmark#writeFeedWithLegacyJsonWriter()}: every token is built as a string and written
+ * straight to the underlying writer.
+ */
+public class LegacyJsonWriter extends JsonWriter {
+
+  private final Writer writer;
+
+  public LegacyJsonWriter(Writer writer) {
+    super(writer, 0);
+    this.writer = writer;
+  }
+
+  @Override
+  public void startCallback(String functionName) {
+    write(encode(functionName) + "(");
+  }
+
+  @Override
+  public void endCallback() {
+    write(");");
+  }
+
+  @Override
+  public void startObject() {
+    write("{\n");
+  }
+
+  @Override
+  public void endObject() {
+    write("\n}");
+  }
+
+  @Override
+  public void writeName(String name) {
+    write("\"" + encode(name) + "\" : ");
+  }
+
+  @Override
+  public void startArray() {
+    write("[\n");
+  }
+
+  @Override
+  public void endArray() {
+    write("\n]");
+  }
+
+  @Override
+  public void writeSeparator() {
+    write(", ");
+  }
+
+  @Override
+  public void writeString(String value) {
+    write("\"" + encode(value) + "\"");
+  }
+
+  @Override
+  public void writeQuoted(long value) {
+    // Edm.Int64 values were written with writeString(value.toString())
+    writeString(Long.toString(value));
+  }
+
+  @Override
+  public void writeNull() {
+    write("null");
+  }
+
+  @Override
+  public void writeNumber(int value) {
+    write(Integer.toString(value));
+  }
+
+  @Override
+  public void writeNumber(long value) {
+    write(Long.toString(value));
+  }
+
+  @Override
+  public void writeNumber(float value) {
+    String fvalue = Float.toString(value);
+    while (fvalue.contains(".") && fvalue.endsWith("0"))
+      fvalue = fvalue.substring(0, fvalue.length() - 1);
+    if (fvalue.endsWith("."))
+      fvalue = fvalue.substring(0, fvalue.length() - 1);
+    write(fvalue);
+  }
+
+  @Override
+  public void writeNumber(double value) {
+    write(Double.toString(value));
+  }
+
+  @Override
+  public void writeNumber(BigDecimal value) {
+    write(value.toPlainString());
+  }
+
+  @Override
+  public void writeBoolean(boolean value) {
+    write(value ? "true" : "false");
+  }
+
+  @Override
+  public void writeRaw(String value) {
+    write(value);
+  }
+
+  @Override
+  public void flush() {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private void write(String value) {
+    try {
+      writer.write(value);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static String encode(String unencoded) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < unencoded.length(); i++) {
+      char c = unencoded.charAt(i);
+      if (c == '\\')
+        sb.append("\\\\");
+      else if (c == '"')
+        sb.append("\\\"");
+      else if (c == '\n')
+        sb.append("\\n");
+      else if (c == '\r')
+        sb.append("\\r");
+      else if (c == '\f')
+        sb.append("\\f");
+      else if (c == '\b')
+        sb.append("\\b");
+      else if (c == '\t')
+        sb.append("\\t");
+      else
+        sb.append(c);
+    }
+    return sb.toString();
+  }
+
+}
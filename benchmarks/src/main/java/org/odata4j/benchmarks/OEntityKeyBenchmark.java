@@ -0,0 +1,54 @@
+package org.odata4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.odata4j.core.OEntityKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses and formats entity keys, as done for every entity id and link written or read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OEntityKeyBenchmark {
+
+  @Param({
+      "(42)",
+      "(123456789L)",
+      "('Product 42')",
+      "(guid'4786c33c-1e3d-4b57-b5cf-a4b759acac44')",
+      "(OrderId=42,ProductId='Product 42',Line=3)" })
+  public String keyString;
+
+  private OEntityKey key;
+
+  @Setup
+  public void setup() {
+    key = OEntityKey.parse(keyString);
+  }
+
+  @Benchmark
+  public OEntityKey parse() {
+    return OEntityKey.parse(keyString);
+  }
+
+  @Benchmark
+  public String toKeyString() {
+    return key.toKeyString();
+  }
+
+}
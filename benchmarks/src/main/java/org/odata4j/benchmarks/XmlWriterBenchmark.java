@@ -0,0 +1,89 @@
+package org.odata4j.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.odata4j.benchmarks.BenchmarkData.Shape;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriter;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.xml.EdmxFormatParser;
+import org.odata4j.format.xml.EdmxFormatWriter;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.stax2.XMLFactoryProvider2;
+import org.odata4j.stax2.staximpl.StaxXMLFactoryProvider2;
+import org.odata4j.stax2.util.StaxUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes an Atom feed and a <code>$metadata</code> document through the event based (<code>StaxXMLWriter2</code>)
+ * and the stream based (<code>StaxStreamXMLWriter2</code>) StAX writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlWriterBenchmark {
+
+  @Param({ "event", "stream" })
+  public String writer;
+
+  @Param({ "10", "1000" })
+  public int entityCount;
+
+  private XMLFactoryProvider2 provider;
+  private FormatWriter<EntitiesResponse> feedWriter;
+  private EntitiesResponse response;
+  private EdmDataServices metadata;
+  private UriInfo uriInfo;
+  private CharArrayWriter out;
+
+  @Setup
+  public void setup() {
+    provider = XMLFactoryProvider2.getInstance();
+    XMLFactoryProvider2.setInstance(new StaxXMLFactoryProvider2(writer.equals("stream")));
+    EdmDataServices feedMetadata = BenchmarkData.metadata(Shape.WIDE);
+    feedWriter = FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, FormatType.ATOM.toString(), null);
+    response = BenchmarkData.response(feedMetadata, BenchmarkData.entities(feedMetadata, entityCount));
+    metadata = new EdmxFormatParser().parseMetadata(StaxUtil.newXMLEventReader(new StringReader(BenchmarkData.edmx(entityCount / 10 + 1))));
+    uriInfo = BenchmarkData.uriInfo();
+    out = new CharArrayWriter(entityCount * 2048);
+  }
+
+  @TearDown
+  public void tearDown() {
+    XMLFactoryProvider2.setInstance(provider);
+  }
+
+  @Benchmark
+  public int writeFeed() {
+    out.reset();
+    feedWriter.write(uriInfo, out, response);
+    return out.size();
+  }
+
+  @Benchmark
+  public int writeMetadata() {
+    out.reset();
+    EdmxFormatWriter.write(metadata, out);
+    return out.size();
+  }
+
+}
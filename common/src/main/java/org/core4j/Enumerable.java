@@ -13,9 +13,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
 
 public class Enumerable<T> implements Iterable<T> {
 
@@ -61,7 +63,7 @@ public class Enumerable<T> implements Iterable<T> {
   }
 
   public List<T> toList() {
-    List<T> rt = new ArrayList<T>();
+    List<T> rt = values instanceof Collection ? new ArrayList<T>(((Collection<T>) values).size()) : new ArrayList<T>();
     for (T value : values) {
       rt.add(value);
     }
@@ -69,7 +71,7 @@ public class Enumerable<T> implements Iterable<T> {
   }
 
   public Set<T> toSet() {
-    Set<T> rt = new HashSet<T>();
+    Set<T> rt = values instanceof Collection ? new HashSet<T>(Math.max(((Collection<T>) values).size() * 4 / 3 + 1, 16)) : new HashSet<T>();
     for (T value : values) {
       rt.add(value);
     }
@@ -101,6 +103,9 @@ public class Enumerable<T> implements Iterable<T> {
   }
 
   public int count() {
+    if (values instanceof Collection) {
+      return ((Collection<T>) values).size();
+    }
     int rt = 0;
     for (@SuppressWarnings("unused")
     T value : values) {
@@ -141,6 +146,19 @@ public class Enumerable<T> implements Iterable<T> {
     return null;
   }
 
+  /**
+   * Runs the where and select that follow on an executor, in chunks of 256 elements.
+   *
+   * @see ParallelEnumerable
+   */
+  public ParallelEnumerable<T> parallel(Executor executor) {
+    return parallel(executor, 256);
+  }
+
+  public ParallelEnumerable<T> parallel(Executor executor, int chunkSize) {
+    return ParallelEnumerable.create(values, executor, chunkSize);
+  }
+
   public Enumerable<T> where(Predicate1<T> predicate) {
     return new Enumerable<T>(new PredicateIterable<T>(this, predicate));
   }
@@ -166,6 +184,13 @@ public class Enumerable<T> implements Iterable<T> {
   }
 
   public T last() {
+    if (values instanceof List && values instanceof RandomAccess) {
+      List<T> list = (List<T>) values;
+      if (list.isEmpty()) {
+        throw new RuntimeException("No elements");
+      }
+      return list.get(list.size() - 1);
+    }
     T rt = null;
     boolean empty = true;
     for (T value : values) {
@@ -275,6 +300,13 @@ public class Enumerable<T> implements Iterable<T> {
   }
 
   public T elementAt(int index) {
+    if (values instanceof List && values instanceof RandomAccess) {
+      List<T> list = (List<T>) values;
+      if (index < 0 || index >= list.size()) {
+        throw new RuntimeException("No element at index " + index);
+      }
+      return list.get(index);
+    }
     int i = 0;
     for (T value : values) {
       if (index == i++) {
@@ -285,6 +317,10 @@ public class Enumerable<T> implements Iterable<T> {
   }
 
   public T elementAtOrNull(int index) {
+    if (values instanceof List && values instanceof RandomAccess) {
+      List<T> list = (List<T>) values;
+      return index < 0 || index >= list.size() ? null : list.get(index);
+    }
     int i = 0;
     for (T value : values) {
       if (index == i++) {
@@ -543,30 +579,33 @@ public class Enumerable<T> implements Iterable<T> {
     }
   }
 
-  public <TKey extends Comparable<TKey>> Enumerable<T> orderBy(final Func1<T, TKey> projection) {
-    return orderBy(new Comparator<T>() {
-      public int compare(T o1, T o2) {
-        TKey lhs = projection.apply(o1);
-        TKey rhs = projection.apply(o2);
-        return lhs.compareTo(rhs);
-      }
-    });
+  public <TKey extends Comparable<TKey>> OrderedEnumerable<T> orderBy(Func1<T, TKey> projection) {
+    return orderBy(projection, Enumerable.<TKey> naturalOrder());
   }
 
-  public Enumerable<T> orderBy(Comparator<T> comparator) {
-    List<T> rt = this.toList();
-    Collections.sort(rt, comparator);
-    return Enumerable.create(rt);
+  public <TKey extends Comparable<TKey>> OrderedEnumerable<T> orderByDescending(Func1<T, TKey> projection) {
+    return orderBy(projection, Collections.reverseOrder(Enumerable.<TKey> naturalOrder()));
   }
 
-  public Enumerable<T> orderBy() {
-    return orderBy(new Comparator<T>() {
-      @SuppressWarnings("unchecked")
+  public <TKey> OrderedEnumerable<T> orderBy(Func1<T, TKey> projection, Comparator<? super TKey> comparator) {
+    return OrderedEnumerable.create(this, projection, comparator);
+  }
+
+  public OrderedEnumerable<T> orderBy(Comparator<? super T> comparator) {
+    return OrderedEnumerable.create(this, null, comparator);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public OrderedEnumerable<T> orderBy() {
+    return orderBy((Comparator<T>) (Comparator) naturalOrder());
+  }
+
+  static <T extends Comparable<T>> Comparator<T> naturalOrder() {
+    return new Comparator<T>() {
       public int compare(T o1, T o2) {
-        Comparable<T> lhs = (Comparable<T>) o1;
-        return lhs.compareTo(o2);
+        return o1.compareTo(o2);
       }
-    });
+    };
   }
 
   public String join(String separator) {
@@ -0,0 +1,202 @@
+package org.core4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An enumerable ordered by one or more keys, as returned by the orderBy methods of {@link Enumerable}.
+ * Further keys are added with thenBy, and are compared by a single composite comparator.
+ *
+ * <p>The elements are ordered when the enumerable is iterated, the key of each element is extracted once
+ * rather than on every comparison. {@link #take(int)} and {@link #skip(int)} keep the elements up to the
+ * end of the slice in a bounded heap instead of sorting all of them.
+ */
+public class OrderedEnumerable<T> extends Enumerable<T> {
+
+  private final Iterable<T> source;
+  private final List<SortKey> keys;
+
+  OrderedEnumerable(Iterable<T> source, List<SortKey> keys) {
+    super(new SortedIterable<T>(source, keys, 0, -1));
+    this.source = source;
+    this.keys = keys;
+  }
+
+  static <T> OrderedEnumerable<T> create(Iterable<T> source, Func1<T, ?> projection, Comparator<?> comparator) {
+    return new OrderedEnumerable<T>(source, Collections.singletonList(new SortKey(projection, comparator)));
+  }
+
+  public <TKey extends Comparable<TKey>> OrderedEnumerable<T> thenBy(Func1<T, TKey> projection) {
+    return thenBy(projection, Enumerable.<TKey> naturalOrder());
+  }
+
+  public <TKey extends Comparable<TKey>> OrderedEnumerable<T> thenByDescending(Func1<T, TKey> projection) {
+    return thenBy(projection, Collections.reverseOrder(Enumerable.<TKey> naturalOrder()));
+  }
+
+  public <TKey> OrderedEnumerable<T> thenBy(Func1<T, TKey> projection, Comparator<? super TKey> comparator) {
+    return thenBy(new SortKey(projection, comparator));
+  }
+
+  public OrderedEnumerable<T> thenBy(Comparator<? super T> comparator) {
+    return thenBy(new SortKey(null, comparator));
+  }
+
+  private OrderedEnumerable<T> thenBy(SortKey key) {
+    List<SortKey> rt = new ArrayList<SortKey>(keys);
+    rt.add(key);
+    return new OrderedEnumerable<T>(source, rt);
+  }
+
+  @Override
+  public Enumerable<T> take(int count) {
+    return new Slice<T>(source, keys, 0, Math.max(count, 0));
+  }
+
+  @Override
+  public Enumerable<T> skip(int count) {
+    return new Slice<T>(source, keys, Math.max(count, 0), -1);
+  }
+
+  @Override
+  public T first() {
+    return take(1).first();
+  }
+
+  @Override
+  public T firstOrNull() {
+    return take(1).firstOrNull();
+  }
+
+  @Override
+  public int count() {
+    return Enumerable.create(source).count();
+  }
+
+  static class SortKey {
+
+    // null to compare the elements themselves
+    private final Func1<Object, Object> projection;
+    private final Comparator<Object> comparator;
+
+    @SuppressWarnings("unchecked")
+    SortKey(Func1<?, ?> projection, Comparator<?> comparator) {
+      this.projection = (Func1<Object, Object>) projection;
+      this.comparator = (Comparator<Object>) comparator;
+    }
+  }
+
+  /** The elements of an ordering from an offset, up to a limit (-1 for none). */
+  private static class Slice<T> extends Enumerable<T> {
+
+    private final Iterable<T> source;
+    private final List<SortKey> keys;
+    private final int offset;
+    private final int limit;
+
+    public Slice(Iterable<T> source, List<SortKey> keys, int offset, int limit) {
+      super(new SortedIterable<T>(source, keys, offset, limit));
+      this.source = source;
+      this.keys = keys;
+      this.offset = offset;
+      this.limit = limit;
+    }
+
+    @Override
+    public Enumerable<T> take(int count) {
+      count = Math.max(count, 0);
+      return new Slice<T>(source, keys, offset, limit < 0 ? count : Math.min(limit, count));
+    }
+
+    @Override
+    public Enumerable<T> skip(int count) {
+      count = Math.max(count, 0);
+      int newOffset = (int) Math.min((long) offset + count, Integer.MAX_VALUE);
+      return new Slice<T>(source, keys, newOffset, limit < 0 ? -1 : Math.max(limit - count, 0));
+    }
+  }
+
+  private static class SortedIterable<T> implements Iterable<T> {
+
+    private final Iterable<T> source;
+    private final List<SortKey> keys;
+    private final int offset;
+    private final int limit;
+
+    public SortedIterable(Iterable<T> source, List<SortKey> keys, int offset, int limit) {
+      this.source = source;
+      this.keys = keys;
+      this.offset = offset;
+      this.limit = limit;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+      final int size = keys.size();
+      final SortKey[] sortKeys = keys.toArray(new SortKey[size]);
+
+      // a row holds the keys, the position, for a stable order, and the element
+      Comparator<Object[]> comparator = new Comparator<Object[]>() {
+        public int compare(Object[] o1, Object[] o2) {
+          for (int i = 0; i < size; i++) {
+            int rt = sortKeys[i].comparator.compare(o1[i], o2[i]);
+            if (rt != 0) {
+              return rt;
+            }
+          }
+          return ((Integer) o1[size]).compareTo((Integer) o2[size]);
+        }
+      };
+
+      long end = limit < 0 ? Long.MAX_VALUE : (long) offset + limit;
+      List<Object[]> rows;
+      if (end >= Integer.MAX_VALUE) {
+        rows = new ArrayList<Object[]>();
+        int position = 0;
+        for (T value : source) {
+          rows.add(row(sortKeys, position++, value));
+        }
+      } else {
+        // keep the first rows up to the end of the slice, the last of them on top
+        int count = (int) end;
+        PriorityQueue<Object[]> heap = new PriorityQueue<Object[]>(Math.max(1, Math.min(count, 1024)), Collections.reverseOrder(comparator));
+        int position = 0;
+        for (T value : source) {
+          if (count == 0) {
+            break;
+          }
+          Object[] row = row(sortKeys, position++, value);
+          if (heap.size() < count) {
+            heap.add(row);
+          } else if (comparator.compare(row, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(row);
+          }
+        }
+        rows = new ArrayList<Object[]>(heap);
+      }
+      Collections.sort(rows, comparator);
+
+      int last = (int) Math.min(rows.size(), end);
+      List<T> rt = new ArrayList<T>(Math.max(last - offset, 0));
+      for (int i = offset; i < last; i++) {
+        rt.add((T) rows.get(i)[size + 1]);
+      }
+      return rt.iterator();
+    }
+
+    private static Object[] row(SortKey[] sortKeys, int position, Object value) {
+      Object[] row = new Object[sortKeys.length + 2];
+      for (int i = 0; i < sortKeys.length; i++) {
+        row[i] = sortKeys[i].projection == null ? value : sortKeys[i].projection.apply(value);
+      }
+      row[sortKeys.length] = position;
+      row[sortKeys.length + 1] = value;
+      return row;
+    }
+  }
+}
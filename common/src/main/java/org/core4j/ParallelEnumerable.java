@@ -0,0 +1,250 @@
+package org.core4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * An enumerable whose {@link #where} and {@link #select} run on an executor, as returned by
+ * {@link Enumerable#parallel(Executor)}.
+ *
+ * <p>The source is read in chunks on the calling thread, and each chunk is filtered and projected by a task on
+ * the executor. A few chunks per processor are in flight at a time, so an enumerable that is not iterated to
+ * its end, e.g. after a take, does not process the whole source. The elements come in the order of the source.
+ * {@link #count()} and the aggregate with a combiner also run per chunk on the executor.
+ *
+ * <p>The predicates and projections are called from several threads at once.
+ */
+public class ParallelEnumerable<T> extends Enumerable<T> {
+
+  private static final Object FILTERED = new Object();
+
+  private final Pipeline<T> pipeline;
+
+  ParallelEnumerable(Pipeline<T> pipeline) {
+    super(pipeline);
+    this.pipeline = pipeline;
+  }
+
+  static <T> ParallelEnumerable<T> create(Iterable<T> source, Executor executor, int chunkSize) {
+    if (executor == null) {
+      throw new IllegalArgumentException("executor cannot be null");
+    }
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive");
+    }
+    return new ParallelEnumerable<T>(new Pipeline<T>(source, executor, chunkSize, null));
+  }
+
+  @Override
+  public ParallelEnumerable<T> where(final Predicate1<T> predicate) {
+    return then(new Func1<T, Object>() {
+      public Object apply(T input) {
+        return predicate.apply(input) ? input : FILTERED;
+      }
+    });
+  }
+
+  @Override
+  public <TOutput> ParallelEnumerable<TOutput> select(final Func1<T, TOutput> projection) {
+    return then(new Func1<T, Object>() {
+      public Object apply(T input) {
+        return projection.apply(input);
+      }
+    });
+  }
+
+  @Override
+  public int count() {
+    if (pipeline.stage == null) {
+      return Enumerable.create(pipeline.source).count();
+    }
+    int total = 0;
+    Iterator<Integer> counts = pipeline.chunks(new Func1<List<Object>, Integer>() {
+      public Integer apply(List<Object> chunk) {
+        int rt = 0;
+        for (Object value : chunk) {
+          if (pipeline.apply(value) != FILTERED) {
+            rt++;
+          }
+        }
+        return rt;
+      }
+    });
+    while (counts.hasNext()) {
+      total += counts.next();
+    }
+    return total;
+  }
+
+  /**
+   * Aggregates the elements per chunk, each chunk starting from the initial value, then combines the results of
+   * the chunks in order.
+   *
+   * @param initialValue  the initial value of each chunk, which must not change the result when combined
+   * @param aggregation  aggregates an element into the result of its chunk
+   * @param combiner  combines the result of the chunks so far with that of the next one
+   * @return the result
+   */
+  public <TReturn> TReturn aggregate(final TReturn initialValue, final Func2<T, TReturn, TReturn> aggregation,
+      Func2<TReturn, TReturn, TReturn> combiner) {
+    Iterator<TReturn> results = pipeline.chunks(new Func1<List<Object>, TReturn>() {
+      @SuppressWarnings("unchecked")
+      public TReturn apply(List<Object> chunk) {
+        TReturn rt = initialValue;
+        for (Object value : chunk) {
+          Object output = pipeline.apply(value);
+          if (output != FILTERED) {
+            rt = aggregation.apply((T) output, rt);
+          }
+        }
+        return rt;
+      }
+    });
+    TReturn rt = initialValue;
+    while (results.hasNext()) {
+      rt = combiner.apply(rt, results.next());
+    }
+    return rt;
+  }
+
+  private <TOutput> ParallelEnumerable<TOutput> then(final Func1<T, Object> next) {
+    final Func1<Object, Object> stage = pipeline.stage;
+    Func1<Object, Object> rt = new Func1<Object, Object>() {
+      @SuppressWarnings("unchecked")
+      public Object apply(Object input) {
+        Object value = stage == null ? input : stage.apply(input);
+        return value == FILTERED ? FILTERED : next.apply((T) value);
+      }
+    };
+    return new ParallelEnumerable<TOutput>(new Pipeline<TOutput>(pipeline.source, pipeline.executor, pipeline.chunkSize, rt));
+  }
+
+  private static class Pipeline<T> implements Iterable<T> {
+
+    private static final int IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final Iterable<?> source;
+    private final Executor executor;
+    private final int chunkSize;
+    // the filters and projections of an element, null for none
+    private final Func1<Object, Object> stage;
+
+    public Pipeline(Iterable<?> source, Executor executor, int chunkSize, Func1<Object, Object> stage) {
+      this.source = source;
+      this.executor = executor;
+      this.chunkSize = chunkSize;
+      this.stage = stage;
+    }
+
+    public Object apply(Object value) {
+      return stage == null ? value : stage.apply(value);
+    }
+
+    public Iterator<T> iterator() {
+      if (stage == null) {
+        @SuppressWarnings("unchecked")
+        Iterator<T> rt = (Iterator<T>) source.iterator();
+        return rt;
+      }
+      final Iterator<List<T>> chunks = chunks(new Func1<List<Object>, List<T>>() {
+        @SuppressWarnings("unchecked")
+        public List<T> apply(List<Object> chunk) {
+          List<T> rt = new ArrayList<T>(chunk.size());
+          for (Object value : chunk) {
+            Object output = stage.apply(value);
+            if (output != FILTERED) {
+              rt.add((T) output);
+            }
+          }
+          return rt;
+        }
+      });
+      return new Iterator<T>() {
+        private Iterator<T> current = Collections.<T> emptyList().iterator();
+
+        public boolean hasNext() {
+          while (!current.hasNext()) {
+            if (!chunks.hasNext()) {
+              return false;
+            }
+            current = chunks.next().iterator();
+          }
+          return true;
+        }
+
+        public T next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return current.next();
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException("remove()");
+        }
+      };
+    }
+
+    /** Runs a function on each chunk of the source on the executor, and returns the results in order. */
+    public <R> Iterator<R> chunks(final Func1<List<Object>, R> fn) {
+      final Iterator<?> values = source.iterator();
+      final LinkedList<Future<R>> pending = new LinkedList<Future<R>>();
+      return new Iterator<R>() {
+        public boolean hasNext() {
+          while (pending.size() < IN_FLIGHT && values.hasNext()) {
+            final List<Object> chunk = new ArrayList<Object>(chunkSize);
+            while (chunk.size() < chunkSize && values.hasNext()) {
+              chunk.add(values.next());
+            }
+            FutureTask<R> task = new FutureTask<R>(new Callable<R>() {
+              public R call() throws Exception {
+                return fn.apply(chunk);
+              }
+            });
+            executor.execute(task);
+            pending.add(task);
+          }
+          return !pending.isEmpty();
+        }
+
+        public R next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return get(pending.removeFirst());
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException("remove()");
+        }
+      };
+    }
+
+    private static <R> R get(Future<R> future) {
+      try {
+        return future.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -1,6 +1,11 @@
 package org.core4j.test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Assert;
 
@@ -8,6 +13,7 @@ import org.core4j.Enumerable;
 import org.core4j.Enumerables;
 import org.core4j.Func;
 import org.core4j.Func1;
+import org.core4j.Func2;
 import org.core4j.Funcs;
 import org.core4j.Predicate1;
 import org.core4j.Predicates;
@@ -63,6 +69,106 @@ public class TestEnumerable {
     Assert.assertEquals("1,1", infinite(1).concat(infinite(1)).take(2).join(","));
   }
 
+  @Test
+  public void testOrderBy() {
+    Enumerable<Integer> values = Enumerable.create(5, 3, 9, 7, 15, 9, 13, 7, 10, 1);
+
+    Assert.assertEquals("1,3,5,7,7,9,9,10,13,15", values.orderBy().join(","));
+    Assert.assertEquals("15,13,10,9,9,7,7,5,3,1", values.orderByDescending(IDENTITY).join(","));
+    Assert.assertEquals("1,3,5", values.orderBy().take(3).join(","));
+    Assert.assertEquals("7,9,9", values.orderBy().skip(4).take(3).join(","));
+    Assert.assertEquals("9,9", values.orderBy().take(7).skip(5).join(","));
+    Assert.assertEquals("10,13,15", values.orderBy().skip(7).take(5).join(","));
+    Assert.assertEquals("", values.orderBy().take(0).join(","));
+    Assert.assertEquals((Integer) 1, values.orderBy().first());
+    Assert.assertEquals(10, values.orderBy().count());
+
+    // by the last digit, then descending: a single composite ordering, stable for equal keys
+    Assert.assertEquals("10,1,13,3,15,5,7,7,9,9", values.orderBy(LAST_DIGIT).thenByDescending(IDENTITY).join(","));
+    Assert.assertEquals("10,3,13,5,15,7,7,9,9", values.orderBy(IS_ONE).thenBy(LAST_DIGIT).take(9).join(","));
+    Enumerable<String> strings = Enumerable.create("bb", "a", "c", "aa", "b", "ab");
+    Assert.assertEquals("a,c,b,bb,aa,ab", strings.orderBy(LENGTH).join(","));
+    Assert.assertEquals("a,c,b,bb", strings.orderBy(LENGTH).take(4).join(","));
+    Assert.assertEquals("a,b,c,aa", strings.orderBy(LENGTH).thenBy(String.CASE_INSENSITIVE_ORDER).take(4).join(","));
+
+    // the keys are extracted once per element
+    final int[] calls = new int[1];
+    Enumerable.range(1, 100).orderByDescending(new Func1<Integer, Integer>() {
+      public Integer apply(Integer input) {
+        calls[0]++;
+        return input;
+      }
+    }).take(10).toList();
+    Assert.assertEquals(100, calls[0]);
+
+    // the ordering is deferred until iteration
+    List<Integer> list = new ArrayList<Integer>(Arrays.asList(2, 1));
+    Enumerable<Integer> ordered = Enumerable.create(list).orderBy();
+    list.add(0);
+    Assert.assertEquals("0,1,2", ordered.join(","));
+  }
+
+  @Test
+  public void testParallel() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Enumerable<Integer> values = Enumerable.range(1, 1000);
+
+      Assert.assertEquals(values.where(IS_ODD).select(TIMES_TWO).toList(),
+          values.parallel(executor, 7).where(IS_ODD).select(TIMES_TWO).toList());
+      Assert.assertEquals(500, values.parallel(executor, 7).where(IS_ODD).count());
+      Assert.assertEquals(1000, values.parallel(executor).count());
+      Assert.assertEquals("2,6,10", values.parallel(executor, 7).where(IS_ODD).select(TIMES_TWO).take(3).join(","));
+      Assert.assertEquals(0, Enumerable.empty(Integer.class).parallel(executor).select(TIMES_TWO).count());
+      Assert.assertEquals((Integer) 500500, values.parallel(executor, 7).aggregate(0, SUM, SUM));
+      Assert.assertEquals((Integer) 250000, values.parallel(executor, 7).where(IS_ODD).aggregate(Integer.class, 0, SUM));
+
+      // the source is read as the elements are consumed
+      Assert.assertEquals((Integer) 2, infinite(1).parallel(executor).select(TIMES_TWO).first());
+
+      try {
+        values.parallel(executor).select(new Func1<Integer, Integer>() {
+          public Integer apply(Integer input) {
+            throw new IllegalStateException("failed " + input);
+          }
+        }).toList();
+        Assert.fail();
+      } catch (IllegalStateException e) {
+        // the exception of the task
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testSizeAware() {
+    List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 3));
+    Enumerable<Integer> values = Enumerable.create(list);
+
+    Assert.assertEquals(3, values.count());
+    Assert.assertEquals((Integer) 3, values.last());
+    Assert.assertEquals((Integer) 2, values.elementAt(1));
+    Assert.assertEquals(null, values.elementAtOrNull(3));
+    Assert.assertEquals(null, values.elementAtOrNull(-1));
+    list.add(4);
+    Assert.assertEquals(4, values.count());
+    Assert.assertEquals((Integer) 4, values.last());
+
+    try {
+      values.elementAt(4);
+      Assert.fail();
+    } catch (RuntimeException e) {
+      // no element
+    }
+    try {
+      Enumerable.create(new ArrayList<Integer>()).last();
+      Assert.fail();
+    } catch (RuntimeException e) {
+      // no elements
+    }
+  }
+
   private static <T> Enumerable<T> infinite(final T value) {
     return Enumerable.createFromIterator(new Func<Iterator<T>>() {
       public Iterator<T> apply() {
@@ -93,6 +199,30 @@ public class TestEnumerable {
     }
   };
   
+  private static final Func2<Integer, Integer, Integer> SUM = new Func2<Integer, Integer, Integer>() {
+    public Integer apply(Integer input1, Integer input2) {
+      return input1 + input2;
+    }
+  };
+
+  private static final Func1<Integer, Integer> LAST_DIGIT = new Func1<Integer, Integer>() {
+    public Integer apply(Integer input) {
+      return input % 10;
+    }
+  };
+
+  private static final Func1<Integer, Boolean> IS_ONE = new Func1<Integer, Boolean>() {
+    public Boolean apply(Integer input) {
+      return input == 1;
+    }
+  };
+
+  private static final Func1<String, Integer> LENGTH = new Func1<String, Integer>() {
+    public Integer apply(String input) {
+      return input.length();
+    }
+  };
+
   private static final Predicate1<Integer> IS_ODD = new Predicate1<Integer>() {
     public boolean apply(Integer input) {
       return input % 2 == 1;
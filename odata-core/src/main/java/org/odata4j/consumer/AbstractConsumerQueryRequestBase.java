@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.core4j.Enumerable;
 import org.core4j.Func1;
@@ -29,6 +30,12 @@ public abstract class AbstractConsumerQueryRequestBase<T> implements OQueryReque
   private String filter;
   private String select;
   private String expand;
+  private int prefetchDepth;
+  private Executor prefetchExecutor;
+  private boolean streaming;
+  private String partitionProperty;
+  private int partitions;
+  private Executor partitionExecutor;
 
   private String lastSegment;
   private EdmEntitySet entitySet;
@@ -138,6 +145,41 @@ public abstract class AbstractConsumerQueryRequestBase<T> implements OQueryReque
     return this;
   }
 
+  @Override
+  public OQueryRequest<T> prefetch(int depth) {
+    return prefetch(depth, null);
+  }
+
+  @Override
+  public OQueryRequest<T> prefetch(int depth, Executor executor) {
+    if (depth < 0)
+      throw new IllegalArgumentException("depth must not be negative");
+    this.prefetchDepth = depth;
+    this.prefetchExecutor = executor;
+    return this;
+  }
+
+  @Override
+  public OQueryRequest<T> streaming(boolean streaming) {
+    this.streaming = streaming;
+    return this;
+  }
+
+  @Override
+  public OQueryRequest<T> partition(String property, int partitions) {
+    return partition(property, partitions, null);
+  }
+
+  @Override
+  public OQueryRequest<T> partition(String property, int partitions, Executor executor) {
+    if (partitions < 1)
+      throw new IllegalArgumentException("partitions must be positive");
+    this.partitionProperty = property;
+    this.partitions = partitions;
+    this.partitionExecutor = executor;
+    return this;
+  }
+
   @Override
   public OQueryRequest<T> nav(Object keyValue, String navProperty) {
     return nav(OEntityKey.create(keyValue), navProperty);
@@ -157,6 +199,50 @@ public abstract class AbstractConsumerQueryRequestBase<T> implements OQueryReque
     return this;
   }
 
+  protected int getPrefetchDepth() {
+    return prefetchDepth;
+  }
+
+  /** The executor prefetching pages, or null for the default. */
+  protected Executor getPrefetchExecutor() {
+    return prefetchExecutor;
+  }
+
+  protected boolean isStreaming() {
+    return streaming;
+  }
+
+  /** The property the query is partitioned on, or null if it is not partitioned. */
+  protected String getPartitionProperty() {
+    return partitionProperty;
+  }
+
+  protected int getPartitions() {
+    return partitions;
+  }
+
+  /** The executor running the sub-queries of a partitioned query, or null for the prefetch executor. */
+  protected Executor getPartitionExecutor() {
+    return partitionExecutor;
+  }
+
+  protected Integer getTop() {
+    return top;
+  }
+
+  protected Integer getSkip() {
+    return skip;
+  }
+
+  protected String getOrderBy() {
+    return orderBy;
+  }
+
+  /** The filter, URL-encoded. */
+  protected String getFilter() {
+    return filter;
+  }
+
   protected List<EntitySegment> getSegments() {
     return this.segments;
   }
@@ -2,6 +2,7 @@ package org.odata4j.consumer;
 
 import java.util.List;
 
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.Response.StatusType;
 
@@ -30,6 +31,7 @@ import org.odata4j.stax2.XMLEventReader2;
 public abstract class AbstractODataClient implements ODataClient {
 
   private FormatType formatType;
+  private MetadataCache metadataCache = MetadataCache.getDefault();
 
   protected AbstractODataClient(FormatType formatType) {
     this.formatType = formatType;
@@ -39,11 +41,78 @@ public abstract class AbstractODataClient implements ODataClient {
     return this.formatType;
   }
 
+  /** The cache of the metadata of services, or null if metadata is not cached. */
+  public MetadataCache getMetadataCache() {
+    return metadataCache;
+  }
+
+  /**
+   * Sets the cache of the metadata of services; {@link MetadataCache#getDefault()} by default.
+   *
+   * @param metadataCache  the cache, or null to download the metadata every time
+   */
+  public void setMetadataCache(MetadataCache metadataCache) {
+    this.metadataCache = metadataCache;
+  }
+
   public EdmDataServices getMetadata(ODataClientRequest request) throws ODataProducerException {
-    ODataClientResponse response = doRequest(FormatType.ATOM, request, Status.OK);
-    EdmDataServices metadata = new EdmxFormatParser().parseMetadata(toXml(response));
-    response.close();
-    return metadata;
+    MetadataCache cache = metadataCache;
+    if (cache == null) {
+      ODataClientResponse response = doRequest(FormatType.ATOM, request, Status.OK);
+      EdmDataServices metadata = new EdmxFormatParser().parseMetadata(toXml(response));
+      response.close();
+      return metadata;
+    }
+
+    String uri = request.getUrl();
+    MetadataCache.CachedMetadata cached = cache.get(uri);
+    if (cached != null && cached.isFresh()) {
+      EdmDataServices metadata = getCachedMetadata(cache, uri, cached);
+      if (metadata != null)
+        return metadata;
+      cached = null;
+    }
+    if (cached != null && cached.getEntityTag() != null)
+      request = request.header(HttpHeaders.IF_NONE_MATCH, cached.getEntityTag());
+
+    ODataClientResponse response = doRequest(FormatType.ATOM, request, Status.OK, Status.NOT_MODIFIED);
+    try {
+      String entityTag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+      if (isNotModified(response, entityTag, cached)) {
+        EdmDataServices metadata = cached == null ? null : getCachedMetadata(cache, uri, cached);
+        if (metadata != null) {
+          // a 304 need not repeat the entity tag, one it does send replaces the stored one
+          cache.revalidated(uri, cached, entityTag);
+          return metadata;
+        }
+        response.close();
+        response = doRequest(FormatType.ATOM, ODataClientRequest.get(uri), Status.OK);
+        entityTag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+      }
+      return cache.put(uri, entityTag, toXml(response));
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * Whether the response to a conditional request for metadata is a 304. A response that does not expose its
+   * status is taken to be one when it repeats the entity tag of the cached metadata.
+   */
+  private static boolean isNotModified(ODataClientResponse response, String entityTag, MetadataCache.CachedMetadata cached) {
+    if (response instanceof ODataClientStatusResponse)
+      return ((ODataClientStatusResponse) response).getStatus() == Status.NOT_MODIFIED.getStatusCode();
+    return cached != null && entityTag != null && entityTag.equals(cached.getEntityTag());
+  }
+
+  private static EdmDataServices getCachedMetadata(MetadataCache cache, String uri, MetadataCache.CachedMetadata cached) {
+    try {
+      return cached.getMetadata();
+    } catch (RuntimeException e) {
+      // an unreadable snapshot
+      cache.remove(uri);
+      return null;
+    }
   }
 
   public Iterable<AtomCollectionInfo> getCollections(ODataClientRequest request) throws ODataProducerException {
@@ -1,7 +1,26 @@
 package org.odata4j.consumer;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
 import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.core4j.Enumerable;
 import org.core4j.Func;
@@ -10,16 +29,24 @@ import org.core4j.ReadOnlyIterator;
 import org.odata4j.core.ODataConstants;
 import org.odata4j.core.ODataConstants.Charsets;
 import org.odata4j.core.ODataVersion;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.Throwables;
 import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmType;
 import org.odata4j.exceptions.ODataProducerException;
 import org.odata4j.format.Entry;
 import org.odata4j.format.Feed;
 import org.odata4j.format.FormatParser;
 import org.odata4j.format.FormatParserFactory;
 import org.odata4j.format.FormatType;
+import org.odata4j.format.LazyFeed;
+import org.odata4j.format.LazyFeedParser;
 import org.odata4j.format.Settings;
 import org.odata4j.internal.FeedCustomizationMapping;
 import org.odata4j.internal.InternalUtil;
+import org.odata4j.urlencoder.ConversionUtil;
 
 /**
  * Query-request implementation.
@@ -35,23 +62,53 @@ public class ConsumerQueryEntitiesRequest<T> extends AbstractConsumerQueryReques
     this.fcMapping = fcMapping;
   }
 
+  private static final List<EdmType> INTEGRAL_TYPES = Arrays.<EdmType> asList(
+      EdmSimpleType.BYTE, EdmSimpleType.SBYTE, EdmSimpleType.INT16, EdmSimpleType.INT32, EdmSimpleType.INT64);
+
   @Override
   public Enumerable<T> execute() throws ODataProducerException {
+    if (getPartitionProperty() != null)
+      return executePartitioned();
+
     ODataClientRequest request = buildRequest(null);
     ODataClientResponse response = getClient().getEntities(request);
-    final Feed feed = doRequest(response);
+    Feed feed = doRequest(response);
+    if (getPrefetchDepth() > 0) {
+      // the next link must be known to prefetch the second page
+      feed = new BufferedFeed(request, feed);
+    }
 
     return getResult(feed);
   }
 
-  private Feed doRequest(ODataClientResponse response) throws ODataProducerException {
+  private Feed doRequest(final ODataClientResponse response) throws ODataProducerException {
     ODataVersion version = InternalUtil.getDataServiceVersion(response.getHeaders()
         .getFirst(ODataConstants.Headers.DATA_SERVICE_VERSION));
 
     FormatParser<Feed> parser = FormatParserFactory.getParser(Feed.class, getClient().getFormatType(),
         new Settings(version, getMetadata(), getEntitySet().getName(), null, fcMapping));
 
-    Feed feed = parser.parse(getClient().getFeedReader(response));
+    Reader reader = getClient().getFeedReader(response);
+    if (isStreaming() && parser instanceof LazyFeedParser) {
+      // entries are parsed as they are iterated; the response is closed with the feed
+      try {
+        return ((LazyFeedParser) parser).parseLazily(new FilterReader(reader) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              response.close();
+            }
+          }
+        });
+      } catch (RuntimeException e) {
+        response.close();
+        throw e;
+      }
+    }
+
+    Feed feed = parser.parse(reader);
     response.close();
     return feed;
   }
@@ -62,74 +119,483 @@ public class ConsumerQueryEntitiesRequest<T> extends AbstractConsumerQueryReques
     private Feed feed;
     private Iterator<Entry> feedEntries;
     private int feedEntryCount;
+    // pages fetched in the background, and the number of prefetchers filling them that have not fetched their last page
+    private BlockingQueue<Object> pages;
+    private int prefetching;
 
     public EntryIterator(ODataClientRequest request, Feed feed) {
       this.request = request;
       this.feed = feed;
-      feedEntries = feed.getEntries().iterator();
-      feedEntryCount = 0;
+      if (feed != null) {
+        feedEntries = feed.getEntries().iterator();
+        feedEntryCount = 0;
+        prefetchAfter(feed);
+      }
+    }
+
+    /** Iterates the entries of the given requests' pages, in the order the pages are fetched. */
+    public EntryIterator(List<ODataClientRequest> requests, int depth, Executor executor) {
+      this.pages = new LinkedBlockingQueue<Object>();
+      this.prefetching = requests.size();
+      for (ODataClientRequest request : requests)
+        new PagePrefetcher(copy(request), depth, executor, pages);
     }
 
     @Override
     protected IterationResult<Entry> advance() throws Exception {
+      while (true) {
+        if (feed == null) {
+          if (pages != null) {
+            if (prefetching == 0)
+              return IterationResult.done();
+            BufferedFeed page = takePage(pages);
+            request = page.request;
+            feed = page;
+          } else {
+            feed = doRequest(getClient().getEntities(request));
+            if (getPrefetchDepth() > 0) {
+              feed = new BufferedFeed(request, feed);
+              prefetchAfter(feed);
+            }
+          }
+          feedEntries = feed.getEntries().iterator();
+          feedEntryCount = 0;
+        }
+
+        if (feedEntries.hasNext()) {
+          feedEntryCount++;
+          return IterationResult.next(feedEntries.next());
+        }
+
+        if (feed instanceof LazyFeed)
+          ((LazyFeed) feed).close();
+
+        if (pages != null) {
+          if (((BufferedFeed) feed).last)
+            prefetching--;
+        } else {
+          request = nextRequest(request, feed, feedEntryCount);
+          if (request == null)
+            return IterationResult.done();
+        }
+        feed = null;
+      }
+    }
 
-      if (feed == null) {
-        ODataClientResponse response = getClient().getEntities(request);
-        feed = doRequest(response);
-        feedEntries = feed.getEntries().iterator();
-        feedEntryCount = 0;
+    /**
+     * Starts fetching the pages after the given first page in the background, so that the second page is
+     * on its way while the entries of the first are iterated.
+     */
+    private void prefetchAfter(Feed first) {
+      if (getPrefetchDepth() <= 0 || !(first instanceof BufferedFeed))
+        return;
+      ODataClientRequest next = nextRequest(request, first, ((BufferedFeed) first).entries.size());
+      if (next == null)
+        return;
+      pages = new LinkedBlockingQueue<Object>();
+      prefetching = 1;
+      new PagePrefetcher(next, getPrefetchDepth(), getPrefetchExecutor(), pages);
+    }
+
+  }
+
+  /**
+   * Gets the request for the page after the given one.
+   *
+   * @return the request, or null if it was the last page
+   */
+  private static ODataClientRequest nextRequest(ODataClientRequest request, Feed feed, int feedEntryCount) {
+    // old-style paging: $page and $itemsPerPage
+    if (request.getQueryParams().containsKey("$page") && request.getQueryParams().containsKey("$itemsPerPage")) {
+      if (feedEntryCount == 0)
+        return null;
+
+      int page = Integer.parseInt(request.getQueryParams().get("$page"));
+      // int itemsPerPage = Integer.parseInt(request.getQueryParams().get("$itemsPerPage"));
+
+      return request.queryParam("$page", Integer.toString(page + 1));
+    }
+
+    // new-style paging: $skiptoken
+    String next = feed.getNext();
+    if (next == null)
+      return null;
+
+    String url = request.getUrl();
+    int lastSlash = url.lastIndexOf("/");
+    String baseURL = url.substring(0, lastSlash);
+    String entityName = url.substring(lastSlash + 1, url.length());
+    if (entityName.contains("?")) {
+      int query = entityName.indexOf("?");
+      entityName = entityName.substring(0, query);
+    }
+    int skipTokenIndex = next.indexOf("$skiptoken=");
+    if (skipTokenIndex > -1) {
+      String skiptoken = next.substring(skipTokenIndex + "$skiptoken=".length());
+      // decode the skiptoken first since it gets encoded as a query param
+      try {
+        skiptoken = URLDecoder.decode(skiptoken, Charsets.Upper.UTF_8);
+      } catch (UnsupportedEncodingException e) {
+        throw Throwables.propagate(e);
       }
+      return request.queryParam("$skiptoken", skiptoken);
+    } else if (next.toLowerCase().startsWith("http")) {
+      return ODataClientRequest.get(next);
+    } else if (next.startsWith(entityName)) {
+      return ODataClientRequest.get(baseURL + "/" + next);
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** A page read completely, with the request that returned it. */
+  private static class BufferedFeed implements Feed {
+
+    private final ODataClientRequest request;
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private final String next;
+    private boolean last;
+    // lets the prefetcher that fetched the page fetch further
+    private Runnable taken;
 
-      if (feedEntries.hasNext()) {
-        feedEntryCount++;
-        return IterationResult.next(feedEntries.next());
+    BufferedFeed(ODataClientRequest request, Feed feed) {
+      this.request = request;
+      try {
+        for (Entry entry : feed.getEntries())
+          entries.add(entry);
+        this.next = feed.getNext();
+      } finally {
+        if (feed instanceof LazyFeed)
+          ((LazyFeed) feed).close();
       }
+    }
 
-      // old-style paging: $page and $itemsPerPage
-      if (request.getQueryParams().containsKey("$page") && request.getQueryParams().containsKey("$itemsPerPage")) {
-        if (feedEntryCount == 0)
-          return IterationResult.done();
+    @Override
+    public String getNext() {
+      return next;
+    }
 
-        int page = Integer.parseInt(request.getQueryParams().get("$page"));
-        // int itemsPerPage = Integer.parseInt(request.getQueryParams().get("$itemsPerPage"));
+    @Override
+    public Iterable<Entry> getEntries() {
+      return entries;
+    }
+  }
 
-        request = request.queryParam("$page", Integer.toString(page + 1));
+  /**
+   * Takes the next page fetched by the prefetchers filling the given queue.
+   */
+  private static BufferedFeed takePage(BlockingQueue<Object> pages) throws InterruptedException {
+    Object page = pages.take();
+    if (page instanceof Throwable)
+      throw Throwables.propagate((Throwable) page);
+    BufferedFeed feed = (BufferedFeed) page;
+    feed.taken.run();
+    return feed;
+  }
+
+  /**
+   * Fetches pages, starting with the given request, one after another on an executor. At most {@code depth}
+   * pages are fetched and not yet taken, so an iteration that is given up fetches no more than that.
+   */
+  private class PagePrefetcher implements Runnable {
+
+    private final int depth;
+    private final Executor executor;
+    // fetched pages, or the exception that ended the fetching
+    private final BlockingQueue<Object> pages;
+
+    private ODataClientRequest nextRequest;
+    private int ahead;
+    private boolean running;
+
+    PagePrefetcher(ODataClientRequest request, int depth, Executor executor, BlockingQueue<Object> pages) {
+      this.nextRequest = request;
+      this.depth = depth;
+      this.executor = executor != null ? executor : PrefetchExecutorHolder.EXECUTOR;
+      this.pages = pages;
+      schedule();
+    }
+
+    void taken() {
+      synchronized (this) {
+        ahead--;
       }
+      schedule();
+    }
 
-      // new-style paging: $skiptoken
-      else {
-        if (feed.getNext() == null)
-          return IterationResult.done();
+    private void schedule() {
+      synchronized (this) {
+        if (running || nextRequest == null || ahead >= depth)
+          return;
+        running = true;
+        ahead++;
+      }
+      try {
+        executor.execute(this);
+      } catch (RuntimeException e) {
+        pages.add(e);
+      }
+    }
+
+    @Override
+    public void run() {
+      ODataClientRequest request;
+      synchronized (this) {
+        request = nextRequest;
+      }
+      try {
+        BufferedFeed page = new BufferedFeed(request, doRequest(getClient().getEntities(request)));
+        ODataClientRequest next = nextRequest(request, page, page.entries.size());
+        page.last = next == null;
+        page.taken = new Runnable() {
+          @Override
+          public void run() {
+            taken();
+          }
+        };
+        synchronized (this) {
+          nextRequest = next;
+          running = false;
+        }
+        pages.add(page);
+      } catch (Throwable t) {
+        synchronized (this) {
+          nextRequest = null;
+          running = false;
+        }
+        pages.add(t);
+        return;
+      }
+      schedule();
+    }
+  }
 
-		String url = request.getUrl();
-		int lastSlash = url.lastIndexOf("/");
-		String baseURL = url.substring(0, lastSlash);
-		String entityName = url.substring(lastSlash + 1, url.length());
-		if (entityName.contains("?")) {
-			int query = entityName.indexOf("?");
-			entityName = entityName.substring(0, query);
-		}
-		int skipTokenIndex = feed.getNext().indexOf("$skiptoken=");
-		if (skipTokenIndex > -1) {
-			String skiptoken = feed.getNext().substring(skipTokenIndex + "$skiptoken=".length());
-			// decode the skiptoken first since it gets encoded as a query param
-			skiptoken = URLDecoder.decode(skiptoken, Charsets.Upper.UTF_8);
-			request = request.queryParam("$skiptoken", skiptoken);
-		} else if (feed.getNext().toLowerCase().startsWith("http")) {
-			request = ODataClientRequest.get(feed.getNext());
-		} else if (feed.getNext().startsWith(entityName)) {
-			request = ODataClientRequest.get(baseURL + "/" + feed.getNext());
-		} else {
-			throw new UnsupportedOperationException();
-		}
+  /**
+   * Runs the query as concurrent sub-queries over disjoint ranges of the partition property, merged in the
+   * requested order if there is one.
+   */
+  private Enumerable<T> executePartitioned() {
+    final Comparator<Entry> order = getOrderBy() == null ? null : new EntryComparator(getOrderBy());
+    final List<ODataClientRequest> requests = partitionRequests();
+    final int depth = Math.max(1, getPrefetchDepth());
+    final Executor executor = getPartitionExecutor() != null ? getPartitionExecutor() : getPrefetchExecutor();
 
+    Enumerable<Entry> entries = Enumerable.createFromIterator(new Func<Iterator<Entry>>() {
+      public Iterator<Entry> apply() {
+        if (order == null)
+          return new EntryIterator(requests, depth, executor);
+        List<Iterator<Entry>> partitions = new ArrayList<Iterator<Entry>>();
+        for (ODataClientRequest request : requests)
+          partitions.add(new EntryIterator(Collections.singletonList(request), depth, executor));
+        return new MergeIterator(partitions, order);
       }
+    });
 
-      feed = null;
+    // the sub-queries return the first skip + top entities each, of which the merged result keeps top
+    if (getSkip() != null && getSkip() > 0)
+      entries = entries.skip(getSkip());
+    if (getTop() != null)
+      entries = entries.take(getTop());
+    return toEntities(entries);
+  }
+
+  /**
+   * Probes the count and the bounds of the partition property, and gets the sub-query of each partition.
+   */
+  private List<ODataClientRequest> partitionRequests() {
+    String property = getPartitionProperty();
+    EdmProperty edmProperty = getEntitySet().getType().findProperty(property);
+    if (edmProperty == null)
+      throw new IllegalArgumentException("Unknown property " + property + " in entity set " + getEntitySet().getName());
+    if (!INTEGRAL_TYPES.contains(edmProperty.getType()))
+      throw new IllegalArgumentException("Cannot partition on property " + property + " of type " + edmProperty.getType().getFullyQualifiedTypeName());
+
+    List<ODataClientRequest> requests = new ArrayList<ODataClientRequest>();
+    long count = probeCount();
+    if (count == 0)
+      return requests;
+
+    Number min = probeBound(property, "asc");
+    Number max = probeBound(property, "desc");
+    if (min != null && max != null) {
+      BigInteger lower = BigInteger.valueOf(min.longValue());
+      BigInteger span = BigInteger.valueOf(max.longValue()).subtract(lower).add(BigInteger.ONE);
+      int partitions = BigInteger.valueOf(getPartitions()).min(BigInteger.valueOf(count)).min(span).intValue();
+
+      // the first and last ranges are open, so that entities added since the probes are not missed
+      String from = null;
+      for (int i = 1; i <= partitions; i++) {
+        String to = i == partitions ? null : literal(edmProperty.getType(),
+            lower.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions))));
+        String range;
+        if (from == null)
+          range = to == null ? property + " ne null" : property + " lt " + to;
+        else
+          range = to == null ? property + " ge " + from : property + " ge " + from + " and " + property + " lt " + to;
+        // nulls are excluded explicitly, for services that cannot compare them
+        if (edmProperty.isNullable() && (from != null || to != null))
+          range = property + " ne null and " + range;
+        requests.add(partitionRequest(range));
+        from = to;
+      }
+    }
+    if (edmProperty.isNullable())
+      requests.add(partitionRequest(property + " eq null"));
+    return requests;
+  }
+
+  private ODataClientRequest partitionRequest(String range) {
+    ODataClientRequest request = buildRequest(null);
+    request.getQueryParams().remove("$skip");
+    if (getTop() != null)
+      request = request.queryParam("$top", Integer.toString(getTop() + (getSkip() == null ? 0 : getSkip())));
+    return request.queryParam("$filter", and(range));
+  }
+
+  private long probeCount() {
+    ODataClientRequest request = buildRequest(new Func1<String, String>() {
+      public String apply(String path) {
+        return path + "/$count";
+      }
+    });
+    request.getQueryParams().keySet().removeAll(Arrays.asList("$top", "$skip", "$orderby", "$select", "$expand"));
+    return Long.parseLong(getClient().requestBody(getClient().getFormatType(), request).trim());
+  }
+
+  /**
+   * Gets the lowest or highest value of the given property, or null if it is null for every entity.
+   */
+  private Number probeBound(String property, String direction) {
+    ODataClientRequest request = buildRequest(null);
+    request.getQueryParams().keySet().removeAll(Arrays.asList("$skip", "$expand"));
+    request = request.queryParam("$top", "1")
+        .queryParam("$orderby", property + " " + direction)
+        .queryParam("$select", property)
+        .queryParam("$filter", and(property + " ne null"));
+    BufferedFeed feed = new BufferedFeed(request, doRequest(getClient().getEntities(request)));
+    return feed.entries.isEmpty() ? null : (Number) feed.entries.get(0).getEntity().getProperty(property).getValue();
+  }
+
+  /** Adds the given condition to the filter of the query, and encodes it. */
+  private String and(String condition) {
+    String filter = getFilter() == null ? condition : "(" + ConversionUtil.decodeString(getFilter()) + ") and " + condition;
+    return ConversionUtil.encodeString(filter);
+  }
+
+  private static String literal(EdmType type, BigInteger value) {
+    return EdmSimpleType.INT64.equals(type) ? value + "L" : value.toString();
+  }
+
+  private static ODataClientRequest copy(ODataClientRequest request) {
+    // paging adds query parameters to the map of the request it pages
+    return new ODataClientRequest(request.getMethod(), request.getUrl(), new HashMap<String, String>(request.getHeaders()),
+        new HashMap<String, String>(request.getQueryParams()), request.getPayload());
+  }
+
+  /**
+   * Merges iterators, each ordered by the given order, into one.
+   */
+  private static class MergeIterator extends ReadOnlyIterator<Entry> {
+
+    private final PriorityQueue<Head> heads;
+
+    MergeIterator(List<Iterator<Entry>> iterators, final Comparator<Entry> order) {
+      this.heads = new PriorityQueue<Head>(Math.max(1, iterators.size()), new Comparator<Head>() {
+        @Override
+        public int compare(Head a, Head b) {
+          int rt = order.compare(a.entry, b.entry);
+          // equal entries are returned in partition order
+          return rt != 0 ? rt : a.index - b.index;
+        }
+      });
+      for (int i = 0; i < iterators.size(); i++)
+        advance(new Head(i, iterators.get(i)));
+    }
+
+    @Override
+    protected IterationResult<Entry> advance() throws Exception {
+      Head head = heads.poll();
+      if (head == null)
+        return IterationResult.done();
+      Entry rt = head.entry;
+      advance(head);
+      return IterationResult.next(rt);
+    }
 
-      return advance(); // TODO stackoverflow possible here
+    private void advance(Head head) {
+      if (head.iterator.hasNext()) {
+        head.entry = head.iterator.next();
+        heads.add(head);
+      }
     }
 
+    private static class Head {
+
+      final int index;
+      final Iterator<Entry> iterator;
+      Entry entry;
+
+      Head(int index, Iterator<Entry> iterator) {
+        this.index = index;
+        this.iterator = iterator;
+      }
+    }
+  }
+
+  /**
+   * Orders entries by a $orderby expression of property names, each optionally followed by asc or desc; nulls
+   * come first.
+   */
+  private static class EntryComparator implements Comparator<Entry> {
+
+    private final List<String> properties = new ArrayList<String>();
+    private final List<Boolean> descending = new ArrayList<Boolean>();
+
+    EntryComparator(String orderBy) {
+      for (String term : orderBy.split(",")) {
+        String[] parts = term.trim().split("\\s+");
+        if (parts.length > 2 || !parts[0].matches("\\w+")
+            || (parts.length == 2 && !parts[1].equalsIgnoreCase("asc") && !parts[1].equalsIgnoreCase("desc")))
+          throw new IllegalArgumentException("A partitioned query can only be ordered by properties: " + orderBy);
+        properties.add(parts[0]);
+        descending.add(parts.length == 2 && parts[1].equalsIgnoreCase("desc"));
+      }
+    }
+
+    @Override
+    public int compare(Entry a, Entry b) {
+      OEntity entityA = a.getEntity();
+      OEntity entityB = b.getEntity();
+      for (int i = 0; i < properties.size(); i++) {
+        int rt = compareValues(entityA.getProperty(properties.get(i)).getValue(), entityB.getProperty(properties.get(i)).getValue());
+        if (rt != 0)
+          return descending.get(i) ? -rt : rt;
+      }
+      return 0;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+      if (a == null || b == null)
+        return a == null ? (b == null ? 0 : -1) : 1;
+      if (a instanceof Comparable && a.getClass().isInstance(b))
+        return ((Comparable) a).compareTo(b);
+      return a.toString().compareTo(b.toString());
+    }
+  }
+
+  private static class PrefetchExecutorHolder {
+
+    static final Executor EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger threads = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "odata4j-prefetch-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
   }
 
   private ODataClientRequest getRequest() {
@@ -137,12 +603,18 @@ public class ConsumerQueryEntitiesRequest<T> extends AbstractConsumerQueryReques
   }
 
   private Enumerable<T> getResult(final Feed feed) {
+    final AtomicReference<Feed> firstPage = new AtomicReference<Feed>(feed);
     Enumerable<Entry> entries = Enumerable.createFromIterator(new Func<Iterator<Entry>>() {
       public Iterator<Entry> apply() {
-        return new EntryIterator(buildRequest(null), feed);
+        // the entries of a lazy feed can be iterated once, later iterations request the first page again
+        return new EntryIterator(buildRequest(null), feed instanceof LazyFeed ? firstPage.getAndSet(null) : feed);
       }
     });
 
+    return toEntities(entries);
+  }
+
+  private Enumerable<T> toEntities(Enumerable<Entry> entries) {
     return entries.select(new Func1<Entry, T>() {
       public T apply(Entry input) {
         return InternalUtil.toEntity(entityType, input.getEntity());
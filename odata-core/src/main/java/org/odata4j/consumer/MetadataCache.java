@@ -0,0 +1,294 @@
+package org.odata4j.consumer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.odata4j.core.ODataConstants;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.core.Throwables;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.xml.EdmxFormatParser;
+import org.odata4j.internal.InternalUtil;
+import org.odata4j.stax2.XMLEventReader2;
+import org.odata4j.stax2.util.BinaryXMLEvents;
+
+/**
+ * Caches the metadata of services, by the URI of their <code>$metadata</code> document, for
+ * {@link AbstractODataClient#getMetadata(ODataClientRequest)}.
+ *
+ * <p>Metadata is kept in process and, if the cache has a directory, as a snapshot file per service. A snapshot
+ * holds the <code>$metadata</code> document as compact binary XML events ({@link BinaryXMLEvents}), so a new process
+ * builds the metadata from a file without downloading the document or parsing XML.
+ *
+ * <p>Cached metadata is used as is until it is older than the maximum age. After that it is revalidated with its
+ * entity tag (<code>If-None-Match</code>), and downloaded again only if the service has changed it.
+ */
+public class MetadataCache {
+
+  private static final Logger log = Logger.getLogger(MetadataCache.class.getName());
+
+  private static final int MAGIC = 0x4F444D43;
+  private static final int VERSION = 1;
+  private static final String SUFFIX = ".metadata";
+
+  private static final MetadataCache DEFAULT = new MetadataCache(getDirectorySetting(), getMaxAgeSetting());
+
+  private final File directory;
+  private final long maxAge;
+  private final ConcurrentMap<String, CachedMetadata> entries = new ConcurrentHashMap<String, CachedMetadata>();
+
+  /**
+   * Creates an in-process cache.
+   *
+   * @param maxAge  the time in milliseconds metadata is used without revalidating it, 0 to revalidate it every time
+   */
+  public MetadataCache(long maxAge) {
+    this(null, maxAge);
+  }
+
+  /**
+   * Creates a cache that keeps snapshots in the given directory.
+   *
+   * @param directory  the directory of the snapshots, created if it does not exist; null for an in-process cache
+   * @param maxAge  the time in milliseconds metadata is used without revalidating it, 0 to revalidate it every time
+   */
+  public MetadataCache(File directory, long maxAge) {
+    if (maxAge < 0)
+      throw new IllegalArgumentException("maxAge must not be negative");
+    this.directory = directory;
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * Gets the process-wide cache used by clients by default. It keeps snapshots in the directory given by the
+   * {@link ODataConstants#ODATA_METADATA_CACHE_DIR} system property, if set, and uses metadata for the number of
+   * seconds given by {@link ODataConstants#ODATA_METADATA_CACHE_MAX_AGE} (0 by default) without revalidating it.
+   *
+   * @return the default cache
+   */
+  public static MetadataCache getDefault() {
+    return DEFAULT;
+  }
+
+  /** The directory of the snapshots, or null if the cache is in process only. */
+  public File getDirectory() {
+    return directory;
+  }
+
+  public long getMaxAge() {
+    return maxAge;
+  }
+
+  /**
+   * Removes all metadata from the cache, including the snapshots.
+   */
+  public void clear() {
+    entries.clear();
+    File[] files = directory == null ? null : directory.listFiles();
+    if (files != null) {
+      for (File file : files)
+        if (file.getName().endsWith(SUFFIX))
+          file.delete();
+    }
+  }
+
+  /**
+   * Gets the cached metadata of the given document, from memory or from its snapshot.
+   *
+   * @return the metadata, or null if it is not cached
+   */
+  CachedMetadata get(String uri) {
+    CachedMetadata rt = entries.get(uri);
+    if (rt == null && directory != null) {
+      rt = readSnapshot(uri);
+      if (rt != null) {
+        CachedMetadata previous = entries.putIfAbsent(uri, rt);
+        if (previous != null)
+          rt = previous;
+      }
+    }
+    return rt;
+  }
+
+  /**
+   * Removes the metadata of the given document, e.g. if its snapshot cannot be read.
+   */
+  void remove(String uri) {
+    entries.remove(uri);
+    if (directory != null)
+      snapshotFile(uri).delete();
+  }
+
+  /**
+   * Records that the given metadata is still current.
+   *
+   * @param entityTag  the entity tag the service confirmed the metadata with, or null if it sent none
+   */
+  void revalidated(String uri, CachedMetadata metadata, String entityTag) {
+    long now = System.currentTimeMillis();
+    metadata.validated = now;
+    if (entityTag != null && !entityTag.equals(metadata.entityTag)) {
+      metadata.entityTag = entityTag;
+      CachedMetadata snapshot = directory == null ? null : readSnapshot(uri);
+      if (snapshot != null) {
+        writeSnapshot(uri, entityTag, snapshot.events);
+        return;
+      }
+    }
+    if (directory != null)
+      snapshotFile(uri).setLastModified(now);
+  }
+
+  /**
+   * Parses a downloaded document and caches the metadata.
+   *
+   * @param uri  the URI of the document
+   * @param entityTag  the entity tag of the document, or null
+   * @param document  the document
+   * @return the metadata
+   */
+  EdmDataServices put(String uri, String entityTag, XMLEventReader2 document) {
+    BinaryXMLEvents.Recorder recorder = directory == null ? null : new BinaryXMLEvents.Recorder(document);
+    EdmDataServices metadata = new EdmxFormatParser().parseMetadata(recorder == null ? document : recorder);
+    entries.put(uri, new CachedMetadata(entityTag, System.currentTimeMillis(), metadata, null));
+    byte[] events = recorder == null ? null : recorder.toByteArray();
+    if (events != null)
+      writeSnapshot(uri, entityTag, events);
+    return metadata;
+  }
+
+  private CachedMetadata readSnapshot(String uri) {
+    File file = snapshotFile(uri);
+    if (!file.isFile())
+      return null;
+    try {
+      InputStream in = new FileInputStream(file);
+      try {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION || !uri.equals(data.readUTF()))
+          return null;
+        String entityTag = data.readBoolean() ? data.readUTF() : null;
+        int length = data.readInt();
+        if (length < 0 || length > file.length())
+          return null;
+        byte[] events = new byte[length];
+        data.readFully(events);
+        return new CachedMetadata(entityTag, file.lastModified(), null, events);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      log.log(Level.WARNING, "Cannot read the metadata snapshot " + file, e);
+      return null;
+    }
+  }
+
+  private void writeSnapshot(String uri, String entityTag, byte[] events) {
+    File file = snapshotFile(uri);
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(events.length + 256);
+      DataOutputStream data = new DataOutputStream(bytes);
+      data.writeInt(MAGIC);
+      data.writeInt(VERSION);
+      data.writeUTF(uri);
+      data.writeBoolean(entityTag != null);
+      if (entityTag != null)
+        data.writeUTF(entityTag);
+      data.writeInt(events.length);
+      data.write(events);
+      data.flush();
+
+      // write a temporary file and move it in place, so that other processes never read half a snapshot
+      directory.mkdirs();
+      File temp = File.createTempFile(file.getName(), ".tmp", directory);
+      try {
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+          bytes.writeTo(out);
+        } finally {
+          out.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        temp.delete();
+      }
+    } catch (IOException e) {
+      log.log(Level.WARNING, "Cannot write the metadata snapshot " + file, e);
+    }
+  }
+
+  private File snapshotFile(String uri) {
+    try {
+      StringBuilder name = new StringBuilder();
+      for (byte b : MessageDigest.getInstance("SHA-1").digest(uri.getBytes(Charsets.Upper.UTF_8)))
+        name.append(String.format("%02x", b));
+      return new File(directory, name.append(SUFFIX).toString());
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static File getDirectorySetting() {
+    String value = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_METADATA_CACHE_DIR);
+    return value == null || value.isEmpty() ? null : new File(value);
+  }
+
+  private static long getMaxAgeSetting() {
+    String value = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_METADATA_CACHE_MAX_AGE);
+    if (value != null && !value.isEmpty()) {
+      try {
+        return Math.max(0, Long.parseLong(value) * 1000);
+      } catch (NumberFormatException e) {
+        // ignore and use the default
+      }
+    }
+    return 0;
+  }
+
+  /** Cached metadata, built from the snapshot the first time it is used if it was read from one. */
+  class CachedMetadata {
+
+    private volatile String entityTag;
+    private volatile long validated;
+    private EdmDataServices metadata;
+    private byte[] events;
+
+    CachedMetadata(String entityTag, long validated, EdmDataServices metadata, byte[] events) {
+      this.entityTag = entityTag;
+      this.validated = validated;
+      this.metadata = metadata;
+      this.events = events;
+    }
+
+    String getEntityTag() {
+      return entityTag;
+    }
+
+    /** Whether the metadata can be used without revalidating it. */
+    boolean isFresh() {
+      return System.currentTimeMillis() - validated < maxAge;
+    }
+
+    synchronized EdmDataServices getMetadata() {
+      if (metadata == null) {
+        metadata = new EdmxFormatParser().parseMetadata(BinaryXMLEvents.read(events));
+        events = null;
+      }
+      return metadata;
+    }
+  }
+
+}
@@ -0,0 +1,16 @@
+package org.odata4j.consumer;
+
+/**
+ * An {@link ODataClientResponse} that exposes the HTTP status code of the response.
+ *
+ * <p>Implementing it is optional. The client checks for it where the status decides how a response is
+ * handled, e.g. to tell a 304 Not Modified from a 200 when revalidating cached metadata.</p>
+ */
+public interface ODataClientStatusResponse extends ODataClientResponse {
+
+  /**
+   * @return the HTTP status code of the response
+   */
+  int getStatus();
+
+}
@@ -24,6 +24,20 @@ public class OComplexObjects {
     return new OComplexObjectImpl(type, properties);
   }
 
+  /**
+   * Creates a new compact {@link OComplexObject}, which keeps just the values of its properties: their names and
+   * types come from the property layout of the complex type.
+   *
+   * @param type  the complex type
+   * @param values  the values of the properties of the complex type, copied
+   * @return the new complex object
+   */
+  public static OComplexObject createCompact(EdmComplexType type, OPropertyValues values) {
+    if (type == null || values.getLayout() != type.getPropertyLayout())
+      throw new IllegalArgumentException("values must be of the properties of the complex type");
+    return new OComplexObjectCompactImpl(type, values.snapshot());
+  }
+
   private static class BuilderImpl implements OComplexObject.Builder {
 
     private final EdmComplexType type;
@@ -60,7 +74,7 @@ public class OComplexObjects {
         throw new IllegalArgumentException("complexType cannot be null");
 
       this.complexType = complexType;
-      this.properties = Collections.unmodifiableList(properties);
+      this.properties = properties instanceof OPropertyValues.Snapshot ? properties : Collections.unmodifiableList(properties);
     }
 
     @Override
@@ -91,4 +105,19 @@ public class OComplexObjects {
 
   }
 
+  private static class OComplexObjectCompactImpl extends OComplexObjectImpl {
+
+    private final OPropertyValues.Snapshot values;
+
+    OComplexObjectCompactImpl(EdmComplexType complexType, OPropertyValues.Snapshot values) {
+      super(complexType, values);
+      this.values = values;
+    }
+
+    @Override
+    public OProperty<?> getProperty(String propName) {
+      return values.getProperty(propName);
+    }
+  }
+
 }
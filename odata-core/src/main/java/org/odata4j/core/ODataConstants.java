@@ -33,6 +33,11 @@ public class ODataConstants {
       + ";charset=" + Charsets.Lower.UTF_8;
   public static final String APPLICATION_HTTP = "application/http";
   public static final String APPLICATION_BINARY = "application/binary";
+  /** The binary format of {@link org.odata4j.format.FormatType#BINARY}. */
+  public static final String APPLICATION_ODATA4J_BINARY = "application/x-odata4j-binary";
+  // each byte of the binary format is written and read as the character of the same value
+  public static final String APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1 = APPLICATION_ODATA4J_BINARY
+      + ";charset=" + Charsets.Lower.ISO_8859_1;
 
   public static final ODataVersion DATA_SERVICE_VERSION = ODataVersion.V3;
   public static final String DATA_SERVICE_VERSION_HEADER = DATA_SERVICE_VERSION.asString;
@@ -64,8 +69,42 @@ public class ODataConstants {
    */
   public static final Integer DEFAULT_BUFFER_THRESHOLD_LIMIT = 64 * 1024 * 1024;
   public static final String ODATA_WRITER_THRESHOLD_SIZE = "odata4j.writer.buffer.threshold";
+  /**
+   * The number of idle response buffer segments kept for reuse by the writers
+   */
+  public static final String ODATA_WRITER_POOL_SIZE = "odata4j.writer.buffer.pool.size";
   public static final String JERSEY_CLIENT_CHUNKED_ENCODING_SIZE = "jersey.config.client.chunkedEncodingSize";
   public static final String ODATA_STREAM_BUFFER_SIZE = "odata4j.stream.buffer.size";
+  /**
+   * The number of parsed $filter, $orderby, $expand and $select options kept for reuse, 0 to disable the cache
+   */
+  public static final String ODATA_QUERY_CACHE_SIZE = "odata4j.query.cache.size";
+  /**
+   * The number of query operations of $batch requests executed concurrently, 0 or 1 (the default) to execute the
+   * operations one after another. Only set this if the producer supports concurrent reads
+   */
+  public static final String ODATA_BATCH_PARALLELISM = "odata4j.batch.parallelism";
+  /**
+   * The XML writers of the StAX provider: <code>stream</code> (the default) to write straight to an XMLStreamWriter,
+   * <code>event</code> to write through an XMLEventWriter
+   */
+  public static final String ODATA_XML_WRITER = "odata4j.xml.writer";
+  /**
+   * The directory in which consumers keep snapshots of the metadata of services, to build it from a file instead of
+   * downloading and parsing it; unset (the default) to cache the metadata in process only
+   */
+  public static final String ODATA_METADATA_CACHE_DIR = "odata4j.metadata.cache.dir";
+  /**
+   * The number of seconds consumers use cached metadata without revalidating it with the service, 0 (the default) to
+   * revalidate it every time
+   */
+  public static final String ODATA_METADATA_CACHE_MAX_AGE = "odata4j.metadata.cache.maxage";
+  /**
+   * The secret with which producers sign their $skiptoken values. Servers of the same service should share it, so
+   * that they accept the tokens of each other; unset (the default) for a random secret per process, whose tokens
+   * are rejected after a restart
+   */
+  public static final String ODATA_SKIPTOKEN_SECRET = "odata4j.skiptoken.secret";
 
   /** Common character sets. */
   public static class Charsets {
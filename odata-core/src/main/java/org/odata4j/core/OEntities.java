@@ -136,6 +136,56 @@ public class OEntities {
     return new OEntityAtomImpl(entitySet, null, null, false, null, properties, links, title, categoryTerm);
   }
 
+  /**
+   * Creates a new compact entity, which keeps just the values of its properties: their names and types come from
+   * the property layout of the entity type, shared by all its entities.
+   *
+   * @param entitySet  the entity-set
+   * @param entityKey  the entity-key
+   * @param values  the values of the properties of the entity type of the entity-set, copied
+   * @param links  the entity links, if any
+   * @return the new entity
+   */
+  public static OEntity createCompact(EdmEntitySet entitySet, OEntityKey entityKey, OPropertyValues values, List<OLink> links) {
+    return createCompact(entitySet, null, entityKey, null, values, links);
+  }
+
+  /**
+   * Creates a new compact entity, which keeps just the values of its properties: their names and types come from
+   * the property layout of the entity type, shared by all its entities.
+   *
+   * @param entitySet  the entity-set
+   * @param entityType  the entity type, if other than the type of the entity-set
+   * @param entityKey  the entity-key
+   * @param entityTag  the entity-tag, if applicable
+   * @param values  the values of the properties of the entity type, copied
+   * @param links  the entity links, if any
+   * @param extensions  extensions to the entity
+   * @return the new entity
+   */
+  public static OEntity createCompact(EdmEntitySet entitySet, EdmEntityType entityType, OEntityKey entityKey, String entityTag, OPropertyValues values, List<OLink> links, Object... extensions) {
+    EdmEntityType type = entityType != null ? entityType : entitySet != null ? entitySet.getType() : null;
+    if (type == null || values.getLayout() != type.getPropertyLayout())
+      throw new IllegalArgumentException("values must be of the properties of the entity type");
+    return new OEntityCompactImpl(entitySet, entityType, entityKey, entityTag, values.snapshot(), links, extensions);
+  }
+
+  private static class OEntityCompactImpl extends OEntityImpl {
+
+    private final OPropertyValues.Snapshot values;
+
+    OEntityCompactImpl(EdmEntitySet entitySet, EdmEntityType entityType, OEntityKey entityKey, String entityTag,
+        OPropertyValues.Snapshot values, List<OLink> links, Object... extensions) {
+      super(entitySet, entityType, entityKey, true, entityTag, values, links, extensions);
+      this.values = values;
+    }
+
+    @Override
+    public OProperty<?> getProperty(String propName) {
+      return values.getProperty(propName);
+    }
+  }
+
   private static class OEntityAtomImpl extends OEntityImpl implements AtomInfo {
 
     private final String title;
@@ -185,7 +235,7 @@ public class OEntities {
       this.entityType = entityType;
       this.entityKey = entityKey;
       this.entityTag = entityTag;
-      this.properties = Collections.unmodifiableList(properties);
+      this.properties = properties instanceof OPropertyValues.Snapshot ? properties : Collections.unmodifiableList(properties);
       this.links = links == null ? Collections.<OLink> emptyList() : Collections.unmodifiableList(links);
       this.extensions = Arrays.asList(extensions);
     }
@@ -19,6 +19,7 @@ import org.odata4j.expression.CommonExpression;
 import org.odata4j.expression.Expression;
 import org.odata4j.expression.ExpressionParser;
 import org.odata4j.expression.LiteralExpression;
+import org.odata4j.urlencoder.ConversionUtil;
 
 /**
  * An immutable entity-key, made up of either a single unnamed-value or multiple named-values.
@@ -39,6 +40,7 @@ public class OEntityKey {
 
   private final Object[] values;
   private final String keyString;
+  private String uriKeyString;
 
   private OEntityKey(Object[] values) {
     this.values = values;
@@ -209,6 +211,21 @@ public class OEntityKey {
     return keyString;
   }
 
+  /**
+   * Gets the standard string representation of this entity-key, including parentheses, escaped for use in a
+   * resource path. It is computed once per entity-key.
+   *
+   * @return the escaped key-string
+   */
+  public String toUriKeyString() {
+    String rt = uriKeyString;
+    if (rt == null) {
+      rt = ConversionUtil.encodeString(keyString);
+      uriKeyString = rt;
+    }
+    return rt;
+  }
+
   /**
    * Gets the standard string representation of this entity-key, excluding parentheses.
    *
@@ -0,0 +1,254 @@
+package org.odata4j.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import org.odata4j.edm.EdmPropertyLayout;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmStructuralType;
+import org.odata4j.edm.EdmType;
+
+/**
+ * The values of the properties of a structural type, one per slot of its {@link EdmPropertyLayout}.
+ *
+ * <p>Fill an instance, then create any number of compact entities or complex objects from it with
+ * {@link OEntities#createCompact} and {@link OComplexObjects#createCompact}; they copy the values, so the instance
+ * can be cleared and reused for the next row. Compact objects keep just the values: the names and types of their
+ * properties come from the shared layout, and numeric and boolean values are not boxed.
+ *
+ * <p>Slots that are not set are null. Values are converted to the java-type of the property on the way in,
+ * as {@link OProperties#simple(String, EdmSimpleType, Object)} does.
+ */
+public final class OPropertyValues {
+
+  private final EdmPropertyLayout layout;
+  private final Object[] objects;
+  private final long[] primitives;
+  // a set bit for each unboxed slot that is null
+  private final long[] nulls;
+
+  public OPropertyValues(EdmPropertyLayout layout) {
+    this(layout, new Object[layout.getObjectCount()], new long[layout.getPrimitiveCount()], new long[(layout.getPrimitiveCount() + 63) >>> 6]);
+    clear();
+  }
+
+  private OPropertyValues(EdmPropertyLayout layout, Object[] objects, long[] primitives, long[] nulls) {
+    this.layout = layout;
+    this.objects = objects;
+    this.primitives = primitives;
+    this.nulls = nulls;
+  }
+
+  /** Creates empty values for the properties of a structural type. */
+  public static OPropertyValues create(EdmStructuralType type) {
+    return new OPropertyValues(type.getPropertyLayout());
+  }
+
+  public EdmPropertyLayout getLayout() {
+    return layout;
+  }
+
+  /** Sets all slots to null. */
+  public OPropertyValues clear() {
+    Arrays.fill(objects, null);
+    Arrays.fill(primitives, 0L);
+    Arrays.fill(nulls, -1L);
+    return this;
+  }
+
+  /**
+   * Sets the value of a property.
+   *
+   * @throws IllegalArgumentException if the type has no such property
+   */
+  public OPropertyValues set(String name, Object value) {
+    return set(slotOf(name), value);
+  }
+
+  public OPropertyValues set(int slot, Object value) {
+    int kind = layout.getKind(slot);
+    int offset = layout.getOffset(slot);
+    if (kind == EdmPropertyLayout.OBJECT) {
+      objects[offset] = convert(layout.getType(slot), value);
+      return this;
+    }
+    if (value == null) {
+      nulls[offset >>> 6] |= 1L << offset;
+      return this;
+    }
+    switch (kind) {
+    case EdmPropertyLayout.BOOLEAN:
+      return setPrimitive(offset, (Boolean) value ? 1L : 0L);
+    case EdmPropertyLayout.SINGLE:
+    case EdmPropertyLayout.DOUBLE:
+      return setPrimitive(offset, Double.doubleToRawLongBits(((Number) convert(layout.getType(slot), value)).doubleValue()));
+    default:
+      return setPrimitive(offset, ((Number) convert(layout.getType(slot), value)).longValue());
+    }
+  }
+
+  public OPropertyValues setBoolean(int slot, boolean value) {
+    return setPrimitive(offsetOf(slot, EdmPropertyLayout.BOOLEAN), value ? 1L : 0L);
+  }
+
+  public OPropertyValues setInt(int slot, int value) {
+    return setPrimitive(offsetOf(slot, EdmPropertyLayout.INT32), value);
+  }
+
+  public OPropertyValues setLong(int slot, long value) {
+    return setPrimitive(offsetOf(slot, EdmPropertyLayout.INT64), value);
+  }
+
+  public OPropertyValues setDouble(int slot, double value) {
+    return setPrimitive(offsetOf(slot, EdmPropertyLayout.DOUBLE), Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Sets the values of the given properties.
+   *
+   * @throws IllegalArgumentException if the type has no property of one of the names
+   */
+  public OPropertyValues setAll(Iterable<OProperty<?>> properties) {
+    for (OProperty<?> property : properties)
+      set(property.getName(), property.getValue());
+    return this;
+  }
+
+  /** Gets the value of a slot, boxed. */
+  public Object get(int slot) {
+    return valueOf(layout, objects, primitives, nulls, slot);
+  }
+
+  private OPropertyValues setPrimitive(int offset, long bits) {
+    primitives[offset] = bits;
+    nulls[offset >>> 6] &= ~(1L << offset);
+    return this;
+  }
+
+  private int slotOf(String name) {
+    int slot = layout.slotOf(name);
+    if (slot < 0)
+      throw new IllegalArgumentException("No property named " + name);
+    return slot;
+  }
+
+  private int offsetOf(int slot, int kind) {
+    if (layout.getKind(slot) != kind)
+      throw new IllegalArgumentException("Property " + layout.getName(slot) + " is of type " + layout.getType(slot).getFullyQualifiedTypeName());
+    return layout.getOffset(slot);
+  }
+
+  private static Object convert(EdmType type, Object value) {
+    if (value == null || !(type instanceof EdmSimpleType))
+      return value;
+    EdmSimpleType<?> simpleType = (EdmSimpleType<?>) type;
+    return simpleType.getCanonicalJavaType().isInstance(value) ? value : OSimpleObjects.create(simpleType, value).getValue();
+  }
+
+  private static Object valueOf(EdmPropertyLayout layout, Object[] objects, long[] primitives, long[] nulls, int slot) {
+    int offset = layout.getOffset(slot);
+    switch (layout.getKind(slot)) {
+    case EdmPropertyLayout.OBJECT:
+      return objects[offset];
+    case EdmPropertyLayout.BOOLEAN:
+      return isNull(nulls, offset) ? null : Boolean.valueOf(primitives[offset] != 0);
+    case EdmPropertyLayout.SBYTE:
+      return isNull(nulls, offset) ? null : Byte.valueOf((byte) primitives[offset]);
+    case EdmPropertyLayout.INT16:
+      return isNull(nulls, offset) ? null : Short.valueOf((short) primitives[offset]);
+    case EdmPropertyLayout.INT32:
+      return isNull(nulls, offset) ? null : Integer.valueOf((int) primitives[offset]);
+    case EdmPropertyLayout.INT64:
+      return isNull(nulls, offset) ? null : Long.valueOf(primitives[offset]);
+    case EdmPropertyLayout.SINGLE:
+      return isNull(nulls, offset) ? null : Float.valueOf((float) Double.longBitsToDouble(primitives[offset]));
+    default:
+      return isNull(nulls, offset) ? null : Double.valueOf(Double.longBitsToDouble(primitives[offset]));
+    }
+  }
+
+  private static boolean isNull(long[] nulls, int offset) {
+    return (nulls[offset >>> 6] & (1L << offset)) != 0;
+  }
+
+  /** Copies the current values. */
+  Snapshot snapshot() {
+    return new Snapshot(layout, objects.clone(), primitives.clone(), nulls.clone());
+  }
+
+  /**
+   * The immutable values of a compact entity or complex object, and its properties, created from the values
+   * when they are read.
+   */
+  static final class Snapshot extends AbstractList<OProperty<?>> implements RandomAccess {
+
+    private final EdmPropertyLayout layout;
+    private final Object[] objects;
+    private final long[] primitives;
+    private final long[] nulls;
+
+    private Snapshot(EdmPropertyLayout layout, Object[] objects, long[] primitives, long[] nulls) {
+      this.layout = layout;
+      this.objects = objects;
+      this.primitives = primitives;
+      this.nulls = nulls;
+    }
+
+    @Override
+    public OProperty<?> get(int slot) {
+      return new SlotProperty(layout.getName(slot), layout.getType(slot), getValue(slot));
+    }
+
+    @Override
+    public int size() {
+      return layout.size();
+    }
+
+    Object getValue(int slot) {
+      return valueOf(layout, objects, primitives, nulls, slot);
+    }
+
+    /** Gets a property by name, as {@link org.core4j.Enumerable#first} would find it in a list of properties. */
+    OProperty<?> getProperty(String name) {
+      int slot = layout.slotOf(name);
+      if (slot < 0)
+        throw new RuntimeException("No elements match the predicate");
+      return get(slot);
+    }
+  }
+
+  private static class SlotProperty implements OProperty<Object> {
+
+    private final String name;
+    private final EdmType type;
+    private final Object value;
+
+    SlotProperty(String name, EdmType type, Object value) {
+      this.name = name;
+      this.type = type;
+      this.value = value;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public EdmType getType() {
+      return type;
+    }
+
+    @Override
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("OProperty[%s,%s,%s]", name, type, OSimpleObjects.getValueDisplayString(value));
+    }
+  }
+
+}
@@ -1,6 +1,7 @@
 package org.odata4j.core;
 
 import java.util.Iterator;
+import java.util.concurrent.Executor;
 
 import org.core4j.Enumerable;
 import org.odata4j.exceptions.ODataProducerException;
@@ -104,4 +105,69 @@ public interface OQueryRequest<T> extends OBatchSupport {
    */
   OQueryRequest<T> expand(String expand);
 
+  /**
+   * Fetches pages of a server-paged result in the background, up to the given number of pages ahead of the page
+   * being enumerated, so that the next page is usually there when the current one has been enumerated.
+   * Prefetched pages are held in memory.
+   *
+   * @param depth  the maximum number of pages fetched ahead, 0 (the default) to fetch each page when the previous
+   *               one has been enumerated
+   * @return the query-request builder
+   */
+  OQueryRequest<T> prefetch(int depth);
+
+  /**
+   * Fetches pages of a server-paged result on the given executor, up to the given number of pages ahead of the
+   * page being enumerated.
+   *
+   * @param depth  the maximum number of pages fetched ahead, 0 to fetch each page when the previous one has been
+   *               enumerated
+   * @param executor  the executor fetching the pages
+   * @return the query-request builder
+   * @see #prefetch(int)
+   */
+  OQueryRequest<T> prefetch(int depth, Executor executor);
+
+  /**
+   * Parses each page of the result as it is enumerated, one entry at a time, instead of reading the whole page
+   * when it is fetched. Only Atom, JSON and JSON light feeds are parsed this way.
+   *
+   * <p>The response of a page stays open until its entries have been enumerated, so the result should be
+   * enumerated to its end: an enumeration given up earlier, e.g. by {@link org.core4j.Enumerable#first()} or
+   * {@link org.core4j.Enumerable#take(int)}, leaves the response of its page open. Errors in the payload of a
+   * page are reported when the entries are enumerated rather than when the page is fetched.
+   *
+   * @param streaming  whether to parse pages as they are enumerated, false (the default) to read each page
+   *                   when it is fetched
+   * @return the query-request builder
+   */
+  OQueryRequest<T> streaming(boolean streaming);
+
+  /**
+   * Splits the query into the given number of sub-queries over disjoint ranges of an integral property, run
+   * concurrently. The range of the property is found by probing the service for the count and the minimum and
+   * maximum values of the property before the sub-queries are sent.
+   *
+   * <p>If an order is set with {@link #orderBy(String)}, the results of the sub-queries are merged in that order
+   * (only property names followed by an optional <code>asc</code> or <code>desc</code> are supported); otherwise
+   * entities are returned as their pages arrive. {@link #top(int)} and {@link #skip(int)} apply to the merged
+   * result. Each sub-query prefetches pages as set with {@link #prefetch(int, Executor)}, at least one page ahead.
+   *
+   * @param property  the property to partition on, of type Byte, SByte, Int16, Int32 or Int64
+   * @param partitions  the number of sub-queries
+   * @return the query-request builder
+   */
+  OQueryRequest<T> partition(String property, int partitions);
+
+  /**
+   * Splits the query into sub-queries over disjoint ranges of an integral property, run on the given executor.
+   *
+   * @param property  the property to partition on
+   * @param partitions  the number of sub-queries
+   * @param executor  the executor running the sub-queries
+   * @return the query-request builder
+   * @see #partition(String, int)
+   */
+  OQueryRequest<T> partition(String property, int partitions, Executor executor);
+
 }
@@ -1,14 +1,14 @@
 package org.odata4j.edm;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.core4j.Enumerable;
-import org.core4j.Predicate1;
 import org.odata4j.core.ImmutableList;
 import org.odata4j.core.ODataConstants;
 import org.odata4j.core.ODataVersion;
-import org.odata4j.core.OPredicates;
 import org.odata4j.core.PrefixedNamespace;
 import org.odata4j.edm.EdmFunctionImport.FunctionKind;
 import org.odata4j.edm.EdmItem.BuilderContext;
@@ -32,6 +32,9 @@ public class EdmDataServices {
   private final ImmutableList<EdmSchema> schemas;
   private final ImmutableList<PrefixedNamespace> namespaces;
 
+  /** Built on first lookup, since entity set types are resolved lazily. */
+  private volatile Index index;
+
   protected EdmDataServices(ODataVersion version, ImmutableList<EdmSchema> schemas, ImmutableList<PrefixedNamespace> namespaces) {
     this.version = version;
     this.schemas = schemas;
@@ -61,14 +64,7 @@ public class EdmDataServices {
   public EdmEntitySet getEdmEntitySet(final EdmEntityType type) {
     if (type == null)
       throw new IllegalArgumentException("type cannot be null");
-    EdmEntitySet ees = Enumerable.create(getEntitySets())
-        .firstOrNull(new Predicate1<EdmEntitySet>() {
-          @Override
-          public boolean apply(EdmEntitySet input) {
-            return type.equals(input.getType());
-          }
-        });
-
+    EdmEntitySet ees = index().entitySetsByType.get(type);
     if (ees != null) {
       return ees;
     }
@@ -76,74 +72,22 @@ public class EdmDataServices {
   }
 
   public EdmEntitySet findEdmEntitySet(String entitySetName) {
-    int idx = entitySetName.indexOf('.');
-    if (idx != -1) {
-      EdmEntitySet ees = findEdmEntitySet(entitySetName.substring(0, idx), entitySetName.substring(idx+1));
+    if (entitySetName.indexOf('.') != -1) {
+      // qualified by the entity container name
+      EdmEntitySet ees = index().entitySetsByQualifiedName.get(entitySetName);
       if (ees != null) {
         return ees;
       }
     }
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        for (EdmEntitySet ees : eec.getEntitySets()) {
-          if (ees.getName().equals(entitySetName)) {
-            return ees;
-          }
-        }
-      }
-    }
-    return null;
+    return index().entitySetsByName.get(entitySetName);
   }
-  
-  private EdmEntitySet findEdmEntitySet(String entityContainerName, String entitySetName) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        if (!eec.getName().equals(entityContainerName)) {
-          continue;
-        }
-        for (EdmEntitySet ees : eec.getEntitySets()) {
-          if (ees.getName().equals(entitySetName)) {
-            return ees;
-          }
-        }
-      }
-    }
-    return null;
-  }  
 
   public EdmAssociationSet findEdmAssociationSet(String associationSetName) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        for (EdmAssociationSet eas : eec.getAssociationSets()) {
-          if (eas.getName().equals(associationSetName)) {
-            return eas;
-          }
-        }
-      }
-    }
-    return null;
+    return index().associationSetsByName.get(associationSetName);
   }
   
-  public boolean containsEdmFunctionImport(String functionImportName){
-    int dotPos = functionImportName.indexOf(".");
-    String schemaName = null;
-    if (dotPos > 0){
-      // We have a fully-qualified name
-      schemaName = functionImportName.substring(0, dotPos);
-      functionImportName = functionImportName.substring(dotPos + 1); 
-    }
-    for (EdmSchema schema : this.schemas) {
-      if (schemaName == null || schemaName.equals(schema.getNamespace())){
-        for (EdmEntityContainer eec : schema.getEntityContainers()) {
-          for (EdmFunctionImport efi : eec.getFunctionImports()) {
-            if (efi.getName().equals(functionImportName)) {
-              return true;
-            }
-          }
-        }
-      }  
-    }
-    return false;  
+  public boolean containsEdmFunctionImport(String functionImportName) {
+    return !index().findFunctionImports(functionImportName).isEmpty();
   }
   
   public EdmFunctionImport findEdmFunctionImport(String functionImportName) {
@@ -155,190 +99,82 @@ public class EdmDataServices {
   }
   
   public EdmFunctionImport findEdmFunctionImport(String functionImportName, EdmType bindingType, EdmFunctionImport.FunctionKind functionKind) {
-    int dotPos = functionImportName.indexOf(".");
-    String schemaName = null;
-    if (dotPos > 0){
-      // We have a fully-qualified name
-      schemaName = functionImportName.substring(0, dotPos);
-      functionImportName = functionImportName.substring(dotPos + 1); 
-    }
-    List<EdmFunctionImport> matchingFunctions = new ArrayList<EdmFunctionImport>();
-    for (EdmSchema schema : this.schemas) {
-      if (schemaName == null || schemaName.equals(schema.getNamespace())){
-        for (EdmEntityContainer eec : schema.getEntityContainers()) {
-          for (EdmFunctionImport efi : eec.getFunctionImports()) {
-            if (efi.getName().equals(functionImportName)){
-              if ((bindingType != null && efi.isBindable() && efi.getBoundParameter().getType().equals(bindingType)) 
-                  || bindingType == null){
-                if (functionKind == null || (functionKind.equals(efi.getFunctionKind()))){
-                  matchingFunctions.add(efi);
-                }
-              }
-            }
+    EdmFunctionImport match = null;
+    for (EdmFunctionImport efi : index().findFunctionImports(functionImportName)) {
+      if ((bindingType != null && efi.isBindable() && efi.getBoundParameter().getType().equals(bindingType))
+          || bindingType == null) {
+        if (functionKind == null || (functionKind.equals(efi.getFunctionKind()))) {
+          if (match != null) {
+            throw new BadRequestException("Ambiguous call to function : '" + index().unqualify(functionImportName) + "', multiple functions match parameters.");
           }
+          match = efi;
         }
       }
     }
-    if (matchingFunctions.size() == 1){
-      return matchingFunctions.get(0);
-    } else if (matchingFunctions.size() > 1){
-      throw new BadRequestException("Ambiguous call to function : '" + functionImportName + "', multiple functions match parameters.");
-    } else {
-      return null;
-    }
+    return match;
   }
 
     
   public String getSchemaNamespaceOfEdmEntitySet(EdmEntitySet entitySet) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        for (EdmEntitySet ees : eec.getEntitySets()) {
-          if (ees.equals(entitySet)) {
-            return schema.getNamespace();
-          }
-        }
-      }
-    }
-    return null;
+    return index().namespacesByEntitySet.get(entitySet);
   }
   
-  public List<EdmFunctionImport> findBindableEdmFunctionImport(EdmType boundingType){
-    List<EdmFunctionImport> result = new ArrayList<EdmFunctionImport>();
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        for (EdmFunctionImport efi : eec.getFunctionImports()) {       
-          if (efi.isBindable()) {
-            EdmFunctionParameter param = efi.getBoundParameter();
-            if (param != null && param.getType().equals(boundingType)) {
-            result.add(efi);
-            }
-          }
-        }
-      }
-    }
-    return result;
+  public List<EdmFunctionImport> findBindableEdmFunctionImport(EdmType boundingType) {
+    List<EdmFunctionImport> bindable = index().functionImportsByBindingType.get(boundingType);
+    return bindable == null ? new ArrayList<EdmFunctionImport>() : new ArrayList<EdmFunctionImport>(bindable);
   }
 
   public EdmComplexType findEdmComplexType(String complexTypeFQName) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmComplexType ect : schema.getComplexTypes()) {
-        if (ect.getFullyQualifiedTypeName().equals(complexTypeFQName)) {
-          return ect;
-        }
-      }
-    }
-    return null;
+    return index().complexTypesByName.get(complexTypeFQName);
   }
 
   public EdmType findEdmEntityType(String fqName) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityType et : schema.getEntityTypes()) {
-        if (et.getFullyQualifiedTypeName().equals(fqName)) {
-          return et;
-        }
-      }
-    }
-    return null;
+    return index().entityTypesByName.get(fqName);
   }
 
   public EdmPropertyBase findEdmProperty(String propName) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        for (EdmEntitySet ees : eec.getEntitySets()) {
-          for (EdmNavigationProperty ep : ees.getType().getNavigationProperties()) {
-            if (ep.getName().equals(propName)) {
-              return ep;
-            }
-          }
-          for (final EdmProperty ep : ees.getType().getProperties()) {
-            if (ep.getName().equals(propName)) {
-              return ep;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    return index().propertiesByName.get(propName);
   }
 
   // - - - - - - - - - - -  - -
   public EdmAssociation findEdmAssociation(String fqName) {
-    for (EdmSchema schema : this.schemas) {
-      for (EdmAssociation assoc : schema.getAssociations()) {
-        if (assoc.getFQNamespaceName().equals(fqName) || assoc.getName().equals(fqName)) {
-          return assoc;
-        }
-      }
-    }
-    return null;
+    return index().associationsByName.get(fqName);
   }
 
   // - - - - - - - - - - - - - - - -
 
   public Iterable<EdmEntityType> getEntityTypes() {
-    List<EdmEntityType> rt = new ArrayList<EdmEntityType>();
-    for (EdmSchema schema : this.schemas) {
-      rt.addAll(schema.getEntityTypes());
-    }
-    return rt;
+    return index().entityTypes;
   }
 
   public Iterable<EdmComplexType> getComplexTypes() {
-    List<EdmComplexType> rt = new ArrayList<EdmComplexType>();
-    for (EdmSchema schema : this.schemas) {
-      rt.addAll(schema.getComplexTypes());
-    }
-    return rt;
+    return index().complexTypes;
   }
 
   public Iterable<EdmStructuralType> getStructuralTypes() {
-    return Enumerable.create(getEntityTypes()).cast(EdmStructuralType.class)
-        .concat(Enumerable.create(getComplexTypes()).cast(EdmStructuralType.class));
+    return index().structuralTypes;
   }
 
   public Iterable<EdmAssociation> getAssociations() {
-    List<EdmAssociation> rt = new ArrayList<EdmAssociation>();
-    for (EdmSchema schema : this.schemas) {
-      rt.addAll(schema.getAssociations());
-    }
-    return rt;
+    return index().associations;
   }
 
   public Iterable<EdmEntitySet> getEntitySets() {
-    List<EdmEntitySet> rt = new ArrayList<EdmEntitySet>();
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        rt.addAll(eec.getEntitySets());
-      }
-    }
-    return rt;
+    return index().entitySets;
   }
 
   public Iterable<EdmFunctionImport> getFunctions(FunctionKind functionKind) {
-    List<EdmFunctionImport> rt = new ArrayList<EdmFunctionImport>();
-    for (EdmSchema schema : this.schemas) {
-      for (EdmEntityContainer eec : schema.getEntityContainers()) {
-        for (EdmFunctionImport efi : eec.getFunctionImports()) {
-          if (efi.getFunctionKind() == functionKind) {
-            rt.add(efi);
-          }
-        }
-      }
-    }
-    return rt;
+    List<EdmFunctionImport> functions = index().functionImportsByKind.get(functionKind);
+    return functions == null ? ImmutableList.<EdmFunctionImport> create() : Collections.unmodifiableList(functions);
   }
   
   public EdmSchema findSchema(String namespace) {
-    for (EdmSchema schema : this.schemas) {
-      if (schema.getNamespace().equals(namespace)) {
-        return schema;
-      }
-    }
-    return null;
+    return index().schemasByNamespace.get(namespace);
   }
 
   public Iterable<EdmStructuralType> getSubTypes(EdmStructuralType t) {
-    return Enumerable.create(getStructuralTypes()).where(OPredicates.edmSubTypeOf(t));
+    List<EdmStructuralType> subTypes = index().subTypesByBaseType.get(t);
+    return subTypes == null ? ImmutableList.<EdmStructuralType> create() : Collections.unmodifiableList(subTypes);
   }
 
   public static Builder newBuilder() {
@@ -377,6 +213,138 @@ public class EdmDataServices {
     return t;
   }
 
+  private Index index() {
+    // racy but safe: the index is immutable and any thread builds the same one
+    Index rt = index;
+    if (rt == null) {
+      rt = new Index(schemas);
+      index = rt;
+    }
+    return rt;
+  }
+
+  /**
+   * Hash indexes over the schemas, so that the lookups above do not scan every schema and container.
+   * Where a name is not unique, the first element in schema order wins, as with a scan.
+   */
+  private static class Index {
+
+    final ImmutableList<EdmEntityType> entityTypes;
+    final ImmutableList<EdmComplexType> complexTypes;
+    final ImmutableList<EdmStructuralType> structuralTypes;
+    final ImmutableList<EdmAssociation> associations;
+    final ImmutableList<EdmEntitySet> entitySets;
+    final Map<String, EdmSchema> schemasByNamespace = new HashMap<String, EdmSchema>();
+    final Map<String, EdmEntityType> entityTypesByName = new HashMap<String, EdmEntityType>();
+    final Map<String, EdmComplexType> complexTypesByName = new HashMap<String, EdmComplexType>();
+    final Map<EdmStructuralType, List<EdmStructuralType>> subTypesByBaseType = new HashMap<EdmStructuralType, List<EdmStructuralType>>();
+    final Map<String, EdmAssociation> associationsByName = new HashMap<String, EdmAssociation>();
+    final Map<String, EdmEntitySet> entitySetsByName = new HashMap<String, EdmEntitySet>();
+    final Map<String, EdmEntitySet> entitySetsByQualifiedName = new HashMap<String, EdmEntitySet>();
+    final Map<EdmEntityType, EdmEntitySet> entitySetsByType = new HashMap<EdmEntityType, EdmEntitySet>();
+    final Map<EdmEntitySet, String> namespacesByEntitySet = new HashMap<EdmEntitySet, String>();
+    final Map<String, EdmAssociationSet> associationSetsByName = new HashMap<String, EdmAssociationSet>();
+    final Map<String, EdmPropertyBase> propertiesByName = new HashMap<String, EdmPropertyBase>();
+    final Map<String, List<EdmFunctionImport>> functionImportsByName = new HashMap<String, List<EdmFunctionImport>>();
+    final Map<String, List<EdmFunctionImport>> functionImportsByQualifiedName = new HashMap<String, List<EdmFunctionImport>>();
+    final Map<EdmType, List<EdmFunctionImport>> functionImportsByBindingType = new HashMap<EdmType, List<EdmFunctionImport>>();
+    final Map<FunctionKind, List<EdmFunctionImport>> functionImportsByKind = new HashMap<FunctionKind, List<EdmFunctionImport>>();
+
+    Index(List<EdmSchema> schemas) {
+      List<EdmEntityType> entityTypes = new ArrayList<EdmEntityType>();
+      List<EdmComplexType> complexTypes = new ArrayList<EdmComplexType>();
+      List<EdmAssociation> associations = new ArrayList<EdmAssociation>();
+      List<EdmEntitySet> entitySets = new ArrayList<EdmEntitySet>();
+      for (EdmSchema schema : schemas) {
+        putFirst(schemasByNamespace, schema.getNamespace(), schema);
+        for (EdmEntityType et : schema.getEntityTypes()) {
+          entityTypes.add(et);
+          putFirst(entityTypesByName, et.getFullyQualifiedTypeName(), et);
+        }
+        for (EdmComplexType ect : schema.getComplexTypes()) {
+          complexTypes.add(ect);
+          putFirst(complexTypesByName, ect.getFullyQualifiedTypeName(), ect);
+        }
+        for (EdmAssociation assoc : schema.getAssociations()) {
+          associations.add(assoc);
+          putFirst(associationsByName, assoc.getFQNamespaceName(), assoc);
+          putFirst(associationsByName, assoc.getName(), assoc);
+        }
+        for (EdmEntityContainer eec : schema.getEntityContainers()) {
+          for (EdmEntitySet ees : eec.getEntitySets()) {
+            entitySets.add(ees);
+            putFirst(entitySetsByName, ees.getName(), ees);
+            putFirst(entitySetsByQualifiedName, eec.getName() + "." + ees.getName(), ees);
+            putFirst(namespacesByEntitySet, ees, schema.getNamespace());
+            EdmEntityType type = ees.getType();
+            if (type != null) {
+              putFirst(entitySetsByType, type, ees);
+              for (EdmNavigationProperty ep : type.getNavigationProperties())
+                putFirst(propertiesByName, ep.getName(), ep);
+              for (EdmProperty ep : type.getProperties())
+                putFirst(propertiesByName, ep.getName(), ep);
+            }
+          }
+          for (EdmAssociationSet eas : eec.getAssociationSets())
+            putFirst(associationSetsByName, eas.getName(), eas);
+          for (EdmFunctionImport efi : eec.getFunctionImports()) {
+            add(functionImportsByName, efi.getName(), efi);
+            add(functionImportsByQualifiedName, schema.getNamespace() + "." + efi.getName(), efi);
+            add(functionImportsByKind, efi.getFunctionKind(), efi);
+            if (efi.isBindable()) {
+              EdmFunctionParameter param = efi.getBoundParameter();
+              if (param != null && param.getType() != null)
+                add(functionImportsByBindingType, param.getType(), efi);
+            }
+          }
+        }
+      }
+      List<EdmStructuralType> structuralTypes = new ArrayList<EdmStructuralType>(entityTypes.size() + complexTypes.size());
+      structuralTypes.addAll(entityTypes);
+      structuralTypes.addAll(complexTypes);
+      for (EdmStructuralType t : structuralTypes) {
+        EdmStructuralType baseType = t.getBaseType();
+        if (baseType != null && !baseType.equals(t))
+          add(subTypesByBaseType, baseType, t);
+      }
+      this.entityTypes = ImmutableList.copyOf(entityTypes);
+      this.complexTypes = ImmutableList.copyOf(complexTypes);
+      this.structuralTypes = ImmutableList.copyOf(structuralTypes);
+      this.associations = ImmutableList.copyOf(associations);
+      this.entitySets = ImmutableList.copyOf(entitySets);
+    }
+
+    /**
+     * Looks up function imports by simple name, or by "namespace.name" if the name is qualified.
+     */
+    List<EdmFunctionImport> findFunctionImports(String functionImportName) {
+      List<EdmFunctionImport> rt = functionImportName.indexOf('.') > 0
+          ? functionImportsByQualifiedName.get(functionImportName)
+          : functionImportsByName.get(functionImportName);
+      return rt == null ? Collections.<EdmFunctionImport> emptyList() : rt;
+    }
+
+    String unqualify(String functionImportName) {
+      int dotPos = functionImportName.indexOf('.');
+      return dotPos > 0 ? functionImportName.substring(dotPos + 1) : functionImportName;
+    }
+
+    private static <K, V> void putFirst(Map<K, V> map, K key, V value) {
+      if (!map.containsKey(key))
+        map.put(key, value);
+    }
+
+    private static <K, V> void add(Map<K, List<V>> map, K key, V value) {
+      List<V> values = map.get(key);
+      if (values == null) {
+        values = new ArrayList<V>(1);
+        map.put(key, values);
+      }
+      values.add(value);
+    }
+
+  }
+
   /** Mutable builder for {@link EdmDataServices} objects. */
   public static class Builder {
 
@@ -500,7 +468,7 @@ public class EdmDataServices {
           }
         }
       }
-      EdmType type = EdmType.getSimple(fqTypeName);
+      EdmType type = EdmType.getSimple(fqTypeName);
       EdmType.Builder<?, ?> builder = null;
       if (fqTypeName.startsWith(CollectionKind.Bag.name()+"(") && fqTypeName.endsWith(")")){    	  
         fqTypeName = fqTypeName.substring(4, fqTypeName.length()-1);
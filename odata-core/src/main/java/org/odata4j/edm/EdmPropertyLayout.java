@@ -0,0 +1,130 @@
+package org.odata4j.edm;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable layout of the properties of a structural type: every property, inherited ones first, has a slot
+ * numbered in the order of {@link EdmStructuralType#getProperties()}.
+ *
+ * <p>Compact structural objects (see {@link org.odata4j.core.OPropertyValues}) store the value of each property
+ * in its slot. Values of numeric and boolean properties are kept unboxed, in a <code>long</code> each; values of all
+ * other properties are kept as objects.
+ */
+public final class EdmPropertyLayout {
+
+  /** The value is an object. */
+  public static final int OBJECT = 0;
+  /** The value is a boolean. */
+  public static final int BOOLEAN = 1;
+  /** The value is a byte (Edm.SByte). */
+  public static final int SBYTE = 2;
+  /** The value is a short. */
+  public static final int INT16 = 3;
+  /** The value is an int. */
+  public static final int INT32 = 4;
+  /** The value is a long. */
+  public static final int INT64 = 5;
+  /** The value is a float. */
+  public static final int SINGLE = 6;
+  /** The value is a double. */
+  public static final int DOUBLE = 7;
+
+  private final EdmProperty[] properties;
+  private final String[] names;
+  private final int[] kinds;
+  // the index of each slot in the object or primitive values
+  private final int[] offsets;
+  private final int objectCount;
+  private final int primitiveCount;
+  private final Map<String, Integer> slots;
+
+  EdmPropertyLayout(List<EdmProperty> properties) {
+    int size = properties.size();
+    this.properties = properties.toArray(new EdmProperty[size]);
+    this.names = new String[size];
+    this.kinds = new int[size];
+    this.offsets = new int[size];
+    Map<String, Integer> slots = new HashMap<String, Integer>();
+    int objectCount = 0;
+    int primitiveCount = 0;
+    for (int i = 0; i < size; i++) {
+      names[i] = this.properties[i].getName();
+      kinds[i] = kindOf(this.properties[i].getType());
+      offsets[i] = kinds[i] == OBJECT ? objectCount++ : primitiveCount++;
+      slots.put(names[i], i);
+    }
+    this.objectCount = objectCount;
+    this.primitiveCount = primitiveCount;
+    this.slots = Collections.unmodifiableMap(slots);
+  }
+
+  private static int kindOf(EdmType type) {
+    if (type == EdmSimpleType.BOOLEAN)
+      return BOOLEAN;
+    if (type == EdmSimpleType.SBYTE)
+      return SBYTE;
+    if (type == EdmSimpleType.INT16)
+      return INT16;
+    if (type == EdmSimpleType.INT32)
+      return INT32;
+    if (type == EdmSimpleType.INT64)
+      return INT64;
+    if (type == EdmSimpleType.SINGLE)
+      return SINGLE;
+    if (type == EdmSimpleType.DOUBLE)
+      return DOUBLE;
+    return OBJECT;
+  }
+
+  /** Gets the number of slots. */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Gets the slot of a property.
+   *
+   * @param name  the property name
+   * @return the slot, or -1 if the type has no such property
+   */
+  public int slotOf(String name) {
+    Integer slot = slots.get(name);
+    return slot == null ? -1 : slot;
+  }
+
+  public EdmProperty getProperty(int slot) {
+    return properties[slot];
+  }
+
+  public String getName(int slot) {
+    return names[slot];
+  }
+
+  public EdmType getType(int slot) {
+    return properties[slot].getType();
+  }
+
+  /** Gets how the value of a slot is kept: {@link #OBJECT}, or one of the unboxed kinds. */
+  public int getKind(int slot) {
+    return kinds[slot];
+  }
+
+  /** Gets the index of a slot among the slots of the same storage, objects or unboxed values. */
+  public int getOffset(int slot) {
+    return offsets[slot];
+  }
+
+  /** Gets the number of slots with object values. */
+  public int getObjectCount() {
+    return objectCount;
+  }
+
+  /** Gets the number of slots with unboxed values. */
+  public int getPrimitiveCount() {
+    return primitiveCount;
+  }
+
+}
@@ -27,6 +27,7 @@ public abstract class EdmStructuralType extends EdmNonSimpleType implements Name
   private final List<EdmProperty> declaredProperties;
   private final Boolean isAbstract;
   private EdmEntityType baseType;
+  private volatile EdmPropertyLayout propertyLayout;
 
   protected EdmStructuralType(EdmEntityType baseType, String namespace, String name, List<EdmProperty.Builder> declaredProperties,
       EdmDocumentation doc, ImmutableList<EdmAnnotation<?>> annotations, ImmutableList<EdmAnnotation<?>> annotationElements,
@@ -90,6 +91,19 @@ public abstract class EdmStructuralType extends EdmNonSimpleType implements Name
         : baseType.getProperties().union(getDeclaredProperties());
   }
 
+  /**
+   * Gets the slots of the properties of this structural type <i>including</i> inherited properties,
+   * computed on first use.
+   */
+  public EdmPropertyLayout getPropertyLayout() {
+    EdmPropertyLayout layout = propertyLayout;
+    if (layout == null) {
+      layout = new EdmPropertyLayout(getProperties().toList());
+      propertyLayout = layout;
+    }
+    return layout;
+  }
+
   public boolean isRootType() {
     return baseType == null;
   }
@@ -6,11 +6,14 @@ import jakarta.ws.rs.core.MediaType;
 
 import org.odata4j.core.OCollection;
 import org.odata4j.core.OComplexObject;
+import org.odata4j.core.ODataConstants;
 import org.odata4j.core.OEntity;
 import org.odata4j.core.OError;
 import org.odata4j.core.OObject;
 import org.odata4j.core.OSimpleObject;
 import org.odata4j.exceptions.UnsupportedMediaTypeException;
+import org.odata4j.format.binary.BinaryEntryFormatParser;
+import org.odata4j.format.binary.BinaryFeedFormatParser;
 import org.odata4j.format.json.JsonCollectionFormatParser;
 import org.odata4j.format.json.JsonComplexObjectFormatParser;
 import org.odata4j.format.json.JsonEntityFormatParser;
@@ -42,6 +45,8 @@ public class FormatParserFactory {
 
   private FormatParserFactory() {}
 
+  private static final MediaType BINARY_TYPE = MediaType.valueOf(ODataConstants.APPLICATION_ODATA4J_BINARY);
+
   private static interface FormatParsers {
     FormatParser<Feed> getFeedFormatParser(Settings settings);
 
@@ -80,6 +85,8 @@ public class FormatParserFactory {
     }
     else if (type.equals(FormatType.JSONVERBOSE)) {
       formatParsers = new JsonVerboseParsers();
+    } else if (type.equals(FormatType.BINARY)) {
+      formatParsers = new BinaryParsers();
     } else {
       formatParsers = new AtomParsers();
     }
@@ -122,6 +129,8 @@ public class FormatParserFactory {
         type = FormatType.JSON;
       }
     }
+    else if (contentType.isCompatible(BINARY_TYPE))
+      type = FormatType.BINARY;
     else if (contentType.isCompatible(MediaType.APPLICATION_ATOM_XML_TYPE) && (Feed.class.isAssignableFrom(targetType) || Entry.class.isAssignableFrom(targetType))
         || contentType.isCompatible(MediaType.APPLICATION_XML_TYPE))
       type = FormatType.ATOM;
@@ -283,4 +292,21 @@ public class FormatParserFactory {
     }
 
   }
+
+  /**
+   * Parses feeds and entries in the binary format, other payloads as in Atom.
+   */
+  public static class BinaryParsers extends AtomParsers {
+
+    @Override
+    public FormatParser<Feed> getFeedFormatParser(Settings settings) {
+      return new BinaryFeedFormatParser(settings);
+    }
+
+    @Override
+    public FormatParser<Entry> getEntryFormatParser(Settings settings) {
+      return new BinaryEntryFormatParser(settings);
+    }
+
+  }
 }
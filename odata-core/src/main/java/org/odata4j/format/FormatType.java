@@ -11,7 +11,9 @@ public enum FormatType {
   JSONVERBOSE(MediaType.valueOf(ODataConstants.APPLICATION_JAVASCRIPT_VERBOSE).toString()),
   JSON(MediaType.APPLICATION_JSON, MediaType.valueOf(OdataJsonLiteConstant.FORMAT_TYPE_JSONLITE).toString()),
   JSONLITEFULLMETADATA(MediaType.valueOf(OdataJsonLiteConstant.FORMAT_TYPE_JSONLITE_FULLMETADATA).toString()),
-  JSONLITENOMETADATA(MediaType.valueOf(OdataJsonLiteConstant.FORMAT_TYPE_JSONLITE_NOMETADATA).toString());
+  JSONLITENOMETADATA(MediaType.valueOf(OdataJsonLiteConstant.FORMAT_TYPE_JSONLITE_NOMETADATA).toString()),
+  /** A compact binary format of feeds and entries, for clients that are odata4j too; see {@link org.odata4j.format.binary.BinaryFormatWriter}. */
+  BINARY(ODataConstants.APPLICATION_ODATA4J_BINARY);
 
   private FormatType(String... mediaTypes) {
     this.mediaTypes = mediaTypes;
@@ -34,6 +36,8 @@ public enum FormatType {
       return JSONLITENOMETADATA;
     else if ("json;odata=fullmetadata".equalsIgnoreCase(format) || "jsonlitefullmetadata".equalsIgnoreCase(format))
       return JSONLITEFULLMETADATA;
+    else if ("binary".equalsIgnoreCase(format))
+      return BINARY;
     throw new UnsupportedOperationException("Unsupported format " + format);
   }
 }
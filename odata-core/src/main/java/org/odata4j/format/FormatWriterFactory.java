@@ -5,8 +5,12 @@ import java.util.Map;
 
 import jakarta.ws.rs.core.MediaType;
 
+import org.odata4j.core.ODataConstants;
 import org.odata4j.edm.EdmDataServices;
 import org.odata4j.exceptions.NotImplementedException;
+import org.odata4j.format.binary.BinaryEntryFormatWriter;
+import org.odata4j.format.binary.BinaryFeedFormatWriter;
+import org.odata4j.format.binary.BinaryRequestEntryFormatWriter;
 import org.odata4j.format.json.JsonCollectionFormatWriter;
 import org.odata4j.format.json.JsonComplexObjectFormatWriter;
 import org.odata4j.format.json.JsonEntryFormatWriter;
@@ -53,6 +57,8 @@ import org.odata4j.producer.SimpleResponse;
 
 public class FormatWriterFactory {
 
+  private static final MediaType BINARY_TYPE = MediaType.valueOf(ODataConstants.APPLICATION_ODATA4J_BINARY);
+
   private static interface FormatWriters {
 
     FormatWriter<EdmDataServices> getServiceDocumentFormatWriter();
@@ -89,9 +95,14 @@ public class FormatWriterFactory {
     if (format != null)
       type = FormatType.parse(format);
 
-    // if header accepts json, use that
+    // if header accepts json or the binary format, use that
     if (type == null && acceptTypes != null) {
       for (MediaType acceptType : acceptTypes) {
+        if (acceptType.getType().equals(BINARY_TYPE.getType()) &&
+            acceptType.getSubtype().equals(BINARY_TYPE.getSubtype())) {
+          type = FormatType.BINARY;
+          break;
+        }
         if (acceptType.getType().equals(MediaType.APPLICATION_JSON_TYPE.getType()) &&
             acceptType.getSubtype().equals(MediaType.APPLICATION_JSON_TYPE.getSubtype())) {
           Map<String, String> parameters = acceptType.getParameters();
@@ -121,7 +132,7 @@ public class FormatWriterFactory {
 
     // Function calls must use JSON verbose for atom
     if (targetType.equals(Parameters.class)) {
-      if (type.equals(FormatType.ATOM))
+      if (type.equals(FormatType.ATOM) || type.equals(FormatType.BINARY))
         type = FormatType.JSONVERBOSE;
     }
     // We will be treating json-lite as default format type which will return minimal metadata, $format=json or jsonlite 
@@ -138,6 +149,9 @@ public class FormatWriterFactory {
     }
     else if (type.equals(FormatType.JSONVERBOSE)) {
       formatWriters = new JsonVerboseWriters(callback);
+    }
+    else if (type.equals(FormatType.BINARY)) {
+      formatWriters = new BinaryWriters();
     } else {
       formatWriters = new AtomWriters();
     }
@@ -389,4 +403,26 @@ public class FormatWriterFactory {
     }
   }
 
+  /**
+   * Writes feeds and entries in the binary format. Other payloads are written as in Atom, with their own content
+   * type, so that clients read them as such.
+   */
+  public static class BinaryWriters extends AtomWriters {
+
+    @Override
+    public FormatWriter<EntitiesResponse> getFeedFormatWriter() {
+      return new BinaryFeedFormatWriter();
+    }
+
+    @Override
+    public FormatWriter<EntityResponse> getEntryFormatWriter() {
+      return new BinaryEntryFormatWriter();
+    }
+
+    @Override
+    public FormatWriter<Entry> getRequestEntryFormatWriter() {
+      return new BinaryRequestEntryFormatWriter();
+    }
+  }
+
 }
@@ -0,0 +1,126 @@
+package org.odata4j.format;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import org.odata4j.core.Throwables;
+
+/**
+ * A {@link Feed} whose entries are parsed one at a time, as its entries are iterated.
+ *
+ * <p>The entries can be iterated once. The source of the feed is closed when the last entry has been read,
+ * when parsing fails, or when the feed is closed. {@link #getNext()} reads (and keeps) the entries that
+ * have not been iterated yet if the next link follows them in the source.
+ *
+ * @see LazyFeedParser
+ */
+public abstract class LazyFeed implements Feed, Closeable {
+
+  private final Closeable source;
+  private final LinkedList<Entry> readAhead = new LinkedList<Entry>();
+  private boolean iterated;
+  private boolean ended;
+  private boolean closed;
+
+  protected String next;
+
+  protected LazyFeed(Closeable source) {
+    this.source = source;
+  }
+
+  /**
+   * Reads the next entry from the source.
+   *
+   * @return the entry, or null after the last entry
+   */
+  protected abstract Entry readEntry() throws Exception;
+
+  /**
+   * Reads what follows the last entry, e.g. the next link.
+   */
+  protected abstract void readEnd() throws Exception;
+
+  @Override
+  public String getNext() {
+    while (!ended && !closed) {
+      Entry entry = nextEntry();
+      if (entry != null)
+        readAhead.add(entry);
+    }
+    return next;
+  }
+
+  @Override
+  public Iterable<Entry> getEntries() {
+    return new Iterable<Entry>() {
+      @Override
+      public Iterator<Entry> iterator() {
+        if (iterated)
+          throw new IllegalStateException("The entries of a lazy feed can only be iterated once");
+        iterated = true;
+        return new Iterator<Entry>() {
+
+          private Entry entry;
+
+          @Override
+          public boolean hasNext() {
+            if (entry == null)
+              entry = readAhead.isEmpty() ? nextEntry() : readAhead.removeFirst();
+            return entry != null;
+          }
+
+          @Override
+          public Entry next() {
+            if (!hasNext())
+              throw new NoSuchElementException();
+            Entry rt = entry;
+            entry = null;
+            return rt;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  /** Whether all entries have been read from the source. */
+  public boolean isEnded() {
+    return ended;
+  }
+
+  @Override
+  public void close() {
+    if (closed)
+      return;
+    closed = true;
+    try {
+      source.close();
+    } catch (Exception e) {
+      // nothing more to read
+    }
+  }
+
+  private Entry nextEntry() {
+    if (ended || closed)
+      return null;
+    try {
+      Entry entry = readEntry();
+      if (entry == null) {
+        readEnd();
+        ended = true;
+        close();
+      }
+      return entry;
+    } catch (Exception e) {
+      close();
+      throw Throwables.propagate(e);
+    }
+  }
+
+}
@@ -0,0 +1,20 @@
+package org.odata4j.format;
+
+import java.io.Reader;
+
+/**
+ * A feed parser that can parse the entries of a feed as they are iterated, instead of all at once.
+ *
+ * @see LazyFeed
+ */
+public interface LazyFeedParser {
+
+  /**
+   * Parses the start of a feed; the entries are parsed as they are iterated.
+   *
+   * @param reader  the feed, closed by the returned feed
+   * @return the feed
+   */
+  LazyFeed parseLazily(Reader reader);
+
+}
@@ -0,0 +1,63 @@
+package org.odata4j.format;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.odata4j.core.OEntity;
+import org.odata4j.internal.InternalUtil;
+
+/**
+ * The state a format writer shares across the entities of one response: the base URI of the service, and the
+ * relative id of the entity being written, which its id, edit and media links and each of its navigation links
+ * are built from.
+ *
+ * <p>A context is created per response and is not thread-safe.
+ */
+public class WriterContext {
+
+  private final UriInfo uriInfo;
+  private String baseUri;
+  private OEntity entity;
+  private String entityRelId;
+
+  public WriterContext(UriInfo uriInfo) {
+    this.uriInfo = uriInfo;
+  }
+
+  /**
+   * Gets the context for a response: the given one if it was created for the same {@link UriInfo}, a new one
+   * otherwise.
+   *
+   * @param context  the context of the response, may be null
+   * @param uriInfo  the uri info of the response
+   * @return the context
+   */
+  public static WriterContext of(WriterContext context, UriInfo uriInfo) {
+    return context != null && context.uriInfo == uriInfo ? context : new WriterContext(uriInfo);
+  }
+
+  public UriInfo getUriInfo() {
+    return uriInfo;
+  }
+
+  /** Gets the base URI of the service, or an empty string without a uri info. */
+  public String getBaseUri() {
+    if (baseUri == null)
+      baseUri = uriInfo == null ? "" : uriInfo.getBaseUri().toString();
+    return baseUri;
+  }
+
+  /** Gets the id of an entity relative to the base URI, e.g. <code>Products(2)</code>. */
+  public String getEntityRelId(OEntity oe) {
+    if (oe != entity) {
+      entityRelId = InternalUtil.getEntityRelId(oe);
+      entity = oe;
+    }
+    return entityRelId;
+  }
+
+  /** Gets the absolute id of an entity. */
+  public String getEntityId(OEntity oe) {
+    return getBaseUri() + getEntityRelId(oe);
+  }
+
+}
@@ -0,0 +1,374 @@
+package org.odata4j.format.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
+import org.odata4j.core.Guid;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.core.OCollection;
+import org.odata4j.core.OCollections;
+import org.odata4j.core.OComplexObjects;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OLinks;
+import org.odata4j.core.OObject;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.core.OPropertyValues;
+import org.odata4j.core.OSimpleObjects;
+import org.odata4j.core.StreamEntity;
+import org.odata4j.core.Throwables;
+import org.odata4j.core.UnsignedByte;
+import org.odata4j.edm.EdmCollectionType;
+import org.odata4j.edm.EdmComplexType;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmPropertyLayout;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmStructuralType;
+import org.odata4j.edm.EdmType;
+
+/**
+ * Reads a payload in the binary format from a {@link Reader}, one character per byte.
+ *
+ * @see BinaryFormat
+ */
+class BinaryDecoder {
+
+  private static final Charset UTF_8 = Charset.forName(Charsets.Upper.UTF_8);
+
+  private final Reader in;
+  private final EdmDataServices metadata;
+  private final char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+  private final List<String> strings = new ArrayList<String>();
+
+  BinaryDecoder(Reader in, EdmDataServices metadata) {
+    this.in = in;
+    this.metadata = metadata;
+  }
+
+  /**
+   * Reads the header of a payload.
+   *
+   * @param kind  the expected kind of payload
+   * @return the service root
+   */
+  String readHeader(int kind) throws IOException {
+    int magic = (readByte() << 8) | readByte();
+    if (magic != BinaryFormat.MAGIC)
+      throw new IllegalArgumentException("Not a payload in the binary format");
+    int version = readByte();
+    if (version != BinaryFormat.VERSION)
+      throw new IllegalArgumentException("Unsupported version " + version + " of the binary format");
+    if (readByte() != kind)
+      throw new IllegalArgumentException("Expected a " + (kind == BinaryFormat.FEED ? "feed" : "entry"));
+    return readString();
+  }
+
+  OEntity readEntity() throws IOException {
+    EdmEntitySet entitySet = metadata.getEdmEntitySet(readString());
+    String typeName = readString();
+    EdmEntityType entityType = typeName == null ? entitySet.getType() : (EdmEntityType) metadata.findEdmEntityType(typeName);
+    if (entityType == null)
+      throw new IllegalArgumentException("Unknown entity type " + typeName);
+    OEntityKey key = readKey();
+    String entityTag = readString();
+
+    // entities with a key and all of the properties of their type are compact
+    OPropertyValues values = key == null ? null : new OPropertyValues(entityType.getPropertyLayout());
+    List<OProperty<?>> properties = readProperties(entityType, values);
+
+    int linkCount = readCount();
+    List<OLink> links = new ArrayList<OLink>(linkCount);
+    for (int i = 0; i < linkCount; i++)
+      links.add(readLink());
+
+    Object[] extensions = new Object[0];
+    if (readByte() != 0) {
+      StreamEntity stream = new StreamEntity();
+      stream.setAtomEntityType(readString());
+      stream.setAtomEntitySource(readString());
+      extensions = new Object[] { stream };
+    }
+
+    if (key == null)
+      return OEntities.createRequest(entitySet, properties, links);
+    if (properties == null)
+      return OEntities.createCompact(entitySet, typeName == null ? null : entityType, key, entityTag, values, links, extensions);
+    return OEntities.create(entitySet, typeName == null ? null : entityType, key, entityTag, properties, links, extensions);
+  }
+
+  private OEntityKey readKey() throws IOException {
+    int count = readCount();
+    if (count == 0)
+      return null;
+    if (count == 1)
+      return OEntityKey.create(readTypedValue());
+    Object[] namesAndValues = new Object[count * 2];
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      namesAndValues[i] = readString();
+      namesAndValues[i + 1] = readTypedValue();
+    }
+    return OEntityKey.create(namesAndValues);
+  }
+
+  private Object readTypedValue() throws IOException {
+    String typeName = readString();
+    EdmSimpleType<?> type = EdmSimpleType.getSimple(typeName);
+    if (type == null)
+      throw new IllegalArgumentException("Unknown key type " + typeName);
+    return readSimpleValue(type);
+  }
+
+  /**
+   * Reads the properties of a structural type. If values are given, and every property of the type, and no other,
+   * has been written, the values are set on them; otherwise the properties are returned as a list.
+   *
+   * @param values  the values to set, or null
+   * @return the properties, or null if they have been set on the values
+   */
+  private List<OProperty<?>> readProperties(EdmStructuralType type, OPropertyValues values) throws IOException {
+    EdmPropertyLayout layout = type.getPropertyLayout();
+    int size = layout.size();
+    int[] states = new int[size];
+    boolean complete = true;
+    for (int i = 0; i < size; i += 4) {
+      int b = readByte();
+      for (int j = 0; j < 4 && i + j < size; j++) {
+        states[i + j] = (b >> (j * 2)) & 3;
+        complete &= states[i + j] != BinaryFormat.ABSENT;
+      }
+    }
+    Object[] declared = new Object[size];
+    for (int slot = 0; slot < size; slot++) {
+      if (states[slot] == BinaryFormat.VALUE)
+        declared[slot] = readValue(layout.getType(slot));
+    }
+
+    int undeclared = readCount();
+    if (values != null && complete && undeclared == 0) {
+      for (int slot = 0; slot < size; slot++)
+        values.set(slot, declared[slot]);
+      return null;
+    }
+
+    List<OProperty<?>> properties = new ArrayList<OProperty<?>>(size + undeclared);
+    for (int slot = 0; slot < size; slot++) {
+      if (states[slot] != BinaryFormat.ABSENT)
+        properties.add(toProperty(layout.getName(slot), layout.getType(slot), declared[slot]));
+    }
+    for (int i = 0; i < undeclared; i++) {
+      String name = readString();
+      String typeName = readString();
+      EdmType propertyType = metadata == null ? EdmType.getSimple(typeName) : metadata.resolveType(typeName);
+      if (propertyType == null)
+        throw new IllegalArgumentException("Unknown type " + typeName + " of property " + name);
+      properties.add(toProperty(name, propertyType, readByte() == 0 ? null : readValue(propertyType)));
+    }
+    return properties;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static OProperty<?> toProperty(String name, EdmType type, Object value) {
+    if (type instanceof EdmSimpleType)
+      return OProperties.simple(name, (EdmSimpleType<Object>) type, value);
+    if (type instanceof EdmComplexType)
+      return OProperties.complex(name, (EdmComplexType) type, (List<OProperty<?>>) value);
+    return OProperties.collection(name, (EdmCollectionType) type, (OCollection<? extends OObject>) value);
+  }
+
+  private Object readValue(EdmType type) throws IOException {
+    if (type instanceof EdmSimpleType)
+      return readSimpleValue((EdmSimpleType<?>) type);
+    if (type instanceof EdmComplexType)
+      return readProperties((EdmComplexType) type, null);
+    if (type instanceof EdmCollectionType) {
+      EdmType itemType = ((EdmCollectionType) type).getItemType();
+      OCollection.Builder<OObject> collection = OCollections.newBuilder(itemType);
+      int size = readCount();
+      for (int i = 0; i < size; i++) {
+        Object value = readByte() == 0 ? null : readValue(itemType);
+        if (itemType instanceof EdmSimpleType)
+          collection.add(OSimpleObjects.create((EdmSimpleType<?>) itemType, value));
+        else
+          collection.add(value == null ? null : OComplexObjects.create((EdmComplexType) itemType, readComplexProperties(value)));
+      }
+      return collection.build();
+    }
+    throw new IllegalArgumentException("Values of type " + type.getFullyQualifiedTypeName() + " cannot be read from the binary format");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<OProperty<?>> readComplexProperties(Object value) {
+    return (List<OProperty<?>>) value;
+  }
+
+  private Object readSimpleValue(EdmSimpleType<?> type) throws IOException {
+    if (type == EdmSimpleType.STRING)
+      return readString();
+    if (type == EdmSimpleType.INT32)
+      return Integer.valueOf((int) readSigned());
+    if (type == EdmSimpleType.INT64)
+      return Long.valueOf(readSigned());
+    if (type == EdmSimpleType.INT16)
+      return Short.valueOf((short) readSigned());
+    if (type == EdmSimpleType.BOOLEAN)
+      return Boolean.valueOf(readByte() != 0);
+    if (type == EdmSimpleType.DOUBLE)
+      return Double.valueOf(Double.longBitsToDouble(readFixed(8)));
+    if (type == EdmSimpleType.SINGLE)
+      return Float.valueOf(Float.intBitsToFloat((int) readFixed(4)));
+    if (type == EdmSimpleType.DECIMAL) {
+      int scale = (int) readSigned();
+      return new BigDecimal(new BigInteger(readBytes()), scale);
+    }
+    if (type == EdmSimpleType.DATETIME)
+      return new LocalDateTime(readSigned(), DateTimeZone.UTC);
+    if (type == EdmSimpleType.DATETIMEOFFSET) {
+      long millis = readSigned();
+      return new DateTime(millis, DateTimeZone.forOffsetMillis((int) readSigned() * 1000));
+    }
+    if (type == EdmSimpleType.TIME)
+      return LocalTime.fromMillisOfDay(readUnsigned());
+    if (type == EdmSimpleType.GUID) {
+      if (readByte() == BinaryFormat.UUID)
+        return Guid.fromUUID(new UUID(readFixed(8), readFixed(8)));
+      return Guid.fromString(readString());
+    }
+    if (type == EdmSimpleType.BINARY)
+      return readBytes();
+    if (type == EdmSimpleType.BYTE)
+      return UnsignedByte.valueOf(readByte());
+    if (type == EdmSimpleType.SBYTE)
+      return Byte.valueOf((byte) readByte());
+    // Edm.Stream, the remaining simple type
+    byte[] bytes = readBytes();
+    if (type.getCanonicalJavaType() == InputStream.class)
+      return new ByteArrayInputStream(bytes);
+    try {
+      return new SerialBlob(bytes);
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private OLink readLink() throws IOException {
+    int kind = readByte();
+    String relation = readString();
+    String title = readString();
+    String href = readString();
+    switch (kind) {
+    case BinaryFormat.RELATED_ENTITY:
+      return OLinks.relatedEntity(relation, title, href);
+    case BinaryFormat.RELATED_ENTITIES:
+      return OLinks.relatedEntities(relation, title, href);
+    case BinaryFormat.RELATED_ENTITY_INLINE:
+      return OLinks.relatedEntityInline(relation, title, href, readByte() == 0 ? null : readEntity());
+    case BinaryFormat.RELATED_ENTITIES_INLINE:
+      int count = readCount();
+      List<OEntity> relatedEntities = null;
+      if (count > 0) {
+        relatedEntities = new ArrayList<OEntity>(count - 1);
+        for (int i = 1; i < count; i++)
+          relatedEntities.add(readEntity());
+      }
+      return OLinks.relatedEntitiesInline(relation, title, href, relatedEntities);
+    case BinaryFormat.NAMED_STREAM:
+      return OLinks.namedStreamLink(relation, title, href, readString());
+    default:
+      throw new IllegalArgumentException("Unknown kind of link " + kind);
+    }
+  }
+
+  String readString() throws IOException {
+    long reference = readUnsigned();
+    if (reference == BinaryFormat.NULL_STRING)
+      return null;
+    if (reference > BinaryFormat.LITERAL_STRING) {
+      if (reference - 3 >= strings.size())
+        throw new IllegalArgumentException("Unknown string " + reference);
+      return strings.get((int) (reference - 3));
+    }
+    String rt = new String(readBytes(), UTF_8);
+    if (reference == BinaryFormat.NEW_STRING)
+      strings.add(rt);
+    return rt;
+  }
+
+  private byte[] readBytes() throws IOException {
+    int length = readCount();
+    byte[] rt = new byte[length];
+    for (int i = 0; i < length; i++)
+      rt[i] = (byte) readByte();
+    return rt;
+  }
+
+  /** Reads a count, checked to be a non-negative int. */
+  int readCount() throws IOException {
+    long rt = readUnsigned();
+    if (rt < 0 || rt > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Invalid count " + rt);
+    return (int) rt;
+  }
+
+  /** Reads a zig-zag encoded varint. */
+  long readSigned() throws IOException {
+    long value = readUnsigned();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  long readUnsigned() throws IOException {
+    long rt = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      rt |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+        return rt;
+    }
+    throw new IllegalArgumentException("Invalid varint");
+  }
+
+  private long readFixed(int bytes) throws IOException {
+    long rt = 0;
+    for (int i = 0; i < bytes; i++)
+      rt |= (long) readByte() << (i * 8);
+    return rt;
+  }
+
+  int readByte() throws IOException {
+    if (position == limit) {
+      limit = in.read(buffer);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        throw new EOFException("Truncated payload in the binary format");
+      }
+    }
+    char c = buffer[position++];
+    if (c > 0xFF)
+      throw new IllegalArgumentException("Not a payload in the binary format, or not read as " + Charsets.Upper.ISO_8859_1);
+    return c;
+  }
+
+}
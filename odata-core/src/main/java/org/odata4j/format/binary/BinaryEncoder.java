@@ -0,0 +1,372 @@
+package org.odata4j.format.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
+import org.odata4j.core.Guid;
+import org.odata4j.core.NamedValue;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.core.OAtomStreamEntity;
+import org.odata4j.core.OCollection;
+import org.odata4j.core.OComplexObject;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OEntityKey.KeyType;
+import org.odata4j.core.OLink;
+import org.odata4j.core.ONamedStreamLink;
+import org.odata4j.core.OObject;
+import org.odata4j.core.OProperty;
+import org.odata4j.core.OSimpleObject;
+import org.odata4j.core.OSimpleObjects;
+import org.odata4j.core.Throwables;
+import org.odata4j.core.UnsignedByte;
+import org.odata4j.edm.EdmCollectionType;
+import org.odata4j.edm.EdmComplexType;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmPropertyLayout;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmStructuralType;
+import org.odata4j.edm.EdmType;
+
+/**
+ * Writes a payload in the binary format to a {@link Writer}, one character per byte.
+ *
+ * @see BinaryFormat
+ */
+class BinaryEncoder {
+
+  private static final Charset UTF_8 = Charset.forName(Charsets.Upper.UTF_8);
+
+  private final Writer out;
+  private final char[] buffer = new char[8192];
+  private int count;
+  private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+  BinaryEncoder(Writer out) {
+    this.out = out;
+  }
+
+  void writeHeader(int kind, String serviceRoot) {
+    writeByte(BinaryFormat.MAGIC >> 8);
+    writeByte(BinaryFormat.MAGIC);
+    writeByte(BinaryFormat.VERSION);
+    writeByte(kind);
+    writeString(serviceRoot);
+  }
+
+  void writeEntity(OEntity entity) {
+    EdmEntitySet entitySet = entity.getEntitySet();
+    EdmEntityType entityType = entity.getEntityType();
+    writeString(entitySet.getName());
+    writeString(entityType == entitySet.getType() ? null : entityType.getFullyQualifiedTypeName());
+    writeKey(entity.getEntityKey());
+    writeString(entity.getEntityTag());
+    writeProperties(entityType, entity.getProperties());
+
+    List<OLink> links = entity.getLinks();
+    writeUnsigned(links == null ? 0 : links.size());
+    if (links != null) {
+      for (OLink link : links)
+        writeLink(link);
+    }
+
+    OAtomStreamEntity stream = entity.findExtension(OAtomStreamEntity.class);
+    writeByte(stream == null ? 0 : 1);
+    if (stream != null) {
+      writeString(stream.getAtomEntityType());
+      writeString(stream.getAtomEntitySource());
+    }
+  }
+
+  private void writeKey(OEntityKey key) {
+    if (key == null) {
+      writeUnsigned(0);
+    } else if (key.getKeyType() == KeyType.SINGLE) {
+      writeUnsigned(1);
+      writeTypedValue(key.asSingleValue());
+    } else {
+      Set<NamedValue<?>> values = key.asComplexValue();
+      writeUnsigned(values.size());
+      for (NamedValue<?> value : values) {
+        writeString(value.getName());
+        writeTypedValue(value.getValue());
+      }
+    }
+  }
+
+  private void writeTypedValue(Object value) {
+    EdmSimpleType<?> type = EdmSimpleType.forJavaType(value.getClass());
+    if (type == null)
+      throw new IllegalArgumentException("Key value of unknown type " + value.getClass().getName());
+    writeString(type.getFullyQualifiedTypeName());
+    writeValue(type, value);
+  }
+
+  private void writeProperties(EdmStructuralType type, List<OProperty<?>> properties) {
+    EdmPropertyLayout layout = type.getPropertyLayout();
+    int size = layout.size();
+    Object[] values = new Object[size];
+    int[] states = new int[size];
+    List<OProperty<?>> undeclared = null;
+    for (OProperty<?> property : properties) {
+      int slot = layout.slotOf(property.getName());
+      if (slot < 0 || states[slot] != BinaryFormat.ABSENT || !isOfType(property, layout.getType(slot))) {
+        if (undeclared == null)
+          undeclared = new ArrayList<OProperty<?>>();
+        undeclared.add(property);
+        continue;
+      }
+      values[slot] = property.getValue();
+      states[slot] = values[slot] == null ? BinaryFormat.NULL : BinaryFormat.VALUE;
+    }
+
+    for (int i = 0; i < size; i += 4) {
+      int b = 0;
+      for (int j = 0; j < 4 && i + j < size; j++)
+        b |= states[i + j] << (j * 2);
+      writeByte(b);
+    }
+    for (int slot = 0; slot < size; slot++) {
+      if (states[slot] == BinaryFormat.VALUE)
+        writeValue(layout.getType(slot), values[slot]);
+    }
+
+    writeUnsigned(undeclared == null ? 0 : undeclared.size());
+    if (undeclared != null) {
+      for (OProperty<?> property : undeclared) {
+        writeString(property.getName());
+        writeString(property.getType().getFullyQualifiedTypeName());
+        writeNullableValue(property.getType(), property.getValue());
+      }
+    }
+  }
+
+  private static boolean isOfType(OProperty<?> property, EdmType type) {
+    return property.getType() == null || property.getType() == type
+        || property.getType().getFullyQualifiedTypeName().equals(type.getFullyQualifiedTypeName());
+  }
+
+  private void writeNullableValue(EdmType type, Object value) {
+    writeByte(value == null ? 0 : 1);
+    if (value != null)
+      writeValue(type, value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writeValue(EdmType type, Object value) {
+    if (type instanceof EdmSimpleType) {
+      writeSimpleValue((EdmSimpleType<?>) type, value);
+    } else if (type instanceof EdmComplexType) {
+      writeProperties((EdmComplexType) type, value instanceof OComplexObject
+          ? ((OComplexObject) value).getProperties()
+          : (List<OProperty<?>>) value);
+    } else if (type instanceof EdmCollectionType) {
+      EdmType itemType = ((EdmCollectionType) type).getItemType();
+      OCollection<? extends OObject> collection = (OCollection<? extends OObject>) value;
+      writeUnsigned(collection.size());
+      for (OObject item : collection) {
+        Object itemValue = item instanceof OSimpleObject ? ((OSimpleObject<?>) item).getValue() : item;
+        writeNullableValue(itemType, itemValue);
+      }
+    } else {
+      throw new IllegalArgumentException("Values of type " + type.getFullyQualifiedTypeName() + " cannot be written in the binary format");
+    }
+  }
+
+  private void writeSimpleValue(EdmSimpleType<?> type, Object value) {
+    if (!type.getCanonicalJavaType().isInstance(value) && !EdmSimpleType.STREAM.equals(type))
+      value = OSimpleObjects.create(type, value).getValue();
+
+    if (type == EdmSimpleType.STRING) {
+      writeString((String) value);
+    } else if (type == EdmSimpleType.INT32 || type == EdmSimpleType.INT64 || type == EdmSimpleType.INT16) {
+      writeSigned(((Number) value).longValue());
+    } else if (type == EdmSimpleType.BOOLEAN) {
+      writeByte((Boolean) value ? 1 : 0);
+    } else if (type == EdmSimpleType.DOUBLE) {
+      writeFixed(Double.doubleToLongBits((Double) value), 8);
+    } else if (type == EdmSimpleType.SINGLE) {
+      writeFixed(Float.floatToIntBits((Float) value), 4);
+    } else if (type == EdmSimpleType.DECIMAL) {
+      BigDecimal decimal = (BigDecimal) value;
+      writeSigned(decimal.scale());
+      writeBytes(decimal.unscaledValue().toByteArray());
+    } else if (type == EdmSimpleType.DATETIME) {
+      writeSigned(((LocalDateTime) value).toDateTime(DateTimeZone.UTC).getMillis());
+    } else if (type == EdmSimpleType.DATETIMEOFFSET) {
+      DateTime dateTime = (DateTime) value;
+      writeSigned(dateTime.getMillis());
+      writeSigned(dateTime.getZone().getOffset(dateTime.getMillis()) / 1000);
+    } else if (type == EdmSimpleType.TIME) {
+      writeUnsigned(((LocalTime) value).getMillisOfDay());
+    } else if (type == EdmSimpleType.GUID) {
+      writeGuid((Guid) value);
+    } else if (type == EdmSimpleType.BINARY) {
+      writeBytes((byte[]) value);
+    } else if (type == EdmSimpleType.BYTE) {
+      writeByte(((UnsignedByte) value).intValue());
+    } else if (type == EdmSimpleType.SBYTE) {
+      writeByte((Byte) value);
+    } else {
+      // Edm.Stream, the remaining simple type
+      writeBytes(streamBytes(value));
+    }
+  }
+
+  /** Gets the bytes of an Edm.Stream value: a Blob, an InputStream or, as the xml writer takes it, a byte[]. */
+  private static byte[] streamBytes(Object value) {
+    if (value instanceof byte[])
+      return (byte[]) value;
+    try {
+      if (value instanceof Blob) {
+        Blob blob = (Blob) value;
+        return blob.getBytes(1, (int) blob.length());
+      }
+      InputStream input = (InputStream) value;
+      ByteArrayOutputStream rt = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      for (int n; (n = input.read(buffer)) != -1;)
+        rt.write(buffer, 0, n);
+      return rt.toByteArray();
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private void writeGuid(Guid guid) {
+    String value = guid.toString();
+    UUID uuid = null;
+    try {
+      uuid = UUID.fromString(value);
+    } catch (IllegalArgumentException e) {
+      // not in the standard form
+    }
+    if (uuid != null && uuid.toString().equals(value)) {
+      writeByte(BinaryFormat.UUID);
+      writeFixed(uuid.getMostSignificantBits(), 8);
+      writeFixed(uuid.getLeastSignificantBits(), 8);
+    } else {
+      // kept as is, e.g. in upper case or with a urn:uuid: prefix
+      writeByte(BinaryFormat.GUID_STRING);
+      writeString(value);
+    }
+  }
+
+  private void writeLink(OLink link) {
+    int kind = link instanceof ONamedStreamLink ? BinaryFormat.NAMED_STREAM
+        : link.isInline()
+            ? (link.isCollection() ? BinaryFormat.RELATED_ENTITIES_INLINE : BinaryFormat.RELATED_ENTITY_INLINE)
+            : (link.isCollection() ? BinaryFormat.RELATED_ENTITIES : BinaryFormat.RELATED_ENTITY);
+    writeByte(kind);
+    writeString(link.getRelation());
+    writeString(link.getTitle());
+    writeString(link.getHref());
+    switch (kind) {
+    case BinaryFormat.NAMED_STREAM:
+      writeString(link.getType());
+      break;
+    case BinaryFormat.RELATED_ENTITY_INLINE:
+      OEntity relatedEntity = link.getRelatedEntity();
+      writeByte(relatedEntity == null ? 0 : 1);
+      if (relatedEntity != null)
+        writeEntity(relatedEntity);
+      break;
+    case BinaryFormat.RELATED_ENTITIES_INLINE:
+      List<OEntity> relatedEntities = link.getRelatedEntities();
+      // the count + 1, 0 if the entities are null
+      writeUnsigned(relatedEntities == null ? 0 : relatedEntities.size() + 1L);
+      if (relatedEntities != null) {
+        for (OEntity entity : relatedEntities)
+          writeEntity(entity);
+      }
+      break;
+    }
+  }
+
+  void writeString(String value) {
+    if (value == null) {
+      writeUnsigned(BinaryFormat.NULL_STRING);
+      return;
+    }
+    Integer index = strings.get(value);
+    if (index != null) {
+      writeUnsigned(index + 3L);
+      return;
+    }
+    if (value.length() > BinaryFormat.MAX_SHARED_STRING_LENGTH) {
+      writeUnsigned(BinaryFormat.LITERAL_STRING);
+    } else {
+      strings.put(value, strings.size());
+      writeUnsigned(BinaryFormat.NEW_STRING);
+    }
+    writeBytes(value.getBytes(UTF_8));
+  }
+
+  private void writeBytes(byte[] value) {
+    writeUnsigned(value.length);
+    for (byte b : value)
+      writeByte(b);
+  }
+
+  /** Writes a zig-zag encoded varint. */
+  void writeSigned(long value) {
+    writeUnsigned((value << 1) ^ (value >> 63));
+  }
+
+  void writeUnsigned(long value) {
+    while ((value & ~0x7FL) != 0) {
+      writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    writeByte((int) value);
+  }
+
+  private void writeFixed(long value, int bytes) {
+    for (int i = 0; i < bytes; i++) {
+      writeByte((int) value);
+      value >>>= 8;
+    }
+  }
+
+  void writeByte(int value) {
+    if (count == buffer.length)
+      flushBuffer();
+    buffer[count++] = (char) (value & 0xFF);
+  }
+
+  private void flushBuffer() {
+    try {
+      out.write(buffer, 0, count);
+      count = 0;
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /** Writes what is buffered and flushes the writer. */
+  void flush() {
+    flushBuffer();
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+}
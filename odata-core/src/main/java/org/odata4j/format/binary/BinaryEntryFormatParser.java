@@ -0,0 +1,28 @@
+package org.odata4j.format.binary;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.odata4j.core.Throwables;
+import org.odata4j.format.Entry;
+import org.odata4j.format.FormatParser;
+import org.odata4j.format.Settings;
+
+public class BinaryEntryFormatParser extends BinaryFormatParser implements FormatParser<Entry> {
+
+  public BinaryEntryFormatParser(Settings settings) {
+    super(settings);
+  }
+
+  @Override
+  public Entry parse(Reader reader) {
+    try {
+      BinaryDecoder decoder = new BinaryDecoder(reader, metadata);
+      String serviceRoot = decoder.readHeader(BinaryFormat.ENTRY);
+      return new BinaryEntry(serviceRoot, decoder.readEntity());
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+}
@@ -0,0 +1,19 @@
+package org.odata4j.format.binary;
+
+import java.io.Writer;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.odata4j.producer.EntityResponse;
+
+public class BinaryEntryFormatWriter extends BinaryFormatWriter<EntityResponse> {
+
+  @Override
+  public void write(UriInfo uriInfo, Writer w, EntityResponse target) {
+    BinaryEncoder encoder = new BinaryEncoder(w);
+    encoder.writeHeader(BinaryFormat.ENTRY, uriInfo == null ? null : uriInfo.getBaseUri().toString());
+    encoder.writeEntity(target.getEntity());
+    encoder.flush();
+  }
+
+}
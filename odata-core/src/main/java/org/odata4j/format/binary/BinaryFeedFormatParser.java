@@ -0,0 +1,112 @@
+package org.odata4j.format.binary;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.odata4j.core.Throwables;
+import org.odata4j.format.Entry;
+import org.odata4j.format.Feed;
+import org.odata4j.format.FormatParser;
+import org.odata4j.format.LazyFeed;
+import org.odata4j.format.LazyFeedParser;
+import org.odata4j.format.Settings;
+
+public class BinaryFeedFormatParser extends BinaryFormatParser implements FormatParser<Feed>, LazyFeedParser {
+
+  public static class BinaryFeed implements Feed {
+
+    private final List<Entry> entries;
+    private final String next;
+    private final Integer inlineCount;
+
+    BinaryFeed(List<Entry> entries, String next, Integer inlineCount) {
+      this.entries = entries;
+      this.next = next;
+      this.inlineCount = inlineCount;
+    }
+
+    @Override
+    public String getNext() {
+      return next;
+    }
+
+    @Override
+    public Iterable<Entry> getEntries() {
+      return entries;
+    }
+
+    public Integer getInlineCount() {
+      return inlineCount;
+    }
+  }
+
+  public BinaryFeedFormatParser(Settings settings) {
+    super(settings);
+  }
+
+  @Override
+  public BinaryFeed parse(Reader reader) {
+    LazyBinaryFeed lazy = parseLazily(reader);
+    try {
+      List<Entry> entries = new ArrayList<Entry>();
+      for (Entry entry : lazy.getEntries())
+        entries.add(entry);
+      return new BinaryFeed(entries, lazy.getNext(), lazy.inlineCount);
+    } finally {
+      lazy.close();
+    }
+  }
+
+  @Override
+  public LazyBinaryFeed parseLazily(Reader reader) {
+    BinaryDecoder decoder = new BinaryDecoder(reader, metadata);
+    try {
+      return new LazyBinaryFeed(reader, decoder, decoder.readHeader(BinaryFormat.FEED));
+    } catch (Exception e) {
+      try {
+        reader.close();
+      } catch (IOException ignored) {
+        // the header could not be read anyway
+      }
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public static class LazyBinaryFeed extends LazyFeed {
+
+    private final BinaryDecoder decoder;
+    private final String serviceRoot;
+    private Integer inlineCount;
+
+    LazyBinaryFeed(Reader source, BinaryDecoder decoder, String serviceRoot) {
+      super(source);
+      this.decoder = decoder;
+      this.serviceRoot = serviceRoot;
+    }
+
+    /** The inline count, known once all entries have been read. */
+    public Integer getInlineCount() {
+      return inlineCount;
+    }
+
+    @Override
+    protected Entry readEntry() throws Exception {
+      int tag = decoder.readByte();
+      if (tag == BinaryFormat.END)
+        return null;
+      if (tag != BinaryFormat.ENTITY)
+        throw new IllegalArgumentException("Unknown tag " + tag + " in a feed");
+      return new BinaryEntry(serviceRoot, decoder.readEntity());
+    }
+
+    @Override
+    protected void readEnd() throws Exception {
+      long count = decoder.readUnsigned();
+      inlineCount = count == 0 ? null : (int) (count - 1);
+      next = decoder.readString();
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+package org.odata4j.format.binary;
+
+import java.io.Writer;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.odata4j.core.OEntity;
+import org.odata4j.internal.InternalUtil;
+import org.odata4j.producer.EntitiesResponse;
+
+public class BinaryFeedFormatWriter extends BinaryFormatWriter<EntitiesResponse> {
+
+  @Override
+  public void write(UriInfo uriInfo, Writer w, EntitiesResponse target) {
+    BinaryEncoder encoder = new BinaryEncoder(w);
+    encoder.writeHeader(BinaryFormat.FEED, uriInfo == null ? null : uriInfo.getBaseUri().toString());
+
+    int written = 0;
+    for (OEntity entity : InternalUtil.iterateEntities(target)) {
+      written++;
+      encoder.writeByte(BinaryFormat.ENTITY);
+      encoder.writeEntity(entity);
+    }
+    encoder.writeByte(BinaryFormat.END);
+
+    // the count + 1, 0 if there is none
+    encoder.writeUnsigned(target.getInlineCount() == null ? 0 : target.getInlineCount() + 1L);
+
+    String next = null;
+    if (target.getSkipToken() != null)
+      next = InternalUtil.getNextHref(uriInfo, target.getSkipToken(), written);
+    encoder.writeString(next);
+    encoder.flush();
+  }
+
+}
@@ -0,0 +1,57 @@
+package org.odata4j.format.binary;
+
+/**
+ * Constants of the binary format.
+ *
+ * <p>A payload starts with {@link #MAGIC}, {@link #VERSION}, the kind of payload and the service root. A feed
+ * continues with its entities, each after an {@link #ENTITY} tag, then {@link #END}, the inline count and the next
+ * link; an entry with its entity.
+ *
+ * <p>An entity is its entity-set, its type (null if that of the entity-set), its key, its entity tag, its properties,
+ * its links and its media resource. Properties are written in the order of the property layout of the type
+ * ({@link org.odata4j.edm.EdmPropertyLayout}): first the state of every property, two bits each, then the values of
+ * the properties that are not null. Properties the type does not declare follow with their names and types.
+ *
+ * <p>Integers are zig-zag varints, strings UTF-8 with their length; a string is written once and referred to by its
+ * index after that, unless it is long. Edm.Binary and Edm.Stream values are their bytes with their length.
+ */
+final class BinaryFormat {
+
+  private BinaryFormat() {}
+
+  static final int MAGIC = 0x4F42;
+  static final int VERSION = 1;
+
+  // kinds of payload
+  static final int FEED = 1;
+  static final int ENTRY = 2;
+
+  // in feeds, before every entity and after the last one
+  static final int END = 0;
+  static final int ENTITY = 1;
+
+  // states of properties
+  static final int ABSENT = 0;
+  static final int NULL = 1;
+  static final int VALUE = 2;
+
+  // kinds of links
+  static final int RELATED_ENTITY = 0;
+  static final int RELATED_ENTITIES = 1;
+  static final int RELATED_ENTITY_INLINE = 2;
+  static final int RELATED_ENTITIES_INLINE = 3;
+  static final int NAMED_STREAM = 4;
+
+  // string references: null, a new string added to the strings, a new string that is not, or an index (+ 3)
+  static final int NULL_STRING = 0;
+  static final int NEW_STRING = 1;
+  static final int LITERAL_STRING = 2;
+
+  /** Longer strings are not added to the strings, since they rarely repeat. */
+  static final int MAX_SHARED_STRING_LENGTH = 256;
+
+  // guids
+  static final int UUID = 0;
+  static final int GUID_STRING = 1;
+
+}
@@ -0,0 +1,43 @@
+package org.odata4j.format.binary;
+
+import org.odata4j.core.OEntity;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.Entry;
+import org.odata4j.format.Settings;
+import org.odata4j.internal.InternalUtil;
+
+/**
+ * The base of the parsers of the binary format; the payload has to be read as ISO-8859-1.
+ *
+ * @see BinaryFormatWriter
+ */
+public abstract class BinaryFormatParser {
+
+  protected final EdmDataServices metadata;
+
+  protected BinaryFormatParser(Settings settings) {
+    this.metadata = settings == null ? null : settings.metadata;
+  }
+
+  static class BinaryEntry implements Entry {
+
+    private final String serviceRoot;
+    private final OEntity entity;
+
+    BinaryEntry(String serviceRoot, OEntity entity) {
+      this.serviceRoot = serviceRoot;
+      this.entity = entity;
+    }
+
+    @Override
+    public String getUri() {
+      return serviceRoot == null || entity.getEntityKey() == null ? null : serviceRoot + InternalUtil.getEntityRelId(entity);
+    }
+
+    @Override
+    public OEntity getEntity() {
+      return entity;
+    }
+  }
+
+}
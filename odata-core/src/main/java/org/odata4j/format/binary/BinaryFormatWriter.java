@@ -0,0 +1,23 @@
+package org.odata4j.format.binary;
+
+import org.odata4j.core.ODataConstants;
+import org.odata4j.format.FormatWriter;
+
+/**
+ * Writes feeds and entries in a compact binary format, for services and clients that are both odata4j.
+ *
+ * <p>The format is driven by the metadata: properties are written in the order of their type, without their names,
+ * numbers as varints and strings once per payload. The bytes are written to the {@link java.io.Writer} as the
+ * characters of the same value, so that the payload is the bytes when the writer encodes ISO-8859-1, the charset of
+ * {@link #getContentType()}.
+ *
+ * @see BinaryFormat
+ */
+public abstract class BinaryFormatWriter<T> implements FormatWriter<T> {
+
+  @Override
+  public String getContentType() {
+    return ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1;
+  }
+
+}
@@ -0,0 +1,19 @@
+package org.odata4j.format.binary;
+
+import java.io.Writer;
+
+import jakarta.ws.rs.core.UriInfo;
+
+import org.odata4j.format.Entry;
+
+public class BinaryRequestEntryFormatWriter extends BinaryFormatWriter<Entry> {
+
+  @Override
+  public void write(UriInfo uriInfo, Writer w, Entry target) {
+    BinaryEncoder encoder = new BinaryEncoder(w);
+    encoder.writeHeader(BinaryFormat.ENTRY, null);
+    encoder.writeEntity(target.getEntity());
+    encoder.flush();
+  }
+
+}
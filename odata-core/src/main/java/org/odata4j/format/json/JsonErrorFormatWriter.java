@@ -22,6 +22,7 @@ public class JsonErrorFormatWriter implements FormatWriter<ErrorResponse> {
     jw.startObject();
     writeError(jw, target.getError());
     jw.endObject();
+    jw.flush();
   }
 
   public String getContentType() {
@@ -17,12 +17,14 @@ import org.odata4j.edm.EdmEntityType;
 import org.odata4j.format.Entry;
 import org.odata4j.format.Feed;
 import org.odata4j.format.FormatParser;
+import org.odata4j.format.LazyFeed;
+import org.odata4j.format.LazyFeedParser;
 import org.odata4j.format.Settings;
 import org.odata4j.format.json.JsonStreamReaderFactory.JsonStreamReader;
 import org.odata4j.format.json.JsonStreamReaderFactory.JsonStreamReader.JsonEvent;
 import org.odata4j.urlencoder.ConversionUtil;
 
-public class JsonFeedFormatParser extends JsonFormatParser implements FormatParser<Feed> {
+public class JsonFeedFormatParser extends JsonFormatParser implements FormatParser<Feed>, LazyFeedParser {
 
   static class JsonFeed implements Feed {
     List<Entry> entries;
@@ -126,10 +128,46 @@ public class JsonFeedFormatParser extends JsonFormatParser implements FormatPars
 
   @Override
   public JsonFeed parse(Reader reader) {
+    LazyJsonFeed lazy = parseLazily(reader);
+    try {
+      JsonFeed feed = new JsonFeed();
+      feed.entries = new ArrayList<Entry>();
+      for (Entry entry : lazy.getEntries())
+        feed.entries.add(entry);
+      feed.next = lazy.getNext();
+      feed.inlineCount = lazy.inlineCount;
+      return feed;
+    } finally {
+      lazy.close();
+    }
+  }
+
+  @Override
+  public LazyJsonFeed parseLazily(Reader reader) {
     JsonStreamReader jsr = JsonStreamReaderFactory.createJsonStreamReader(reader);
-    boolean hasResultsProp = false;
-    boolean isSingleEntity = (super.entityKey != null);
     try {
+      return new LazyJsonFeed(reader, jsr);
+    } catch (RuntimeException e) {
+      jsr.close();
+      throw e;
+    }
+  }
+
+  class LazyJsonFeed extends LazyFeed {
+
+    private final JsonStreamReader jsr;
+    private final EdmEntitySet entitySet;
+    private boolean hasResultsProp;
+    private boolean isArray;
+    private boolean singleEntityRead;
+    Integer inlineCount;
+
+    LazyJsonFeed(Reader reader, JsonStreamReader jsr) {
+      super(reader);
+      this.jsr = jsr;
+      this.entitySet = metadata.getEdmEntitySet(entitySetName);
+      boolean isSingleEntity = (entityKey != null);
+
       // {
       JsonEvent event = null;
       ensureStartObject(jsr.nextEvent());
@@ -168,33 +206,46 @@ public class JsonFeedFormatParser extends JsonFormatParser implements FormatPars
         // skip {
         event = jsr.nextEvent();
       }
+      isArray = event.isStartArray();
+    }
 
-      JsonFeed feed;
-      if (event.isStartArray()) {
-        feed = parseFeed(metadata.getEdmEntitySet(entitySetName), jsr);
-        // ] already processed by parseFeed
-      } else {
-        feed = new JsonFeed();
-        feed.entries = new ArrayList<Entry>();
-        feed.entries.add(parseEntry(metadata.getEdmEntitySet(entitySetName), jsr));
-        // } already processed by parseEntry
+    @Override
+    protected Entry readEntry() {
+      if (!isArray) {
+        if (singleEntityRead)
+          return null;
+        singleEntityRead = true;
+        // } processed by parseEntry
+        return parseEntry(entitySet, jsr);
       }
+      while (jsr.hasNext()) {
+        JsonEvent event = jsr.nextEvent();
+        if (event.isStartObject()) {
+          return parseEntry(entitySet, jsr);
+        } else if (event.isEndArray()) {
+          break;
+        }
+      }
+      return null;
+    }
 
+    @Override
+    protected void readEnd() {
       if (hasResultsProp) {
         // EndProperty of "results" :
         ensureEndProperty(jsr.nextEvent());
       }
 
-      event = jsr.nextEvent();
+      JsonEvent event = jsr.nextEvent();
 
       while (event.isStartProperty()) {
         String pname = event.asStartProperty().getName();
         ensureNext(jsr);
         ensureEndProperty(event = jsr.nextEvent());
         if (NEXT_PROPERTY.equals(pname)) {
-          feed.next = event.asEndProperty().getValue();
+          next = event.asEndProperty().getValue();
         } else if (COUNT_PROPERTY.equals(pname)) {
-          feed.inlineCount = Integer.parseInt(event.asEndProperty().getValue());
+          inlineCount = Integer.parseInt(event.asEndProperty().getValue());
         }
         ensureNext(jsr);
         event = jsr.nextEvent();
@@ -210,12 +261,8 @@ public class JsonFeedFormatParser extends JsonFormatParser implements FormatPars
 
       if (jsr.hasNext())
         throw new IllegalArgumentException("garbage after the feed");
-
-      return feed;
-
-    } finally {
-      jsr.close();
     }
+
   }
 
 }
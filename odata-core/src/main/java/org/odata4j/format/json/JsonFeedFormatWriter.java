@@ -1,9 +1,9 @@
 package org.odata4j.format.json;
 
-import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
 
 import org.odata4j.core.OEntity;
+import org.odata4j.internal.InternalUtil;
 import org.odata4j.producer.EntitiesResponse;
 
 /**
@@ -18,6 +18,8 @@ public class JsonFeedFormatWriter extends JsonFormatWriter<EntitiesResponse> {
   @Override
   public void writeContent(UriInfo uriInfo, JsonWriter jw, EntitiesResponse target) {
 
+    int written = 0;
+
     jw.startObject();
     {
       jw.writeName("results");
@@ -25,7 +27,8 @@ public class JsonFeedFormatWriter extends JsonFormatWriter<EntitiesResponse> {
       jw.startArray();
       {
         boolean isFirst = true;
-        for (OEntity oe : target.getEntities()) {
+        for (OEntity oe : InternalUtil.iterateEntities(target)) {
+          written++;
 
           if (isFirst) {
             isFirst = false;
@@ -46,26 +49,7 @@ public class JsonFeedFormatWriter extends JsonFormatWriter<EntitiesResponse> {
       }
 
       if (target.getSkipToken() != null) {
-
-        // $skip only applies to the first page of results.
-        // if $top was given, we have to reduce it by the number of entities
-        // we are returning now.
-        String tops = uriInfo.getQueryParameters().getFirst("$top");
-        int top = -1;
-        if (tops != null) {
-          // query param value already validated
-          top = Integer.parseInt(tops);
-          top -= target.getEntities().size();
-        }
-        UriBuilder uri = uriInfo.getRequestUriBuilder();
-        if (top > 0) {
-          uri.replaceQueryParam("$top", top);
-        } else {
-          uri.replaceQueryParam("$top");
-        }
-        String nextHref = uri
-            .replaceQueryParam("$skiptoken", target.getSkipToken())
-            .replaceQueryParam("$skip").build().toString();
+        String nextHref = InternalUtil.getNextHref(uriInfo, target.getSkipToken(), written);
 
         jw.writeSeparator();
         jw.writeName("__next");
@@ -33,6 +33,7 @@ import org.odata4j.edm.EdmFunctionImport;
 import org.odata4j.edm.EdmSimpleType;
 import org.odata4j.edm.EdmType;
 import org.odata4j.format.FormatWriter;
+import org.odata4j.format.WriterContext;
 import org.odata4j.internal.InternalUtil;
 import org.odata4j.repack.org.apache.commons.codec.binary.Base64;
 
@@ -51,6 +52,7 @@ import org.odata4j.repack.org.apache.commons.codec.binary.Base64;
 public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
 
   private final String jsonpCallback;
+  private WriterContext writerContext;
 
   /**
    * Creates a new JSON writer.
@@ -82,10 +84,22 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
     return jsonpCallback;
   }
 
+  /** Gets the context of the response being written. */
+  protected WriterContext getContext(UriInfo uriInfo) {
+    writerContext = WriterContext.of(writerContext, uriInfo);
+    return writerContext;
+  }
+
+  /** Creates the JSON writer a response is written with. */
+  protected JsonWriter newJsonWriter(Writer w) {
+    return new JsonWriter(w);
+  }
+
   @Override
   public void write(UriInfo uriInfo, Writer w, T target) {
+    writerContext = new WriterContext(uriInfo);
 
-    JsonWriter jw = new JsonWriter(w);
+    JsonWriter jw = newJsonWriter(w);
     if (getJsonpCallback() != null) {
       jw.startCallback(getJsonpCallback());
     }
@@ -100,7 +114,7 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
     if (getJsonpCallback() != null) {
       jw.endCallback();
     }
-
+    jw.flush();
   }
 
   protected void writeProperty(JsonWriter jw, OProperty<?> prop) {
@@ -133,7 +147,10 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
     } else if (type.equals(EdmSimpleType.INT32)) {
       jw.writeNumber((Integer) pvalue);
     } else if (type.equals(EdmSimpleType.INT64)) {
-      jw.writeString(pvalue.toString());
+      if (pvalue instanceof Long)
+        jw.writeQuoted((Long) pvalue);
+      else
+        jw.writeString(pvalue.toString());
     } else if (type.equals(EdmSimpleType.SINGLE)) {
       jw.writeNumber((Float) pvalue);
     } else if (type.equals(EdmSimpleType.TIME)) {
@@ -242,19 +259,16 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
 
     jw.startObject();
     {
-      String baseUri = null;
+      WriterContext context = getContext(uriInfo);
 
       // TODO: I'm keeping this pattern of writing the __metadata if we have a non-null type..it seems like we could still
       //       write the uri even if we don't have a type.  Also, are there any scenarios where the entity type would be null?  Not sure.
       if (isResponse && oe.getEntityType() != null) {
-        baseUri = uriInfo != null ? uriInfo.getBaseUri().toString() : "";
-
         jw.writeName("__metadata");
         jw.startObject();
         {
-          String absId = baseUri + InternalUtil.getEntityRelId(oe);
           jw.writeName("uri");
-          jw.writeString(absId);
+          jw.writeString(context.getEntityId(oe));
           jw.writeSeparator();
           jw.writeName("type");
           jw.writeString(oe.getEntityType().getFullyQualifiedTypeName());
@@ -263,10 +277,10 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
           if (stream != null && ees.getType().getHasStream() != null && ees.getType().getHasStream()) {
             jw.writeSeparator();
             jw.writeName("media_src");
-            jw.writeString(InternalUtil.getEntityRelId(oe) + stream.getAtomEntitySource());
+            jw.writeString(context.getEntityRelId(oe) + stream.getAtomEntitySource());
             jw.writeSeparator();
             jw.writeName("edit_media");
-            jw.writeString(InternalUtil.getEntityRelId(oe));
+            jw.writeString(context.getEntityRelId(oe));
             jw.writeSeparator();
             jw.writeName("content_type");
             jw.writeString(stream.getAtomEntityType());
@@ -287,7 +301,7 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
                   } else {
                     first = false;
                   }
-                  writeFunction(jw, absId, entry.getKey(), entry.getValue());
+                  writeFunction(jw, context.getEntityId(oe), entry.getKey(), entry.getValue());
                 }
                 jw.endObject();
               }
@@ -302,7 +316,7 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
                   } else {
                     first = false;
                   }
-                  writeFunction(jw, absId, entry.getKey(), entry.getValue());
+                  writeFunction(jw, context.getEntityId(oe), entry.getKey(), entry.getValue());
                 }
                 jw.endObject();           
               }   
@@ -392,7 +406,7 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
       }
     } else if (link instanceof ONamedStreamLink) {
       // this is like CD_ATTACHMENT('DWS39')/ATTACHMENT 
-      String relId = InternalUtil.getEntityRelId(oe)+"/"+link.getHref();
+      String relId = getContext(uriInfo).getEntityRelId(oe) + "/" + link.getHref();
       // write named stream link
       jw.startObject();
       {
@@ -423,9 +437,8 @@ public abstract class JsonFormatWriter<T> implements FormatWriter<T> {
         jw.writeName("__deferred");
         jw.startObject();
         {
-          String absId = uriInfo.getBaseUri().toString() + InternalUtil.getEntityRelId(oe);
           jw.writeName("uri");
-          jw.writeString(absId + "/" + link.getTitle());
+          jw.writeString(getContext(uriInfo).getEntityId(oe) + "/" + link.getTitle());
         }
         jw.endObject();
       }
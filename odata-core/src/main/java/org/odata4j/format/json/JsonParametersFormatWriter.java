@@ -60,6 +60,7 @@ public class JsonParametersFormatWriter extends JsonFormatWriter<Parameters> {
     }
 
     writeContent(uriInfo, jw, target);
+    jw.flush();
   }
   
   /**
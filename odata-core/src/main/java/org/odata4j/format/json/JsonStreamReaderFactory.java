@@ -2,9 +2,6 @@ package org.odata4j.format.json;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-import java.util.Locale;
 import java.util.Stack;
 
 import org.odata4j.core.ODataConstants;
@@ -285,11 +282,39 @@ class JsonValueEventImpl extends JsonEventImpl implements JsonValueEvent {
 
 }
 
+/**
+ * Tokenizes JSON read from a {@link Reader} in blocks.
+ *
+ * <p>Tokens are scanned in a reusable character window, a token cut by the end of a block is moved to the
+ * start of the window before the next block is read; strings are only copied when they contain escapes.
+ * Short property names are interned per tokenizer, so each entry of a feed shares the names of the first
+ * one, and punctuation and constants share their token instances. Numbers are checked against the JSON
+ * number syntax.</p>
+ */
 class JsonStreamTokenizerImpl implements JsonStreamTokenizer {
-  private Reader reader;
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int NAMES_SIZE = 256; // a power of 2
+  private static final int MAX_NAME_LENGTH = 64;
+
+  private static final JsonToken LEFT_CURLY_BRACKET = new JsonToken(JsonTokenType.LEFT_CURLY_BRACKET);
+  private static final JsonToken RIGHT_CURLY_BRACKET = new JsonToken(JsonTokenType.RIGHT_CURLY_BRACKET);
+  private static final JsonToken LEFT_BRACKET = new JsonToken(JsonTokenType.LEFT_BRACKET);
+  private static final JsonToken RIGHT_BRACKET = new JsonToken(JsonTokenType.RIGHT_BRACKET);
+  private static final JsonToken COMMA = new JsonToken(JsonTokenType.COMMA);
+  private static final JsonToken COLON = new JsonToken(JsonTokenType.COLON);
+  private static final JsonToken TRUE = new JsonToken(JsonTokenType.TRUE, "true");
+  private static final JsonToken FALSE = new JsonToken(JsonTokenType.FALSE, "false");
+  private static final JsonToken NULL = new JsonToken(JsonTokenType.NULL, "null");
+  private static final JsonToken NaN = new JsonToken(JsonTokenType.NaN, ODataConstants.NaN_value);
+
+  private final Reader reader;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position;
+  private int limit;
+  private final StringBuilder text = new StringBuilder();
+  private final String[] names = new String[NAMES_SIZE];
   private JsonToken token;
-  private NumberFormat nf = DecimalFormat.getNumberInstance(Locale.US);
-  private int pushedBack = -1;
 
   JsonStreamTokenizerImpl(Reader reader) {
     if (reader == null)
@@ -317,193 +342,306 @@ class JsonStreamTokenizerImpl implements JsonStreamTokenizer {
     }
   }
 
-  enum TokenizerState {
-    DEFAULT,
-    STRING,
-    NUMBER
-  }
-
   private void move() {
     token = null;
-
-    StringBuilder buffer = new StringBuilder();
-    boolean quote = false;
-    TokenizerState state = TokenizerState.DEFAULT;
-    int i;
-    while (token == null && (i = next()) != -1) {
-      char c = (char) i;
-      if (state == TokenizerState.DEFAULT) {
-        if ('{' == c) {
-          token = new JsonToken(JsonTokenType.LEFT_CURLY_BRACKET);
-        } else if ('}' == c) {
-          if (hasConstantParsed(buffer)) {
-            pushBack(i);
-          } else {
-            token = new JsonToken(JsonTokenType.RIGHT_CURLY_BRACKET);
-          }
-        } else if ('[' == c) {
-          token = new JsonToken(JsonTokenType.LEFT_BRACKET);
-        } else if (']' == c) {
-          if (hasConstantParsed(buffer)) {
-            pushBack(i);
-          } else {
-            token = new JsonToken(JsonTokenType.RIGHT_BRACKET);
-          }
-        } else if (':' == c) {
-          token = new JsonToken(JsonTokenType.COLON);
-        } else if (',' == c) {
-          if (hasConstantParsed(buffer)) {
-            pushBack(i);
-          } else {
-            token = new JsonToken(JsonTokenType.COMMA);
-          }
-        } else if ('"' == c) {
-          if (buffer.length() > 0) {
-            throw new JsonParseException("no JSON format");
-          }
-          state = TokenizerState.STRING;
-        } else if ('-' == c || Character.isDigit(c)) {
-          buffer.append(c);
-          state = TokenizerState.NUMBER;
-        } else if (Character.isWhitespace(c)) {
-          hasConstantParsed(buffer);
+    while (position < limit || fill()) {
+      char c = buffer[position];
+      switch (c) {
+      case '{':
+        position++;
+        token = LEFT_CURLY_BRACKET;
+        return;
+      case '}':
+        position++;
+        token = RIGHT_CURLY_BRACKET;
+        return;
+      case '[':
+        position++;
+        token = LEFT_BRACKET;
+        return;
+      case ']':
+        position++;
+        token = RIGHT_BRACKET;
+        return;
+      case ',':
+        position++;
+        token = COMMA;
+        return;
+      case ':':
+        position++;
+        token = COLON;
+        return;
+      case '"':
+        position++;
+        token = readString();
+        return;
+      default:
+        if (Character.isWhitespace(c)) {
+          position++;
+        } else if ('-' == c || isDigit(c)) {
+          token = readNumber();
+          return;
         } else {
-          buffer.append(c);
+          token = readConstant();
+          return;
         }
-      } else if (state == TokenizerState.STRING) {
-        if (quote) {
-          if ('b' == c) {
-            buffer.append('\b');
-          } else if ('f' == c) {
-            buffer.append('\f');
-          } else if ('n' == c) {
-            buffer.append('\n');
-          } else if ('r' == c) {
-            buffer.append('\r');
-          } else if ('t' == c) {
-            buffer.append('\t');
-          } else if ('/' == c) {
-            buffer.append('/');
-          } else if ('\\' == c) {
-            buffer.append('\\');
-          } else if ('"' == c) {
-            buffer.append('"');
-          } else if ('u' == c) {
-            buffer.append((char) Integer.parseInt(new String(next(4)), 16));
-          } else {
-            throw new JsonParseException("illegal escaped character " + c);
-          }
-          quote = false;
-        } else if ('\\' == c) {
-          quote = true;
-        } else if ('"' == c) {
-          token = new JsonToken(JsonTokenType.STRING, buffer.toString());
-        } else {
-          buffer.append(c);
-          quote = false;
+      }
+    }
+  }
+
+  private JsonToken readString() {
+    boolean copied = false;
+    int start = position;
+    while (true) {
+      if (position == limit) {
+        if (!copied && isShort(start)) {
+          if (!fill(start))
+            throw new JsonParseException("no JSON format unterminated string");
+          start = 0;
+          continue;
         }
-      } else {
-        if ('-' == c || Character.isDigit(c)
-            || 'E' == c || 'e' == c
-            || '+' == c || '.' == c) {
-          buffer.append(c); // a valid character in a number
-        } else {
-          // must be done with the number.
-          pushBack(i);
-          checkNumberFormat(buffer);
-          token = new JsonToken(JsonTokenType.NUMBER, buffer.toString());
+        if (!copied) {
+          text.setLength(0);
+          copied = true;
         }
+        text.append(buffer, start, position - start);
+        if (!fill())
+          throw new JsonParseException("no JSON format unterminated string");
+        start = 0;
+        continue;
+      }
+      char c = buffer[position];
+      if ('"' == c) {
+        break;
+      } else if ('\\' == c) {
+        if (!copied) {
+          text.setLength(0);
+          copied = true;
+        }
+        text.append(buffer, start, position - start);
+        position++;
+        text.append(readEscaped());
+        start = position;
+      } else {
+        position++;
       }
     }
 
-    if (state == TokenizerState.NUMBER) {
-      checkNumberFormat(buffer);
-      token = new JsonToken(JsonTokenType.NUMBER, buffer.toString());
+    String value;
+    if (copied) {
+      text.append(buffer, start, position - start);
+      value = text.toString();
+    } else if (position - start <= MAX_NAME_LENGTH) {
+      // a name whose colon is in the next block is still found, once it has been seen before a colon
+      value = name(start, position - start, isFollowedByColon(position + 1));
+    } else {
+      value = new String(buffer, start, position - start);
+    }
+    position++; // the closing quote
+    return new JsonToken(JsonTokenType.STRING, value);
+  }
+
+  private char readEscaped() {
+    int c = read();
+    switch (c) {
+    case 'b':
+      return '\b';
+    case 'f':
+      return '\f';
+    case 'n':
+      return '\n';
+    case 'r':
+      return '\r';
+    case 't':
+      return '\t';
+    case '/':
+      return '/';
+    case '\\':
+      return '\\';
+    case '"':
+      return '"';
+    case 'u':
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        int digit = Character.digit(read(), 16);
+        if (digit < 0)
+          throw new JsonParseException("illegal unicode escape");
+        value = (value << 4) + digit;
+      }
+      return (char) value;
+    default:
+      throw new JsonParseException("illegal escaped character " + (char) c);
     }
   }
 
-  private Number checkNumberFormat(StringBuilder memory) {
-    try {
-      return nf.parse(memory.toString());
-    } catch (Exception nfe) {
-      throw new JsonParseException("", nfe);
+  private JsonToken readNumber() {
+    String value = readWhile(true);
+    if (!isNumber(value))
+      throw new JsonParseException("no JSON format illegal number " + value);
+    return new JsonToken(JsonTokenType.NUMBER, value);
+  }
+
+  private JsonToken readConstant() {
+    String value = readWhile(false);
+    if ("true".equals(value))
+      return TRUE;
+    if ("false".equals(value))
+      return FALSE;
+    if ("null".equals(value))
+      return NULL;
+    if ("NaN".equals(value))
+      return NaN;
+    throw new JsonParseException("no JSON format unexpected " + value);
+  }
+
+  /** Reads the characters of a number, or of a constant up to the next delimiter. */
+  private String readWhile(boolean number) {
+    boolean copied = false;
+    int start = position;
+    while (true) {
+      if (position == limit) {
+        if (!copied && isShort(start)) {
+          boolean more = fill(start);
+          start = 0;
+          if (!more)
+            break;
+          continue;
+        }
+        if (!copied) {
+          text.setLength(0);
+          copied = true;
+        }
+        text.append(buffer, start, position - start);
+        start = 0;
+        if (!fill())
+          break;
+        continue;
+      }
+      char c = buffer[position];
+      if (number ? !isNumberPart(c) : isDelimiter(c))
+        break;
+      position++;
+    }
+    if (!copied)
+      return new String(buffer, start, position - start);
+    text.append(buffer, start, position - start);
+    return text.toString();
+  }
+
+  /** Looks ahead in the current block only. */
+  private boolean isFollowedByColon(int index) {
+    while (index < limit && Character.isWhitespace(buffer[index]))
+      index++;
+    return index < limit && buffer[index] == ':';
+  }
+
+  private String name(int start, int length, boolean add) {
+    int hash = 0;
+    for (int i = start; i < start + length; i++)
+      hash = 31 * hash + buffer[i];
+    int slot = (hash ^ (hash >>> 16)) & (NAMES_SIZE - 1);
+    String name = names[slot];
+    if (name == null || name.hashCode() != hash || !matches(name, start, length)) {
+      name = new String(buffer, start, length);
+      if (add)
+        names[slot] = name;
     }
+    return name;
   }
 
-  private boolean hasConstantParsed(StringBuilder memory) {
-    if (isTrue(memory)) {
-      token = new JsonToken(JsonTokenType.TRUE, "true");
-    } else if (isFalse(memory)) {
-      token = new JsonToken(JsonTokenType.FALSE, "false");
-    } else if (isNull(memory)) {
-      token = new JsonToken(JsonTokenType.NULL, "null");
-    } else if (isNaN(memory)) {
-      token = new JsonToken(JsonTokenType.NaN, ODataConstants.NaN_value);
-    }
-    return token != null;
+  private boolean matches(String name, int start, int length) {
+    if (name.length() != length)
+      return false;
+    for (int i = 0; i < length; i++)
+      if (name.charAt(i) != buffer[start + i])
+        return false;
+    return true;
   }
 
-  private void pushBack(int c) {
-    if (pushedBack != -1) {
-      throw new IllegalStateException("can push back only one character");
-    } else {
-      pushedBack = c;
-    }
+  private int read() {
+    if (position == limit && !fill())
+      throw new JsonParseException("no JSON format premature end");
+    return buffer[position++];
   }
 
-  private char[] next(int count) {
-    char[] ret = new char[count];
-    for (int i = 0; i < count; i++) {
-      ret[i] = (char) next();
-    }
+  /** Whether a token starting at the given index is short enough to be moved to the start of the buffer. */
+  private boolean isShort(int start) {
+    return limit - start < buffer.length / 2;
+  }
 
-    return ret;
+  /** Reads the next block, once the current one has been consumed. */
+  private boolean fill() {
+    return fill(limit);
   }
 
-  private int next() {
-    if (pushedBack != -1) {
-      int ret = pushedBack;
-      pushedBack = -1;
-      return ret;
-    } else {
-      try {
-        return reader.read();
-      } catch (IOException ioe) {
-        throw new JsonParseException(ioe);
-      }
+  /**
+   * Reads the next block after the characters from start on, which are moved to the start of the buffer,
+   * so that a token that spans two blocks can still be taken from the buffer in one piece.
+   */
+  private boolean fill(int start) {
+    int kept = limit - start;
+    if (kept > 0)
+      System.arraycopy(buffer, start, buffer, 0, kept);
+    position = kept;
+    limit = kept;
+    try {
+      int n;
+      do {
+        n = reader.read(buffer, kept, buffer.length - kept);
+      } while (n == 0);
+      if (n > 0)
+        limit += n;
+      return n > 0;
+    } catch (IOException ioe) {
+      throw new JsonParseException(ioe);
     }
   }
 
-  private boolean isTrue(StringBuilder str) {
-    return str.length() == 4
-        && str.charAt(0) == 't'
-        && str.charAt(1) == 'r'
-        && str.charAt(2) == 'u'
-        && str.charAt(3) == 'e';
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
   }
 
-  private boolean isFalse(StringBuilder str) {
-    return str.length() == 5
-        && str.charAt(0) == 'f'
-        && str.charAt(1) == 'a'
-        && str.charAt(2) == 'l'
-        && str.charAt(3) == 's'
-        && str.charAt(4) == 'e';
+  private static boolean isNumberPart(char c) {
+    return isDigit(c) || '-' == c || '+' == c || '.' == c || 'e' == c || 'E' == c;
   }
 
-  private boolean isNull(StringBuilder str) {
-    return str.length() == 4
-        && str.charAt(0) == 'n'
-        && str.charAt(1) == 'u'
-        && str.charAt(2) == 'l'
-        && str.charAt(3) == 'l';
+  private static boolean isDelimiter(char c) {
+    return '{' == c || '}' == c || '[' == c || ']' == c || ',' == c || ':' == c || '"' == c || Character.isWhitespace(c);
   }
 
-  private boolean isNaN(StringBuilder str) {
-    return str.length() == 3
-        && str.charAt(0) == 'N'
-        && str.charAt(1) == 'a'
-        && str.charAt(2) == 'N';
+  /** Checks -?digits[.digits][(e|E)[+|-]digits], with at least one digit before the exponent. */
+  private static boolean isNumber(String value) {
+    int length = value.length();
+    int i = 0;
+    if (i < length && value.charAt(i) == '-')
+      i++;
+    int digits = 0;
+    while (i < length && isDigit(value.charAt(i))) {
+      i++;
+      digits++;
+    }
+    if (i < length && value.charAt(i) == '.') {
+      i++;
+      while (i < length && isDigit(value.charAt(i))) {
+        i++;
+        digits++;
+      }
+    }
+    if (digits == 0)
+      return false;
+    if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+      i++;
+      if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-'))
+        i++;
+      int exponent = 0;
+      while (i < length && isDigit(value.charAt(i))) {
+        i++;
+        exponent++;
+      }
+      if (exponent == 0)
+        return false;
+    }
+    return i == length;
   }
 
 }
@@ -2,157 +2,285 @@ package org.odata4j.format.json;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.odata4j.core.Throwables;
 
+/**
+ * Writes JSON tokens to a {@link Writer}.
+ *
+ * <p>Tokens are escaped in place into a reusable character buffer, which is written to the underlying writer
+ * in blocks. Integers and booleans are formatted into the buffer as well, and the encoded form of property
+ * names is shared by all writers, so that writing a feed does not create a string per token. Floating-point
+ * numbers and decimals are still formatted by their <code>toString</code>.</p>
+ *
+ * <p>Call {@link #flush()} once the document is complete; until then part of it may still be buffered.</p>
+ */
 public class JsonWriter {
 
+  private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+  private static final int MAX_CACHED_NAMES = 1024;
+  private static final String LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE);
+  // property names repeat for every entry of a feed, and for every response of a service
+  private static final ConcurrentMap<String, char[]> ENCODED_NAMES = new ConcurrentHashMap<String, char[]>();
+
   private final Writer writer;
+  private final char[] buffer;
+  private int position;
 
   public JsonWriter(Writer writer) {
+    this(writer, DEFAULT_BUFFER_SIZE);
+  }
+
+  public JsonWriter(Writer writer, int bufferSize) {
     this.writer = writer;
+    // room for the longest number at least
+    this.buffer = new char[Math.max(64, bufferSize)];
   }
 
   public void startCallback(String functionName) {
-    try {
-      writer.write(encode(functionName) + "(");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    appendEscaped(functionName);
+    append('(');
   }
 
   public void endCallback() {
-    try {
-      writer.write(");");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append(");");
   }
 
   public void startObject() {
-    try {
-      writer.write("{\n");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append("{\n");
   }
 
   public void endObject() {
-    try {
-      writer.write("\n}");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append("\n}");
   }
 
   public void writeName(String name) {
-    try {
-      writer.write("\"" + encode(name) + "\" : ");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
+    char[] encoded = ENCODED_NAMES.get(name);
+    if (encoded == null) {
+      StringBuilder sb = new StringBuilder(name.length() + 5);
+      sb.append('"');
+      encode(name, sb);
+      sb.append("\" : ");
+      encoded = new char[sb.length()];
+      sb.getChars(0, encoded.length, encoded, 0);
+      if (ENCODED_NAMES.size() < MAX_CACHED_NAMES)
+        ENCODED_NAMES.putIfAbsent(name, encoded);
     }
+    append(encoded);
   }
 
   public void startArray() {
-    try {
-      writer.write("[\n");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append("[\n");
   }
 
   public void endArray() {
-    try {
-      writer.write("\n]");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append("\n]");
   }
 
   public void writeSeparator() {
-    try {
-      writer.write(", ");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append(", ");
   }
 
   public void writeString(String value) {
-    try {
-      writer.write("\"" + encode(value) + "\"");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append('"');
+    appendEscaped(value);
+    append('"');
+  }
+
+  /**
+   * Writes a number as a JSON string, as verbose JSON does for Edm.Int64.
+   */
+  public void writeQuoted(long value) {
+    append('"');
+    appendLong(value);
+    append('"');
   }
 
   public void writeNull() {
-    try {
-      writer.write("null");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append("null");
   }
 
   public void writeNumber(int value) {
-    try {
-      writer.write(Integer.toString(value));
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    appendLong(value);
+  }
+
+  public void writeNumber(long value) {
+    appendLong(value);
   }
 
+  /**
+   * Writes a float without trailing zeros, 1.0 is written as 1.
+   */
   public void writeNumber(float value) {
-    try {
-      String fvalue = Float.toString(value);
-      while (fvalue.contains(".") && fvalue.endsWith("0"))
-        fvalue = fvalue.substring(0, fvalue.length() - 1);
-      if (fvalue.endsWith("."))
-        fvalue = fvalue.substring(0, fvalue.length() - 1);
-      writer.write(fvalue);
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
+    String fvalue = Float.toString(value);
+    ensure(fvalue.length());
+    int start = position;
+    append(fvalue);
+    boolean fraction = false;
+    for (int i = start; i < position; i++) {
+      if (buffer[i] == 'E')
+        return; // the zeros of an exponent are significant
+      if (buffer[i] == '.')
+        fraction = true;
     }
+    if (fraction) {
+      while (buffer[position - 1] == '0')
+        position--;
+      if (buffer[position - 1] == '.')
+        position--;
+    }
+  }
+
+  public void writeNumber(double value) {
+    append(Double.toString(value));
+  }
+
+  public void writeNumber(BigDecimal value) {
+    append(value.toPlainString());
   }
 
   public void writeBoolean(boolean value) {
-    try {
-      writer.write(value ? "true" : "false");
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
+    append(value ? "true" : "false");
   }
 
   public void writeRaw(String value) {
+    append(value);
+  }
+
+  /**
+   * Writes the buffered content to the underlying writer and flushes it.
+   */
+  public void flush() {
     try {
-      writer.write(value);
+      flushBuffer();
+      writer.flush();
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
   }
 
-  private String encode(String unencoded) {
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < unencoded.length(); i++) {
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      writer.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  /** Makes room for the given number of characters, which must not exceed the buffer size. */
+  private void ensure(int length) {
+    if (position + length > buffer.length) {
+      try {
+        flushBuffer();
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      }
+    }
+  }
+
+  private void append(char c) {
+    ensure(1);
+    buffer[position++] = c;
+  }
+
+  private void append(String value) {
+    int length = value.length();
+    int offset = 0;
+    while (offset < length) {
+      ensure(1);
+      int n = Math.min(length - offset, buffer.length - position);
+      value.getChars(offset, offset + n, buffer, position);
+      position += n;
+      offset += n;
+    }
+  }
+
+  private void append(char[] value) {
+    if (value.length > buffer.length) {
+      try {
+        flushBuffer();
+        writer.write(value);
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      }
+      return;
+    }
+    ensure(value.length);
+    System.arraycopy(value, 0, buffer, position, value.length);
+    position += value.length;
+  }
+
+  private void appendLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      append(LONG_MIN_VALUE);
+      return;
+    }
+    ensure(20);
+    if (value < 0) {
+      buffer[position++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long v = value; v >= 10; v /= 10)
+      digits++;
+    int end = position + digits;
+    for (int i = end - 1; i >= position; i--) {
+      buffer[i] = (char) ('0' + (int) (value % 10));
+      value /= 10;
+    }
+    position = end;
+  }
+
+  private void appendEscaped(String unencoded) {
+    int length = unencoded.length();
+    for (int i = 0; i < length; i++) {
       char c = unencoded.charAt(i);
-      if (c == '\\')
-        sb.append("\\\\");
-      else if (c == '"')
-        sb.append("\\\"");
-      else if (c == '\n')
-        sb.append("\\n");
-      else if (c == '\r')
-        sb.append("\\r");
-      else if (c == '\f')
-        sb.append("\\f");
-      else if (c == '\b')
-        sb.append("\\b");
-      else if (c == '\t')
-        sb.append("\\t");
+      char escaped = escape(c);
+      if (escaped == 0) {
+        if (position == buffer.length)
+          ensure(1);
+        buffer[position++] = c;
+      } else {
+        ensure(2);
+        buffer[position++] = '\\';
+        buffer[position++] = escaped;
+      }
+    }
+  }
 
-      else
+  private static void encode(String unencoded, StringBuilder sb) {
+    for (int i = 0; i < unencoded.length(); i++) {
+      char c = unencoded.charAt(i);
+      char escaped = escape(c);
+      if (escaped == 0)
         sb.append(c);
+      else
+        sb.append('\\').append(escaped);
+    }
+  }
+
+  /** @return the character following the backslash if c must be escaped, else 0 */
+  private static char escape(char c) {
+    switch (c) {
+    case '\\':
+      return '\\';
+    case '"':
+      return '"';
+    case '\n':
+      return 'n';
+    case '\r':
+      return 'r';
+    case '\f':
+      return 'f';
+    case '\b':
+      return 'b';
+    case '\t':
+      return 't';
+    default:
+      return 0;
     }
-    return sb.toString();
   }
 
 }
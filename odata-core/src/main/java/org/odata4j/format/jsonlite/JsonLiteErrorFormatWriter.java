@@ -30,6 +30,7 @@ public class JsonLiteErrorFormatWriter implements FormatWriter<ErrorResponse> {
     jw.startObject();
     writeError(jw, target.getError());
     jw.endObject();
+    jw.flush();
   }
 
   /**
@@ -3,11 +3,11 @@ package org.odata4j.format.jsonlite;
 import java.util.List;
 
 import jakarta.ws.rs.core.MultivaluedMap;
-import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
 
 import org.odata4j.core.OEntity;
 import org.odata4j.format.json.JsonWriter;
+import org.odata4j.internal.InternalUtil;
 import org.odata4j.producer.EntitiesResponse;
 
 /**
@@ -45,10 +45,12 @@ public class JsonLiteFeedFormatWriter extends JsonLiteFormatWriter<EntitiesRespo
       jw.writeSeparator();
     }
     jw.writeName(OdataJsonLiteConstant.VALUE_PROPERTY);
+    int written = 0;
     jw.startArray();
     {
       boolean isFirst = true;
-      for (OEntity oe : target.getEntities()) {
+      for (OEntity oe : InternalUtil.iterateEntities(target)) {
+        written++;
 
         if (isFirst) {
           isFirst = false;
@@ -64,26 +66,7 @@ public class JsonLiteFeedFormatWriter extends JsonLiteFormatWriter<EntitiesRespo
     jw.endArray();
 
     if (target.getSkipToken() != null) {
-
-      // $skip only applies to the first page of results.
-      // if $top was given, we have to reduce it by the number of entities
-      // we are returning now.
-      String tops = uriInfo.getQueryParameters().getFirst("$top");
-      int top = -1;
-      if (tops != null) {
-        // query param value already validated
-        top = Integer.parseInt(tops);
-        top -= target.getEntities().size();
-      }
-      UriBuilder uri = uriInfo.getRequestUriBuilder();
-      if (top > 0) {
-        uri.replaceQueryParam("$top", top);
-      } else {
-        uri.replaceQueryParam("$top");
-      }
-      String nextHref = uri
-          .replaceQueryParam("$skiptoken", target.getSkipToken())
-          .replaceQueryParam("$skip").build().toString();
+      String nextHref = InternalUtil.getNextHref(uriInfo, target.getSkipToken(), written);
       if (!metadataType.equalsIgnoreCase(OdataJsonLiteConstant.METADATA_TYPE_NOMETADATA)) {
         nextHref = nextHref.replaceFirst(uriInfo.getBaseUri().toString(), "").replace("/", "");
       }
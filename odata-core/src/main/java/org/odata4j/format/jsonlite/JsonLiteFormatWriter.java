@@ -32,6 +32,7 @@ import org.odata4j.edm.EdmFunctionImport;
 import org.odata4j.edm.EdmSimpleType;
 import org.odata4j.edm.EdmType;
 import org.odata4j.format.FormatWriter;
+import org.odata4j.format.WriterContext;
 import org.odata4j.format.json.JsonWriter;
 import org.odata4j.internal.InternalUtil;
 import org.odata4j.repack.org.apache.commons.codec.binary.Base64;
@@ -55,6 +56,8 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
 
   private final String metadataType;
 
+  private WriterContext writerContext;
+
   /**
    * Creates a new JSON writer.
    *
@@ -106,10 +109,27 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
     return jsonpCallback;
   }
 
+  /**
+   * Gets the context of the response being written.
+   *
+   * @param uriInfo the uri info of the response
+   * @return the writer context
+   */
+  protected WriterContext getContext(UriInfo uriInfo) {
+    writerContext = WriterContext.of(writerContext, uriInfo);
+    return writerContext;
+  }
+
+  /** Creates the JSON writer a response is written with. */
+  protected JsonWriter newJsonWriter(Writer w) {
+    return new JsonWriter(w);
+  }
+
   @Override
   public void write(UriInfo uriInfo, Writer w, T target) {
+    writerContext = new WriterContext(uriInfo);
 
-    JsonWriter jw = new JsonWriter(w);
+    JsonWriter jw = newJsonWriter(w);
     if (getJsonpCallback() != null) {
       jw.startCallback(getJsonpCallback());
     }
@@ -123,7 +143,7 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
     if (getJsonpCallback() != null) {
       jw.endCallback();
     }
-
+    jw.flush();
   }
 
   /**
@@ -159,7 +179,10 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
     } else if (type.equals(EdmSimpleType.INT32)) {
       jw.writeNumber((Integer) pvalue);
     } else if (type.equals(EdmSimpleType.INT64)) {
-      jw.writeString(pvalue.toString());
+      if (pvalue instanceof Long)
+        jw.writeQuoted((Long) pvalue);
+      else
+        jw.writeString(pvalue.toString());
     } else if (type.equals(EdmSimpleType.SINGLE)) {
       jw.writeNumber((Float) pvalue);
     } else if (type.equals(EdmSimpleType.TIME)) {
@@ -246,12 +269,10 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
    */
   protected void writeOEntity(UriInfo uriInfo, JsonWriter jw, OEntity oe, EdmEntitySet ees, boolean isResponse) {
 
-    String baseUri = null;
-
     if (isResponse && oe.getEntityType() != null) {
 
-      baseUri = uriInfo != null ? uriInfo.getBaseUri().toString() : "";
-      String absId = baseUri + InternalUtil.getEntityRelId(oe);
+      WriterContext context = getContext(uriInfo);
+      String absId = context.getEntityId(oe);
 
       OAtomStreamEntity stream = oe.findExtension(OAtomStreamEntity.class);
       if (metadataType != null && metadataType.equalsIgnoreCase(OdataJsonLiteConstant.METADATA_TYPE_FULLMETADATA)) {
@@ -262,7 +283,7 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
         jw.writeString(absId);
         jw.writeSeparator();
         jw.writeName(OdataJsonLiteConstant.EDIT_LINK_PROPERTY);
-        jw.writeString(InternalUtil.getEntityRelId(oe));
+        jw.writeString(context.getEntityRelId(oe));
         jw.writeSeparator();
       }
 
@@ -270,10 +291,10 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
       if (stream != null && ees.getType().getHasStream() != null && ees.getType().getHasStream()) {
         if (metadataType != null && !metadataType.equalsIgnoreCase(OdataJsonLiteConstant.METADATA_TYPE_NOMETADATA)) {
           jw.writeName(OdataJsonLiteConstant.MEDIA_READ_LINK_PROPERTY);
-          jw.writeString(InternalUtil.getEntityRelId(oe) + stream.getAtomEntitySource());
+          jw.writeString(context.getEntityRelId(oe) + stream.getAtomEntitySource());
           jw.writeSeparator();
           jw.writeName(OdataJsonLiteConstant.MEDIA_EDIT_LINK_PROPERTY);
-          jw.writeString(InternalUtil.getEntityRelId(oe));
+          jw.writeString(context.getEntityRelId(oe));
           jw.writeSeparator();
           jw.writeName(OdataJsonLiteConstant.MEDIA_CONTENT_TYPE_PROPERTY);
           jw.writeString(stream.getAtomEntityType());
@@ -420,18 +441,19 @@ public abstract class JsonLiteFormatWriter<T> implements FormatWriter<T> {
    * @param uriInfo the uri info
    */
   private void writeResponseLink(JsonWriter jw, OLink link, OEntity oe, UriInfo uriInfo) {
+    String entityRelId = getContext(uriInfo).getEntityRelId(oe);
     if (metadataType != null && metadataType.equalsIgnoreCase(OdataJsonLiteConstant.METADATA_TYPE_FULLMETADATA)) {
       jw.writeName(link.getTitle() + OdataJsonLiteConstant.NAVIGATION_LINK_URL_PROPERTY);
-      jw.writeString(InternalUtil.getEntityRelId(oe) + "/" + link.getTitle());
+      jw.writeString(entityRelId + "/" + link.getTitle());
       jw.writeSeparator();
       jw.writeName(link.getTitle() + OdataJsonLiteConstant.ASSOCIATION_LINK_URL_PROPERTY);
-      jw.writeString(InternalUtil.getEntityRelId(oe) + "/" + OdataJsonLiteConstant.DOLLAR_LINKS_PROPERTY + "/" + link.getTitle());
+      jw.writeString(entityRelId + "/" + OdataJsonLiteConstant.DOLLAR_LINKS_PROPERTY + "/" + link.getTitle());
       jw.writeSeparator();
     }
     if (link instanceof ONamedStreamLink) {
       // write the named stream link here and return
       // this is like CD_ATTACHMENT('DWS39')/ATTACHMENT , ref will contain customer query string like project
-      String relId = InternalUtil.getEntityRelId(oe)+"/"+link.getHref();
+      String relId = entityRelId + "/" + link.getHref();
 
       jw.writeName(link.getTitle() + "@odata.mediaEditLink");
       jw.writeString(relId);
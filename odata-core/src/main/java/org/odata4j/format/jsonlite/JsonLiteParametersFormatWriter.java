@@ -73,6 +73,7 @@ public class JsonLiteParametersFormatWriter extends JsonLiteFormatWriter<Paramet
     }
 
     writeContent(uriInfo, jw, target);
+    jw.flush();
   }
 
 }
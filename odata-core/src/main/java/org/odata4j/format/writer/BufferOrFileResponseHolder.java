@@ -2,18 +2,32 @@ package org.odata4j.format.writer;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.odata4j.core.ODataConstants;
 import org.odata4j.internal.InternalUtil;
 
 /**
- * The BufferOrFileResponseHolder class holds the response received from the producer. Since the response can be fairly large, it can store the response 
- * in the buffer if the size of the response is less than the threshold. If the size of the response overshoots the threshold then we start writing the 
+ * The BufferOrFileResponseHolder class holds the response received from the producer. Since the response can be fairly large, it can store the response
+ * in the buffer if the size of the response is less than the threshold. If the size of the response overshoots the threshold then we start writing the
  * contents to file.<br><br>
- * 
+ *
+ * The content is held already encoded, in a chain of direct {@link ByteBuffer} segments taken from a {@link ByteBufferPool}. Once the threshold is
+ * exceeded, every filled segment is appended to the temp file and handed back to the pool, so at most one segment stays in memory. The holder must be
+ * {@link #release() released} once it has been written out.<br><br>
+ *
  * Copyright 2013 Halliburton
- * 
+ *
  * @author <a href="mailto:Anil.Allewar2@halliburton.com">Anil Allewar</a>
  */
 public class BufferOrFileResponseHolder {
@@ -24,15 +38,27 @@ public class BufferOrFileResponseHolder {
   /** The buffer threshold size. */
   private Integer bufferThresholdSize;
 
-  /** 
-   * The buffer. We use a StringBuilder as one thread servicing the HTTP request will initialize instance of this class and use it. 
-   * Instantiate the StringBuffer always with initial capacity of 8KB 
-   */
-  private StringBuilder buffer = new StringBuilder(ODataConstants.COPY_BUFFER_SIZE);
+  /** The pool the segments are taken from. */
+  private final ByteBufferPool pool;
+
+  /** The charset the content was encoded with. */
+  private final Charset charset;
+
+  /** The filled segments, in write order, followed by the current one. */
+  private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+
+  /** The total number of bytes held, in memory and on file. */
+  private long size;
 
   /** The temp file. */
   private File responseFile;
 
+  /** The channel to the temp file, open while spilling. */
+  private FileChannel responseChannel;
+
+  /** The number of bytes written to the temp file. */
+  private long spilledSize;
+
   /** The file used for storage boolean. */
   private boolean fileUsedForStorage;
 
@@ -43,21 +69,19 @@ public class BufferOrFileResponseHolder {
    * Instantiates a new buffer or file response holder and sets the buffer threshold size.
    */
   public BufferOrFileResponseHolder() {
-    this.setBufferThresholdSize();
-  }
-
-  /**
-  * @return the buffer
-  */
-  public StringBuilder getBuffer() {
-    return buffer;
+    this(ByteBufferPool.getDefault(), Charset.forName(ODataConstants.Charsets.Upper.UTF_8));
   }
 
   /**
-   * @param buffer the buffer to set
+   * Instantiates a new buffer or file response holder for content in the given charset.
+   *
+   * @param pool the pool to take segments from
+   * @param charset the charset the content is encoded with
    */
-  public void setBuffer(StringBuilder buffer) {
-    this.buffer = buffer;
+  public BufferOrFileResponseHolder(ByteBufferPool pool, Charset charset) {
+    this.pool = pool;
+    this.charset = charset;
+    this.setBufferThresholdSize();
   }
 
   /**
@@ -67,13 +91,6 @@ public class BufferOrFileResponseHolder {
     return responseFile;
   }
 
-  /**
-   * @param responseFile the responseFile to set
-   */
-  public void setResponseFile(File responseFile) {
-    this.responseFile = responseFile;
-  }
-
   /**
    * @return the fileUsedForStorage
    */
@@ -96,10 +113,224 @@ public class BufferOrFileResponseHolder {
   }
 
   /**
-   * @param errorWhileWritingToFile the errorWhileWritingToFile to set
+   * @return the charset the content is encoded with
+   */
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * @return the size of the encoded content in bytes
    */
-  public void setErrorWhileWritingToFile(boolean errorWhileWritingToFile) {
-    this.errorWhileWritingToFile = errorWhileWritingToFile;
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Gets the segment currently being filled.
+   *
+   * @return the current segment, or null if nothing has been written yet
+   */
+  ByteBuffer currentSegment() {
+    return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+  }
+
+  /**
+   * Starts a new segment, once the current one cannot take the next encoded character. If the content has
+   * grown past the threshold, the filled segments are moved to the temp file first.<br><br>
+   *
+   * The caller must report the bytes it writes with {@link #commit(int)}.
+   *
+   * @param directory the directory to create the temp file in, may be null for the default temp directory
+   * @return the new segment, positioned for writing
+   */
+  ByteBuffer nextSegment(File directory) {
+    if (size > bufferThresholdSize && !errorWhileWritingToFile)
+      spill(directory);
+    ByteBuffer segment = pool.acquire();
+    segments.add(segment);
+    return segment;
+  }
+
+  /**
+   * Records bytes written into the current segment.
+   *
+   * @param bytes the number of bytes written
+   */
+  void commit(int bytes) {
+    size += bytes;
+  }
+
+  /**
+   * Moves the filled segments to the temp file and gives them back to the pool. If the file cannot be written, the content stays in memory.
+   */
+  private void spill(File directory) {
+    try {
+      if (responseChannel == null) {
+        File tempFile = File.createTempFile(TEMP_FILE_PREFIX, null, directory);
+        // Mark the file to delete on VM shutdown if it wasn't deleted already
+        tempFile.deleteOnExit();
+        responseFile = tempFile;
+        responseChannel = new RandomAccessFile(tempFile, "rw").getChannel();
+        fileUsedForStorage = true;
+      }
+      ByteBuffer[] filled = segments.toArray(new ByteBuffer[segments.size()]);
+      long bytes = 0;
+      for (ByteBuffer segment : filled) {
+        segment.flip();
+        bytes += segment.remaining();
+      }
+      writeFully(responseChannel, filled, bytes);
+      spilledSize += bytes;
+      if (bytes == size)
+        pool.recordSpill(bytes);
+      else
+        pool.recordSpilledBytes(bytes);
+      releaseSegments();
+    } catch (IOException ioException) {
+      // Keep the content in memory if there was a midway error
+      errorWhileWritingToFile = true;
+      for (ByteBuffer segment : segments) {
+        segment.position(segment.limit());
+        segment.limit(segment.capacity());
+      }
+      if (fileUsedForStorage)
+        recoverFileContents();
+    }
+  }
+
+  /**
+   * Reads back what was spilled before the file failed, so that the whole content is in memory again.
+   */
+  private void recoverFileContents() {
+    List<ByteBuffer> recovered = new ArrayList<ByteBuffer>();
+    try {
+      long position = 0;
+      while (position < spilledSize) {
+        ByteBuffer segment = pool.acquire();
+        if (segment.remaining() > spilledSize - position)
+          segment.limit((int) (spilledSize - position));
+        recovered.add(segment);
+        int n = responseChannel.read(segment, position);
+        if (n < 0)
+          break;
+        position += n;
+        segment.limit(segment.capacity());
+      }
+    } catch (IOException e) {
+      // nothing more we can do, send what we have
+    }
+    segments.addAll(0, recovered);
+    deleteResponseFile();
+    fileUsedForStorage = false;
+    spilledSize = 0;
+  }
+
+  /**
+   * Writes the content to the given stream. File-backed content is transferred by the file channel.
+   *
+   * @param outputStream the stream to write to, it is flushed but not closed
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    writeTo(Channels.newChannel(outputStream));
+    outputStream.flush();
+  }
+
+  /**
+   * Writes the content to the given channel, with a gathering write for the in-memory segments if the channel supports it.
+   *
+   * @param channel the channel to write to, it is not closed
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    if (responseChannel != null) {
+      long position = 0;
+      while (position < spilledSize)
+        position += responseChannel.transferTo(position, spilledSize - position, channel);
+    }
+    ByteBuffer[] pending = new ByteBuffer[segments.size()];
+    long bytes = 0;
+    for (int i = 0; i < pending.length; i++) {
+      ByteBuffer segment = segments.get(i).duplicate();
+      segment.flip();
+      bytes += segment.remaining();
+      pending[i] = segment;
+    }
+    writeFully(channel, pending, bytes);
+  }
+
+  /**
+   * Decodes the content. Only meant for callers that have to embed the response in another one.
+   *
+   * @return the content as string
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public String getContentAsString() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    if (responseChannel != null) {
+      MappedByteBuffer mapped = responseChannel.map(FileChannel.MapMode.READ_ONLY, 0, spilledSize);
+      sb.append(charset.decode(mapped));
+    }
+    // segments recovered from a failed file may end in the middle of a character, so decode them together
+    ByteBuffer all = ByteBuffer.allocate(inMemorySize());
+    for (ByteBuffer segment : segments) {
+      ByteBuffer content = segment.duplicate();
+      content.flip();
+      all.put(content);
+    }
+    all.flip();
+    sb.append(charset.decode(all));
+    return sb.toString();
+  }
+
+  /**
+   * Returns the segments to the pool and deletes the temp file, if any. The holder must not be used afterwards.
+   */
+  public void release() {
+    releaseSegments();
+    deleteResponseFile();
+  }
+
+  private int inMemorySize() {
+    int rt = 0;
+    for (ByteBuffer segment : segments)
+      rt += segment.position();
+    return rt;
+  }
+
+  private void releaseSegments() {
+    for (ByteBuffer segment : segments)
+      pool.release(segment);
+    segments.clear();
+  }
+
+  private void deleteResponseFile() {
+    if (responseChannel != null) {
+      try {
+        responseChannel.close();
+      } catch (IOException e) {
+        // ignore, we delete the file anyway
+      }
+      responseChannel = null;
+    }
+    // Delete the temp file that was created
+    if (responseFile != null && responseFile.exists()) {
+      responseFile.delete();
+    }
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer[] buffers, long bytes) throws IOException {
+    if (channel instanceof GatheringByteChannel) {
+      GatheringByteChannel gathering = (GatheringByteChannel) channel;
+      while (bytes > 0)
+        bytes -= gathering.write(buffers);
+    } else {
+      for (ByteBuffer buffer : buffers) {
+        while (buffer.hasRemaining())
+          channel.write(buffer);
+      }
+    }
   }
 
   /**
@@ -120,29 +351,4 @@ public class BufferOrFileResponseHolder {
     //Set the threshold size
     this.bufferThresholdSize = bufferThresholdSize;
   }
-
-  /**
-   * Transfer buffer contents to file.
-   *
-   * @param str the content to be written out 
-   * @param writer the writer which contains reference to the temp file contained in the BufferOrFileResponseHolder
-   */
-  public synchronized void transferBufferContentsToFile(String str, Writer writer) {
-    if ((this.buffer.length() + str.length()) > this.bufferThresholdSize) {
-      if (!this.fileUsedForStorage) {
-        try {
-          // Add the current content to the buffer and write it out to the file
-          this.buffer.append(str);
-          // We write out character by character so as to not load another copy of the StringBuilder in memory
-          for (int i = 0; i < this.buffer.length(); i++) {
-            writer.write(this.buffer.charAt(i));
-          }
-          //Set the boolean to indicate that we now use the file for storing the response
-          this.fileUsedForStorage = true;
-        } catch (IOException ioException) {
-          // We gobble the exception and keep the fileUsedForStorage to false
-        }
-      }
-    }
-  }
 }
@@ -1,130 +1,90 @@
 package org.odata4j.format.writer;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import jakarta.ws.rs.core.MediaType;
 
-import org.odata4j.core.ODataConstants;
 import org.odata4j.internal.InternalUtil;
 
 import org.glassfish.jersey.message.internal.ReaderWriter;
 
+/**
+ * A {@link Writer} that encodes the response as it is written, in the charset of the response media type, into a
+ * {@link BufferOrFileResponseHolder}.
+ */
 public class BufferOrFileResponseWriter extends Writer {
 
-  private BufferOrFileResponseHolder responseHolder = new BufferOrFileResponseHolder();
-  private Writer responseWriter = null;
+  private final BufferOrFileResponseHolder responseHolder;
+  private final CharsetEncoder encoder;
+  private final char[] single = new char[1];
   private MediaType mediaType;
   private final String JBOSS_TEMP_LOC = "jboss.server.temp.dir";
 
-  public BufferOrFileResponseWriter(String contentType) {
-    if (contentType != null && MediaType.valueOf(contentType) != null) {
-      this.mediaType = MediaType.valueOf(contentType);
-    }
-  }
-
-  /**
-   * Write response data to holder.
-   *
-   * @param content the content
-   */
-  private void writeResponseDataToHolder(String content) {
-    if (this.responseHolder.isFileUsedForStorage() && !this.responseHolder.isErrorWhileWritingToFile()) {
-      this.writeDataToFile(content);
-    } else {
-      this.writeDataToBuffer(content);
-    }
-  }
+  /** The directory for the temp file, resolved when the first segment is started. */
+  private File spillDirectory;
 
-  /**
-   * Write data to file.
-   *
-   * @param content the content
-   */
-  private void writeDataToFile(String content) {
-    try {
+  /** A high surrogate left over from the previous write, waiting for its low surrogate. */
+  private CharBuffer pending;
 
-      if (this.responseWriter == null) {
-        File tempFile = File.createTempFile(BufferOrFileResponseHolder.TEMP_FILE_PREFIX, null, this.getDirectoryLocation());
-        // Mark the file to delete on VM shutdown if it wasn't deleted already
-        tempFile.deleteOnExit();
+  private boolean closed;
 
-        this.responseHolder.setResponseFile(tempFile);
-        this.responseWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.responseHolder.getResponseFile()),
-            ReaderWriter.getCharset(this.mediaType)));
-        this.responseHolder.transferBufferContentsToFile(content, this.responseWriter);
-      }
-      this.responseWriter.write(content);
+  public BufferOrFileResponseWriter(String contentType) {
+    this(contentType, ByteBufferPool.getDefault());
+  }
 
-    } catch (IOException ioException) {
-      // Transfer contents of file to buffer if there was a midway error
-      this.transferFileContentsToBufferOnError();
-      // Let the holder know that there was a error writing to file so that we don't write to file any longer
-      this.responseHolder.setErrorWhileWritingToFile(true);
-      // If we get an exception writing to file we continue appending the data to the buffer 
-      this.responseHolder.getBuffer().append(content);
+  public BufferOrFileResponseWriter(String contentType, ByteBufferPool pool) {
+    if (contentType != null && MediaType.valueOf(contentType) != null) {
+      this.mediaType = MediaType.valueOf(contentType);
     }
+    this.responseHolder = new BufferOrFileResponseHolder(pool, ReaderWriter.getCharset(this.mediaType));
+    this.encoder = this.responseHolder.getCharset().newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
   }
 
   /**
-   * Write data to buffer.
+   * Encodes the characters into the holder's segments, starting a new segment whenever the current one is full.
    *
-   * @param content the content
-   */
-  private void writeDataToBuffer(String content) {
-
-    // If we are past the buffer threshold then we transfer the contents of the buffer to the file and start writing to the file
-    if ((this.responseHolder.getBuffer().length() + content.length()) > this.responseHolder.getBufferThresholdSize()) {
-      try {
-        //Create a temporary file to hold the response data
-        File tempFile = File.createTempFile(BufferOrFileResponseHolder.TEMP_FILE_PREFIX, null, this.getDirectoryLocation());
-        // Mark the file to delete on VM shutdown if it wasn't deleted already
-        tempFile.deleteOnExit();
-
-        this.responseHolder.setResponseFile(tempFile);
-        this.responseWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.responseHolder.getResponseFile()),
-            ReaderWriter.getCharset(this.mediaType)));
-        this.responseHolder.transferBufferContentsToFile(content, this.responseWriter);
-      } catch (IOException e) {
-        // Transfer contents of file to buffer if there was a midway error
-        this.transferFileContentsToBufferOnError();
-        // Let the holder know that there was a error writing to file so that we don't write to file any longer
-        this.responseHolder.setErrorWhileWritingToFile(true);
-        // If we get an exception writing to file we continue appending the data to the buffer 
-        this.responseHolder.getBuffer().append(content);
-      }
-    } else {
-      // Means that the buffer is still not exhausted
-      this.responseHolder.getBuffer().append(content);
+   * @param in the characters to encode
+   * @param endOfInput whether no more characters follow
+   */
+  private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+    if (closed)
+      throw new IOException("Writer closed");
+    if (pending != null) {
+      CharBuffer joined = CharBuffer.allocate(pending.remaining() + in.remaining());
+      joined.put(pending).put(in).flip();
+      pending = null;
+      in = joined;
     }
-  }
-
-  /**
-   * Transfer file contents to buffer if there was an error writing to the file.
-   */
-  private void transferFileContentsToBufferOnError() {
-    BufferedReader bufferedReader = null;
-    int i;
-    if (this.responseHolder.getResponseFile().length() != this.responseHolder.getBuffer().length()) {
-      try {
-        this.responseHolder.setBuffer(new StringBuilder(ODataConstants.COPY_BUFFER_SIZE));
-        bufferedReader = new BufferedReader(new FileReader(this.responseHolder.getResponseFile()));
-        while ((i = bufferedReader.read()) != -1) {
-          this.responseHolder.getBuffer().append(i);
-        }
-      } catch (FileNotFoundException e) {
-
-      } catch (IOException e) {
-
+    ByteBuffer out = this.responseHolder.currentSegment();
+    if (out == null)
+      out = this.responseHolder.nextSegment(this.getSpillDirectory());
+    while (true) {
+      int before = out.position();
+      CoderResult result = this.encoder.encode(in, out, endOfInput);
+      this.responseHolder.commit(out.position() - before);
+      if (result.isOverflow()) {
+        out = this.responseHolder.nextSegment(this.getSpillDirectory());
+      } else if (result.isUnderflow()) {
+        break;
+      } else {
+        result.throwException();
       }
     }
+    if (in.hasRemaining()) {
+      // the encoder needs the next char to complete a surrogate pair
+      pending = CharBuffer.allocate(in.remaining());
+      pending.put(in);
+      pending.flip();
+    }
   }
 
   /*
@@ -139,8 +99,7 @@ public class BufferOrFileResponseWriter extends Writer {
     } else if (len == 0) {
       return;
     }
-    String content = new String(cbuf);
-    this.writeResponseDataToHolder(content.substring(off, off + len));
+    this.encode(CharBuffer.wrap(cbuf, off, len), false);
   }
 
   /* (non-Javadoc)
@@ -148,24 +107,8 @@ public class BufferOrFileResponseWriter extends Writer {
    */
   @Override
   public void write(int c) throws IOException {
-    char[] cbuf = { (char) c };
-    this.writeResponseDataToHolder(new String(cbuf));
-  }
-
-  /* (non-Javadoc)
-   * @see java.io.Writer#write(char[])
-   */
-  @Override
-  public void write(char[] cbuf) throws IOException {
-    this.writeResponseDataToHolder(new String(cbuf));
-  }
-
-  /* (non-Javadoc)
-   * @see java.io.Writer#write(java.lang.String)
-   */
-  @Override
-  public void write(String str) throws IOException {
-    this.writeResponseDataToHolder(str);
+    this.single[0] = (char) c;
+    this.encode(CharBuffer.wrap(this.single), false);
   }
 
   /* (non-Javadoc)
@@ -173,7 +116,10 @@ public class BufferOrFileResponseWriter extends Writer {
    */
   @Override
   public void write(String str, int off, int len) throws IOException {
-    this.writeResponseDataToHolder(str.substring(off, off + len));
+    if (len == 0) {
+      return;
+    }
+    this.encode(CharBuffer.wrap(str, off, off + len), false);
   }
 
   /* (non-Javadoc)
@@ -182,7 +128,7 @@ public class BufferOrFileResponseWriter extends Writer {
   @Override
   public Writer append(CharSequence csq) throws IOException {
     CharSequence cs = (csq == null ? "null" : csq);
-    this.write(cs.toString());
+    this.encode(CharBuffer.wrap(cs), false);
     return this;
   }
 
@@ -192,41 +138,37 @@ public class BufferOrFileResponseWriter extends Writer {
   @Override
   public Writer append(CharSequence csq, int start, int end) throws IOException {
     CharSequence cs = (csq == null ? "null" : csq);
-    this.write(cs.subSequence(start, end).toString());
-    return this;
-  }
-
-  /* (non-Javadoc)
-   * @see java.io.Writer#append(char)
-   */
-  @Override
-  public Writer append(char c) throws IOException {
-    this.write(c);
+    this.encode(CharBuffer.wrap(cs, start, end), false);
     return this;
   }
 
   /**
-   * If we were writing to a file, then calling the flush() method will flush out any data held in the buffered writer to the file.
+   * The content is only handed over on {@link #close()}, so there is nothing to flush.
    */
   @Override
-  public void flush() throws IOException {
-    if (this.responseWriter != null) {
-      this.responseWriter.flush();
-    }
-  }
+  public void flush() throws IOException {}
 
   /**
-   * If we were writing to a file, then calling the close method will flush and close the writer.<br><br>
-   * 
-   * Subsequent invocations on the {@link BufferOrFileResponseHolder} object should get the file and open a {@link FileReader} to navigate the contents of the file.
+   * Completes the encoding. Subsequent invocations on the {@link BufferOrFileResponseHolder} object can write the content out.
    */
   @Override
   public void close() throws IOException {
-    if (this.responseWriter != null) {
-      this.responseWriter.flush();
-      this.responseWriter.close();
-      this.responseWriter = null;
+    if (this.closed) {
+      return;
+    }
+    this.encode(CharBuffer.allocate(0), true);
+    ByteBuffer out = this.responseHolder.currentSegment();
+    if (out == null)
+      out = this.responseHolder.nextSegment(this.getSpillDirectory());
+    while (true) {
+      int before = out.position();
+      CoderResult result = this.encoder.flush(out);
+      this.responseHolder.commit(out.position() - before);
+      if (!result.isOverflow())
+        break;
+      out = this.responseHolder.nextSegment(this.getSpillDirectory());
     }
+    this.closed = true;
   }
 
   /**
@@ -236,6 +178,13 @@ public class BufferOrFileResponseWriter extends Writer {
     return responseHolder;
   }
 
+  private File getSpillDirectory() {
+    if (this.spillDirectory == null) {
+      this.spillDirectory = this.getDirectoryLocation();
+    }
+    return this.spillDirectory;
+  }
+
   /**
    * Gets the directory location.
    *
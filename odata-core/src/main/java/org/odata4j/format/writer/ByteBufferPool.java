@@ -0,0 +1,144 @@
+package org.odata4j.format.writer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.odata4j.core.ODataConstants;
+import org.odata4j.internal.InternalUtil;
+
+/**
+ * A pool of fixed-size direct {@link ByteBuffer} segments used by {@link BufferOrFileResponseHolder} to hold
+ * encoded response bodies.
+ *
+ * <p>Segments are handed out by {@link #acquire()} and must be returned with {@link #release(ByteBuffer)} once the
+ * response has been sent. At most {@link #getMaxPooledSegments()} idle segments are retained; any others are left
+ * to the garbage collector.</p>
+ *
+ * <p>The pool also keeps counters (segments in use, spills, bytes spilled) that can be polled for monitoring.</p>
+ */
+public class ByteBufferPool {
+
+  /** The default size of a segment in bytes. */
+  public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024;
+
+  /** The default number of idle segments retained by the pool. */
+  public static final int DEFAULT_MAX_POOLED_SEGMENTS = 256;
+
+  private static final ByteBufferPool DEFAULT = new ByteBufferPool(DEFAULT_SEGMENT_SIZE, getMaxPooledSegmentsSetting());
+
+  private final int segmentSize;
+  private final int maxPooledSegments;
+  private final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<ByteBuffer>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicInteger segmentsInUse = new AtomicInteger();
+  private final AtomicLong segmentsAllocated = new AtomicLong();
+  private final AtomicLong spills = new AtomicLong();
+  private final AtomicLong bytesSpilled = new AtomicLong();
+
+  public ByteBufferPool(int segmentSize, int maxPooledSegments) {
+    if (segmentSize <= 0)
+      throw new IllegalArgumentException("segmentSize must be positive");
+    this.segmentSize = segmentSize;
+    this.maxPooledSegments = Math.max(0, maxPooledSegments);
+  }
+
+  /**
+   * Gets the process-wide pool used by the response writers.
+   *
+   * @return the default pool
+   */
+  public static ByteBufferPool getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Takes a cleared segment from the pool, allocating a new one if none is idle.
+   *
+   * @return a segment ready for writing
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer segment = idle.poll();
+    if (segment != null) {
+      idleCount.decrementAndGet();
+      segment.clear();
+    } else {
+      segment = ByteBuffer.allocateDirect(segmentSize);
+      segmentsAllocated.incrementAndGet();
+    }
+    segmentsInUse.incrementAndGet();
+    return segment;
+  }
+
+  /**
+   * Returns a segment previously obtained from {@link #acquire()}.
+   *
+   * @param segment  the segment, must not be used by the caller afterwards
+   */
+  public void release(ByteBuffer segment) {
+    segmentsInUse.decrementAndGet();
+    if (segment.capacity() != segmentSize)
+      return;
+    if (idleCount.incrementAndGet() <= maxPooledSegments)
+      idle.offer(segment);
+    else
+      idleCount.decrementAndGet();
+  }
+
+  void recordSpill(long bytes) {
+    spills.incrementAndGet();
+    bytesSpilled.addAndGet(bytes);
+  }
+
+  void recordSpilledBytes(long bytes) {
+    bytesSpilled.addAndGet(bytes);
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  public int getMaxPooledSegments() {
+    return maxPooledSegments;
+  }
+
+  /** @return the number of segments currently held by responses */
+  public int getSegmentsInUse() {
+    return segmentsInUse.get();
+  }
+
+  /** @return the number of idle segments retained by the pool */
+  public int getSegmentsPooled() {
+    return idleCount.get();
+  }
+
+  /** @return the number of segments allocated since the pool was created */
+  public long getSegmentsAllocated() {
+    return segmentsAllocated.get();
+  }
+
+  /** @return the number of responses that spilled to a temp file */
+  public long getSpills() {
+    return spills.get();
+  }
+
+  /** @return the total number of bytes written to temp files */
+  public long getBytesSpilled() {
+    return bytesSpilled.get();
+  }
+
+  private static int getMaxPooledSegmentsSetting() {
+    String value = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_WRITER_POOL_SIZE);
+    if (value != null && !value.isEmpty()) {
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        // ignore and use the default
+      }
+    }
+    return DEFAULT_MAX_POOLED_SEGMENTS;
+  }
+
+}
@@ -47,7 +47,7 @@ public class AtomEntryFormatWriter extends XmlFormatWriter implements FormatWrit
 
   @Override
   public void write(UriInfo uriInfo, Writer w, EntityResponse target) {
-    String baseUri = uriInfo.getBaseUri().toString();
+    String baseUri = newContext(uriInfo).getBaseUri();
     EdmEntitySet ees = target.getEntity().getEntitySet();
 
     DateTime utc = new DateTime().withZone(DateTimeZone.UTC);
@@ -39,6 +39,8 @@ import org.odata4j.edm.EdmType;
 import org.odata4j.format.Entry;
 import org.odata4j.format.Feed;
 import org.odata4j.format.FormatParser;
+import org.odata4j.format.LazyFeed;
+import org.odata4j.format.LazyFeedParser;
 import org.odata4j.internal.FeedCustomizationMapping;
 import org.odata4j.internal.InternalUtil;
 import org.odata4j.stax2.Attribute2;
@@ -51,7 +53,7 @@ import org.odata4j.stax2.XMLFactoryProvider2;
 import org.odata4j.stax2.util.StaxUtil;
 import org.odata4j.urlencoder.ConversionUtil;
 
-public class AtomFeedFormatParser extends XmlFormatParser implements FormatParser<Feed> {
+public class AtomFeedFormatParser extends XmlFormatParser implements FormatParser<Feed>, LazyFeedParser {
 
   protected EdmDataServices metadata;
   protected String entitySetName;
@@ -197,16 +199,50 @@ public class AtomFeedFormatParser extends XmlFormatParser implements FormatParse
     return parseFeed(StaxUtil.newXMLEventReader(reader), getEntitySet());
   }
 
+  @Override
+  public LazyFeed parseLazily(Reader reader) {
+    final EdmEntitySet entitySet = getEntitySet();
+    final XMLEventReader2 events = StaxUtil.newXMLEventReader(reader);
+    final AtomFeed feed = new AtomFeed();
+    return new LazyFeed(reader) {
+      @Override
+      protected Entry readEntry() {
+        return parseNextEntry(events, entitySet, feed);
+      }
+
+      @Override
+      protected void readEnd() {
+        next = feed.next;
+      }
+    };
+  }
+
   AtomFeed parseFeed(XMLEventReader2 reader, EdmEntitySet entitySet) {
 
     AtomFeed feed = new AtomFeed();
     List<AtomEntry> rt = new ArrayList<AtomEntry>();
 
+    AtomEntry entry;
+    while ((entry = parseNextEntry(reader, entitySet, feed)) != null) {
+      rt.add(entry);
+    }
+    feed.entries = Enumerable.create(rt).cast(Entry.class);
+
+    return feed;
+
+  }
+
+  /**
+   * Parses up to and including the next entry of a feed.
+   *
+   * @return the entry, or null at the end of the feed
+   */
+  private AtomEntry parseNextEntry(XMLEventReader2 reader, EdmEntitySet entitySet, AtomFeed feed) {
     while (reader.hasNext()) {
       XMLEvent2 event = reader.nextEvent();
 
       if (isStartElement(event, ATOM_ENTRY)) {
-        rt.add(parseEntry(reader, event.asStartElement(), entitySet));
+        return parseEntry(reader, event.asStartElement(), entitySet);
       } else if (isStartElement(event, ATOM_LINK)) {
         if ("next".equals(event.asStartElement().getAttributeByName(new QName2("rel")).getValue())) {
           feed.next = event.asStartElement().getAttributeByName(new QName2("href")).getValue();
@@ -217,10 +253,7 @@ public class AtomFeedFormatParser extends XmlFormatParser implements FormatParse
       }
 
     }
-    feed.entries = Enumerable.create(rt).cast(Entry.class);
-
-    return feed;
-
+    return null;
   }
 
   public static Iterable<OProperty<?>> parseProperties(XMLEventReader2 reader, StartElement2 propertiesElement, EdmDataServices metadata, EdmStructuralType structuralType) {
@@ -1,9 +1,7 @@
 package org.odata4j.format.xml;
 
 import java.io.Writer;
-import java.util.List;
 
-import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
 
 import org.joda.time.DateTime;
@@ -28,7 +26,7 @@ public class AtomFeedFormatWriter extends XmlFormatWriter implements FormatWrite
   @Override
   public void write(UriInfo uriInfo, Writer w, EntitiesResponse response) {
 
-    String baseUri = uriInfo.getBaseUri().toString();
+    String baseUri = newContext(uriInfo).getBaseUri();
 
     EdmEntitySet ees = response.getEntitySet();
     String entitySetName = ees.getName();
@@ -55,7 +53,9 @@ public class AtomFeedFormatWriter extends XmlFormatWriter implements FormatWrite
       writeElement(writer, "m:count", inlineCount.toString());
     }
 
-    for (OEntity entity : response.getEntities()) {
+    int written = 0;
+    for (OEntity entity : InternalUtil.iterateEntities(response)) {
+      written++;
       writer.startElement("entry");
       writeEntry(writer, entity, entity.getProperties(), entity.getLinks(), baseUri, updated, ees, true);
       writer.endElement("entry");
@@ -63,18 +63,7 @@ public class AtomFeedFormatWriter extends XmlFormatWriter implements FormatWrite
 
     if (response.getSkipToken() != null) {
       //<link rel="next" href="https://odata.sqlazurelabs.com/OData.svc/v0.1/rp1uiewita/StackOverflow/Tags/?$filter=TagName%20gt%20'a'&amp;$skiptoken=52" />
-      UriBuilder builder = uriInfo.getRequestUriBuilder().replaceQueryParam("$skiptoken", response.getSkipToken());
-      List<String> topParam = uriInfo.getQueryParameters().get("$top");
-      if (topParam != null) {
-        long top = Long.valueOf(topParam.get(0));
-        top -= response.getEntities().size();
-        if (top > 0) {
-          builder.replaceQueryParam("$top", top);
-        } else {
-          builder.replaceQueryParam("$top");
-        }
-      }
-      String nextHref = builder.build().toString();
+      String nextHref = InternalUtil.getNextHref(uriInfo, response.getSkipToken(), written);
       writeElement(writer, "link", null, "rel", "next", "href", nextHref);
     }
 
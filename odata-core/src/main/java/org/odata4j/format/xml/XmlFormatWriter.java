@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.UriInfo;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -29,6 +30,7 @@ import org.odata4j.edm.EdmEntitySet;
 import org.odata4j.edm.EdmFunctionImport;
 import org.odata4j.edm.EdmSimpleType;
 import org.odata4j.edm.EdmType;
+import org.odata4j.format.WriterContext;
 import org.odata4j.internal.InternalUtil;
 import org.odata4j.repack.org.apache.commons.codec.binary.Base64;
 import org.odata4j.stax2.QName2;
@@ -49,6 +51,14 @@ public class XmlFormatWriter {
   public static final String edit_media = "http://schemas.microsoft.com/ado/2007/08/dataservices/edit-media/";
   public static final String mediaresource = "http://schemas.microsoft.com/ado/2007/08/dataservices/mediaresource/";
 
+  private WriterContext context;
+
+  /** Starts the context of a response, which the entries written after share. */
+  protected WriterContext newContext(UriInfo uriInfo) {
+    context = new WriterContext(uriInfo);
+    return context;
+  }
+
   protected void writeProperties(XMLWriter2 writer, List<OProperty<?>> properties) {
     for (OProperty<?> prop : properties) {
       writeProperty(writer, prop, false);
@@ -220,7 +230,7 @@ public class XmlFormatWriter {
     String relid = null;
     String absid = null;
     if (isResponse) {
-      relid = InternalUtil.getEntityRelId(oe);
+      relid = context != null ? context.getEntityRelId(oe) : InternalUtil.getEntityRelId(oe);
       absid = baseUri + relid;
       writeElement(writer, "id", absid);
     }
@@ -0,0 +1,159 @@
+package org.odata4j.internal;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates the accessors {@link BeanModel} and {@link PojoMapping} call bean methods through.
+ *
+ * <p>An accessor is generated with {@link LambdaMetafactory}, so calling it is a plain (inlinable) method call,
+ * when the bean class and the types of the method are public and visible from this class; otherwise it calls
+ * the method by reflection, with the accessibility check done once.
+ */
+class BeanAccessors {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private BeanAccessors() {}
+
+  /** Calls a getter on a target. */
+  interface Reader {
+    Object get(Object target) throws Exception;
+  }
+
+  /** Calls a setter on a target. */
+  interface Writer {
+    void set(Object target, Object value) throws Exception;
+  }
+
+  /** Calls a default constructor. */
+  interface Factory {
+    Object create() throws Exception;
+  }
+
+  static Reader reader(final Method method) {
+    if (isLinkable(method, method.getReturnType())) {
+      try {
+        return generate(Reader.class, "get", MethodType.methodType(Object.class, Object.class),
+            LOOKUP.unreflect(method),
+            MethodType.methodType(method.getReturnType(), method.getDeclaringClass()).wrap());
+      } catch (Throwable e) {
+        // use reflection
+      }
+    }
+    makeAccessible(method);
+    return new Reader() {
+      @Override
+      public Object get(Object target) throws Exception {
+        return method.invoke(target);
+      }
+    };
+  }
+
+  static Writer writer(final Method method) {
+    final Class<?> parameterType = method.getParameterTypes()[0];
+    makeAccessible(method);
+    final Writer reflective = new Writer() {
+      @Override
+      public void set(Object target, Object value) throws Exception {
+        method.invoke(target, value);
+      }
+    };
+    if (!isLinkable(method, parameterType))
+      return reflective;
+
+    final Class<?> valueClass = MethodType.methodType(parameterType).wrap().returnType();
+    final Writer generated;
+    try {
+      generated = generate(Writer.class, "set", MethodType.methodType(void.class, Object.class, Object.class),
+          LOOKUP.unreflect(method),
+          MethodType.methodType(void.class, method.getDeclaringClass(), valueClass));
+    } catch (Throwable e) {
+      return reflective;
+    }
+    final boolean primitive = parameterType.isPrimitive();
+    return new Writer() {
+      @Override
+      public void set(Object target, Object value) throws Exception {
+        // values that need a widening conversion, and nulls for primitives, are left to reflection
+        if (value == null ? !primitive : valueClass.isInstance(value))
+          generated.set(target, value);
+        else
+          reflective.set(target, value);
+      }
+    };
+  }
+
+  static Factory factory(final Constructor<?> constructor) {
+    if (isLinkable(constructor)) {
+      try {
+        return generate(Factory.class, "create", MethodType.methodType(Object.class),
+            LOOKUP.unreflectConstructor(constructor),
+            MethodType.methodType(constructor.getDeclaringClass()));
+      } catch (Throwable e) {
+        // use reflection
+      }
+    }
+    makeAccessible(constructor);
+    return new Factory() {
+      @Override
+      public Object create() throws Exception {
+        return constructor.newInstance();
+      }
+    };
+  }
+
+  private static <T> T generate(Class<T> interfaceClass, String name, MethodType erasedType, MethodHandle implementation, MethodType instantiatedType) throws Throwable {
+    CallSite site = LambdaMetafactory.metafactory(LOOKUP, name, MethodType.methodType(interfaceClass),
+        erasedType, implementation, instantiatedType);
+    return interfaceClass.cast(site.getTarget().invoke());
+  }
+
+  /**
+   * Generated classes are defined next to this class, so they can only link to public members of public classes
+   * this class loader can see.
+   */
+  private static boolean isLinkable(Member member, Class<?>... types) {
+    if (!Modifier.isPublic(member.getModifiers()) || !isLinkable(member.getDeclaringClass()))
+      return false;
+    for (Class<?> type : types) {
+      if (!isLinkable(type))
+        return false;
+    }
+    return true;
+  }
+
+  private static boolean isLinkable(Class<?> clazz) {
+    while (clazz.isArray())
+      clazz = clazz.getComponentType();
+    if (clazz.isPrimitive())
+      return true;
+    if (!Modifier.isPublic(clazz.getModifiers()))
+      return false;
+    try {
+      return Class.forName(clazz.getName(), false, BeanAccessors.class.getClassLoader()) == clazz;
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (LinkageError e) {
+      return false;
+    }
+  }
+
+  private static void makeAccessible(AccessibleObject object) {
+    try {
+      if (!object.isAccessible())
+        object.setAccessible(true);
+    } catch (RuntimeException e) {
+      // the call fails the way it always has
+    }
+  }
+
+}
@@ -12,9 +12,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.core4j.Enumerable;
 import org.odata4j.core.Throwables;
+import org.odata4j.internal.BeanAccessors.Reader;
+import org.odata4j.internal.BeanAccessors.Writer;
 
 /**
  * An abstract representation of the "bean" nature of a class.
@@ -22,10 +26,27 @@ import org.odata4j.core.Throwables;
  * getters and setters it will need in order to operate on instances.
  *
  * <p>Instances of this class can then be used in place of reflection.</p>
+ *
+ * <p>Getters and setters are called through accessors that are created on first use, see {@link #forClass(Class)}
+ * for models that are shared for the life of the class.</p>
  */
 public class BeanModel {
   private static final boolean DUMP = false;
 
+  private static final ClassValue<BeanModel> FLATTENED = new ClassValue<BeanModel>() {
+    @Override
+    protected BeanModel computeValue(Class<?> type) {
+      return new BeanModel(type, true);
+    }
+  };
+
+  private static final ClassValue<BeanModel> HIERARCHICAL = new ClassValue<BeanModel>() {
+    @Override
+    protected BeanModel computeValue(Class<?> type) {
+      return new BeanModel(type, false);
+    }
+  };
+
   private static void dump(String msg) {
     if (DUMP) System.out.println(msg);
   }
@@ -35,9 +56,33 @@ public class BeanModel {
   private final Map<String, Method> setters;
   private final Map<String, Class<?>> types;
   private final Map<String, Class<?>> collections;
+  private final ConcurrentMap<String, Reader> readers = new ConcurrentHashMap<String, Reader>();
+  private final ConcurrentMap<String, Writer> writers = new ConcurrentHashMap<String, Writer>();
 
   private final BeanModel superClass;
 
+  /**
+   * Gets the shared abstract bean representation of a class.
+   * Flattens inheritance.
+   *
+   * @param beanClass  the class to introspect
+   * @return the model, created on first use
+   */
+  public static BeanModel forClass(Class<?> beanClass) {
+    return FLATTENED.get(beanClass);
+  }
+
+  /**
+   * Gets the shared abstract bean representation of a class.
+   *
+   * @param beanClass  the class to introspect
+   * @param flatten    flatten inheritance or not (@see BeanBasePropertyModel)
+   * @return the model, created on first use
+   */
+  public static BeanModel forClass(Class<?> beanClass, boolean flatten) {
+    return flatten ? FLATTENED.get(beanClass) : HIERARCHICAL.get(beanClass);
+  }
+
   /**
    * Constructs the abstract bean representation of a class.
    * Flattens inheritance.
@@ -64,7 +109,7 @@ public class BeanModel {
 
     // work up the hierarchy
     Class<?> sc = beanClass.getSuperclass();
-    superClass = (!flatten && sc != null) ? new BeanModel(sc, flatten) : null;
+    superClass = (!flatten && sc != null) ? forClass(sc, flatten) : null;
   }
 
   /**
@@ -182,14 +227,9 @@ public class BeanModel {
    * @return the value of the property in the given object
    */
   public Object getPropertyValue(Object target, String propertyName) {
-    Method method = getGetter(propertyName);
-    if (method == null && superClass != null) {
-      method = superClass.getGetter(propertyName);
-    }
-    if (!method.isAccessible())
-      method.setAccessible(true);
+    Reader reader = getReader(propertyName);
     try {
-      return method.invoke(target);
+      return reader.get(target);
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }
@@ -204,14 +244,9 @@ public class BeanModel {
    * @param propertyValue the value to set in the property
    */
   public void setPropertyValue(Object target, String propertyName, Object propertyValue) {
-    Method method = getSetter(propertyName);
-    if (method == null && superClass != null) {
-      method = superClass.getSetter(propertyName);
-    }
-    if (!method.isAccessible())
-      method.setAccessible(true);
+    Writer writer = getWriter(propertyName);
     try {
-      method.invoke(target, propertyValue);
+      writer.set(target, propertyValue);
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }
@@ -225,11 +260,9 @@ public class BeanModel {
    * @return an iterable containing the elements of the collection
    */
   public Iterable<?> getCollectionValue(Object target, String collectionName) {
-    Method method = getGetter(collectionName);
-    if (!method.isAccessible())
-      method.setAccessible(true);
+    Reader reader = getReader(collectionName);
     try {
-      Object obj = method.invoke(target);
+      Object obj = reader.get(target);
       if (obj == null)
         return null;
       else
@@ -250,8 +283,7 @@ public class BeanModel {
    */
   public <T> void setCollectionValue(Object target, String collectionName, Collection<T> collectionValue) {
     Method method = getSetter(collectionName);
-    if (!method.isAccessible())
-      method.setAccessible(true);
+    Writer writer = getWriter(collectionName);
     try {
       Object value = null;
 
@@ -269,13 +301,37 @@ public class BeanModel {
           throw new RuntimeException("Unsupported collection type " + collectionValue.getClass());
       }
 
-      method.invoke(target, value);
+      writer.set(target, value);
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }
 
   }
 
+  /**
+   * Gets the accessor that calls the getter of a property, walking up the inheritance hierarchy.
+   */
+  Reader getReader(String propertyName) {
+    Reader reader = readers.get(propertyName);
+    if (reader == null) {
+      reader = BeanAccessors.reader(getGetter(propertyName));
+      readers.put(propertyName, reader);
+    }
+    return reader;
+  }
+
+  /**
+   * Gets the accessor that calls the setter of a property, walking up the inheritance hierarchy.
+   */
+  Writer getWriter(String propertyName) {
+    Writer writer = writers.get(propertyName);
+    if (writer == null) {
+      writer = BeanAccessors.writer(getSetter(propertyName));
+      writers.put(propertyName, writer);
+    }
+    return writer;
+  }
+
   private Method getGetter(String propertyName) {
     Method method = getters.get(propertyName);
     if (method == null && superClass != null) {
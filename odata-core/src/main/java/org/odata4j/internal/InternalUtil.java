@@ -3,15 +3,18 @@ package org.odata4j.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.text.DecimalFormat;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
+
 import org.core4j.Enumerable;
 import org.core4j.Func1;
 import org.core4j.Funcs;
@@ -34,7 +37,8 @@ import org.odata4j.core.ORelatedEntitiesLinkInline;
 import org.odata4j.core.ORelatedEntityLink;
 import org.odata4j.core.Throwables;
 import org.odata4j.edm.EdmEntitySet;
-import org.odata4j.urlencoder.ConversionUtil;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.StreamingEntitiesResponse;
 
 public class InternalUtil {
 
@@ -262,23 +266,11 @@ public class InternalUtil {
 
   public static <T> T toPojo(Class<T> pojoClass, OEntity oe) {
     try {
-      Constructor<T> defaultCtor = findDefaultDeclaredConstructor(pojoClass);
-      if (defaultCtor == null)
-        throw new RuntimeException(
-            "Unable to find a default constructor for "
-                + pojoClass.getName());
-
-      if (!defaultCtor.isAccessible())
-        defaultCtor.setAccessible(true);
-
-      T rt = defaultCtor.newInstance();
+      PojoMapping mapping = PojoMapping.get(pojoClass, oe.getEntityType());
+      T rt = pojoClass.cast(mapping.newInstance());
 
-      final BeanModel beanModel = new BeanModel(pojoClass);
-
-      for (OProperty<?> op : oe.getProperties()) {
-        if (beanModel.canWrite(op.getName()))
-          beanModel.setPropertyValue(rt, op.getName(), op.getValue());
-      }
+      final BeanModel beanModel = mapping.getBeanModel();
+      mapping.setProperties(rt, oe.getProperties());
 
       for (OLink l : oe.getLinks()) {
         if (l instanceof ORelatedEntitiesLinkInline) {
@@ -312,16 +304,6 @@ public class InternalUtil {
 
   }
 
-  @SuppressWarnings("unchecked")
-  private static <T> Constructor<T> findDefaultDeclaredConstructor(
-      Class<T> pojoClass) {
-    for (Constructor<?> ctor : pojoClass.getDeclaredConstructors()) {
-      if (ctor.getParameterTypes().length == 0)
-        return (Constructor<T>) ctor;
-    }
-    return null;
-  }
-
   public static String getEntityRelId(List<String> keyPropertyNames,
       final List<OProperty<?>> entityProperties, String entitySetName) {
     String key = null;
@@ -348,9 +330,51 @@ public class InternalUtil {
   }
 
   public static String getEntityRelId(EdmEntitySet entitySet, OEntityKey entityKey) {
-    //encode the key
-    String key = ConversionUtil.encodeString(entityKey.toKeyString());
-    return entitySet.getName() + key;
+    return entitySet.getName() + entityKey.toUriKeyString();
+  }
+
+  /**
+   * Returns the entities of a response for a single pass, without materializing a
+   * {@link StreamingEntitiesResponse}.
+   *
+   * @param response  the entities response
+   * @return an iterable over the entities, only to be iterated once
+   */
+  public static Iterable<OEntity> iterateEntities(final EntitiesResponse response) {
+    if (!(response instanceof StreamingEntitiesResponse))
+      return response.getEntities();
+    return new Iterable<OEntity>() {
+      @Override
+      public Iterator<OEntity> iterator() {
+        return ((StreamingEntitiesResponse) response).getEntityIterator();
+      }
+    };
+  }
+
+  /**
+   * Builds the link to the next page of a feed: the request URI with the $skiptoken of the page. $skip is removed,
+   * since the skip token continues after the entities it skipped, and $top is reduced by the number of entities
+   * written.
+   *
+   * @param uriInfo  the request URI
+   * @param skipToken  the $skiptoken of the page
+   * @param written  the number of entities of the page
+   * @return the link to the next page
+   */
+  public static String getNextHref(UriInfo uriInfo, String skipToken, int written) {
+    UriBuilder uri = uriInfo.getRequestUriBuilder();
+    uri.replaceQueryParam("$skiptoken", skipToken);
+    List<String> tops = uriInfo.getQueryParameters().get("$top");
+    if (tops != null && !tops.isEmpty()) {
+      // query param value already validated
+      long top = Long.parseLong(tops.get(0)) - written;
+      if (top > 0)
+        uri.replaceQueryParam("$top", top);
+      else
+        uri.replaceQueryParam("$top");
+    }
+    uri.replaceQueryParam("$skip");
+    return uri.build().toString();
   }
 
   public static void sleep(long millis) {
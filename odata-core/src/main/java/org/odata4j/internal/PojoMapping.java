@@ -0,0 +1,127 @@
+package org.odata4j.internal;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.internal.BeanAccessors.Factory;
+import org.odata4j.internal.BeanAccessors.Writer;
+
+/**
+ * How {@link InternalUtil#toPojo(Class, org.odata4j.core.OEntity)} converts entities of one entity type to
+ * instances of one class: the setter of each property of the entity type, by position.
+ *
+ * <p>Entities have their properties in the order of their entity type, as a rule, so the setter of each property
+ * is found without a lookup by name. Properties that are not where the entity type has them are looked up by name.
+ */
+class PojoMapping {
+
+  private static final ClassValue<Mappings> MAPPINGS = new ClassValue<Mappings>() {
+    @Override
+    protected Mappings computeValue(Class<?> type) {
+      return new Mappings(type);
+    }
+  };
+
+  private final BeanModel beanModel;
+  private final Factory factory;
+  private final EdmEntityType entityType;
+  private final String[] names;
+  private final Writer[] writers;
+
+  private PojoMapping(Mappings mappings, EdmEntityType entityType) {
+    this.beanModel = mappings.beanModel;
+    this.factory = mappings.factory;
+    this.entityType = entityType;
+    List<EdmProperty> properties = entityType == null ? null : entityType.getProperties().toList();
+    int size = properties == null ? 0 : properties.size();
+    this.names = new String[size];
+    this.writers = new Writer[size];
+    for (int i = 0; i < size; i++) {
+      names[i] = properties.get(i).getName();
+      if (beanModel.canWrite(names[i]))
+        writers[i] = beanModel.getWriter(names[i]);
+    }
+  }
+
+  /**
+   * Gets the mapping of entities of a type to instances of a class.
+   *
+   * @param pojoClass  the class of the instances
+   * @param entityType  the type of the entities, may be null
+   * @return the mapping, created on first use
+   */
+  static PojoMapping get(Class<?> pojoClass, EdmEntityType entityType) {
+    Mappings mappings = MAPPINGS.get(pojoClass);
+    PojoMapping last = mappings.last;
+    if (last != null && last.entityType == entityType)
+      return last;
+
+    PojoMapping mapping = entityType == null ? mappings.untyped : mappings.byType.get(entityType);
+    // entity types are equal by name, a mapping made for another instance of the type would still work
+    if (mapping == null || mapping.entityType != entityType) {
+      mapping = new PojoMapping(mappings, entityType);
+      if (entityType != null)
+        mappings.byType.put(entityType, mapping);
+    }
+    mappings.last = mapping;
+    return mapping;
+  }
+
+  public BeanModel getBeanModel() {
+    return beanModel;
+  }
+
+  public Object newInstance() throws Exception {
+    if (factory == null)
+      throw new RuntimeException("Unable to find a default constructor for " + beanModel.getBeanClass().getName());
+    return factory.create();
+  }
+
+  /**
+   * Sets the properties of an instance that have a setter to the values of the given properties.
+   */
+  public void setProperties(Object target, List<OProperty<?>> properties) throws Exception {
+    for (int i = 0, size = properties.size(); i < size; i++) {
+      OProperty<?> property = properties.get(i);
+      String name = property.getName();
+      Writer writer;
+      if (i < names.length && name.equals(names[i]))
+        writer = writers[i];
+      else
+        writer = beanModel.canWrite(name) ? beanModel.getWriter(name) : null;
+      if (writer != null)
+        writer.set(target, property.getValue());
+    }
+  }
+
+  /** The mappings of one class. */
+  private static class Mappings {
+
+    final BeanModel beanModel;
+    final Factory factory;
+    final ConcurrentMap<EdmEntityType, PojoMapping> byType = new ConcurrentHashMap<EdmEntityType, PojoMapping>();
+    final PojoMapping untyped;
+    volatile PojoMapping last;
+
+    Mappings(Class<?> pojoClass) {
+      beanModel = BeanModel.forClass(pojoClass);
+      Constructor<?> defaultCtor = findDefaultDeclaredConstructor(pojoClass);
+      factory = defaultCtor == null ? null : BeanAccessors.factory(defaultCtor);
+      untyped = new PojoMapping(this, null);
+    }
+
+    private static Constructor<?> findDefaultDeclaredConstructor(Class<?> pojoClass) {
+      for (Constructor<?> ctor : pojoClass.getDeclaredConstructors()) {
+        if (ctor.getParameterTypes().length == 0)
+          return ctor;
+      }
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,696 @@
+package org.odata4j.producer;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmStructuralType;
+import org.odata4j.edm.EdmType;
+import org.odata4j.expression.AddExpression;
+import org.odata4j.expression.AndExpression;
+import org.odata4j.expression.BinaryCommonExpression;
+import org.odata4j.expression.BoolCommonExpression;
+import org.odata4j.expression.BoolParenExpression;
+import org.odata4j.expression.BooleanLiteral;
+import org.odata4j.expression.CastExpression;
+import org.odata4j.expression.CommonExpression;
+import org.odata4j.expression.DivExpression;
+import org.odata4j.expression.EndsWithMethodCallExpression;
+import org.odata4j.expression.EntitySimpleProperty;
+import org.odata4j.expression.EqExpression;
+import org.odata4j.expression.Expression;
+import org.odata4j.expression.GeExpression;
+import org.odata4j.expression.GtExpression;
+import org.odata4j.expression.LeExpression;
+import org.odata4j.expression.LiteralExpression;
+import org.odata4j.expression.LtExpression;
+import org.odata4j.expression.ModExpression;
+import org.odata4j.expression.MulExpression;
+import org.odata4j.expression.NeExpression;
+import org.odata4j.expression.NotExpression;
+import org.odata4j.expression.OrExpression;
+import org.odata4j.expression.ParenExpression;
+import org.odata4j.expression.StartsWithMethodCallExpression;
+import org.odata4j.expression.SubExpression;
+import org.odata4j.expression.SubstringOfMethodCallExpression;
+import org.odata4j.internal.TypeConverter;
+import org.odata4j.producer.ExpressionEvaluator.BinaryFunction;
+import org.odata4j.producer.ExpressionEvaluator.SlotResolver;
+import org.odata4j.producer.ExpressionEvaluator.VariableResolver;
+
+/**
+ * A $filter expression compiled once, typically per request, and then applied to any number of rows.
+ *
+ * <p>{@link ExpressionEvaluator#evaluate(BoolCommonExpression)} walks the expression tree for every row. Here the
+ * tree is translated up front into evaluation nodes: properties of the entity type are resolved to slots, literals
+ * are converted to the type they are compared with, and comparisons are specialized on the {@link EdmSimpleType}s
+ * of their operands. Comparing a property with a literal or with another property then does not allocate.
+ *
+ * <p>Rows are supplied as a {@link VariableResolver}. If it is a {@link SlotResolver}, properties are read by slot,
+ * their position in {@link EdmStructuralType#getProperties()}; otherwise, and for paths that are not properties of
+ * the type, they are resolved by name. Results are those of the evaluator, except that an ordering comparison
+ * (gt, ge, lt, le) with a null operand is false instead of failing, and that startswith and endswith are supported
+ * as well.
+ *
+ * <p>Arithmetic (add, sub, mul, div, mod) on row values still goes through the promotion rules of the evaluator
+ * and boxes its result, so filters using it allocate per row.
+ *
+ * <p>A compiled filter is immutable and can be shared between threads.
+ */
+public class CompiledFilter {
+
+  private final BoolCommonExpression expression;
+  private final BoolNode root;
+
+  private CompiledFilter(BoolCommonExpression expression, BoolNode root) {
+    this.expression = expression;
+    this.root = root;
+  }
+
+  /**
+   * Compiles a filter for rows of the given type.
+   *
+   * @param expression  the filter
+   * @param type  the type of the rows, may be null to resolve every property by name
+   * @return the compiled filter
+   * @throws UnsupportedOperationException if the filter contains an expression the evaluator does not support
+   */
+  public static CompiledFilter compile(BoolCommonExpression expression, EdmStructuralType type) {
+    return new CompiledFilter(expression, new Compiler(type).compileBool(expression));
+  }
+
+  /**
+   * @return the expression this filter was compiled from
+   */
+  public BoolCommonExpression getExpression() {
+    return expression;
+  }
+
+  /**
+   * Applies the filter to a row.
+   *
+   * @param row  the row, a {@link SlotResolver} to read properties by slot
+   * @return whether the row matches the filter
+   */
+  public boolean apply(VariableResolver row) {
+    return root.test(row);
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledFilter[" + Expression.asFilterString(expression) + "]";
+  }
+
+  // - - - - - - - - - - - - - - - - compilation
+
+  private static final int UNKNOWN = 0;
+  private static final int INTEGRAL = 1;
+  private static final int SINGLE = 2;
+  private static final int DOUBLE = 3;
+  private static final int DECIMAL = 4;
+  private static final int STRING = 5;
+  private static final int BOOLEAN = 6;
+
+  private static int kindOf(Class<?> javaType) {
+    if (javaType == null)
+      return UNKNOWN;
+    if (javaType.equals(Integer.class) || javaType.equals(Long.class) || javaType.equals(Short.class) || javaType.equals(Byte.class))
+      return INTEGRAL;
+    if (javaType.equals(Double.class))
+      return DOUBLE;
+    if (javaType.equals(Float.class))
+      return SINGLE;
+    if (javaType.equals(BigDecimal.class))
+      return DECIMAL;
+    if (javaType.equals(String.class))
+      return STRING;
+    if (javaType.equals(Boolean.class))
+      return BOOLEAN;
+    return UNKNOWN;
+  }
+
+  private static boolean isNumeric(int kind) {
+    return kind >= INTEGRAL && kind <= DECIMAL;
+  }
+
+  /** The kind both operands are converted to, following the binary numeric promotion of the evaluator. */
+  private static int promote(int lhs, int rhs) {
+    if (!isNumeric(lhs) || !isNumeric(rhs))
+      return lhs == rhs ? lhs : UNKNOWN;
+    if ((lhs == DECIMAL && (rhs == DECIMAL || rhs == INTEGRAL)) || (rhs == DECIMAL && lhs == INTEGRAL))
+      return DECIMAL;
+    if (lhs == DOUBLE || rhs == DOUBLE)
+      return DOUBLE;
+    if (lhs == SINGLE || rhs == SINGLE)
+      return SINGLE;
+    return INTEGRAL;
+  }
+
+  /** The static type of an arithmetic result, as far as it is known. */
+  private static Class<?> promote(Class<?> lhs, Class<?> rhs) {
+    if (lhs == null || rhs == null)
+      return null;
+    if (lhs.equals(rhs))
+      return lhs;
+    switch (promote(kindOf(lhs), kindOf(rhs))) {
+    case DECIMAL:
+      return BigDecimal.class;
+    case DOUBLE:
+      return Double.class;
+    case SINGLE:
+      return Float.class;
+    case INTEGRAL:
+      return lhs.equals(Long.class) || rhs.equals(Long.class) ? Long.class : Integer.class;
+    default:
+      return null;
+    }
+  }
+
+  private static BigDecimal toDecimal(Object value) {
+    if (value instanceof BigDecimal)
+      return (BigDecimal) value;
+    if (value instanceof Double || value instanceof Float)
+      return BigDecimal.valueOf(((Number) value).doubleValue());
+    return BigDecimal.valueOf(((Number) value).longValue());
+  }
+
+  private static Object convert(Object value, int kind) {
+    if (!(value instanceof Number))
+      return value;
+    switch (kind) {
+    case INTEGRAL:
+      return value instanceof BigDecimal || value instanceof Double || value instanceof Float ? value : Long.valueOf(((Number) value).longValue());
+    case SINGLE:
+      return Float.valueOf(((Number) value).floatValue());
+    case DOUBLE:
+      return Double.valueOf(((Number) value).doubleValue());
+    case DECIMAL:
+      return toDecimal(value);
+    default:
+      return value;
+    }
+  }
+
+  private static class Compiler {
+
+    private final Map<String, Integer> slots = new HashMap<String, Integer>();
+    private final Map<String, Class<?>> javaTypes = new HashMap<String, Class<?>>();
+
+    Compiler(EdmStructuralType type) {
+      if (type == null)
+        return;
+      int slot = 0;
+      for (EdmProperty property : type.getProperties()) {
+        slots.put(property.getName(), slot++);
+        EdmType propertyType = property.getType();
+        if (propertyType instanceof EdmSimpleType)
+          javaTypes.put(property.getName(), ((EdmSimpleType<?>) propertyType).getCanonicalJavaType());
+      }
+    }
+
+    BoolNode compileBool(BoolCommonExpression expression) {
+      if (expression instanceof EqExpression)
+        return comparison(Comparison.EQ, (BinaryCommonExpression) expression);
+      if (expression instanceof NeExpression)
+        return comparison(Comparison.NE, (BinaryCommonExpression) expression);
+      if (expression instanceof AndExpression) {
+        AndExpression e = (AndExpression) expression;
+        return new And(compileBool(e.getLHS()), compileBool(e.getRHS()));
+      }
+      if (expression instanceof OrExpression) {
+        OrExpression e = (OrExpression) expression;
+        return new Or(compileBool(e.getLHS()), compileBool(e.getRHS()));
+      }
+      if (expression instanceof BooleanLiteral)
+        return ((BooleanLiteral) expression).getValue() ? BoolConstant.TRUE : BoolConstant.FALSE;
+      if (expression instanceof GtExpression)
+        return comparison(Comparison.GT, (BinaryCommonExpression) expression);
+      if (expression instanceof LtExpression)
+        return comparison(Comparison.LT, (BinaryCommonExpression) expression);
+      if (expression instanceof GeExpression)
+        return comparison(Comparison.GE, (BinaryCommonExpression) expression);
+      if (expression instanceof LeExpression)
+        return comparison(Comparison.LE, (BinaryCommonExpression) expression);
+      if (expression instanceof NotExpression)
+        return new Not(compile(((NotExpression) expression).getExpression()));
+      if (expression instanceof SubstringOfMethodCallExpression) {
+        SubstringOfMethodCallExpression e = (SubstringOfMethodCallExpression) expression;
+        return new StringMethod(StringMethod.SUBSTRINGOF, compile(e.getTarget()), compile(e.getValue()));
+      }
+      if (expression instanceof StartsWithMethodCallExpression) {
+        StartsWithMethodCallExpression e = (StartsWithMethodCallExpression) expression;
+        return new StringMethod(StringMethod.STARTSWITH, compile(e.getTarget()), compile(e.getValue()));
+      }
+      if (expression instanceof EndsWithMethodCallExpression) {
+        EndsWithMethodCallExpression e = (EndsWithMethodCallExpression) expression;
+        return new StringMethod(StringMethod.ENDSWITH, compile(e.getTarget()), compile(e.getValue()));
+      }
+      if (expression instanceof BoolParenExpression)
+        return compileBool((BoolCommonExpression) ((BoolParenExpression) expression).getExpression());
+      throw new UnsupportedOperationException("unsupported expression " + expression);
+    }
+
+    Node compile(CommonExpression expression) {
+      if (expression instanceof LiteralExpression)
+        return new Constant(Expression.literalValue((LiteralExpression) expression));
+      if (expression instanceof BoolCommonExpression)
+        return compileBool((BoolCommonExpression) expression);
+      if (expression instanceof EntitySimpleProperty) {
+        String name = ((EntitySimpleProperty) expression).getPropertyName();
+        Integer slot = slots.get(name);
+        return new Property(name, slot == null ? -1 : slot, javaTypes.get(name));
+      }
+      if (expression instanceof AddExpression)
+        return arithmetic((BinaryCommonExpression) expression, BinaryFunction.ADD);
+      if (expression instanceof SubExpression)
+        return arithmetic((BinaryCommonExpression) expression, BinaryFunction.SUB);
+      if (expression instanceof MulExpression)
+        return arithmetic((BinaryCommonExpression) expression, BinaryFunction.MUL);
+      if (expression instanceof DivExpression)
+        return arithmetic((BinaryCommonExpression) expression, BinaryFunction.DIV);
+      if (expression instanceof ModExpression)
+        return arithmetic((BinaryCommonExpression) expression, BinaryFunction.MOD);
+      if (expression instanceof ParenExpression)
+        return compile(((ParenExpression) expression).getExpression());
+      if (expression instanceof CastExpression) {
+        CastExpression castExpression = (CastExpression) expression;
+        EdmSimpleType<?> t = EdmType.getSimple(castExpression.getType());
+        if (t == null)
+          throw new UnsupportedOperationException("Only simple types supported");
+        Class<?> javaType = t.getJavaTypes().iterator().next();
+        Node operand = compile(castExpression.getExpression());
+        if (operand instanceof Constant)
+          return new Constant(TypeConverter.convert(((Constant) operand).value, javaType));
+        return new Cast(operand, javaType);
+      }
+      throw new UnsupportedOperationException("unsupported expression " + expression);
+    }
+
+    private Node arithmetic(BinaryCommonExpression expression, BinaryFunction function) {
+      Node lhs = compile(expression.getLHS());
+      Node rhs = compile(expression.getRHS());
+      if (lhs instanceof Constant && rhs instanceof Constant)
+        return new Constant(ExpressionEvaluator.binaryFunction(((Constant) lhs).value, ((Constant) rhs).value, function));
+      return new Arithmetic(lhs, rhs, function);
+    }
+
+    private BoolNode comparison(int op, BinaryCommonExpression expression) {
+      Node lhs = compile(expression.getLHS());
+      Node rhs = compile(expression.getRHS());
+      int kind = promote(kindOf(lhs.javaType), kindOf(rhs.javaType));
+      // convert literals once, rather than promoting them for every row
+      if (lhs instanceof Constant)
+        lhs = new Constant(convert(((Constant) lhs).value, kind));
+      if (rhs instanceof Constant)
+        rhs = new Constant(convert(((Constant) rhs).value, kind));
+      return new Comparison(op, lhs, rhs, Comparer.forKind(kind));
+    }
+
+  }
+
+  // - - - - - - - - - - - - - - - - evaluation
+
+  private abstract static class Node {
+
+    /** The static type of the value, null if not known before evaluation. */
+    final Class<?> javaType;
+
+    Node(Class<?> javaType) {
+      this.javaType = javaType;
+    }
+
+    abstract Object value(VariableResolver row);
+
+  }
+
+  private static class Constant extends Node {
+
+    final Object value;
+
+    Constant(Object value) {
+      super(value == null ? null : value.getClass());
+      this.value = value;
+    }
+
+    @Override
+    Object value(VariableResolver row) {
+      return value;
+    }
+
+  }
+
+  private static class Property extends Node {
+
+    private final String name;
+    private final int slot;
+
+    Property(String name, int slot, Class<?> javaType) {
+      super(javaType);
+      this.name = name;
+      this.slot = slot;
+    }
+
+    @Override
+    Object value(VariableResolver row) {
+      if (slot >= 0 && row instanceof SlotResolver)
+        return ((SlotResolver) row).resolveSlot(slot);
+      return row.resolveVariable(name);
+    }
+
+  }
+
+  private static class Arithmetic extends Node {
+
+    private final Node lhs;
+    private final Node rhs;
+    private final BinaryFunction function;
+
+    Arithmetic(Node lhs, Node rhs, BinaryFunction function) {
+      super(promote(lhs.javaType, rhs.javaType));
+      this.lhs = lhs;
+      this.rhs = rhs;
+      this.function = function;
+    }
+
+    @Override
+    Object value(VariableResolver row) {
+      return ExpressionEvaluator.binaryFunction(lhs.value(row), rhs.value(row), function);
+    }
+
+  }
+
+  private static class Cast extends Node {
+
+    private final Node operand;
+
+    Cast(Node operand, Class<?> javaType) {
+      super(javaType);
+      this.operand = operand;
+    }
+
+    @Override
+    Object value(VariableResolver row) {
+      return TypeConverter.convert(operand.value(row), javaType);
+    }
+
+  }
+
+  private abstract static class BoolNode extends Node {
+
+    BoolNode() {
+      super(Boolean.class);
+    }
+
+    abstract boolean test(VariableResolver row);
+
+    @Override
+    Object value(VariableResolver row) {
+      return test(row) ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+  }
+
+  private static class BoolConstant extends BoolNode {
+
+    static final BoolConstant TRUE = new BoolConstant(true);
+    static final BoolConstant FALSE = new BoolConstant(false);
+
+    private final boolean value;
+
+    private BoolConstant(boolean value) {
+      this.value = value;
+    }
+
+    @Override
+    boolean test(VariableResolver row) {
+      return value;
+    }
+
+  }
+
+  private static class And extends BoolNode {
+
+    private final BoolNode lhs;
+    private final BoolNode rhs;
+
+    And(BoolNode lhs, BoolNode rhs) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+    }
+
+    @Override
+    boolean test(VariableResolver row) {
+      return lhs.test(row) && rhs.test(row);
+    }
+
+  }
+
+  private static class Or extends BoolNode {
+
+    private final BoolNode lhs;
+    private final BoolNode rhs;
+
+    Or(BoolNode lhs, BoolNode rhs) {
+      this.lhs = lhs;
+      this.rhs = rhs;
+    }
+
+    @Override
+    boolean test(VariableResolver row) {
+      return lhs.test(row) || rhs.test(row);
+    }
+
+  }
+
+  private static class Not extends BoolNode {
+
+    private final Node operand;
+
+    Not(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    boolean test(VariableResolver row) {
+      if (operand instanceof BoolNode)
+        return !((BoolNode) operand).test(row);
+      return !(Boolean) operand.value(row);
+    }
+
+  }
+
+  private static class StringMethod extends BoolNode {
+
+    static final int SUBSTRINGOF = 0;
+    static final int STARTSWITH = 1;
+    static final int ENDSWITH = 2;
+
+    private final int method;
+    private final Node target;
+    private final Node value;
+
+    StringMethod(int method, Node target, Node value) {
+      this.method = method;
+      this.target = target;
+      this.value = value;
+    }
+
+    @Override
+    boolean test(VariableResolver row) {
+      String targetValue = (String) target.value(row);
+      String searchValue = (String) value.value(row);
+      if (targetValue == null || searchValue == null)
+        return false;
+      switch (method) {
+      case STARTSWITH:
+        return targetValue.startsWith(searchValue);
+      case ENDSWITH:
+        return targetValue.endsWith(searchValue);
+      default:
+        return targetValue.contains(searchValue);
+      }
+    }
+
+  }
+
+  private static class Comparison extends BoolNode {
+
+    static final int EQ = 0;
+    static final int NE = 1;
+    static final int LT = 2;
+    static final int LE = 3;
+    static final int GT = 4;
+    static final int GE = 5;
+
+    private final int op;
+    private final Node lhs;
+    private final Node rhs;
+    private final Comparer comparer;
+
+    Comparison(int op, Node lhs, Node rhs, Comparer comparer) {
+      this.op = op;
+      this.lhs = lhs;
+      this.rhs = rhs;
+      this.comparer = comparer;
+    }
+
+    @Override
+    boolean test(VariableResolver row) {
+      Object l = lhs.value(row);
+      Object r = rhs.value(row);
+      if (l == null || r == null) {
+        if (op == EQ)
+          return l == r;
+        if (op == NE)
+          return l != r;
+        return false;
+      }
+      switch (op) {
+      case EQ:
+        return comparer.same(l, r);
+      case NE:
+        return !comparer.same(l, r);
+      case LT:
+        return comparer.compare(l, r) < 0;
+      case LE:
+        return comparer.compare(l, r) <= 0;
+      case GT:
+        return comparer.compare(l, r) > 0;
+      default:
+        return comparer.compare(l, r) >= 0;
+      }
+    }
+
+  }
+
+  /**
+   * Compares two non-null operands of a known kind. Operands that turn out not to be of that kind are compared
+   * like the evaluator does.
+   */
+  private abstract static class Comparer {
+
+    abstract boolean same(Object lhs, Object rhs);
+
+    abstract int compare(Object lhs, Object rhs);
+
+    static Comparer forKind(int kind) {
+      switch (kind) {
+      case INTEGRAL:
+        return INTEGRAL_COMPARER;
+      case SINGLE:
+        return SINGLE_COMPARER;
+      case DOUBLE:
+        return DOUBLE_COMPARER;
+      case DECIMAL:
+        return DECIMAL_COMPARER;
+      case STRING:
+      case BOOLEAN:
+        return EQUAL_CLASS_COMPARER;
+      default:
+        return GENERIC_COMPARER;
+      }
+    }
+
+    static final Comparer GENERIC_COMPARER = new Comparer() {
+      @Override
+      boolean same(Object lhs, Object rhs) {
+        return ExpressionEvaluator.valuesEqual(lhs, rhs);
+      }
+
+      @Override
+      int compare(Object lhs, Object rhs) {
+        return ExpressionEvaluator.compareValues(lhs, rhs);
+      }
+    };
+
+    static final Comparer INTEGRAL_COMPARER = new Comparer() {
+      @Override
+      boolean same(Object lhs, Object rhs) {
+        if (!isIntegral(lhs) || !isIntegral(rhs))
+          return GENERIC_COMPARER.same(lhs, rhs);
+        return ((Number) lhs).longValue() == ((Number) rhs).longValue();
+      }
+
+      @Override
+      int compare(Object lhs, Object rhs) {
+        if (!isIntegral(lhs) || !isIntegral(rhs))
+          return GENERIC_COMPARER.compare(lhs, rhs);
+        long l = ((Number) lhs).longValue();
+        long r = ((Number) rhs).longValue();
+        return l < r ? -1 : (l == r ? 0 : 1);
+      }
+
+      private boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+      }
+    };
+
+    static final Comparer SINGLE_COMPARER = new Comparer() {
+      @Override
+      boolean same(Object lhs, Object rhs) {
+        return compare(lhs, rhs) == 0;
+      }
+
+      @Override
+      int compare(Object lhs, Object rhs) {
+        if (!(lhs instanceof Number) || !(rhs instanceof Number) || lhs instanceof Double || rhs instanceof Double)
+          return GENERIC_COMPARER.compare(lhs, rhs);
+        return Float.compare(((Number) lhs).floatValue(), ((Number) rhs).floatValue());
+      }
+    };
+
+    static final Comparer DOUBLE_COMPARER = new Comparer() {
+      @Override
+      boolean same(Object lhs, Object rhs) {
+        return compare(lhs, rhs) == 0;
+      }
+
+      @Override
+      int compare(Object lhs, Object rhs) {
+        if (!(lhs instanceof Number) || !(rhs instanceof Number))
+          return GENERIC_COMPARER.compare(lhs, rhs);
+        return Double.compare(((Number) lhs).doubleValue(), ((Number) rhs).doubleValue());
+      }
+    };
+
+    static final Comparer DECIMAL_COMPARER = new Comparer() {
+      @Override
+      boolean same(Object lhs, Object rhs) {
+        if (!isDecimal(lhs) || !isDecimal(rhs))
+          return GENERIC_COMPARER.same(lhs, rhs);
+        // like the evaluator, equality of decimals depends on their scale
+        return toDecimal(lhs).equals(toDecimal(rhs));
+      }
+
+      @Override
+      int compare(Object lhs, Object rhs) {
+        if (!isDecimal(lhs) || !isDecimal(rhs))
+          return GENERIC_COMPARER.compare(lhs, rhs);
+        return toDecimal(lhs).compareTo(toDecimal(rhs));
+      }
+
+      private boolean isDecimal(Object value) {
+        return value instanceof BigDecimal || value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+      }
+    };
+
+    static final Comparer EQUAL_CLASS_COMPARER = new Comparer() {
+      @Override
+      boolean same(Object lhs, Object rhs) {
+        return lhs.equals(rhs);
+      }
+
+      @Override
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      int compare(Object lhs, Object rhs) {
+        if (!lhs.getClass().equals(rhs.getClass()))
+          return GENERIC_COMPARER.compare(lhs, rhs);
+        return ((Comparable) lhs).compareTo(rhs);
+      }
+    };
+
+  }
+
+}
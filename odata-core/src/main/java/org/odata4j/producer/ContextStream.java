@@ -1,6 +1,8 @@
 package org.odata4j.producer;
 
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 
 /**
  * The Class ContextStream.
@@ -16,6 +18,12 @@ public class ContextStream {
   /** The content-disposition. */
   private String contentDisposition;
 
+  /** The seekable channel, if the content has one. */
+  private SeekableByteChannel channel;
+
+  /** The entity-tag of the content, compared with the If-Range header of range requests. */
+  private String entityTag;
+
   /**
    * Instantiates a new context entity.
    * 
@@ -33,9 +41,29 @@ public class ContextStream {
   }
 
   /**
-   * @return the inputStream
+   * Instantiates a new context entity with a seekable, length-aware content; the resources answer range
+   * requests for it, and send the content of a {@link java.nio.channels.FileChannel} with
+   * <code>transferTo</code>.
+   *
+   * @param channel
+   *            the channel, closed once the content has been sent
+   * @param contentType
+   *            the content type
+   * @param contentDisposition
+   *            the content disposition
+   */
+  public ContextStream(SeekableByteChannel channel, String contentType, String contentDisposition) {
+    this.channel = channel;
+    this.contentType = contentType;
+    this.contentDisposition = contentDisposition;
+  }
+
+  /**
+   * @return the inputStream, or a stream reading the channel if there is no input stream
    */
   public InputStream getInputStream() {
+    if (inputStream == null && channel != null)
+      return Channels.newInputStream(channel);
     return inputStream;
   }
 
@@ -77,6 +105,36 @@ public class ContextStream {
     this.contentDisposition = contentDisposition;
   }
 
+  /**
+   * @return the seekable channel, or null
+   */
+  public SeekableByteChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * @param channel
+   *            the channel to set
+   */
+  public void setChannel(SeekableByteChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * @return the entity-tag, or null
+   */
+  public String getEntityTag() {
+    return entityTag;
+  }
+
+  /**
+   * @param entityTag
+   *            the entity-tag to set, without quotes
+   */
+  public void setEntityTag(String entityTag) {
+    this.entityTag = entityTag;
+  }
+
 }
 
 
@@ -36,6 +36,9 @@ public interface EntitiesResponse extends BaseResponse {
   /**
    * Gets the continuation token to use on a subsequent request, if applicable.
    *
+   * <p>Producers that page their results should return an encoded {@link SkipToken}, the position of the last
+   * entity of the page, so that the next page can be found by seeking past it.</p>
+   *
    * @return a continuation token, if applicable
    */
   String getSkipToken();
@@ -48,6 +48,14 @@ public class ExpressionEvaluator {
     Object resolveVariable(String path);
   }
 
+  /**
+   * Resolves properties by slot, the position of the property in {@link org.odata4j.edm.EdmStructuralType#getProperties()}.
+   * Used by a {@link CompiledFilter}; paths that are not properties of the type are still resolved by name.
+   */
+  public interface SlotResolver extends VariableResolver {
+    Object resolveSlot(int slot);
+  }
+
   private VariableResolver resolver = null;
 
   public ExpressionEvaluator(VariableResolver resolver) {
@@ -110,6 +118,13 @@ public class ExpressionEvaluator {
     throw new UnsupportedOperationException("unsupported expression " + expression);
   }
 
+  /**
+   * Evaluates a filter compiled with {@link CompiledFilter#compile} against the current resolver.
+   */
+  public boolean evaluate(CompiledFilter filter) {
+    return filter.apply(resolver);
+  }
+
   public boolean evaluate(BoolCommonExpression expression) {
     if (expression instanceof EqExpression) {
       return equals((EqExpression) expression);
@@ -169,7 +184,7 @@ public class ExpressionEvaluator {
         + expression);
   }
 
-  private interface BinaryFunction {
+  interface BinaryFunction {
 
     BigDecimal apply(BigDecimal lhs, BigDecimal rhs);
 
@@ -298,15 +313,11 @@ public class ExpressionEvaluator {
 
   }
 
-  private class ObjectPair {
+  private static class ObjectPair {
 
     public Object lhs;
     public Object rhs;
 
-    public ObjectPair(CommonExpression lhs, CommonExpression rhs) {
-      this(evaluate(lhs), evaluate(rhs));
-    }
-
     public ObjectPair(Object lhs, Object rhs) {
       this.lhs = lhs;
       this.rhs = rhs;
@@ -315,7 +326,11 @@ public class ExpressionEvaluator {
   }
 
   private Object binaryFunction(BinaryCommonExpression be, BinaryFunction function) {
-    ObjectPair pair = new ObjectPair(be.getLHS(), be.getRHS());
+    return binaryFunction(evaluate(be.getLHS()), evaluate(be.getRHS()), function);
+  }
+
+  static Object binaryFunction(Object lhs, Object rhs, BinaryFunction function) {
+    ObjectPair pair = new ObjectPair(lhs, rhs);
     binaryNumericPromotion(pair);
 
     // * Edm.Decimal
@@ -345,14 +360,22 @@ public class ExpressionEvaluator {
   }
 
   private boolean equals(BinaryCommonExpression be) {
-    ObjectPair pair = new ObjectPair(be.getLHS(), be.getRHS());
+    return valuesEqual(evaluate(be.getLHS()), evaluate(be.getRHS()));
+  }
+
+  static boolean valuesEqual(Object lhs, Object rhs) {
+    ObjectPair pair = new ObjectPair(lhs, rhs);
     binaryNumericPromotion(pair);
     return (pair.lhs == null ? pair.rhs == null : pair.lhs.equals(pair.rhs));
   }
 
-  @SuppressWarnings({ "unchecked", "rawtypes" })
   private int compareTo(BinaryCommonExpression be) {
-    ObjectPair pair = new ObjectPair(be.getLHS(), be.getRHS());
+    return compareValues(evaluate(be.getLHS()), evaluate(be.getRHS()));
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  static int compareValues(Object lhs, Object rhs) {
+    ObjectPair pair = new ObjectPair(lhs, rhs);
     binaryNumericPromotion(pair);
     return ((Comparable) pair.lhs).compareTo(((Comparable) pair.rhs));
   }
@@ -362,7 +385,7 @@ public class ExpressionEvaluator {
       Integer.class, Short.class, Long.class).cast(Class.class).toSet();
 
   @SuppressWarnings("unchecked")
-  private void binaryNumericPromotion(ObjectPair pair) {
+  private static void binaryNumericPromotion(ObjectPair pair) {
 
     // * Edm.Decimal
     // * Edm.Double
@@ -0,0 +1,24 @@
+package org.odata4j.producer;
+
+import org.odata4j.core.OEntity;
+
+/**
+ * An {@link OMediaLinkExtension} that can return the media resource of a media link entry as a seekable,
+ * length-aware {@link ContextStream}, so that range requests can be answered and file content can be sent
+ * without copying it through the heap.
+ */
+public interface OSeekableMediaLinkExtension extends OMediaLinkExtension {
+
+  /**
+   * Gets the media resource associated with the given media link entry entity.
+   *
+   * @param mle  the media link entry entity
+   * @param etag  for future extension
+   * @param query  additional request information
+   * @return the media resource, with a channel (see {@link ContextStream#getChannel()}) if it is seekable;
+   *         a null content type or disposition is taken from {@link #getMediaLinkContentType} and
+   *         {@link #getMediaLinkContentDisposition}
+   */
+  ContextStream getContextStreamForMediaLinkEntry(ODataContext odataContext, OEntity mle, String etag, EntityQueryInfo query);
+
+}
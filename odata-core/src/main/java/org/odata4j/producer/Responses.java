@@ -1,7 +1,10 @@
 package org.odata4j.producer;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import org.odata4j.core.OCollection;
@@ -16,7 +19,7 @@ import org.odata4j.edm.EdmMultiplicity;
 import org.odata4j.edm.EdmSimpleType;
 
 /**
- * A static factory to create immutable {@link EntitiesResponse}, {@link EntityResponse}, {@link PropertyResponse}, {@link EntityIdResponse},
+ * A static factory to create immutable {@link EntitiesResponse}, {@link StreamingEntitiesResponse}, {@link EntityResponse}, {@link PropertyResponse}, {@link EntityIdResponse},
  * {@link ComplexObjectResponse}, {@link CollectionResponse}, or {@link ErrorResponse} instances.
  */
 public class Responses {
@@ -61,6 +64,122 @@ public class Responses {
     };
   }
 
+  /**
+   * Creates a new <code>EntitiesResponse</code> instance for a page of the results of a query.
+   *
+   * @param entities  the OData entities of the page
+   * @param entitySet  the entity-set
+   * @param inlineCount  the inline-count value, if necessary
+   * @param next  the position after which the next page starts, null if this is the last page
+   * @return a new <code>EntitiesResponse</code> instance, continued by the encoded position
+   */
+  public static EntitiesResponse entitiesPage(
+      List<OEntity> entities,
+      EdmEntitySet entitySet,
+      Integer inlineCount,
+      SkipToken next) {
+    return entities(entities, entitySet, inlineCount, next == null ? null : next.encode());
+  }
+
+  /**
+   * Creates a new <code>StreamingEntitiesResponse</code> instance.
+   *
+   * @param entities  an iterator over the OData entities, consumed while the response is written
+   * @param entitySet  the entity-set
+   * @param inlineCount  the inline-count value, if necessary
+   * @param skipToken  the continuation-token, if necessary
+   * @return a new <code>StreamingEntitiesResponse</code> instance
+   */
+  public static StreamingEntitiesResponse streamingEntities(
+      Iterator<OEntity> entities,
+      EdmEntitySet entitySet,
+      Integer inlineCount,
+      String skipToken) {
+    return streamingEntities(entities, entitySet, inlineCount, skipToken, null);
+  }
+
+  /**
+   * Creates a new <code>StreamingEntitiesResponse</code> instance.
+   *
+   * @param entities  an iterator over the OData entities, consumed while the response is written
+   * @param entitySet  the entity-set
+   * @param inlineCount  the inline-count value, if necessary
+   * @param skipToken  the continuation-token, if necessary
+   * @param resource  the resource backing the iterator (e.g. a result set), closed with the response; may be null
+   * @return a new <code>StreamingEntitiesResponse</code> instance
+   */
+  public static StreamingEntitiesResponse streamingEntities(
+      Iterator<OEntity> entities,
+      EdmEntitySet entitySet,
+      Integer inlineCount,
+      String skipToken,
+      Closeable resource) {
+    return new IteratorEntitiesResponse(entities, entitySet, inlineCount, skipToken, resource);
+  }
+
+  private static class IteratorEntitiesResponse implements StreamingEntitiesResponse {
+
+    private final EdmEntitySet entitySet;
+    private final Integer inlineCount;
+    private final String skipToken;
+    private final Closeable resource;
+    private Iterator<OEntity> entities;
+    private List<OEntity> materialized;
+
+    IteratorEntitiesResponse(Iterator<OEntity> entities, EdmEntitySet entitySet, Integer inlineCount, String skipToken, Closeable resource) {
+      this.entities = entities;
+      this.entitySet = entitySet;
+      this.inlineCount = inlineCount;
+      this.skipToken = skipToken;
+      this.resource = resource;
+    }
+
+    @Override
+    public synchronized Iterator<OEntity> getEntityIterator() {
+      if (materialized != null)
+        return materialized.iterator();
+      if (entities == null)
+        throw new IllegalStateException("The entities of a streaming response can only be iterated once");
+      Iterator<OEntity> rt = entities;
+      entities = null;
+      return rt;
+    }
+
+    @Override
+    public synchronized List<OEntity> getEntities() {
+      if (materialized == null) {
+        Iterator<OEntity> it = getEntityIterator();
+        List<OEntity> list = new ArrayList<OEntity>();
+        while (it.hasNext())
+          list.add(it.next());
+        materialized = list;
+      }
+      return materialized;
+    }
+
+    @Override
+    public EdmEntitySet getEntitySet() {
+      return entitySet;
+    }
+
+    @Override
+    public Integer getInlineCount() {
+      return inlineCount;
+    }
+
+    @Override
+    public String getSkipToken() {
+      return skipToken;
+    }
+
+    @Override
+    public void close() throws IOException {
+      entities = null;
+      if (resource != null)
+        resource.close();
+    }
+  }
+
   public static CountResponse count(final long count) {
     return new CountResponse() {
       @Override
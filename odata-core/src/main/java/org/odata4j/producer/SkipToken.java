@@ -0,0 +1,267 @@
+package org.odata4j.producer;
+
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
+import org.odata4j.core.ODataConstants;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OSimpleObjects;
+import org.odata4j.core.Throwables;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmType;
+import org.odata4j.exceptions.BadRequestException;
+import org.odata4j.expression.Expression;
+import org.odata4j.expression.OrderByExpression;
+import org.odata4j.expression.OrderByExpression.Direction;
+import org.odata4j.internal.InternalUtil;
+import org.odata4j.repack.org.apache.commons.codec.binary.Base64;
+
+/**
+ * The position after which the next page of the results of a query starts: the values of the $orderby expressions
+ * for the last entity of a page, and its key.
+ *
+ * <p>Producers return it {@link #encode() encoded} as the $skiptoken of the page and {@link #decode decode} it from
+ * the request for the next page, which they find by seeking past the position, e.g. with a condition on the sort
+ * keys or by comparing with {@link #compareTo}, rather than by scanning the results for the entity with the key.
+ *
+ * <p>Encoded tokens are opaque and signed: a token that was changed, that was not issued by the service, or that
+ * was issued for another $orderby is rejected. The secret is that of {@link ODataConstants#ODATA_SKIPTOKEN_SECRET}.
+ */
+public final class SkipToken {
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_LENGTH = 16;
+  private static final String UTF_8 = "UTF-8";
+  private static final byte[] SECRET = secret();
+
+  private final List<OrderByExpression> orderBy;
+  private final List<Object> values;
+  private final OEntityKey entityKey;
+
+  private SkipToken(List<OrderByExpression> orderBy, List<Object> values, OEntityKey entityKey) {
+    this.orderBy = orderBy;
+    this.values = values;
+    this.entityKey = entityKey;
+  }
+
+  /**
+   * Creates the position of an entity in the results of a query.
+   *
+   * @param orderBy  the $orderby of the query, may be null
+   * @param values  the values of the $orderby expressions for the entity, of simple types; null if they are not
+   *                  known, in which case the entity can only be found by its key
+   * @param entityKey  the key of the entity
+   * @return a new skip token
+   * @throws IllegalArgumentException if there is not a value for each expression, or a value is not of a simple type
+   */
+  public static SkipToken create(List<OrderByExpression> orderBy, List<?> values, OEntityKey entityKey) {
+    if (entityKey == null)
+      throw new IllegalArgumentException("entityKey cannot be null");
+    orderBy = orderBy == null ? Collections.<OrderByExpression> emptyList() : orderBy;
+    if (values == null)
+      return new SkipToken(orderBy, null, entityKey);
+    if (values.size() != orderBy.size())
+      throw new IllegalArgumentException("Expected " + orderBy.size() + " values, found " + values.size());
+    List<Object> normalized = new ArrayList<Object>(values.size());
+    for (Object value : values) {
+      if (value != null && EdmSimpleType.forJavaType(value.getClass()) == null)
+        throw new IllegalArgumentException("Cannot use a value of type " + value.getClass().getName() + " in a skip token");
+      normalized.add(normalize(value));
+    }
+    return new SkipToken(orderBy, Collections.unmodifiableList(normalized), entityKey);
+  }
+
+  /**
+   * Decodes a $skiptoken issued by {@link #encode()}.
+   *
+   * @param skipToken  the $skiptoken of the request
+   * @param orderBy  the $orderby of the request, may be null
+   * @return the skip token
+   * @throws BadRequestException if the token is not valid, or was issued for another $orderby
+   */
+  public static SkipToken decode(String skipToken, List<OrderByExpression> orderBy) {
+    orderBy = orderBy == null ? Collections.<OrderByExpression> emptyList() : orderBy;
+    int dot = skipToken.lastIndexOf('.');
+    if (dot > 0) {
+      byte[] payload = Base64.decodeBase64(skipToken.substring(0, dot));
+      byte[] signature = Base64.decodeBase64(skipToken.substring(dot + 1));
+      if (MessageDigest.isEqual(signature, sign(orderBy, payload))) {
+        try {
+          return parse(orderBy, new String(payload, UTF_8));
+        } catch (RuntimeException e) {
+          // signed, but not by this version
+        } catch (UnsupportedEncodingException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+    }
+    throw new BadRequestException("Invalid $skiptoken " + skipToken);
+  }
+
+  /** Gets the values of the $orderby expressions for the entity, or null if they are not known. */
+  public List<Object> getOrderByValues() {
+    return values;
+  }
+
+  public OEntityKey getEntityKey() {
+    return entityKey;
+  }
+
+  /**
+   * Compares the values of the $orderby expressions for an entity with those of this position, in the directions
+   * of the expressions. Nulls are lower than any other value.
+   *
+   * @param values  the values for the entity
+   * @return a negative number if the entity comes before this position, a positive one if it comes after it, 0 if
+   *         the values are the same and the key decides
+   * @throws IllegalStateException if the values of this position are not known
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public int compareTo(List<?> values) {
+    if (this.values == null)
+      throw new IllegalStateException("The values of the skip token are not known");
+    for (int i = 0; i < this.values.size(); i++) {
+      Comparable lhs = (Comparable) normalize(values.get(i));
+      Comparable rhs = (Comparable) this.values.get(i);
+      int rt = lhs == null ? (rhs == null ? 0 : -1) : rhs == null ? 1 : lhs.compareTo(rhs);
+      if (rt != 0)
+        return orderBy.get(i).getDirection() == Direction.ASCENDING ? rt : -rt;
+    }
+    return 0;
+  }
+
+  /**
+   * Encodes the position as an opaque $skiptoken, signed and bound to the $orderby it was created with.
+   */
+  public String encode() {
+    StringBuilder sb = new StringBuilder();
+    if (values == null) {
+      appendPart(sb, "");
+    } else {
+      appendPart(sb, String.valueOf(values.size()));
+      for (Object value : values) {
+        EdmSimpleType<?> type = value == null ? null : EdmSimpleType.forJavaType(value.getClass());
+        appendPart(sb, type == null ? "" : type.getFullyQualifiedTypeName());
+        appendPart(sb, format(type, value));
+      }
+    }
+    appendPart(sb, entityKey.toKeyString());
+
+    byte[] payload;
+    try {
+      payload = sb.toString().getBytes(UTF_8);
+    } catch (UnsupportedEncodingException e) {
+      throw Throwables.propagate(e);
+    }
+    return Base64.encodeBase64URLSafeString(payload) + "." + Base64.encodeBase64URLSafeString(sign(orderBy, payload));
+  }
+
+  @Override
+  public String toString() {
+    return "SkipToken[" + values + ", " + entityKey.toKeyString() + "]";
+  }
+
+  private static Object normalize(Object value) {
+    if (value == null)
+      return null;
+    EdmSimpleType<?> type = EdmSimpleType.forJavaType(value.getClass());
+    return type == null ? value : OSimpleObjects.create(type, value).getValue();
+  }
+
+  private static String format(EdmSimpleType<?> type, Object value) {
+    if (value == null)
+      return "";
+    if (EdmSimpleType.BINARY.equals(type))
+      return Base64.encodeBase64String((byte[]) value);
+    if (EdmSimpleType.DATETIME.equals(type))
+      return InternalUtil.formatDateTimeForXml((LocalDateTime) value);
+    if (EdmSimpleType.DATETIMEOFFSET.equals(type))
+      return InternalUtil.formatDateTimeOffsetForXml((DateTime) value);
+    if (EdmSimpleType.TIME.equals(type))
+      return InternalUtil.formatTimeForXml((LocalTime) value);
+    return value.toString();
+  }
+
+  // parts are prefixed with their length: <length>:<text>
+  private static void appendPart(StringBuilder sb, String part) {
+    sb.append(part.length()).append(':').append(part);
+  }
+
+  private static SkipToken parse(List<OrderByExpression> orderBy, String payload) {
+    int[] position = new int[1];
+    String count = nextPart(payload, position);
+    List<Object> values = null;
+    if (!count.isEmpty()) {
+      values = new ArrayList<Object>();
+      for (int i = Integer.parseInt(count); i > 0; i--) {
+        String typeName = nextPart(payload, position);
+        String text = nextPart(payload, position);
+        if (typeName.isEmpty()) {
+          values.add(null);
+        } else {
+          EdmType type = EdmType.getSimple(typeName);
+          if (!(type instanceof EdmSimpleType))
+            throw new IllegalArgumentException("Unknown type " + typeName);
+          values.add(OSimpleObjects.parse((EdmSimpleType<?>) type, text).getValue());
+        }
+      }
+    }
+    OEntityKey entityKey = OEntityKey.parse(nextPart(payload, position));
+    if (position[0] != payload.length())
+      throw new IllegalArgumentException("Trailing characters");
+    return create(orderBy, values, entityKey);
+  }
+
+  private static String nextPart(String payload, int[] position) {
+    int colon = payload.indexOf(':', position[0]);
+    int end = colon + 1 + Integer.parseInt(payload.substring(position[0], colon));
+    String rt = payload.substring(colon + 1, end);
+    position[0] = end;
+    return rt;
+  }
+
+  private static byte[] sign(List<OrderByExpression> orderBy, byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(new SecretKeySpec(SECRET, ALGORITHM));
+      // the $orderby the values are for
+      for (OrderByExpression expression : orderBy) {
+        mac.update(Expression.asPrintString(expression.getExpression()).getBytes(UTF_8));
+        mac.update((byte) (expression.getDirection() == Direction.ASCENDING ? ',' : ';'));
+      }
+      mac.update((byte) '\n');
+      return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_LENGTH);
+    } catch (GeneralSecurityException e) {
+      throw Throwables.propagate(e);
+    } catch (UnsupportedEncodingException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static byte[] secret() {
+    String value = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_SKIPTOKEN_SECRET);
+    if (value != null && !value.isEmpty()) {
+      try {
+        return value.getBytes(UTF_8);
+      } catch (UnsupportedEncodingException e) {
+        throw Throwables.propagate(e);
+      }
+    }
+    byte[] rt = new byte[32];
+    new SecureRandom().nextBytes(rt);
+    return rt;
+  }
+
+}
@@ -0,0 +1,44 @@
+package org.odata4j.producer;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+import org.odata4j.core.OEntity;
+
+/**
+ * A <code>StreamingEntitiesResponse</code> is an {@link EntitiesResponse} whose entities are produced lazily,
+ * typically from a database cursor or another producer-side iterator.
+ *
+ * <p>The feed writers consume {@link #getEntityIterator()} incrementally, so the server only holds the entity
+ * currently being written rather than the whole page. The iterator can be obtained at most once;
+ * {@link #getEntities()} is only provided for callers that need random access and materializes the
+ * remaining entities.</p>
+ *
+ * <p>The skip token is read after the entities have been written, so a producer may compute it while iterating.
+ * The inline count is read before the first entity is written, and must be known up front.</p>
+ *
+ * <p>{@link #close()} is always called by the server once the response has been written (or has failed),
+ * and should release the underlying cursor.</p>
+ *
+ * <p>The {@link Responses} static factory class can be used to create <code>StreamingEntitiesResponse</code> instances.</p>
+ */
+public interface StreamingEntitiesResponse extends EntitiesResponse, Closeable {
+
+  /**
+   * Gets an iterator over the OData entities. May only be called once.
+   *
+   * @return the iterator over the entities
+   * @throws IllegalStateException if the entities have already been consumed
+   */
+  Iterator<OEntity> getEntityIterator();
+
+  /**
+   * Materializes the remaining entities into a list.
+   *
+   * @return the entities
+   */
+  @Override
+  List<OEntity> getEntities();
+
+}
@@ -46,6 +46,7 @@ import org.odata4j.exceptions.NotFoundException;
 import org.odata4j.exceptions.NotImplementedException;
 import org.odata4j.format.xml.EdmxFormatWriter;
 import org.odata4j.producer.BaseResponse;
+import org.odata4j.producer.CompiledFilter;
 import org.odata4j.producer.ContextStream;
 import org.odata4j.producer.CountResponse;
 import org.odata4j.producer.EntitiesResponse;
@@ -175,7 +176,17 @@ public class MetadataProducer implements ODataProducer {
       entities.add(e);
     }
 
+    /**
+     * @return the $filter of the request, compiled on first use
+     */
+    public CompiledFilter getFilter() {
+      if (filter == null)
+        filter = CompiledFilter.compile(queryInfo.filter, entitySet == null ? null : entitySet.getType());
+      return filter;
+    }
+
     EdmEntitySet entitySet;
+    CompiledFilter filter;
     QueryInfo queryInfo;
     OEntityKey entityKey;
     Locale locale = Locale.ENGLISH;
@@ -320,7 +331,7 @@ public class MetadataProducer implements ODataProducer {
       boolean add = true;
       if (f != null) {
         c.pushResolver(schema);
-        add = f.evaluate(c.queryInfo.filter);
+        add = f.evaluate(c.getFilter());
       }
       if (add) {
         c.addEntity(getSchema(c, schema));
@@ -397,7 +408,7 @@ public class MetadataProducer implements ODataProducer {
         boolean add = true;
         if (f != null) {
           c.pushResolver(et);
-          add = f.evaluate(c.queryInfo.filter);
+          add = f.evaluate(c.getFilter());
         }
         if (add) {
           c.addEntity(getStructuralType(c, et));
@@ -650,7 +661,7 @@ public class MetadataProducer implements ODataProducer {
         boolean add = true;
         if (f != null) {
           c.pushResolver(ct);
-          add = f.evaluate(c.queryInfo.filter);
+          add = f.evaluate(c.getFilter());
         }
         if (add) {
           c.addEntity(getStructuralType(c, ct));
@@ -688,7 +699,7 @@ public class MetadataProducer implements ODataProducer {
       boolean add = true;
       if (ev != null) {
         c.pushResolver(prop);
-        add = ev.evaluate(c.queryInfo.filter);
+        add = ev.evaluate(c.getFilter());
       }
       if (add) {
         c.addEntity(this.getProperty(st, st, prop, c));
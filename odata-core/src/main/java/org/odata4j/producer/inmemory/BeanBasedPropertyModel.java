@@ -25,7 +25,7 @@ public class BeanBasedPropertyModel implements PropertyModel {
    *                  will automatically work up the hierarchy if necessary.
    */
   public BeanBasedPropertyModel(Class<?> clazz, boolean flatten) {
-    beanModel = new BeanModel(clazz, flatten);
+    beanModel = BeanModel.forClass(clazz, flatten);
   }
 
   @Override
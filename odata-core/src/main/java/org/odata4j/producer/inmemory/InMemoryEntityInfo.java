@@ -17,6 +17,7 @@ public class InMemoryEntityInfo<TEntity> {
   Func1<Object, HashMap<String, Object>> id;
   PropertyModel properties;
   boolean hasStream;
+  InMemoryStore<TEntity> store;
 
   public String getEntitySetName() {
     return entitySetName;
@@ -54,6 +55,13 @@ public class InMemoryEntityInfo<TEntity> {
     return hasStream;
   }
 
+  /**
+   * Gets the store of the entity set, or null if its entities are supplied by a function.
+   */
+  public InMemoryStore<TEntity> getStore() {
+    return store;
+  }
+
   public Class<?> getSuperClass() {
     return entityClass.getSuperclass() != null && !entityClass.getSuperclass().equals(Object.class) ? entityClass.getSuperclass() : null;
   }
@@ -0,0 +1,181 @@
+package org.odata4j.producer.inmemory;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.core4j.Enumerable;
+import org.core4j.Func1;
+import org.odata4j.producer.inmemory.InMemoryStore.Entry;
+
+/**
+ * A secondary index over one property of the entities in an {@link InMemoryStore}.
+ *
+ * <p>A hash index answers equality lookups; a sorted index also answers range lookups and enumerates the
+ * entities in property order. Entities with equal values are kept in the order they were stored in.
+ * Changes are made by the store, one at a time; lookups do not lock and are weakly consistent.
+ */
+class InMemoryIndex<TEntity> {
+
+  /** Natural order within a class; values of different classes are grouped by class name. */
+  private static final Comparator<Object> ORDER = new Comparator<Object>() {
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public int compare(Object o1, Object o2) {
+      if (o1.getClass() == o2.getClass())
+        return ((Comparable) o1).compareTo(o2);
+      return o1.getClass().getName().compareTo(o2.getClass().getName());
+    }
+  };
+
+  private final String propertyName;
+  private final boolean sorted;
+  private final ConcurrentMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>> buckets;
+  private final ConcurrentSkipListMap<Long, Entry<TEntity>> nulls = new ConcurrentSkipListMap<Long, Entry<TEntity>>();
+  // the indexed value of each entry, only used by the (serialized) writers
+  private final Map<Long, Object> values = new HashMap<Long, Object>();
+  private volatile Class<?> valueClass;
+  private volatile boolean mixed;
+
+  InMemoryIndex(String propertyName, boolean sorted) {
+    this.propertyName = propertyName;
+    this.sorted = sorted;
+    this.buckets = sorted
+        ? new ConcurrentSkipListMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>>(ORDER)
+        : new ConcurrentHashMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>>();
+  }
+
+  public String getPropertyName() {
+    return propertyName;
+  }
+
+  public boolean isSorted() {
+    return sorted;
+  }
+
+  /**
+   * Gets the class of the indexed values, or null if there are none yet or if they are of different classes.
+   * Lookups are only meaningful with values of this class.
+   */
+  public Class<?> getValueClass() {
+    return mixed ? null : valueClass;
+  }
+
+  void add(Entry<TEntity> entry, Object value) {
+    if (value == null) {
+      values.put(entry.sequence, null);
+      nulls.put(entry.sequence, entry);
+      return;
+    }
+    if (sorted && !(value instanceof Comparable))
+      throw new IllegalArgumentException("Property " + propertyName + " has a value that is not comparable: " + value);
+    if (valueClass == null)
+      valueClass = value.getClass();
+    else if (valueClass != value.getClass())
+      mixed = true;
+
+    values.put(entry.sequence, value);
+    ConcurrentSkipListMap<Long, Entry<TEntity>> bucket = buckets.get(value);
+    if (bucket == null) {
+      bucket = new ConcurrentSkipListMap<Long, Entry<TEntity>>();
+      buckets.put(value, bucket);
+    }
+    bucket.put(entry.sequence, entry);
+  }
+
+  void remove(Entry<TEntity> entry) {
+    if (!values.containsKey(entry.sequence))
+      return;
+    Object value = values.remove(entry.sequence);
+    if (value == null) {
+      nulls.remove(entry.sequence);
+      return;
+    }
+    ConcurrentSkipListMap<Long, Entry<TEntity>> bucket = buckets.get(value);
+    if (bucket != null) {
+      bucket.remove(entry.sequence);
+      if (bucket.isEmpty())
+        buckets.remove(value);
+    }
+  }
+
+  void clear() {
+    buckets.clear();
+    nulls.clear();
+    values.clear();
+    valueClass = null;
+    mixed = false;
+  }
+
+  /** Gets the entries with the given (non-null) value, in the order they were stored in. */
+  Iterable<Entry<TEntity>> get(Object value) {
+    ConcurrentSkipListMap<Long, Entry<TEntity>> bucket = buckets.get(value);
+    return bucket == null ? Collections.<Entry<TEntity>> emptyList() : bucket.values();
+  }
+
+  /**
+   * Gets the entries with a value within the given bounds, in value order. A null bound is open.
+   * Only supported by sorted indexes.
+   */
+  Iterable<Entry<TEntity>> range(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+    NavigableMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>> map = sortedBuckets();
+    if (lower != null && upper != null) {
+      if (ORDER.compare(lower, upper) > 0)
+        return Collections.emptyList();
+      map = map.subMap(lower, lowerInclusive, upper, upperInclusive);
+    } else if (lower != null) {
+      map = map.tailMap(lower, lowerInclusive);
+    } else if (upper != null) {
+      map = map.headMap(upper, upperInclusive);
+    }
+    return flatten(map.values());
+  }
+
+  /**
+   * Gets all entries in value order; nulls come first when ascending and last when descending.
+   * Only supported by sorted indexes.
+   */
+  Iterable<Entry<TEntity>> ordered(boolean ascending) {
+    if (ascending)
+      return Enumerable.create(nulls.values()).concat(flatten(sortedBuckets().values()));
+    return Enumerable.create(flatten(sortedBuckets().descendingMap().values())).concat(nulls.values());
+  }
+
+  /**
+   * Gets the entries after a position in value order: those with the value of the position that were stored after
+   * its entry, then those with a value after it. If the entry does not have the value (anymore), all entries with
+   * the value are skipped. Nulls come first when ascending and last when descending.
+   * Only supported by sorted indexes.
+   */
+  Iterable<Entry<TEntity>> after(Object value, Entry<TEntity> entry, boolean ascending) {
+    NavigableMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>> map = sortedBuckets();
+    ConcurrentSkipListMap<Long, Entry<TEntity>> bucket = value == null ? nulls : buckets.get(value);
+    Enumerable<Entry<TEntity>> rt = bucket == null || entry == null || !bucket.containsKey(entry.sequence)
+        ? Enumerable.<Entry<TEntity>> empty(null)
+        : Enumerable.create(bucket.tailMap(entry.sequence, false).values());
+    if (value == null)
+      return ascending ? rt.concat(flatten(map.values())) : rt;
+    if (ascending)
+      return rt.concat(flatten(map.tailMap(value, false).values()));
+    return rt.concat(flatten(map.headMap(value, false).descendingMap().values())).concat(nulls.values());
+  }
+
+  private NavigableMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>> sortedBuckets() {
+    if (!sorted)
+      throw new UnsupportedOperationException("Property " + propertyName + " has a hash index");
+    return (NavigableMap<Object, ConcurrentSkipListMap<Long, Entry<TEntity>>>) buckets;
+  }
+
+  private Enumerable<Entry<TEntity>> flatten(Iterable<ConcurrentSkipListMap<Long, Entry<TEntity>>> buckets) {
+    return Enumerable.create(buckets).selectMany(new Func1<ConcurrentSkipListMap<Long, Entry<TEntity>>, Enumerable<Entry<TEntity>>>() {
+      public Enumerable<Entry<TEntity>> apply(ConcurrentSkipListMap<Long, Entry<TEntity>> bucket) {
+        return Enumerable.create(bucket.values());
+      }
+    });
+  }
+
+}
@@ -4,6 +4,7 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -15,6 +16,7 @@ import java.util.Map;
 import org.core4j.Enumerable;
 import org.core4j.Func;
 import org.core4j.Func1;
+import org.core4j.OrderedEnumerable;
 import org.core4j.Predicate1;
 import org.odata4j.core.OAtomStreamEntity;
 import org.odata4j.core.OCollection;
@@ -54,18 +56,21 @@ import org.odata4j.expression.BoolCommonExpression;
 import org.odata4j.expression.OrderByExpression;
 import org.odata4j.expression.OrderByExpression.Direction;
 import org.odata4j.producer.BaseResponse;
+import org.odata4j.producer.CompiledFilter;
 import org.odata4j.producer.ContextStream;
 import org.odata4j.producer.CountResponse;
 import org.odata4j.producer.EntitiesResponse;
 import org.odata4j.producer.EntityIdResponse;
 import org.odata4j.producer.EntityQueryInfo;
 import org.odata4j.producer.EntityResponse;
+import org.odata4j.producer.ExpressionEvaluator.SlotResolver;
 import org.odata4j.producer.InlineCount;
 import org.odata4j.producer.ODataContext;
 import org.odata4j.producer.ODataProducer;
 import org.odata4j.producer.PropertyPathHelper;
 import org.odata4j.producer.QueryInfo;
 import org.odata4j.producer.Responses;
+import org.odata4j.producer.SkipToken;
 import org.odata4j.producer.edm.MetadataProducer;
 import org.odata4j.producer.inmemory.InMemoryProducer.RequestContext.RequestType;
 
@@ -294,6 +299,59 @@ public class InMemoryProducer implements ODataProducer {
     metadata = null;
   }
 
+  /**
+   * Registers a new entity set based on a POJO whose entities are held by the producer.
+   *
+   * @param entityClass  the class of the entities that are to be stored in the set
+   * @param entitySetName  the alias the set will be known by; this is what is used in the OData url
+   * @param keys  one or more keys for the entity
+   * @return the empty store of the set, to add entities and declare indexes on
+   */
+  public <TEntity> InMemoryStore<TEntity> registerStore(Class<TEntity> entityClass, String entitySetName, String... keys) {
+    PropertyModel model = new BeanBasedPropertyModel(entityClass, this.flattenEdm);
+    model = new EnumsAsStringsPropertyModelDelegate(model);
+    return registerStore(entityClass, model, entitySetName, entitySetName, keys);
+  }
+
+  /**
+   * Registers a new entity set based on a POJO type and a property model whose entities are held by the producer.
+   *
+   * @param entityClass  the class of the entities that are to be stored in the set
+   * @param propertyModel a way to get/set properties on the POJO
+   * @param entitySetName  the alias the set will be known by; this is what is used in the ODATA URL
+   * @param entityTypeName  type name of the entity
+   * @param keys  one or more keys for the entity
+   * @return the empty store of the set, to add entities and declare indexes on
+   */
+  public <TEntity> InMemoryStore<TEntity> registerStore(
+      Class<TEntity> entityClass,
+      PropertyModel propertyModel,
+      String entitySetName,
+      String entityTypeName,
+      String... keys) {
+    final InMemoryStore<TEntity> store = new InMemoryStore<TEntity>(propertyModel, keys);
+    register(entityClass, propertyModel, entitySetName, entityTypeName, new Func<Iterable<TEntity>>() {
+      @Override
+      public Iterable<TEntity> apply() {
+        return store.values();
+      }
+    }, keys);
+    @SuppressWarnings("unchecked")
+    InMemoryEntityInfo<TEntity> ei = (InMemoryEntityInfo<TEntity>) eis.get(entitySetName);
+    ei.store = store;
+    return store;
+  }
+
+  /**
+   * Gets the store of an entity set registered with {@link #registerStore}.
+   *
+   * @return the store, or null if the entities of the set are supplied by a function
+   */
+  public InMemoryStore<?> getStore(String entitySetName) {
+    InMemoryEntityInfo<?> ei = eis.get(entitySetName);
+    return ei == null ? null : ei.store;
+  }
+
   protected InMemoryComplexTypeInfo<?> findComplexTypeInfoForClass(Class<?> clazz) {
     // drill down the hierarchy as far as we can go.
     InMemoryComplexTypeInfo<?> found = null;
@@ -488,14 +546,63 @@ public class InMemoryProducer implements ODataProducer {
     }
   }
 
-  private static Predicate1<Object> filterToPredicate(final BoolCommonExpression filter, final PropertyModel properties) {
+  /**
+   * Turns a filter into a predicate on the objects of an entity type. The filter is compiled once, and the
+   * properties it refers to are read through the property model by slot; filters that cannot be compiled are
+   * evaluated for every object.
+   *
+   * <p>The predicate reuses a single resolver for the objects, and must not be applied from several threads.
+   */
+  private static Predicate1<Object> filterToPredicate(final BoolCommonExpression filter, final PropertyModel properties, EdmStructuralType type) {
+    final CompiledFilter compiled;
+    try {
+      compiled = CompiledFilter.compile(filter, type);
+    } catch (UnsupportedOperationException e) {
+      return new Predicate1<Object>() {
+        public boolean apply(Object input) {
+          return InMemoryEvaluation.evaluate(filter, input, properties);
+        }
+      };
+    }
+    final PropertyModelResolver resolver = new PropertyModelResolver(properties, type);
     return new Predicate1<Object>() {
       public boolean apply(Object input) {
-        return InMemoryEvaluation.evaluate(filter, input, properties);
+        resolver.target = input;
+        return compiled.apply(resolver);
       }
     };
   }
 
+  /** Resolves the properties of the current object of a filter through its property model. */
+  private static class PropertyModelResolver implements SlotResolver {
+
+    private final PropertyModel properties;
+    // the property of each slot, in the order of EdmStructuralType.getProperties()
+    private final String[] names;
+    private Object target;
+
+    PropertyModelResolver(PropertyModel properties, EdmStructuralType type) {
+      this.properties = properties;
+      List<String> names = new ArrayList<String>();
+      if (type != null) {
+        for (EdmProperty property : type.getProperties())
+          names.add(property.getName());
+      }
+      this.names = names.toArray(new String[names.size()]);
+    }
+
+    @Override
+    public Object resolveVariable(String path) {
+      return properties.getPropertyValue(target, path);
+    }
+
+    @Override
+    public Object resolveSlot(int slot) {
+      return properties.getPropertyValue(target, names[slot]);
+    }
+
+  }
+
   @Override
   public EntitiesResponse getEntities(ODataContext context, String entitySetName, final QueryInfo queryInfo) {
 
@@ -512,14 +619,47 @@ public class InMemoryProducer implements ODataProducer {
         ? Enumerable.create(ei.get.apply()).cast(Object.class)
         : Enumerable.create(ei.getWithContext.apply(rc)).cast(Object.class);
 
-    return getEntitiesResponse(rc, rc.getEntitySet(), objects, ei.getPropertyModel());
+    return getEntitiesResponse(rc, rc.getEntitySet(), objects, ei.getPropertyModel(), ei.store);
   }
 
   protected EntitiesResponse getEntitiesResponse(final RequestContext rc, final EdmEntitySet targetEntitySet, Enumerable<Object> objects, PropertyModel propertyModel) {
-    // apply filter
+    return getEntitiesResponse(rc, targetEntitySet, objects, propertyModel, null);
+  }
+
+  private EntitiesResponse getEntitiesResponse(final RequestContext rc, final EdmEntitySet targetEntitySet, Enumerable<Object> objects, PropertyModel propertyModel,
+      InMemoryStore<?> store) {
     final QueryInfo queryInfo = rc.getQueryInfo();
+    List<OrderByExpression> orderBy = queryInfo == null || queryInfo.orderBy == null
+        ? Collections.<OrderByExpression> emptyList()
+        : queryInfo.orderBy;
+    // the position the page starts after
+    SkipToken skipToken = queryInfo == null || queryInfo.skipToken == null ? null : SkipToken.decode(queryInfo.skipToken, orderBy);
+
+    // let the indexes of the store narrow down, order or seek the entities
+    boolean ordered = false;
+    boolean seeked = false;
+    if (store != null && queryInfo != null) {
+      Iterable<?> found = queryInfo.filter == null ? null : store.find(queryInfo.filter);
+      if (found == null && orderBy.size() == 1) {
+        if (skipToken != null) {
+          found = store.scanAfter(orderBy.get(0), skipToken);
+          seeked = found != null;
+        }
+        if (found == null)
+          found = store.scan(orderBy.get(0));
+        ordered = found != null;
+      }
+      if (found == null && orderBy.isEmpty() && skipToken != null) {
+        found = store.after(skipToken.getEntityKey());
+        seeked = found != null;
+      }
+      if (found != null)
+        objects = Enumerable.create(found).cast(Object.class);
+    }
+
+    // apply filter
     if (queryInfo != null && queryInfo.filter != null) {
-      objects = objects.where(filterToPredicate(queryInfo.filter, propertyModel));
+      objects = objects.where(filterToPredicate(queryInfo.filter, propertyModel, targetEntitySet.getType()));
     }
 
     // compute inlineCount, must be done after applying filter
@@ -529,59 +669,100 @@ public class InMemoryProducer implements ODataProducer {
       inlineCount = objects.count();
     }
 
-    // apply ordering
-    if (queryInfo != null && queryInfo.orderBy != null) {
-      objects = orderBy(objects, queryInfo.orderBy, propertyModel);
+    int limit = this.maxResults;
+    if (queryInfo != null && queryInfo.top != null && queryInfo.top < limit) {
+      limit = queryInfo.top;
     }
 
-    // work with oentities
-    Enumerable<OEntity> entities = objects.select(new Func1<Object, OEntity>() {
-      @Override
-      public OEntity apply(Object input) {
-        return toOEntity(targetEntitySet, input, rc.getPathHelper());
-      }
-    });
+    int skip = queryInfo == null || queryInfo.skip == null ? 0 : queryInfo.skip;
 
-    // skip records by $skipToken
-    if (queryInfo != null && queryInfo.skipToken != null) {
-      final Boolean[] skipping = new Boolean[] { true };
-      entities = entities.skipWhile(new Predicate1<OEntity>() {
-        @Override
-        public boolean apply(OEntity input) {
-          if (skipping[0]) {
-            String inputKey = input.getEntityKey().toKeyString();
-            if (queryInfo.skipToken.equals(inputKey)) skipping[0] = false;
-            return true;
-          }
-          return false;
-        }
-      });
+    // apply ordering, only the entities up to the end of the page need to be ordered. With the values of a skip
+    // token the entities before it are dropped while ordering, with a key only they are skipped afterwards
+    if (!orderBy.isEmpty() && !ordered) {
+      boolean seek = skipToken != null && skipToken.getOrderByValues() != null;
+      long count = skipToken == null || seek ? (long) skip + limit + 1 : Integer.MAX_VALUE;
+      objects = orderBy(objects, orderBy, propertyModel, (int) Math.min(count, Integer.MAX_VALUE), seek ? skipToken : null, targetEntitySet);
+      seeked = seek;
     }
 
-    // skip records by $skip amount
-    if (queryInfo != null && queryInfo.skip != null) {
-      entities = entities.skip(queryInfo.skip);
+    // skip records up to the position of the skip token
+    if (skipToken != null && !seeked)
+      objects = seek(objects, skipToken, orderBy, propertyModel, targetEntitySet);
+
+    // skip records by $skip amount, and take one more than the page to know whether there is a next one
+    if (skip > 0)
+      objects = objects.skip(skip);
+    List<Object> page = objects.take(limit + 1).toList();
+
+    // the next page starts after the last entity of this one
+    SkipToken next = null;
+    if (page.size() > limit) {
+      page = page.subList(0, limit);
+      if (limit > 0)
+        next = position(orderBy, propertyModel, targetEntitySet, page.get(limit - 1));
     }
 
-    // apply limit
-    int limit = this.maxResults;
-    if (queryInfo != null && queryInfo.top != null && queryInfo.top < limit) {
-      limit = queryInfo.top;
-    }
-    entities = entities.take(limit + 1);
+    // work with oentities
+    List<OEntity> entitiesList = new ArrayList<OEntity>(page.size());
+    for (Object obj : page)
+      entitiesList.add(toOEntity(targetEntitySet, obj, rc.getPathHelper()));
 
-    // materialize OEntities
-    List<OEntity> entitiesList = entities.toList();
+    return Responses.entitiesPage(entitiesList, targetEntitySet, inlineCount, next);
 
-    // determine skipToken if necessary
-    String skipToken = null;
-    if (entitiesList.size() > limit) {
-      entitiesList = Enumerable.create(entitiesList).take(limit).toList();
-      skipToken = entitiesList.size() == 0 ? null : Enumerable.create(entitiesList).last().getEntityKey().toKeyString();
-    }
+  }
 
-    return Responses.entities(entitiesList, targetEntitySet, inlineCount, skipToken);
+  private OEntityKey keyOf(EdmEntitySet ees, Object obj) {
+    InMemoryEntityInfo<?> ei = eis.get(ees.getName());
+    Map<String, Object> keyKVPair = new HashMap<String, Object>();
+    for (String key : ei.getKeys())
+      keyKVPair.put(key, ei.getPropertyModel().getPropertyValue(obj, key));
+    return OEntityKey.create(keyKVPair);
+  }
 
+  private static List<Object> orderByValues(List<OrderByExpression> orderBy, PropertyModel properties, Object obj) {
+    List<Object> rt = new ArrayList<Object>(orderBy.size());
+    for (OrderByExpression expression : orderBy)
+      rt.add(InMemoryEvaluation.evaluate(expression.getExpression(), obj, properties));
+    return rt;
+  }
+
+  /**
+   * Gets the position of an object in the results, only by its key if the values it is ordered by cannot be
+   * put in a skip token.
+   */
+  private SkipToken position(List<OrderByExpression> orderBy, PropertyModel properties, EdmEntitySet ees, Object obj) {
+    OEntityKey key = keyOf(ees, obj);
+    try {
+      return SkipToken.create(orderBy, orderByValues(orderBy, properties, obj), key);
+    } catch (IllegalArgumentException e) {
+      return SkipToken.create(orderBy, null, key);
+    }
+  }
+
+  /**
+   * Skips ordered objects up to the position of a skip token: those before its values and, of those with the same
+   * values, those up to the object with its key. If no object has the key, all of those with the same values are
+   * skipped.
+   */
+  private Enumerable<Object> seek(Enumerable<Object> objects, final SkipToken skipToken, final List<OrderByExpression> orderBy,
+      final PropertyModel properties, final EdmEntitySet ees) {
+    final String key = skipToken.getEntityKey().toKeyString();
+    final boolean[] skipping = new boolean[] { true };
+    return objects.skipWhile(new Predicate1<Object>() {
+      @Override
+      public boolean apply(Object input) {
+        if (!skipping[0])
+          return false;
+        int rt = skipToken.getOrderByValues() == null ? 0 : skipToken.compareTo(orderByValues(orderBy, properties, input));
+        if (rt > 0) {
+          skipping[0] = false;
+          return false;
+        }
+        if (rt == 0 && key.equals(keyOf(ees, input).toKeyString()))
+          skipping[0] = false;
+        return true;
+      }
+    });
   }
 
   @Override
@@ -602,9 +783,12 @@ public class InMemoryProducer implements ODataProducer {
         ? Enumerable.create(ei.get.apply()).cast(Object.class)
         : Enumerable.create(ei.getWithContext.apply(rc)).cast(Object.class);
 
-    // apply filter
+    // apply filter, narrowed down by the indexes of the store if possible
     if (queryInfo != null && queryInfo.filter != null) {
-      objects = objects.where(filterToPredicate(queryInfo.filter, ei.properties));
+      Iterable<?> found = ei.store == null ? null : ei.store.find(queryInfo.filter);
+      if (found != null)
+        objects = Enumerable.create(found).cast(Object.class);
+      objects = objects.where(filterToPredicate(queryInfo.filter, ei.properties, rc.getEntitySet().getType()));
     }
 
     // inlineCount is not applicable to $count queries
@@ -644,19 +828,75 @@ public class InMemoryProducer implements ODataProducer {
     return Responses.count(entities.count());
   }
 
-  private Enumerable<Object> orderBy(Enumerable<Object> iter, List<OrderByExpression> orderBys, final PropertyModel properties) {
-    for (final OrderByExpression orderBy : Enumerable.create(orderBys).reverse())
-      iter = iter.orderBy(new Comparator<Object>() {
-        @SuppressWarnings({ "unchecked", "rawtypes" })
-        public int compare(Object o1, Object o2) {
-          Comparable lhs = (Comparable) InMemoryEvaluation.evaluate(orderBy.getExpression(), o1, properties);
-          Comparable rhs = (Comparable) InMemoryEvaluation.evaluate(orderBy.getExpression(), o2, properties);
-          return (orderBy.getDirection() == Direction.ASCENDING ? 1 : -1) * lhs.compareTo(rhs);
+  /**
+   * Orders objects by the values of the $orderby expressions, which are evaluated once per object. Only the first
+   * count objects are returned; they are selected with a bounded heap rather than by sorting all of them.
+   * Nulls come first in ascending order, objects with equal values keep their order.
+   * Given a skip token, the objects up to its position are dropped as in {@link #seek}.
+   */
+  private Enumerable<Object> orderBy(Enumerable<Object> iter, final List<OrderByExpression> orderBys, final PropertyModel properties, int count,
+      final SkipToken skipToken, final EdmEntitySet ees) {
+    final int size = orderBys.size();
+
+    // a row holds the values and the object
+    Enumerable<Object[]> rows = iter.select(new Func1<Object, Object[]>() {
+      public Object[] apply(Object obj) {
+        Object[] row = new Object[size + 1];
+        for (int i = 0; i < size; i++)
+          row[i] = InMemoryEvaluation.evaluate(orderBys.get(i).getExpression(), obj, properties);
+        row[size] = obj;
+        return row;
+      }
+    });
+
+    if (skipToken != null) {
+      final String key = skipToken.getEntityKey().toKeyString();
+      final boolean[] found = new boolean[1];
+      rows = rows.where(new Predicate1<Object[]>() {
+        public boolean apply(Object[] row) {
+          // objects with the same values come in their order, up to the one with the key
+          int rt = skipToken.compareTo(Arrays.asList(row).subList(0, size));
+          if (rt < 0)
+            return false;
+          if (rt == 0 && !found[0]) {
+            found[0] = key.equals(keyOf(ees, row[size]).toKeyString());
+            return false;
+          }
+          return true;
         }
       });
-    return iter;
+    }
+
+    OrderedEnumerable<Object[]> ordered = null;
+    for (int i = 0; i < size; i++) {
+      Func1<Object[], Object> value = column(i);
+      Comparator<Object> comparator = orderBys.get(i).getDirection() == Direction.ASCENDING
+          ? NULLS_FIRST
+          : Collections.reverseOrder(NULLS_FIRST);
+      ordered = ordered == null ? rows.orderBy(value, comparator) : ordered.thenBy(value, comparator);
+    }
+
+    // materialize, the seek above keeps its state for a single pass
+    return Enumerable.create(ordered.take(count).select(column(size)).toList());
   }
 
+  private static Func1<Object[], Object> column(final int index) {
+    return new Func1<Object[], Object>() {
+      public Object apply(Object[] row) {
+        return row[index];
+      }
+    };
+  }
+
+  private static final Comparator<Object> NULLS_FIRST = new Comparator<Object>() {
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public int compare(Object o1, Object o2) {
+      Comparable lhs = (Comparable) o1;
+      Comparable rhs = (Comparable) o2;
+      return lhs == null ? (rhs == null ? 0 : -1) : rhs == null ? 1 : lhs.compareTo(rhs);
+    }
+  };
+
   @Override
   public EntityResponse getEntity(ODataContext context, final String entitySetName, final OEntityKey entityKey, final EntityQueryInfo queryInfo) {
 
@@ -938,8 +1178,8 @@ public class InMemoryProducer implements ODataProducer {
 
   /**
    * Given an entity set and an entity key, returns the pojo that is that entity instance.
-   * The default implementation iterates over the entire set of pojos to find the
-   * desired instance.
+   * The default implementation looks the key up in the store of the set, or else
+   * iterates over the entire set of pojos to find the desired instance.
    *
    * @param rc  the current ReqeustContext, may be valuable to the ei.getWithContext impl
    * @return the pojo
@@ -948,6 +1188,9 @@ public class InMemoryProducer implements ODataProducer {
   protected Object getEntityPojo(final RequestContext rc) {
     final InMemoryEntityInfo<?> ei = eis.get(rc.getEntitySetName());
 
+    if (ei.store != null)
+      return ei.store.get(rc.getEntityKey());
+
     final String[] keyList = ei.keys;
 
     Iterable<Object> iter = ei.getWithContext == null ? ((Iterable<Object>) ei.get.apply())
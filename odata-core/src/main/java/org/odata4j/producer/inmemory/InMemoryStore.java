@@ -0,0 +1,460 @@
+package org.odata4j.producer.inmemory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.core4j.Enumerable;
+import org.core4j.Func1;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OEntityKey.KeyType;
+import org.odata4j.core.OProperty;
+import org.odata4j.expression.AndExpression;
+import org.odata4j.expression.BinaryCommonExpression;
+import org.odata4j.expression.BoolCommonExpression;
+import org.odata4j.expression.BoolParenExpression;
+import org.odata4j.expression.CommonExpression;
+import org.odata4j.expression.EntitySimpleProperty;
+import org.odata4j.expression.EqExpression;
+import org.odata4j.expression.Expression;
+import org.odata4j.expression.GeExpression;
+import org.odata4j.expression.GtExpression;
+import org.odata4j.expression.LeExpression;
+import org.odata4j.expression.LiteralExpression;
+import org.odata4j.expression.LtExpression;
+import org.odata4j.expression.OrderByExpression;
+import org.odata4j.expression.OrderByExpression.Direction;
+import org.odata4j.producer.SkipToken;
+
+/**
+ * The entities of an entity set registered with {@link InMemoryProducer#registerStore}, held by the producer
+ * rather than supplied by a function on every request.
+ *
+ * <p>Entities are kept in the order they were first stored in and are found by key through a hash index.
+ * Hash and sorted secondary indexes can be declared on other properties: queries use them for $filter
+ * comparisons of a property with a literal (eq for both, gt, ge, lt and le for sorted indexes) that are
+ * joined by and, and for an $orderby on a single property with a sorted index, which also seeks to the
+ * position of a skip token. The full filter is still applied, indexes never change the result of a query.
+ *
+ * <p>Changes are serialized; reads do not lock and, like those of the java.util.concurrent collections, are
+ * weakly consistent. An entity that is changed after it was stored must be stored again for its indexes to
+ * be updated.
+ */
+public class InMemoryStore<TEntity> {
+
+  static final class Entry<TEntity> {
+
+    final long sequence;
+    final Object key;
+    final TEntity entity;
+
+    Entry(long sequence, Object key, TEntity entity) {
+      this.sequence = sequence;
+      this.key = key;
+      this.entity = entity;
+    }
+  }
+
+  private static final Comparator<Entry<?>> SEQUENCE_ORDER = new Comparator<Entry<?>>() {
+    public int compare(Entry<?> o1, Entry<?> o2) {
+      return o1.sequence < o2.sequence ? -1 : o1.sequence == o2.sequence ? 0 : 1;
+    }
+  };
+
+  private final PropertyModel properties;
+  private final String[] keys;
+  private final ConcurrentHashMap<Object, Entry<TEntity>> byKey = new ConcurrentHashMap<Object, Entry<TEntity>>();
+  private final ConcurrentSkipListMap<Long, Entry<TEntity>> bySequence = new ConcurrentSkipListMap<Long, Entry<TEntity>>();
+  private final Map<String, InMemoryIndex<TEntity>> indexes = new ConcurrentHashMap<String, InMemoryIndex<TEntity>>();
+  private volatile Class<?> keyClass;
+  private volatile boolean mixedKeys;
+  private long nextSequence;
+
+  /**
+   * Creates an empty store.
+   *
+   * @param properties  the property model of the entities
+   * @param keys  the names of the key properties
+   */
+  public InMemoryStore(PropertyModel properties, String... keys) {
+    if (keys == null || keys.length == 0)
+      throw new IllegalArgumentException("At least one key property is required");
+    this.properties = properties;
+    this.keys = keys;
+  }
+
+  /**
+   * Declares a hash index on a property, used for eq comparisons.
+   *
+   * @return this store
+   */
+  public InMemoryStore<TEntity> addHashIndex(String propertyName) {
+    return addIndex(new InMemoryIndex<TEntity>(propertyName, false));
+  }
+
+  /**
+   * Declares a sorted index on a property, used for eq, gt, ge, lt and le comparisons and for ordering.
+   * The values of the property must be comparable.
+   *
+   * @return this store
+   */
+  public InMemoryStore<TEntity> addSortedIndex(String propertyName) {
+    return addIndex(new InMemoryIndex<TEntity>(propertyName, true));
+  }
+
+  private synchronized InMemoryStore<TEntity> addIndex(InMemoryIndex<TEntity> index) {
+    for (Entry<TEntity> entry : bySequence.values())
+      index.add(entry, properties.getPropertyValue(entry.entity, index.getPropertyName()));
+    indexes.put(index.getPropertyName(), index);
+    return this;
+  }
+
+  /**
+   * Stores an entity, replacing the one with the same key. A replaced entity keeps its position.
+   *
+   * @return the replaced entity, or null
+   */
+  public synchronized TEntity put(TEntity entity) {
+    Object key = keyOf(entity);
+    Entry<TEntity> existing = byKey.get(key);
+    Entry<TEntity> entry = new Entry<TEntity>(existing == null ? nextSequence++ : existing.sequence, key, entity);
+    if (existing != null) {
+      for (InMemoryIndex<TEntity> index : indexes.values())
+        index.remove(existing);
+    }
+    for (InMemoryIndex<TEntity> index : indexes.values())
+      index.add(entry, properties.getPropertyValue(entity, index.getPropertyName()));
+    bySequence.put(entry.sequence, entry);
+    byKey.put(key, entry);
+    if (keys.length == 1 && !mixedKeys) {
+      if (keyClass == null)
+        keyClass = key.getClass();
+      else if (keyClass != key.getClass()) {
+        keyClass = null;
+        mixedKeys = true;
+      }
+    }
+    return existing == null ? null : existing.entity;
+  }
+
+  /**
+   * Stores entities, replacing those with the same keys.
+   */
+  public synchronized void putAll(Iterable<? extends TEntity> entities) {
+    for (TEntity entity : entities)
+      put(entity);
+  }
+
+  /**
+   * Removes the entity with the key of the given entity.
+   *
+   * @return the removed entity, or null
+   */
+  public synchronized TEntity remove(TEntity entity) {
+    return removeEntry(byKey.get(keyOf(entity)));
+  }
+
+  /**
+   * Removes the entity with the given key.
+   *
+   * @return the removed entity, or null
+   */
+  public synchronized TEntity remove(OEntityKey entityKey) {
+    return removeEntry(find(entityKey));
+  }
+
+  private TEntity removeEntry(Entry<TEntity> entry) {
+    if (entry == null)
+      return null;
+    for (InMemoryIndex<TEntity> index : indexes.values())
+      index.remove(entry);
+    byKey.remove(entry.key);
+    bySequence.remove(entry.sequence);
+    return entry.entity;
+  }
+
+  /**
+   * Removes all entities; declared indexes are kept.
+   */
+  public synchronized void clear() {
+    for (InMemoryIndex<TEntity> index : indexes.values())
+      index.clear();
+    byKey.clear();
+    bySequence.clear();
+    keyClass = null;
+    mixedKeys = false;
+  }
+
+  /**
+   * Gets the entity with the given key.
+   *
+   * @return the entity, or null
+   */
+  public TEntity get(OEntityKey entityKey) {
+    Entry<TEntity> entry = find(entityKey);
+    return entry == null ? null : entry.entity;
+  }
+
+  public int size() {
+    return byKey.size();
+  }
+
+  /**
+   * Gets the entities in the order they were first stored in.
+   */
+  public Iterable<TEntity> values() {
+    return entities(bySequence.values());
+  }
+
+  /**
+   * Gets the entities stored after the one with a key, in the order they were first stored in.
+   *
+   * @return the entities, or null if no entity has the key
+   */
+  Iterable<TEntity> after(OEntityKey entityKey) {
+    Entry<TEntity> entry = find(entityKey);
+    return entry == null ? null : entities(bySequence.tailMap(entry.sequence, false).values());
+  }
+
+  private Object keyOf(TEntity entity) {
+    if (keys.length == 1)
+      return required(properties.getPropertyValue(entity, keys[0]), keys[0]);
+    Object[] values = new Object[keys.length];
+    for (int i = 0; i < keys.length; i++)
+      values[i] = required(properties.getPropertyValue(entity, keys[i]), keys[i]);
+    return Arrays.asList(values);
+  }
+
+  private static Object required(Object value, String key) {
+    if (value == null)
+      throw new IllegalArgumentException("Key property " + key + " is null");
+    return value;
+  }
+
+  private Entry<TEntity> find(OEntityKey entityKey) {
+    if (keys.length == 1) {
+      if (entityKey.getKeyType() != KeyType.SINGLE)
+        return null;
+      Object value = entityKey.asSingleValue();
+      Entry<TEntity> entry = byKey.get(value);
+      if (entry == null) {
+        value = coerce(value, keyClass);
+        entry = value == null ? null : byKey.get(value);
+      }
+      return entry;
+    }
+    if (entityKey.getKeyType() != KeyType.COMPLEX)
+      return null;
+    Object[] values = new Object[keys.length];
+    for (OProperty<?> property : entityKey.asComplexProperties()) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i].equalsIgnoreCase(property.getName()))
+          values[i] = property.getValue();
+      }
+    }
+    return byKey.get(Arrays.asList(values));
+  }
+
+  /**
+   * Finds a superset of the entities that match a filter with the help of the indexes.
+   *
+   * @return the candidates in store order, or null if no index applies
+   */
+  Iterable<TEntity> find(BoolCommonExpression filter) {
+    List<Comparison> comparisons = new ArrayList<Comparison>();
+    conjuncts(filter, comparisons);
+
+    for (Comparison comparison : comparisons) {
+      if (comparison.operator != Comparison.EQ)
+        continue;
+      if (keys.length == 1 && keys[0].equals(comparison.propertyName)) {
+        Object value = coerce(comparison.value, keyClass);
+        if (value != null) {
+          Entry<TEntity> entry = byKey.get(value);
+          return entry == null ? Collections.<TEntity> emptyList() : Collections.singletonList(entry.entity);
+        }
+      }
+      InMemoryIndex<TEntity> index = indexes.get(comparison.propertyName);
+      Object value = index == null ? null : coerce(comparison.value, index.getValueClass());
+      if (value != null)
+        return entities(index.get(value));
+    }
+
+    for (Comparison comparison : comparisons) {
+      InMemoryIndex<TEntity> index = indexes.get(comparison.propertyName);
+      if (index == null || !index.isSorted() || coerce(comparison.value, index.getValueClass()) == null)
+        continue;
+      Object lower = null, upper = null;
+      boolean lowerInclusive = false, upperInclusive = false;
+      for (Comparison bound : comparisons) {
+        if (!bound.propertyName.equals(comparison.propertyName))
+          continue;
+        Object value = coerce(bound.value, index.getValueClass());
+        if (value == null)
+          continue;
+        if (lower == null && (bound.operator == Comparison.GT || bound.operator == Comparison.GE)) {
+          lower = value;
+          lowerInclusive = bound.operator == Comparison.GE;
+        } else if (upper == null && (bound.operator == Comparison.LT || bound.operator == Comparison.LE)) {
+          upper = value;
+          upperInclusive = bound.operator == Comparison.LE;
+        }
+      }
+      List<Entry<TEntity>> entries = Enumerable.create(index.range(lower, lowerInclusive, upper, upperInclusive)).toList();
+      Collections.sort(entries, SEQUENCE_ORDER);
+      return entities(entries);
+    }
+    return null;
+  }
+
+  /**
+   * Gets all entities ordered by a property with a sorted index; entities with equal values are in store order.
+   *
+   * @return the ordered entities, or null if no index applies
+   */
+  Iterable<TEntity> scan(OrderByExpression orderBy) {
+    InMemoryIndex<TEntity> index = sortedIndex(orderBy);
+    return index == null ? null : entities(index.ordered(orderBy.getDirection() == Direction.ASCENDING));
+  }
+
+  /**
+   * Gets the entities after the position of a skip token with values, ordered as by {@link #scan}: those with
+   * the value of the token that were stored after the entity with its key, then those with a value after it.
+   * If no entity with the value has the key, all of those with the value are skipped.
+   *
+   * @return the ordered entities, or null if no index applies
+   */
+  Iterable<TEntity> scanAfter(OrderByExpression orderBy, SkipToken skipToken) {
+    InMemoryIndex<TEntity> index = sortedIndex(orderBy);
+    if (index == null || skipToken.getOrderByValues() == null)
+      return null;
+    Object value = skipToken.getOrderByValues().get(0);
+    if (value != null) {
+      value = coerce(value, index.getValueClass());
+      if (value == null)
+        return null;
+    }
+    Entry<TEntity> entry = find(skipToken.getEntityKey());
+    return entities(index.after(value, entry, orderBy.getDirection() == Direction.ASCENDING));
+  }
+
+  private InMemoryIndex<TEntity> sortedIndex(OrderByExpression orderBy) {
+    if (!(orderBy.getExpression() instanceof EntitySimpleProperty))
+      return null;
+    InMemoryIndex<TEntity> index = indexes.get(((EntitySimpleProperty) orderBy.getExpression()).getPropertyName());
+    if (index == null || !index.isSorted() || (index.getValueClass() == null && !bySequence.isEmpty()))
+      return null;
+    return index;
+  }
+
+  private Enumerable<TEntity> entities(Iterable<Entry<TEntity>> entries) {
+    return Enumerable.create(entries).select(new Func1<Entry<TEntity>, TEntity>() {
+      public TEntity apply(Entry<TEntity> input) {
+        return input.entity;
+      }
+    });
+  }
+
+  private static void conjuncts(BoolCommonExpression expression, List<Comparison> comparisons) {
+    if (expression instanceof BoolParenExpression) {
+      CommonExpression inner = ((BoolParenExpression) expression).getExpression();
+      if (inner instanceof BoolCommonExpression)
+        conjuncts((BoolCommonExpression) inner, comparisons);
+    } else if (expression instanceof AndExpression) {
+      conjuncts(((AndExpression) expression).getLHS(), comparisons);
+      conjuncts(((AndExpression) expression).getRHS(), comparisons);
+    } else if (expression instanceof BinaryCommonExpression) {
+      Comparison comparison = Comparison.of((BinaryCommonExpression) expression);
+      if (comparison != null)
+        comparisons.add(comparison);
+    }
+  }
+
+  /**
+   * Converts a literal value to the class of the values it is compared with, so that comparing with the
+   * result gives what binary numeric promotion in {@link InMemoryEvaluation} would. Returns null if it does
+   * not.
+   */
+  static Object coerce(Object value, Class<?> type) {
+    if (value == null || type == null)
+      return null;
+    if (value.getClass() == type)
+      return value;
+    if (!(value instanceof Number))
+      return null;
+    Number number = (Number) value;
+    boolean integral = value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long;
+    if (type == Double.class)
+      return number.doubleValue();
+    if (type == Float.class && (integral || value instanceof BigDecimal))
+      return number.floatValue();
+    if (type == BigDecimal.class && integral)
+      return BigDecimal.valueOf(number.longValue());
+    if (!integral)
+      return null;
+    // between integral types the comparison is the same with the value converted without loss
+    long l = number.longValue();
+    if (type == Long.class)
+      return l;
+    if (type == Integer.class)
+      return l == (int) l ? Integer.valueOf((int) l) : null;
+    if (type == Short.class)
+      return l == (short) l ? Short.valueOf((short) l) : null;
+    if (type == Byte.class)
+      return l == (byte) l ? Byte.valueOf((byte) l) : null;
+    return null;
+  }
+
+  /** A comparison of a property with a literal, with the property on the left. */
+  private static class Comparison {
+
+    static final int EQ = 0, LT = 1, LE = 2, GT = 3, GE = 4;
+
+    final String propertyName;
+    final Object value;
+    final int operator;
+
+    Comparison(String propertyName, Object value, int operator) {
+      this.propertyName = propertyName;
+      this.value = value;
+      this.operator = operator;
+    }
+
+    static Comparison of(BinaryCommonExpression expression) {
+      int operator;
+      if (expression instanceof EqExpression)
+        operator = EQ;
+      else if (expression instanceof LtExpression)
+        operator = LT;
+      else if (expression instanceof LeExpression)
+        operator = LE;
+      else if (expression instanceof GtExpression)
+        operator = GT;
+      else if (expression instanceof GeExpression)
+        operator = GE;
+      else
+        return null;
+
+      CommonExpression lhs = expression.getLHS();
+      CommonExpression rhs = expression.getRHS();
+      if (rhs instanceof EntitySimpleProperty && lhs instanceof LiteralExpression) {
+        lhs = expression.getRHS();
+        rhs = expression.getLHS();
+        operator = operator == LT ? GT : operator == LE ? GE : operator == GT ? LT : operator == GE ? LE : operator;
+      }
+      if (!(lhs instanceof EntitySimpleProperty) || !(rhs instanceof LiteralExpression))
+        return null;
+      Object value = Expression.literalValue((LiteralExpression) rhs);
+      if (value == null)
+        return null;
+      return new Comparison(((EntitySimpleProperty) lhs).getPropertyName(), value, operator);
+    }
+  }
+
+}
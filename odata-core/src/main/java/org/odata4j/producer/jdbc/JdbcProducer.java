@@ -0,0 +1,774 @@
+package org.odata4j.producer.jdbc;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.sql.DataSource;
+
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityId;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OExtension;
+import org.odata4j.core.OFunctionParameter;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.core.OPropertyValues;
+import org.odata4j.core.Throwables;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmFunctionImport;
+import org.odata4j.edm.EdmPropertyLayout;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.exceptions.BadRequestException;
+import org.odata4j.exceptions.NotFoundException;
+import org.odata4j.exceptions.NotImplementedException;
+import org.odata4j.expression.BoolCommonExpression;
+import org.odata4j.expression.Expression;
+import org.odata4j.expression.OrderByExpression;
+import org.odata4j.expression.OrderByExpression.Direction;
+import org.odata4j.producer.BaseResponse;
+import org.odata4j.producer.ContextStream;
+import org.odata4j.producer.CountResponse;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.EntityIdResponse;
+import org.odata4j.producer.EntityQueryInfo;
+import org.odata4j.producer.EntityResponse;
+import org.odata4j.producer.InlineCount;
+import org.odata4j.producer.ODataContext;
+import org.odata4j.producer.ODataProducer;
+import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.Responses;
+import org.odata4j.producer.SkipToken;
+import org.odata4j.producer.StreamingEntitiesResponse;
+import org.odata4j.producer.edm.MetadataProducer;
+import org.odata4j.producer.jdbc.JdbcTable.Column;
+
+/**
+ * A read-only producer of the tables of a database, each exposed as an entity-set.
+ *
+ * <p>Queries are answered by the database: $filter and $orderby are translated into SQL, $top and $skip into
+ * <code>LIMIT</code> and <code>OFFSET</code>, $select into the columns of the query, $count and $inlinecount into
+ * <code>COUNT(*)</code>. The rows are turned into entities as the response is written.
+ *
+ * <p>Pages are continued by a {@link SkipToken} of their last entity: the next page seeks past its values, in the
+ * order of the $orderby and then the key, rather than skipping the rows before it.
+ *
+ * <pre>
+ * ODataProducer producer = JdbcProducer.newBuilder(dataSource)
+ *     .setNamespace("Northwind")
+ *     .addTable("CUSTOMERS")
+ *     .addTable("Orders", "APP", "ORDERS")
+ *     .build();
+ * </pre>
+ */
+public class JdbcProducer implements ODataProducer {
+
+  private static final int DEFAULT_MAX_RESULTS = 100;
+
+  private final DataSource dataSource;
+  private final int maxResults;
+  private final Map<String, JdbcTable> tables;
+  private final EdmDataServices metadata;
+  private final MetadataProducer metadataProducer;
+  // where the database orders nulls
+  private final boolean nullsFirstAscending;
+  private final boolean nullsFirstDescending;
+
+  private JdbcProducer(Builder builder) {
+    this.dataSource = builder.dataSource;
+    this.maxResults = builder.maxResults;
+    this.tables = new LinkedHashMap<String, JdbcTable>();
+
+    Connection connection = getConnection();
+    try {
+      DatabaseMetaData databaseMetadata = connection.getMetaData();
+      for (String[] table : builder.tables)
+        tables.put(table[0], JdbcTable.read(databaseMetadata, table[0], table[1], table[2]));
+      boolean atStart = databaseMetadata.nullsAreSortedAtStart();
+      boolean atEnd = databaseMetadata.nullsAreSortedAtEnd();
+      boolean high = databaseMetadata.nullsAreSortedHigh();
+      nullsFirstAscending = atStart || (!atEnd && !high);
+      nullsFirstDescending = atStart || (!atEnd && high);
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      close(connection, null, null);
+    }
+
+    List<EdmEntityType.Builder> entityTypes = new ArrayList<EdmEntityType.Builder>();
+    List<EdmEntitySet.Builder> entitySets = new ArrayList<EdmEntitySet.Builder>();
+    for (JdbcTable table : tables.values()) {
+      EdmEntityType.Builder entityType = table.toEntityType(builder.namespace);
+      entityTypes.add(entityType);
+      entitySets.add(EdmEntitySet.newBuilder().setName(table.entitySetName).setEntityType(entityType));
+    }
+    EdmEntityContainer.Builder container = EdmEntityContainer.newBuilder()
+        .setName(builder.containerName).setIsDefault(true).addEntitySets(entitySets);
+    this.metadata = EdmDataServices.newBuilder()
+        .addSchemas(EdmSchema.newBuilder().setNamespace(builder.namespace).addEntityTypes(entityTypes).addEntityContainers(container))
+        .build();
+    this.metadataProducer = new MetadataProducer(this, null);
+  }
+
+  public static Builder newBuilder(DataSource dataSource) {
+    return new Builder(dataSource);
+  }
+
+  /** Mutable builder for {@link JdbcProducer} objects. */
+  public static class Builder {
+
+    private final DataSource dataSource;
+    private final List<String[]> tables = new ArrayList<String[]>();
+    private String namespace = "Database";
+    private String containerName = "Container";
+    private int maxResults = DEFAULT_MAX_RESULTS;
+
+    private Builder(DataSource dataSource) {
+      if (dataSource == null)
+        throw new IllegalArgumentException("dataSource cannot be null");
+      this.dataSource = dataSource;
+    }
+
+    /** Sets the namespace of the schema, <code>Database</code> by default. */
+    public Builder setNamespace(String namespace) {
+      this.namespace = namespace;
+      return this;
+    }
+
+    /** Sets the name of the entity container, <code>Container</code> by default. */
+    public Builder setContainerName(String containerName) {
+      this.containerName = containerName;
+      return this;
+    }
+
+    /** Sets the maximum number of entities to return in a single call, 100 by default. */
+    public Builder setMaxResults(int maxResults) {
+      this.maxResults = maxResults;
+      return this;
+    }
+
+    /**
+     * Exposes a table of the default schema as an entity-set of the same name.
+     *
+     * @param tableName  the name of the table, as stored in the database
+     */
+    public Builder addTable(String tableName) {
+      return addTable(tableName, null, tableName);
+    }
+
+    /**
+     * Exposes a table as an entity-set.
+     *
+     * @param entitySetName  the name of the entity-set
+     * @param schemaName  the schema of the table, null for the default schema
+     * @param tableName  the name of the table, as stored in the database
+     */
+    public Builder addTable(String entitySetName, String schemaName, String tableName) {
+      tables.add(new String[] { entitySetName, schemaName, tableName });
+      return this;
+    }
+
+    /**
+     * Builds the producer, reading the columns and keys of the tables from the database.
+     *
+     * @throws IllegalArgumentException if a table does not exist or has no primary key
+     */
+    public JdbcProducer build() {
+      return new JdbcProducer(this);
+    }
+  }
+
+  @Override
+  public EdmDataServices getMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public MetadataProducer getMetadataProducer() {
+    return metadataProducer;
+  }
+
+  @Override
+  public void close() {}
+
+  @Override
+  public <TExtension extends OExtension<ODataProducer>> TExtension findExtension(Class<TExtension> clazz) {
+    return null;
+  }
+
+  private JdbcTable getTable(String entitySetName) {
+    JdbcTable rt = tables.get(entitySetName);
+    if (rt == null)
+      throw new NotFoundException("EntitySet " + entitySetName + " not found");
+    return rt;
+  }
+
+  private Connection getConnection() {
+    try {
+      return dataSource.getConnection();
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static void close(Connection connection, PreparedStatement statement, ResultSet rs) {
+    try {
+      try {
+        if (rs != null)
+          rs.close();
+      } finally {
+        try {
+          if (statement != null)
+            statement.close();
+        } finally {
+          if (connection != null)
+            connection.close();
+        }
+      }
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  @Override
+  public EntitiesResponse getEntities(ODataContext context, String entitySetName, QueryInfo queryInfo) {
+    JdbcTable table = getTable(entitySetName);
+    if (queryInfo == null)
+      queryInfo = new QueryInfo();
+    if (queryInfo.expand != null && !queryInfo.expand.isEmpty())
+      throw new NotImplementedException("$expand is not supported");
+
+    int limit = maxResults;
+    if (queryInfo.top != null && queryInfo.top < limit)
+      limit = queryInfo.top;
+    // without a $top, or a larger one, the page is continued
+    boolean paged = queryInfo.top == null || queryInfo.top > limit;
+    List<OrderByExpression> orderBy = queryInfo.orderBy == null ? Collections.<OrderByExpression> emptyList() : queryInfo.orderBy;
+    SkipToken skipToken = queryInfo.skipToken == null ? null : SkipToken.decode(queryInfo.skipToken, orderBy);
+    if (skipToken != null && skipToken.getOrderByValues() == null)
+      throw new BadRequestException("Invalid $skiptoken " + queryInfo.skipToken);
+    List<Column> columns = table.select(queryInfo.select);
+
+    Connection connection = getConnection();
+    PreparedStatement statement = null;
+    ResultSet rs = null;
+    try {
+      Integer inlineCount = null;
+      if (queryInfo.inlineCount == InlineCount.ALLPAGES)
+        inlineCount = (int) count(connection, table, queryInfo.filter);
+
+      SqlStatement sql = new SqlStatement().append("SELECT ");
+      List<Column> selected = new ArrayList<Column>(columns);
+      for (Column key : table.keys) {
+        if (!selected.contains(key))
+          selected.add(key);
+      }
+      for (int i = 0; i < selected.size(); i++)
+        sql.append(i == 0 ? "" : ", ").append(selected.get(i).sql);
+      // the values of the orderings, for the skip token of the last entity
+      for (OrderByExpression expression : orderBy) {
+        sql.append(", ");
+        SqlExpressionVisitor.append(table, sql, expression.getExpression());
+      }
+      sql.append(" FROM ").append(table.sql);
+      boolean where = appendWhere(table, sql, queryInfo.filter);
+      if (skipToken != null) {
+        sql.append(where ? " AND " : " WHERE ");
+        appendSeek(table, sql, orderBy, skipToken);
+      }
+      appendOrderBy(table, sql, orderBy);
+      sql.append(" LIMIT " + (paged ? limit + 1 : limit));
+      if (queryInfo.skip != null && queryInfo.skip > 0)
+        sql.append(" OFFSET " + queryInfo.skip);
+
+      statement = sql.prepare(connection);
+      rs = statement.executeQuery();
+      JdbcEntitiesResponse rt = new JdbcEntitiesResponse(metadata.getEdmEntitySet(entitySetName), table, columns, selected,
+          orderBy, paged, inlineCount, limit, connection, statement, rs);
+      connection = null;
+      return rt;
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      // unless the response has taken them over
+      if (connection != null)
+        close(connection, statement, rs);
+    }
+  }
+
+  @Override
+  public CountResponse getEntitiesCount(ODataContext context, String entitySetName, QueryInfo queryInfo) {
+    JdbcTable table = getTable(entitySetName);
+    if (queryInfo == null)
+      queryInfo = new QueryInfo();
+
+    // inlineCount is not applicable to $count queries
+    if (queryInfo.inlineCount == InlineCount.ALLPAGES)
+      throw new UnsupportedOperationException("$inlinecount cannot be applied to the resource segment '$count'");
+    // skipToken is not applicable to $count queries
+    if (queryInfo.skipToken != null)
+      throw new UnsupportedOperationException("Skip tokens can only be provided for requests that return collections of entities.");
+
+    Connection connection = getConnection();
+    try {
+      long count = count(connection, table, queryInfo.filter);
+      // $skip and $top apply to $count, maxResults does not
+      if (queryInfo.skip != null)
+        count = Math.max(0, count - queryInfo.skip);
+      if (queryInfo.top != null)
+        count = Math.min(count, queryInfo.top);
+      return Responses.count(count);
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      close(connection, null, null);
+    }
+  }
+
+  @Override
+  public EntityResponse getEntity(ODataContext context, String entitySetName, OEntityKey entityKey, EntityQueryInfo queryInfo) {
+    JdbcTable table = getTable(entitySetName);
+    if (queryInfo != null && queryInfo.expand != null && !queryInfo.expand.isEmpty())
+      throw new NotImplementedException("$expand is not supported");
+    List<Column> columns = table.select(queryInfo == null ? null : queryInfo.select);
+
+    SqlStatement sql = new SqlStatement().append("SELECT ");
+    for (int i = 0; i < table.columns.size(); i++)
+      sql.append(i == 0 ? "" : ", ").append(table.columns.get(i).sql);
+    sql.append(" FROM ").append(table.sql).append(" WHERE ");
+    appendKey(table, sql, table.getKeyValues(entityKey));
+
+    Connection connection = getConnection();
+    PreparedStatement statement = null;
+    ResultSet rs = null;
+    try {
+      statement = sql.prepare(connection);
+      rs = statement.executeQuery();
+      if (!rs.next())
+        throw new NotFoundException("No entity found in entityset " + entitySetName
+            + " for key " + entityKey.toKeyStringWithoutParentheses()
+            + " and query info " + queryInfo);
+      return Responses.entity(new EntityReader(metadata.getEdmEntitySet(entitySetName), table, columns, table.columns).read(rs));
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      close(connection, statement, rs);
+    }
+  }
+
+  private static long count(Connection connection, JdbcTable table, BoolCommonExpression filter) throws SQLException {
+    SqlStatement sql = new SqlStatement().append("SELECT COUNT(*) FROM ").append(table.sql);
+    appendWhere(table, sql, filter);
+    PreparedStatement statement = sql.prepare(connection);
+    try {
+      ResultSet rs = statement.executeQuery();
+      rs.next();
+      return rs.getLong(1);
+    } finally {
+      statement.close();
+    }
+  }
+
+  private static boolean appendWhere(JdbcTable table, SqlStatement sql, BoolCommonExpression filter) {
+    if (filter == null)
+      return false;
+    sql.append(" WHERE ");
+    SqlExpressionVisitor.append(table, sql, filter);
+    return true;
+  }
+
+  private static void appendOrderBy(JdbcTable table, SqlStatement sql, List<OrderByExpression> orderBy) {
+    sql.append(" ORDER BY ");
+    for (OrderByExpression expression : orderBy) {
+      SqlExpressionVisitor.append(table, sql, expression.getExpression());
+      sql.append(expression.getDirection() == Direction.ASCENDING ? " ASC, " : " DESC, ");
+    }
+    // the key makes the order total, so that pages can be continued
+    for (int i = 0; i < table.keys.size(); i++)
+      sql.append(i == 0 ? "" : ", ").append(table.keys.get(i).sql).append(" ASC");
+  }
+
+  private static void appendKey(JdbcTable table, SqlStatement sql, Object[] keyValues) {
+    for (int i = 0; i < keyValues.length; i++)
+      sql.append(i == 0 ? "" : " AND ").append(table.keys.get(i).sql).append(" = ").appendParameter(keyValues[i]);
+  }
+
+  /**
+   * Appends the condition of the rows after the position of a skip token: the rows whose values of the orderings
+   * are the same as those of the position up to one, which is after that of the position.
+   */
+  private void appendSeek(JdbcTable table, SqlStatement sql, List<OrderByExpression> orderBy, SkipToken skipToken) {
+    List<Object> values = skipToken.getOrderByValues();
+    Object[] keyValues = table.getKeyValues(skipToken.getEntityKey());
+
+    int count = orderBy.size() + keyValues.length;
+    sql.append("(");
+    for (int i = 0; i < count; i++) {
+      sql.append(i == 0 ? "(" : " OR (");
+      for (int j = 0; j <= i; j++) {
+        if (j > 0)
+          sql.append(" AND ");
+        Object value = j < orderBy.size() ? values.get(j) : keyValues[j - orderBy.size()];
+        if (j < i) {
+          appendOperand(table, sql, orderBy, j);
+          if (value == null)
+            sql.append(" IS NULL");
+          else
+            sql.append(" = ").appendParameter(value);
+        } else {
+          boolean ascending = j >= orderBy.size() || orderBy.get(j).getDirection() == Direction.ASCENDING;
+          boolean nullsFirst = ascending ? nullsFirstAscending : nullsFirstDescending;
+          if (value == null && nullsFirst) {
+            appendOperand(table, sql, orderBy, j);
+            sql.append(" IS NOT NULL");
+          } else if (value == null) {
+            // nothing is after the nulls
+            sql.append("1 = 0");
+          } else {
+            sql.append("(");
+            appendOperand(table, sql, orderBy, j);
+            sql.append(ascending ? " > " : " < ").appendParameter(value);
+            if (!nullsFirst) {
+              sql.append(" OR ");
+              appendOperand(table, sql, orderBy, j);
+              sql.append(" IS NULL");
+            }
+            sql.append(")");
+          }
+        }
+      }
+      sql.append(")");
+    }
+    sql.append(")");
+  }
+
+  /** Appends the expression of an ordering, or a key column after those of the orderings. */
+  private static void appendOperand(JdbcTable table, SqlStatement sql, List<OrderByExpression> orderBy, int index) {
+    if (index < orderBy.size())
+      SqlExpressionVisitor.append(table, sql, orderBy.get(index).getExpression());
+    else
+      sql.append(table.keys.get(index - orderBy.size()).sql);
+  }
+
+  /** Reads entities from the rows of a result set. */
+  private static class EntityReader {
+
+    private final EdmEntitySet entitySet;
+    private final JdbcTable table;
+    private final List<Column> columns;
+    private final int[] indexes;
+    private final int[] keyIndexes;
+    // the values of compact entities, if all of the columns are selected
+    private final OPropertyValues values;
+    private final int[] slots;
+
+    EntityReader(EdmEntitySet entitySet, JdbcTable table, List<Column> columns, List<Column> selected) {
+      this.entitySet = entitySet;
+      this.table = table;
+      this.columns = columns;
+      this.indexes = new int[columns.size()];
+      for (int i = 0; i < indexes.length; i++)
+        indexes[i] = selected.indexOf(columns.get(i)) + 1;
+      this.keyIndexes = new int[table.keys.size()];
+      for (int i = 0; i < keyIndexes.length; i++)
+        keyIndexes[i] = selected.indexOf(table.keys.get(i)) + 1;
+      if (columns.size() == table.columns.size()) {
+        EdmPropertyLayout layout = entitySet.getType().getPropertyLayout();
+        values = new OPropertyValues(layout);
+        slots = new int[indexes.length];
+        for (int i = 0; i < slots.length; i++)
+          slots[i] = layout.slotOf(columns.get(i).name);
+      } else {
+        values = null;
+        slots = null;
+      }
+    }
+
+    OEntity read(ResultSet rs) throws SQLException {
+      OEntityKey key;
+      if (keyIndexes.length == 1) {
+        key = OEntityKey.create(JdbcTypes.getValue(rs, keyIndexes[0], table.keys.get(0).type));
+      } else {
+        Object[] namesAndValues = new Object[keyIndexes.length * 2];
+        for (int i = 0; i < keyIndexes.length; i++) {
+          Column column = table.keys.get(i);
+          namesAndValues[i * 2] = column.name;
+          namesAndValues[i * 2 + 1] = OProperties.simple(column.name, column.type, JdbcTypes.getValue(rs, keyIndexes[i], column.type)).getValue();
+        }
+        key = OEntityKey.create(namesAndValues);
+      }
+
+      if (values != null) {
+        values.clear();
+        for (int i = 0; i < indexes.length; i++)
+          values.set(slots[i], JdbcTypes.getValue(rs, indexes[i], columns.get(i).type));
+        return OEntities.createCompact(entitySet, key, values, Collections.<OLink> emptyList());
+      }
+      List<OProperty<?>> properties = new ArrayList<OProperty<?>>(indexes.length);
+      for (int i = 0; i < indexes.length; i++) {
+        Column column = columns.get(i);
+        properties.add(OProperties.simple(column.name, column.type, JdbcTypes.getValue(rs, indexes[i], column.type)));
+      }
+      return OEntities.create(entitySet, key, properties, Collections.<OLink> emptyList());
+    }
+  }
+
+  /**
+   * The entities of a page, read from the rows of a result set as they are iterated. The row after the last one of
+   * the page, if any, is read to know whether there is a next page. The result set and its connection are closed
+   * once the rows have been read or the response is closed.
+   */
+  private static class JdbcEntitiesResponse implements StreamingEntitiesResponse {
+
+    private final EdmEntitySet entitySet;
+    private final EntityReader reader;
+    private final List<OrderByExpression> orderBy;
+    // the columns of the values of the orderings, after those of the entities
+    private final int orderByIndex;
+    private final EdmSimpleType<?>[] orderByTypes;
+    private final Integer inlineCount;
+    private final int limit;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet rs;
+    private boolean iterated;
+    private List<OEntity> materialized;
+    private String skipToken;
+
+    JdbcEntitiesResponse(EdmEntitySet entitySet, JdbcTable table, List<Column> columns, List<Column> selected, List<OrderByExpression> orderBy,
+        boolean paged, Integer inlineCount, int limit, Connection connection, PreparedStatement statement, ResultSet rs) throws SQLException {
+      this.entitySet = entitySet;
+      this.reader = new EntityReader(entitySet, table, columns, selected);
+      this.orderBy = orderBy;
+      this.orderByIndex = selected.size() + 1;
+      this.orderByTypes = new EdmSimpleType<?>[orderBy.size()];
+      ResultSetMetaData rsMetadata = rs.getMetaData();
+      for (int i = 0; i < orderByTypes.length; i++) {
+        orderByTypes[i] = JdbcTypes.toEdmType(rsMetadata.getColumnType(orderByIndex + i));
+        // the skip token of the next page holds the values of the orderings, and is only created once the
+        // entities of the page have been sent
+        if (orderByTypes[i] == null && paged)
+          throw new BadRequestException("Cannot page through entities ordered by values of SQL type "
+              + rsMetadata.getColumnTypeName(orderByIndex + i) + ": " + Expression.asPrintString(orderBy.get(i).getExpression()));
+      }
+      this.inlineCount = inlineCount;
+      this.limit = limit;
+      this.connection = connection;
+      this.statement = statement;
+      this.rs = rs;
+    }
+
+    @Override
+    public synchronized Iterator<OEntity> getEntityIterator() {
+      if (materialized != null)
+        return materialized.iterator();
+      if (iterated)
+        throw new IllegalStateException("The entities of a streaming response can only be iterated once");
+      iterated = true;
+      return new Iterator<OEntity>() {
+
+        private int count;
+        private OEntity last;
+        private OEntity next;
+        private List<Object> lastValues;
+        private List<Object> nextValues;
+
+        @Override
+        public boolean hasNext() {
+          if (next == null && rs != null) {
+            try {
+              if (!rs.next()) {
+                close();
+              } else if (count == limit) {
+                // a next page
+                skipToken = last == null ? null : SkipToken.create(orderBy, lastValues, last.getEntityKey()).encode();
+                close();
+              } else {
+                next = reader.read(rs);
+                nextValues = new ArrayList<Object>(orderByTypes.length);
+                for (int i = 0; i < orderByTypes.length; i++)
+                  nextValues.add(JdbcTypes.getValue(rs, orderByIndex + i, orderByTypes[i]));
+                count++;
+              }
+            } catch (Exception e) {
+              close();
+              throw Throwables.propagate(e);
+            }
+          }
+          return next != null;
+        }
+
+        @Override
+        public OEntity next() {
+          if (!hasNext())
+            throw new NoSuchElementException();
+          last = next;
+          lastValues = nextValues;
+          next = null;
+          return last;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public synchronized List<OEntity> getEntities() {
+      if (materialized == null) {
+        List<OEntity> list = new ArrayList<OEntity>();
+        for (Iterator<OEntity> it = getEntityIterator(); it.hasNext();)
+          list.add(it.next());
+        materialized = list;
+      }
+      return materialized;
+    }
+
+    @Override
+    public EdmEntitySet getEntitySet() {
+      return entitySet;
+    }
+
+    @Override
+    public Integer getInlineCount() {
+      return inlineCount;
+    }
+
+    /** Gets the skip token, known once the entities have been iterated; they are read if they have not been. */
+    @Override
+    public synchronized String getSkipToken() {
+      if (!iterated)
+        getEntities();
+      return skipToken;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (connection != null) {
+        Connection connection = this.connection;
+        this.connection = null;
+        close(connection, statement, rs);
+        statement = null;
+        rs = null;
+      }
+    }
+
+    private static void close(Connection connection, PreparedStatement statement, ResultSet rs) {
+      JdbcProducer.close(connection, statement, rs);
+    }
+  }
+
+  @Override
+  public BaseResponse getNavProperty(ODataContext context, String entitySetName, OEntityKey entityKey, String navProp, QueryInfo queryInfo) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public CountResponse getNavPropertyCount(ODataContext context, String entitySetName, OEntityKey entityKey, String navProp, QueryInfo queryInfo) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public EntityResponse createEntity(ODataContext context, String entitySetName, OEntity entity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public EntityResponse createEntity(ODataContext context, String entitySetName, OEntityKey entityKey, String navProp, OEntity entity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void deleteEntity(ODataContext context, String entitySetName, OEntityKey entityKey) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void mergeEntity(ODataContext context, String entitySetName, OEntity entity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void updateEntity(ODataContext context, String entitySetName, OEntity entity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public EntityIdResponse getLinks(ODataContext context, OEntityId sourceEntity, String targetNavProp) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void createLink(ODataContext context, OEntityId sourceEntity, String targetNavProp, OEntityId targetEntity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void updateLink(ODataContext context, OEntityId sourceEntity, String targetNavProp, OEntityKey oldTargetEntityKey, OEntityId newTargetEntity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void deleteLink(ODataContext context, OEntityId sourceEntity, String targetNavProp, OEntityKey targetEntityKey) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public BaseResponse callFunction(ODataContext context, EdmFunctionImport name, Map<String, OFunctionParameter> params, QueryInfo queryInfo) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void beginChangeSetBoundary() {}
+
+  @Override
+  public void commitChangeSetBoundary() {}
+
+  @Override
+  public void rollbackChangeSetBoundary() {}
+
+  @Override
+  public EntityResponse createResponseForBatchPostOperation(String entitySetName, OEntity entity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public InputStream getInputStreamForMediaLink(String entitySetName, OEntityKey entityKey, EntityQueryInfo queryInfo) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void updateEntityWithStream(String entitySetName, OEntity entity) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public ContextStream getInputStreamForNamedStream(String entitySetName, OEntityKey entityKey, String columnName, QueryInfo queryInfo) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void updateEntityWithNamedStream(String entitySetName, OEntityKey entityKey, String columnName, ContextStream streamContext) {
+    throw new NotImplementedException();
+  }
+
+}
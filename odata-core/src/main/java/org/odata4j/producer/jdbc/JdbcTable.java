@@ -0,0 +1,182 @@
+package org.odata4j.producer.jdbc;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OEntityKey.KeyType;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.exceptions.BadRequestException;
+import org.odata4j.expression.EntitySimpleProperty;
+
+/**
+ * A table exposed as an entity-set: its columns are the properties of the entity type, its primary key the key.
+ */
+final class JdbcTable {
+
+  /** A column of a table. */
+  static final class Column {
+
+    final String name;
+    final String sql;
+    final EdmSimpleType<?> type;
+    final boolean nullable;
+
+    Column(String name, String sql, EdmSimpleType<?> type, boolean nullable) {
+      this.name = name;
+      this.sql = sql;
+      this.type = type;
+      this.nullable = nullable;
+    }
+  }
+
+  final String entitySetName;
+  final String sql;
+  final List<Column> columns;
+  final List<Column> keys;
+  private final Map<String, Column> columnsByName = new LinkedHashMap<String, Column>();
+
+  private JdbcTable(String entitySetName, String sql, List<Column> columns, List<Column> keys) {
+    this.entitySetName = entitySetName;
+    this.sql = sql;
+    this.columns = Collections.unmodifiableList(columns);
+    this.keys = Collections.unmodifiableList(keys);
+    for (Column column : columns)
+      columnsByName.put(column.name, column);
+  }
+
+  /**
+   * Reads the columns and the primary key of a table.
+   *
+   * @param metadata  the database metadata
+   * @param entitySetName  the name of the entity-set of the table
+   * @param schemaName  the schema of the table, may be null
+   * @param tableName  the name of the table, as stored in the database
+   * @return the table
+   * @throws IllegalArgumentException if the table does not exist or has no primary key
+   */
+  static JdbcTable read(DatabaseMetaData metadata, String entitySetName, String schemaName, String tableName) throws SQLException {
+    String quote = metadata.getIdentifierQuoteString();
+    if (quote == null || quote.trim().isEmpty())
+      quote = "";
+
+    List<Column> columns = new ArrayList<Column>();
+    ResultSet rs = metadata.getColumns(null, schemaName, tableName, null);
+    try {
+      while (rs.next()) {
+        EdmSimpleType<?> type = JdbcTypes.toEdmType(rs.getInt("DATA_TYPE"));
+        // columns of other types (arrays, structured types, ...) are not exposed
+        if (type != null) {
+          String name = rs.getString("COLUMN_NAME");
+          columns.add(new Column(name, quote(quote, name), type, rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+        }
+      }
+    } finally {
+      rs.close();
+    }
+    if (columns.isEmpty())
+      throw new IllegalArgumentException("Table " + tableName + " not found");
+
+    // the primary key columns, in the order of the key
+    Map<Integer, String> keyNames = new TreeMap<Integer, String>();
+    rs = metadata.getPrimaryKeys(null, schemaName, tableName);
+    try {
+      while (rs.next())
+        keyNames.put(rs.getInt("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+    } finally {
+      rs.close();
+    }
+    List<Column> keys = new ArrayList<Column>();
+    for (String keyName : keyNames.values()) {
+      for (Column column : columns) {
+        if (column.name.equals(keyName))
+          keys.add(column);
+      }
+    }
+    if (keys.isEmpty() || keys.size() != keyNames.size())
+      throw new IllegalArgumentException("Table " + tableName + " has no primary key of supported columns");
+
+    String sql = schemaName == null ? quote(quote, tableName) : quote(quote, schemaName) + "." + quote(quote, tableName);
+    return new JdbcTable(entitySetName, sql, columns, keys);
+  }
+
+  private static String quote(String quote, String identifier) {
+    return quote + (quote.isEmpty() ? identifier : identifier.replace(quote, quote + quote)) + quote;
+  }
+
+  /**
+   * Builds the entity type of the table.
+   *
+   * @param namespace  the namespace of the type
+   * @return a builder of the type
+   */
+  EdmEntityType.Builder toEntityType(String namespace) {
+    List<EdmProperty.Builder> properties = new ArrayList<EdmProperty.Builder>();
+    for (Column column : columns)
+      properties.add(EdmProperty.newBuilder(column.name).setType(column.type).setNullable(column.nullable));
+    List<String> keyNames = new ArrayList<String>();
+    for (Column key : keys)
+      keyNames.add(key.name);
+    return EdmEntityType.newBuilder().setNamespace(namespace).setName(entitySetName).addKeys(keyNames).addProperties(properties);
+  }
+
+  /**
+   * Gets the column of a property.
+   *
+   * @throws BadRequestException if the table has no such column
+   */
+  Column getColumn(String name) {
+    Column rt = columnsByName.get(name);
+    if (rt == null)
+      throw new BadRequestException("Property " + name + " not found in " + entitySetName);
+    return rt;
+  }
+
+  /**
+   * Gets the columns of a $select, all columns if there is none.
+   */
+  List<Column> select(List<EntitySimpleProperty> select) {
+    if (select == null || select.isEmpty())
+      return columns;
+    List<Column> rt = new ArrayList<Column>();
+    for (EntitySimpleProperty property : select) {
+      if ("*".equals(property.getPropertyName()))
+        return columns;
+      Column column = getColumn(property.getPropertyName());
+      if (!rt.contains(column))
+        rt.add(column);
+    }
+    return rt;
+  }
+
+  /**
+   * Gets the values of the key columns of an entity-key.
+   *
+   * @throws BadRequestException if the entity-key does not fit the primary key of the table
+   */
+  Object[] getKeyValues(OEntityKey key) {
+    Object[] rt = new Object[keys.size()];
+    if (key.getKeyType() == KeyType.SINGLE && keys.size() == 1) {
+      rt[0] = key.asSingleValue();
+      return rt;
+    }
+    if (key.getKeyType() != KeyType.COMPLEX || key.asComplexValue().size() != keys.size())
+      throw new BadRequestException("Key " + key + " does not match the key of " + entitySetName);
+    for (int i = 0; i < rt.length; i++) {
+      rt[i] = key.getComplexKeyValue(keys.get(i).name);
+      if (rt[i] == null)
+        throw new BadRequestException("Key " + key + " does not match the key of " + entitySetName);
+    }
+    return rt;
+  }
+
+}
@@ -0,0 +1,136 @@
+package org.odata4j.producer.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
+import org.odata4j.core.Guid;
+import org.odata4j.core.NamedValue;
+import org.odata4j.core.UnsignedByte;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.internal.TypeConverter;
+
+/**
+ * Maps between the types of JDBC and the edm simple types.
+ */
+final class JdbcTypes {
+
+  private JdbcTypes() {}
+
+  /**
+   * Gets the edm type of a column.
+   *
+   * @param sqlType  the type of the column, one of {@link Types}
+   * @return the edm type, or null if columns of the type are not supported
+   */
+  static EdmSimpleType<?> toEdmType(int sqlType) {
+    switch (sqlType) {
+    case Types.CHAR:
+    case Types.VARCHAR:
+    case Types.LONGVARCHAR:
+    case Types.NCHAR:
+    case Types.NVARCHAR:
+    case Types.LONGNVARCHAR:
+    case Types.CLOB:
+      return EdmSimpleType.STRING;
+    case Types.BIT:
+    case Types.BOOLEAN:
+      return EdmSimpleType.BOOLEAN;
+    case Types.TINYINT:
+      return EdmSimpleType.SBYTE;
+    case Types.SMALLINT:
+      return EdmSimpleType.INT16;
+    case Types.INTEGER:
+      return EdmSimpleType.INT32;
+    case Types.BIGINT:
+      return EdmSimpleType.INT64;
+    case Types.REAL:
+      return EdmSimpleType.SINGLE;
+    case Types.FLOAT:
+    case Types.DOUBLE:
+      return EdmSimpleType.DOUBLE;
+    case Types.NUMERIC:
+    case Types.DECIMAL:
+      return EdmSimpleType.DECIMAL;
+    case Types.DATE:
+    case Types.TIMESTAMP:
+      return EdmSimpleType.DATETIME;
+    case Types.TIME:
+      return EdmSimpleType.TIME;
+    case Types.BINARY:
+    case Types.VARBINARY:
+    case Types.LONGVARBINARY:
+    case Types.BLOB:
+      return EdmSimpleType.BINARY;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Reads a column of the current row of a result set.
+   *
+   * @param rs  the result set
+   * @param index  the index of the column
+   * @param type  the edm type of the column
+   * @return the value, as a value of the java type of the edm type or a type it is created from, or null
+   */
+  static Object getValue(ResultSet rs, int index, EdmSimpleType<?> type) throws SQLException {
+    Object rt;
+    if (type == EdmSimpleType.STRING)
+      rt = rs.getString(index);
+    else if (type == EdmSimpleType.BOOLEAN)
+      rt = rs.getBoolean(index);
+    else if (type == EdmSimpleType.SBYTE)
+      rt = rs.getByte(index);
+    else if (type == EdmSimpleType.INT16)
+      rt = rs.getShort(index);
+    else if (type == EdmSimpleType.INT32)
+      rt = rs.getInt(index);
+    else if (type == EdmSimpleType.INT64)
+      rt = rs.getLong(index);
+    else if (type == EdmSimpleType.SINGLE)
+      rt = rs.getFloat(index);
+    else if (type == EdmSimpleType.DOUBLE)
+      rt = rs.getDouble(index);
+    else if (type == EdmSimpleType.DECIMAL)
+      rt = rs.getBigDecimal(index);
+    else if (type == EdmSimpleType.DATETIME)
+      rt = rs.getTimestamp(index);
+    else if (type == EdmSimpleType.TIME)
+      rt = rs.getTime(index);
+    else if (type == EdmSimpleType.BINARY)
+      rt = rs.getBytes(index);
+    else
+      rt = rs.getObject(index);
+    return rs.wasNull() ? null : rt;
+  }
+
+  /**
+   * Converts the value of a literal or an entity-key to a value that can be bound to a statement.
+   *
+   * @param value  the value
+   * @return the value for the statement
+   */
+  static Object toJdbc(Object value) {
+    if (value instanceof NamedValue)
+      value = ((NamedValue<?>) value).getValue();
+    if (value instanceof LocalDateTime)
+      return TypeConverter.convert(value, Timestamp.class);
+    if (value instanceof DateTime)
+      return new Timestamp(((DateTime) value).getMillis());
+    if (value instanceof LocalTime)
+      return TypeConverter.convert(value, Time.class);
+    if (value instanceof UnsignedByte)
+      return ((UnsignedByte) value).shortValue();
+    if (value instanceof Guid)
+      return value.toString();
+    return value;
+  }
+
+}
@@ -0,0 +1,481 @@
+package org.odata4j.producer.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.odata4j.exceptions.NotImplementedException;
+import org.odata4j.expression.AddExpression;
+import org.odata4j.expression.AggregateAllFunction;
+import org.odata4j.expression.AggregateAnyFunction;
+import org.odata4j.expression.AndExpression;
+import org.odata4j.expression.BinaryCommonExpression;
+import org.odata4j.expression.BinaryLiteral;
+import org.odata4j.expression.BoolMethodExpression;
+import org.odata4j.expression.BoolParenExpression;
+import org.odata4j.expression.BooleanLiteral;
+import org.odata4j.expression.ByteLiteral;
+import org.odata4j.expression.CastExpression;
+import org.odata4j.expression.CeilingMethodCallExpression;
+import org.odata4j.expression.CommonExpression;
+import org.odata4j.expression.ConcatMethodCallExpression;
+import org.odata4j.expression.DateTimeLiteral;
+import org.odata4j.expression.DateTimeOffsetLiteral;
+import org.odata4j.expression.DayMethodCallExpression;
+import org.odata4j.expression.DecimalLiteral;
+import org.odata4j.expression.DivExpression;
+import org.odata4j.expression.DoubleLiteral;
+import org.odata4j.expression.EndsWithMethodCallExpression;
+import org.odata4j.expression.EntitySimpleProperty;
+import org.odata4j.expression.EqExpression;
+import org.odata4j.expression.Expression.DefaultHierarchyVisitor;
+import org.odata4j.expression.FloorMethodCallExpression;
+import org.odata4j.expression.GeExpression;
+import org.odata4j.expression.GtExpression;
+import org.odata4j.expression.GuidLiteral;
+import org.odata4j.expression.HourMethodCallExpression;
+import org.odata4j.expression.IndexOfMethodCallExpression;
+import org.odata4j.expression.Int64Literal;
+import org.odata4j.expression.IntegralLiteral;
+import org.odata4j.expression.IsofExpression;
+import org.odata4j.expression.LeExpression;
+import org.odata4j.expression.LengthMethodCallExpression;
+import org.odata4j.expression.LtExpression;
+import org.odata4j.expression.MinuteMethodCallExpression;
+import org.odata4j.expression.ModExpression;
+import org.odata4j.expression.MonthMethodCallExpression;
+import org.odata4j.expression.MulExpression;
+import org.odata4j.expression.NeExpression;
+import org.odata4j.expression.NegateExpression;
+import org.odata4j.expression.NotExpression;
+import org.odata4j.expression.NullLiteral;
+import org.odata4j.expression.OrExpression;
+import org.odata4j.expression.OrderByExpression;
+import org.odata4j.expression.OrderByExpression.Direction;
+import org.odata4j.expression.ParenExpression;
+import org.odata4j.expression.ReplaceMethodCallExpression;
+import org.odata4j.expression.RoundMethodCallExpression;
+import org.odata4j.expression.SByteLiteral;
+import org.odata4j.expression.SecondMethodCallExpression;
+import org.odata4j.expression.SingleLiteral;
+import org.odata4j.expression.StartsWithMethodCallExpression;
+import org.odata4j.expression.StringLiteral;
+import org.odata4j.expression.SubExpression;
+import org.odata4j.expression.SubstringMethodCallExpression;
+import org.odata4j.expression.SubstringOfMethodCallExpression;
+import org.odata4j.expression.TimeLiteral;
+import org.odata4j.expression.ToLowerMethodCallExpression;
+import org.odata4j.expression.ToUpperMethodCallExpression;
+import org.odata4j.expression.TrimMethodCallExpression;
+import org.odata4j.expression.YearMethodCallExpression;
+
+/**
+ * Translates $filter and $orderby expressions into SQL, with the values of literals as parameters.
+ *
+ * <p>Each operator pushes the text that opens, separates and closes its operands, which is written as the
+ * hierarchy is descended. Comparisons follow the null semantics of SQL, except that comparing to the null literal
+ * becomes <code>IS NULL</code> or <code>IS NOT NULL</code>. Type checks, casts, any/all and navigation are not
+ * supported.
+ */
+class SqlExpressionVisitor extends DefaultHierarchyVisitor {
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  private final JdbcTable table;
+  private final SqlStatement sql;
+  // the open, separator and close text of the operators being descended
+  private final Deque<String[]> operators = new ArrayDeque<String[]>();
+
+  SqlExpressionVisitor(JdbcTable table, SqlStatement sql) {
+    this.table = table;
+    this.sql = sql;
+  }
+
+  /**
+   * Appends an expression to a statement.
+   *
+   * @param table  the table the properties of the expression are columns of
+   * @param sql  the statement
+   * @param expression  the expression
+   * @throws NotImplementedException if the expression cannot be translated
+   */
+  static void append(JdbcTable table, SqlStatement sql, CommonExpression expression) {
+    new SqlExpressionVisitor(table, sql).visitNode(expression);
+  }
+
+  private void push(String open, String separator, String close) {
+    operators.push(new String[] { open, separator, close });
+  }
+
+  private void function(String name) {
+    push(name + "(", ", ", ")");
+  }
+
+  @Override
+  public void beforeDescend() {
+    sql.append(operators.peek()[0]);
+  }
+
+  @Override
+  public void betweenDescend() {
+    sql.append(operators.peek()[1]);
+  }
+
+  @Override
+  public void afterDescend() {
+    sql.append(operators.pop()[2]);
+  }
+
+  // comparisons to null
+
+  @Override
+  public void visitNode(BinaryCommonExpression obj) {
+    CommonExpression operand = obj.getRHS() instanceof NullLiteral ? obj.getLHS()
+        : obj.getLHS() instanceof NullLiteral ? obj.getRHS()
+        : null;
+    if (operand != null && (obj instanceof EqExpression || obj instanceof NeExpression)) {
+      sql.append("(");
+      visitNode(operand);
+      sql.append(obj instanceof EqExpression ? " IS NULL)" : " IS NOT NULL)");
+    } else {
+      super.visitNode(obj);
+    }
+  }
+
+  // methods without a common SQL function
+
+  @Override
+  public void visitNode(StartsWithMethodCallExpression obj) {
+    like(obj, obj.getTarget(), "", "%");
+  }
+
+  @Override
+  public void visitNode(EndsWithMethodCallExpression obj) {
+    like(obj, obj.getTarget(), "%", "");
+  }
+
+  @Override
+  public void visitNode(SubstringOfMethodCallExpression obj) {
+    if (obj.getTarget() == null)
+      throw new NotImplementedException("substringof without a target is not supported");
+    like(obj, obj.getTarget(), "%", "%");
+  }
+
+  private void like(BoolMethodExpression obj, CommonExpression target, String prefix, String suffix) {
+    if (!(obj.getValue() instanceof StringLiteral))
+      throw new NotImplementedException("Only string literals can be searched for");
+    String value = ((StringLiteral) obj.getValue()).getValue();
+    StringBuilder pattern = new StringBuilder(prefix);
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE)
+        pattern.append(LIKE_ESCAPE);
+      pattern.append(c);
+    }
+    pattern.append(suffix);
+    sql.append("(");
+    visitNode(target);
+    sql.append(" LIKE ").appendParameter(pattern.toString()).append(" ESCAPE '" + LIKE_ESCAPE + "')");
+  }
+
+  @Override
+  public void visitNode(IndexOfMethodCallExpression obj) {
+    // zero-based
+    sql.append("(POSITION(");
+    visitNode(obj.getValue());
+    sql.append(" IN ");
+    visitNode(obj.getTarget());
+    sql.append(") - 1)");
+  }
+
+  @Override
+  public void visitNode(SubstringMethodCallExpression obj) {
+    // zero-based
+    sql.append("SUBSTRING(");
+    visitNode(obj.getTarget());
+    sql.append(" FROM (");
+    visitNode(obj.getStart());
+    sql.append(") + 1");
+    if (obj.getLength() != null) {
+      sql.append(" FOR ");
+      visitNode(obj.getLength());
+    }
+    sql.append(")");
+  }
+
+  // properties and literals
+
+  @Override
+  public void visit(EntitySimpleProperty expr) {
+    sql.append(table.getColumn(expr.getPropertyName()).sql);
+  }
+
+  @Override
+  public void visit(NullLiteral expr) {
+    sql.append("NULL");
+  }
+
+  @Override
+  public void visit(BooleanLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(StringLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(IntegralLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(Int64Literal expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(SingleLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(DoubleLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(DecimalLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(ByteLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(SByteLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(BinaryLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(GuidLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(DateTimeLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(DateTimeOffsetLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  @Override
+  public void visit(TimeLiteral expr) {
+    sql.appendParameter(expr.getValue());
+  }
+
+  // operators
+
+  @Override
+  public void visit(AndExpression expr) {
+    push("(", " AND ", ")");
+  }
+
+  @Override
+  public void visit(OrExpression expr) {
+    push("(", " OR ", ")");
+  }
+
+  @Override
+  public void visit(NotExpression expr) {
+    push("(NOT ", null, ")");
+  }
+
+  @Override
+  public void visit(EqExpression expr) {
+    push("(", " = ", ")");
+  }
+
+  @Override
+  public void visit(NeExpression expr) {
+    push("(", " <> ", ")");
+  }
+
+  @Override
+  public void visit(LtExpression expr) {
+    push("(", " < ", ")");
+  }
+
+  @Override
+  public void visit(LeExpression expr) {
+    push("(", " <= ", ")");
+  }
+
+  @Override
+  public void visit(GtExpression expr) {
+    push("(", " > ", ")");
+  }
+
+  @Override
+  public void visit(GeExpression expr) {
+    push("(", " >= ", ")");
+  }
+
+  @Override
+  public void visit(AddExpression expr) {
+    push("(", " + ", ")");
+  }
+
+  @Override
+  public void visit(SubExpression expr) {
+    push("(", " - ", ")");
+  }
+
+  @Override
+  public void visit(MulExpression expr) {
+    push("(", " * ", ")");
+  }
+
+  @Override
+  public void visit(DivExpression expr) {
+    push("(", " / ", ")");
+  }
+
+  @Override
+  public void visit(ModExpression expr) {
+    function("MOD");
+  }
+
+  @Override
+  public void visit(NegateExpression expr) {
+    push("(-", null, ")");
+  }
+
+  @Override
+  public void visit(ParenExpression expr) {
+    push("(", null, ")");
+  }
+
+  @Override
+  public void visit(BoolParenExpression expr) {
+    push("(", null, ")");
+  }
+
+  @Override
+  public void visit(ConcatMethodCallExpression expr) {
+    push("(", " || ", ")");
+  }
+
+  @Override
+  public void visit(ToLowerMethodCallExpression expr) {
+    function("LOWER");
+  }
+
+  @Override
+  public void visit(ToUpperMethodCallExpression expr) {
+    function("UPPER");
+  }
+
+  @Override
+  public void visit(TrimMethodCallExpression expr) {
+    function("TRIM");
+  }
+
+  @Override
+  public void visit(LengthMethodCallExpression expr) {
+    function("CHAR_LENGTH");
+  }
+
+  @Override
+  public void visit(ReplaceMethodCallExpression expr) {
+    function("REPLACE");
+  }
+
+  @Override
+  public void visit(YearMethodCallExpression expr) {
+    push("EXTRACT(YEAR FROM ", null, ")");
+  }
+
+  @Override
+  public void visit(MonthMethodCallExpression expr) {
+    push("EXTRACT(MONTH FROM ", null, ")");
+  }
+
+  @Override
+  public void visit(DayMethodCallExpression expr) {
+    push("EXTRACT(DAY FROM ", null, ")");
+  }
+
+  @Override
+  public void visit(HourMethodCallExpression expr) {
+    push("EXTRACT(HOUR FROM ", null, ")");
+  }
+
+  @Override
+  public void visit(MinuteMethodCallExpression expr) {
+    push("EXTRACT(MINUTE FROM ", null, ")");
+  }
+
+  @Override
+  public void visit(SecondMethodCallExpression expr) {
+    push("EXTRACT(SECOND FROM ", null, ")");
+  }
+
+  @Override
+  public void visit(RoundMethodCallExpression expr) {
+    push("ROUND(", null, ", 0)");
+  }
+
+  @Override
+  public void visit(FloorMethodCallExpression expr) {
+    function("FLOOR");
+  }
+
+  @Override
+  public void visit(CeilingMethodCallExpression expr) {
+    function("CEILING");
+  }
+
+  // not supported
+
+  @Override
+  public void visit(CastExpression expr) {
+    throw new NotImplementedException("cast is not supported");
+  }
+
+  @Override
+  public void visit(IsofExpression expr) {
+    throw new NotImplementedException("isof is not supported");
+  }
+
+  @Override
+  public void visit(AggregateAnyFunction expr) {
+    throw new NotImplementedException("any is not supported");
+  }
+
+  @Override
+  public void visit(AggregateAllFunction expr) {
+    throw new NotImplementedException("all is not supported");
+  }
+
+  @Override
+  public void visit(OrderByExpression expr) {
+    throw new IllegalArgumentException("Append the expression of the ordering");
+  }
+
+  @Override
+  public void visit(Direction direction) {
+    throw new IllegalArgumentException("Append the expression of the ordering");
+  }
+
+}
@@ -0,0 +1,51 @@
+package org.odata4j.producer.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The text of a SQL statement and the values of its parameters, in the order of their markers.
+ */
+final class SqlStatement {
+
+  private final StringBuilder sql = new StringBuilder();
+  private final List<Object> parameters = new ArrayList<Object>();
+
+  SqlStatement append(String text) {
+    sql.append(text);
+    return this;
+  }
+
+  /** Appends a parameter marker, bound to the value. */
+  SqlStatement appendParameter(Object value) {
+    sql.append('?');
+    parameters.add(JdbcTypes.toJdbc(value));
+    return this;
+  }
+
+  List<Object> getParameters() {
+    return Collections.unmodifiableList(parameters);
+  }
+
+  PreparedStatement prepare(Connection connection) throws SQLException {
+    PreparedStatement rt = connection.prepareStatement(sql.toString());
+    try {
+      for (int i = 0; i < parameters.size(); i++)
+        rt.setObject(i + 1, parameters.get(i));
+    } catch (SQLException e) {
+      rt.close();
+      throw e;
+    }
+    return rt;
+  }
+
+  @Override
+  public String toString() {
+    return sql.toString();
+  }
+
+}
@@ -6,6 +6,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
@@ -24,12 +26,16 @@ import org.odata4j.format.FormatParser;
 import org.odata4j.format.FormatParserFactory;
 import org.odata4j.format.Settings;
 import org.odata4j.internal.InternalUtil;
+import org.odata4j.producer.BaseResponse;
 import org.odata4j.producer.ODataContext;
 import org.odata4j.producer.ODataProducer;
 import org.odata4j.producer.OMediaLinkExtension;
+import org.odata4j.producer.StreamingEntitiesResponse;
 
 public abstract class BaseResource {
 
+  private static final Logger log = Logger.getLogger(BaseResource.class.getName());
+
   protected OEntity getRequestEntity(HttpHeaders httpHeaders, UriInfo uriInfo, String payload, EdmDataServices metadata, String entitySetName, OEntityKey entityKey) {
     // TODO validation of MaxDataServiceVersion against DataServiceVersion
     // see spec [ms-odata] section 1.7
@@ -102,4 +108,22 @@ public abstract class BaseResource {
     // more info about the mle may be available now.
     return mle;
   }
+
+  /**
+   * Closes the response if it is a {@link StreamingEntitiesResponse}, releasing whatever the producer holds
+   * open behind its iterator; other responses are left alone.
+   *
+   * <p>A failure to close is logged rather than thrown, so that it cannot hide the failure that led here.</p>
+   *
+   * @param response  the response returned by the producer, may be null
+   */
+  protected static void release(BaseResponse response) {
+    if (response instanceof StreamingEntitiesResponse) {
+      try {
+        ((StreamingEntitiesResponse) response).close();
+      } catch (IOException e) {
+        log.log(Level.WARNING, "Failed to close the streaming response", e);
+      }
+    }
+  }
 }
\ No newline at end of file
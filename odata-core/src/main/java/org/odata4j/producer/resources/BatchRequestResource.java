@@ -1,11 +1,21 @@
 package org.odata4j.producer.resources;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +24,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
@@ -21,6 +32,7 @@ import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ContextResolver;
 
@@ -37,8 +49,6 @@ import org.odata4j.internal.InternalUtil;
 import org.odata4j.producer.EntityResponse;
 import org.odata4j.producer.ODataProducer;
 
-import org.glassfish.jersey.message.internal.ReaderWriter;
-
 /**
  * Add request resource to handle batch operation.
  * 
@@ -67,29 +77,15 @@ public class BatchRequestResource extends BaseResource {
       BatchProcessThreadLocal.setBatchProcessFlag(true);
 
       String batchBoundary = "batchresponse_" + Guid.randomGuid().toString();
-      StringBuilder batchResponse = new StringBuilder();
-
-      for (ODataBatchUnit unit : batchUnits) {
-        Response response = null;
-        try {
-          response = unit.execute(headers, producerResolver, uriInfo.getBaseUri());
-          batchResponse.append("--").append(batchBoundary).append(createResponseBodyPart(unit, response));
-        } catch (Exception e) {
-          // if an excpetion occured while executing changeset/query, then just single response should be sent representing the failure.
-          logger.log(Level.SEVERE, e.getMessage());
-          batchResponse.append("\r\n--").append(batchBoundary).append(createErrorResponseBody(e.getMessage(), Status.INTERNAL_SERVER_ERROR));
-        }
-      }
+      List<Object> results = executeBatchUnits(batchUnits, headers, producerResolver, uriInfo.getBaseUri());
 
-      batchResponse.append("--").append(batchBoundary).append("--\r\n");
-      String strValue = batchResponse.toString();
       res = Response
           .status(Status.ACCEPTED)
           .type(ODataBatchProvider.MULTIPART_MIXED + ";boundary=" + batchBoundary)
           .header(
               ODataConstants.Headers.DATA_SERVICE_VERSION,
               ODataConstants.DATA_SERVICE_VERSION_HEADER)
-          .entity(strValue).build();
+          .entity(getBatchResponseOutput(batchBoundary, batchUnits, results)).build();
 
     } catch (Exception e) {
       logger.log(Level.SEVERE, e.getMessage());
@@ -100,6 +96,155 @@ public class BatchRequestResource extends BaseResource {
     return res;
   }
 
+  /**
+   * Executes the batch units and returns, for each of them in order, its {@link Response} or the {@link Exception}
+   * it failed with.<br><br>
+   *
+   * If {@link #getBatchExecutor()} returns an executor, consecutive query operations run concurrently on it. Change
+   * sets still run one at a time on the request thread, after the queries before them have completed and before the
+   * queries after them are started, so every operation sees the changes of the change sets before it.
+   */
+  protected List<Object> executeBatchUnits(List<ODataBatchUnit> batchUnits, final HttpHeaders headers,
+      final ContextResolver<ODataProducer> producerResolver, final URI baseUri) {
+    ExecutorService executor = getBatchExecutor();
+    List<Object> results = new ArrayList<Object>(batchUnits.size());
+    // index of the first result that may still be a pending query
+    int pending = 0;
+    for (final ODataBatchUnit unit : batchUnits) {
+      if (executor != null && unit instanceof ODataBatchGetUnit) {
+        results.add(executor.submit(new Callable<Response>() {
+          @Override
+          public Response call() throws Exception {
+            BatchProcessThreadLocal.setBatchProcessFlag(true);
+            try {
+              return unit.execute(headers, producerResolver, baseUri);
+            } finally {
+              BatchProcessThreadLocal.setBatchProcessFlag(null);
+            }
+          }
+        }));
+        continue;
+      }
+      awaitResults(results, pending);
+      pending = results.size() + 1;
+      try {
+        results.add(unit.execute(headers, producerResolver, baseUri));
+      } catch (Exception e) {
+        results.add(e);
+      }
+    }
+    awaitResults(results, pending);
+    return results;
+  }
+
+  private static void awaitResults(List<Object> results, int from) {
+    for (int i = from; i < results.size(); i++) {
+      if (!(results.get(i) instanceof Future))
+        continue;
+      Object result;
+      try {
+        result = ((Future<?>) results.get(i)).get();
+      } catch (ExecutionException e) {
+        result = e.getCause() instanceof Exception ? (Exception) e.getCause() : new RuntimeException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result = e;
+      }
+      results.set(i, result);
+    }
+  }
+
+  /**
+   * Gets the executor that runs the query operations of a batch concurrently. The default implementation returns a
+   * shared pool sized by the {@link ODataConstants#ODATA_BATCH_PARALLELISM} system property, or null to execute the
+   * operations one after another.
+   *
+   * @return the executor, or null
+   */
+  protected ExecutorService getBatchExecutor() {
+    return BatchExecutorHolder.EXECUTOR;
+  }
+
+  private static class BatchExecutorHolder {
+
+    static final ExecutorService EXECUTOR = createExecutor();
+
+    private static ExecutorService createExecutor() {
+      int parallelism = 0;
+      String value = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_BATCH_PARALLELISM);
+      if (value != null && !value.isEmpty()) {
+        try {
+          parallelism = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+          logger.log(Level.WARNING, "Ignoring invalid " + ODataConstants.ODATA_BATCH_PARALLELISM + ": " + value);
+        }
+      }
+      if (parallelism <= 1)
+        return null;
+      final AtomicInteger threads = new AtomicInteger();
+      return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "odata4j-batch-" + threads.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+  }
+
+  /**
+   * Creates the multipart body of the batch response. The parts are written to the output stream one at a time;
+   * responses held by a {@link BufferOrFileResponseHolder} are copied from their buffers or temp file without
+   * being decoded.
+   *
+   * @param batchBoundary the boundary of the batch response
+   * @param batchUnits the batch units
+   * @param results the response or exception of each batch unit
+   * @return the streaming output
+   */
+  protected static StreamingOutput getBatchResponseOutput(final String batchBoundary, final List<ODataBatchUnit> batchUnits, final List<Object> results) {
+    return new StreamingOutput() {
+      @Override
+      public void write(OutputStream output) throws IOException, WebApplicationException {
+        Charset charset = Charset.forName(ODataConstants.Charsets.Upper.UTF_8);
+        WritableByteChannel channel = Channels.newChannel(output);
+        try {
+          for (int i = 0; i < batchUnits.size(); i++) {
+            Object result = results.get(i);
+            if (result instanceof Response) {
+              Response response = (Response) result;
+              output.write(("--" + batchBoundary + createResponseBodyPartHeaders(batchUnits.get(i), response)).getBytes(charset));
+              if (response.getEntity() instanceof BufferOrFileResponseHolder) {
+                output.flush();
+                ((BufferOrFileResponseHolder) response.getEntity()).writeTo(channel);
+              } else if (response.getEntity() != null) {
+                output.write(response.getEntity().toString().getBytes(charset));
+              }
+              output.write("\r\n".getBytes(charset));
+            } else {
+              // if an excpetion occured while executing changeset/query, then just single response should be sent representing the failure.
+              String message = ((Exception) result).getMessage();
+              logger.log(Level.SEVERE, message);
+              output.write(("\r\n--" + batchBoundary + createErrorResponseBody(message, Status.INTERNAL_SERVER_ERROR)).getBytes(charset));
+            }
+            releaseResult(result);
+          }
+          output.write(("--" + batchBoundary + "--\r\n").getBytes(charset));
+          output.flush();
+        } finally {
+          for (Object result : results)
+            releaseResult(result);
+        }
+      }
+    };
+  }
+
+  private static void releaseResult(Object result) {
+    if (result instanceof Response && ((Response) result).getEntity() instanceof BufferOrFileResponseHolder)
+      ((BufferOrFileResponseHolder) ((Response) result).getEntity()).release();
+  }
+
   /**
    * get the entity, but the medial type will not be from httpHeaders which is the batch request content-type, instead it will
    * from each batch request header (the content-type for each part in the multi-parts body).
@@ -128,6 +273,18 @@ public class BatchRequestResource extends BaseResource {
   // included in batch response. 
 
   public static String createResponseBodyPart(ODataBatchUnit batchUnit, Response response) {
+    StringBuilder body = new StringBuilder(createResponseBodyPartHeaders(batchUnit, response));
+    if (response.getEntity() != null) {
+      //Handle writing the response under the BufferOrFileResponseHolder or String entity object
+      BatchRequestResource.appendResponseEntityToBuffer(body, response);
+    }
+
+    body.append("\r\n");
+    return body.toString();
+  }
+
+  // the part of the above up to and including the empty line before the entity
+  private static String createResponseBodyPartHeaders(ODataBatchUnit batchUnit, Response response) {
     final String CONTENT_ID = "Content-ID";
     StringBuilder body = new StringBuilder();
 
@@ -163,12 +320,6 @@ public class BatchRequestResource extends BaseResource {
       body.append("\r\n");
     }
 
-    body.append("\r\n");
-    if (response.getEntity() != null) {
-      //Handle writing the response under the BufferOrFileResponseHolder or String entity object
-      BatchRequestResource.appendResponseEntityToBuffer(body, response);
-    }
-
     body.append("\r\n");
     return body.toString();
   }
@@ -186,42 +337,15 @@ public class BatchRequestResource extends BaseResource {
     if (response.getEntity() instanceof BufferOrFileResponseHolder) {
       BufferOrFileResponseHolder responseHolder = (BufferOrFileResponseHolder) response.getEntity();
       /*
-       * If the response was stored as buffer, then we get the corresponding data and append it to the batch response body.
+       * The content is decoded from the buffers or from the temp file if the threshold was exceeded, and appended to the batch response body.
        */
-      if (responseHolder.isFileUsedForStorage()) {
-        FileReader fileReader = null;
-        try {
-
-          fileReader = new FileReader(responseHolder.getResponseFile());
-          //The data from the file is to be converted to a string to be written to the buffer
-          StringWriter stringWriter = new StringWriter();
-          //Copy the data into the writer
-          ReaderWriter.writeTo(fileReader, stringWriter);
-          //No need to flush the StringWriter; and we need to append the contents from the StringWriter
-          body.append(stringWriter.toString());
-
-        } catch (FileNotFoundException fileNotFoundExp) {
-          logger.log(Level.WARNING, fileNotFoundExp.getMessage());
-        } catch (IOException ioException) {
-          logger.log(Level.WARNING, ioException.getMessage());
-        } finally {
-          //Close the input stream to the file
-          if (fileReader != null) {
-            try {
-              fileReader.close();
-              fileReader = null;
-            } catch (IOException ioException) {
-              logger.log(Level.WARNING, ioException.getMessage());
-            }
-          }
-          // Delete the temp file that was created
-          if (responseHolder.getResponseFile() != null && responseHolder.getResponseFile().exists()) {
-            responseHolder.getResponseFile().delete();
-          }
-        }
-      } else {
-        //Write contents of buffer to the body
-        body.append(responseHolder.getBuffer().toString());
+      try {
+        body.append(responseHolder.getContentAsString());
+      } catch (IOException ioException) {
+        logger.log(Level.WARNING, ioException.getMessage());
+      } finally {
+        // Return the buffers to the pool and delete the temp file that was created
+        responseHolder.release();
       }
     } else {
       //If not, just call the toString() on entity object to push it's object representation
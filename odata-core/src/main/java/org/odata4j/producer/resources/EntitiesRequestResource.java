@@ -1,7 +1,12 @@
 package org.odata4j.producer.resources;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.util.List;
 import java.util.logging.Level;
@@ -10,12 +15,14 @@ import java.util.logging.Logger;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HEAD;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
@@ -23,6 +30,7 @@ import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ContextResolver;
 
@@ -36,6 +44,7 @@ import org.odata4j.exceptions.NotFoundException;
 import org.odata4j.exceptions.UnsupportedMediaTypeException;
 import org.odata4j.format.FormatWriter;
 import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.writer.BufferOrFileResponseHolder;
 import org.odata4j.format.writer.BufferOrFileResponseWriter;
 import org.odata4j.internal.InternalUtil;
 import org.odata4j.producer.CountResponse;
@@ -45,6 +54,9 @@ import org.odata4j.producer.ODataContext;
 import org.odata4j.producer.ODataContextImpl;
 import org.odata4j.producer.ODataProducer;
 import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.StreamingEntitiesResponse;
+
+import org.glassfish.jersey.message.internal.ReaderWriter;
 
 // ignoreParens below is there to trim the parentheses from the entity set name when they are present - e.g. '/my.svc/Users()'.
 @Path("{entitySetName: [^/()]+?}{ignoreParens: (?:\\(\\))?}")
@@ -53,7 +65,8 @@ public class EntitiesRequestResource extends BaseResource {
   private static final Logger log = Logger.getLogger(EntitiesRequestResource.class.getName());
 
   @POST
-  @Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8, ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8, ODataConstants.APPLICATION_JAVASCRIPT_CHARSET_UTF8 })
+  @Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8, ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8, ODataConstants.APPLICATION_JAVASCRIPT_CHARSET_UTF8,
+      ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1 })
   public Response createEntity(
       @Context HttpHeaders httpHeaders,
       @Context UriInfo uriInfo,
@@ -244,7 +257,8 @@ public class EntitiesRequestResource extends BaseResource {
   @GET
   @Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8,
       ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8,
-      ODataConstants.APPLICATION_JAVASCRIPT_CHARSET_UTF8 })
+      ODataConstants.APPLICATION_JAVASCRIPT_CHARSET_UTF8,
+      ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1 })
   public Response getEntities(
       @Context HttpHeaders httpHeaders,
       @Context UriInfo uriInfo,
@@ -269,6 +283,35 @@ public class EntitiesRequestResource extends BaseResource {
         filter, orderBy, format, callback, skipToken, expand, select);
   }
 
+  @HEAD
+  @Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8,
+      ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8,
+      ODataConstants.APPLICATION_JAVASCRIPT_CHARSET_UTF8,
+      ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1 })
+  public Response getEntitiesHead(
+      @Context HttpHeaders httpHeaders,
+      @Context UriInfo uriInfo,
+      @Context ContextResolver<ODataProducer> producerResolver,
+      @Context SecurityContext securityContext,
+      @PathParam("entitySetName") String entitySetName,
+      @QueryParam("$inlinecount") String inlineCount,
+      @QueryParam("$top") String top,
+      @QueryParam("$skip") String skip,
+      @QueryParam("$filter") String filter,
+      @QueryParam("$orderby") String orderBy,
+      @QueryParam("$format") String format,
+      @QueryParam("$callback") String callback,
+      @QueryParam("$skiptoken") String skipToken,
+      @QueryParam("$expand") String expand,
+      @QueryParam("$select") String select)
+      throws Exception {
+
+    // the container answers HEAD with the headers of the GET and drops the entity without writing it,
+    // which would leave the cursor of a streaming response open
+    return withoutEntity(getEntities(httpHeaders, uriInfo, producerResolver, securityContext, entitySetName, inlineCount, top, skip,
+        filter, orderBy, format, callback, skipToken, expand, select));
+  }
+
   @GET
   @Path("{count: [$]count}")
   @Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8,
@@ -396,12 +439,7 @@ public class EntitiesRequestResource extends BaseResource {
           .build();
     }
     else {
-      EntitiesResponse entitiesResponse = producer.getEntities(odataContext, entitySetName, query);
-
-      if (entitiesResponse == null) {
-        throw new NotFoundException(entitySetName);
-      }
-
+      // negotiate the format first, a streaming response holds its cursor open from here on
       FormatWriter<EntitiesResponse> fw =
           FormatWriterFactory.getFormatWriter(
               EntitiesResponse.class,
@@ -409,24 +447,115 @@ public class EntitiesRequestResource extends BaseResource {
               format,
               callback);
 
-      //Use the buffered response writer for setting the response using the charset based on the media type
-      BufferOrFileResponseWriter responseWriter = new BufferOrFileResponseWriter(fw.getContentType());
-
-      fw.write(uriInfo, responseWriter, entitiesResponse);
+      EntitiesResponse entitiesResponse = producer.getEntities(odataContext, entitySetName, query);
 
-      //Close the response writer and send the object to be written out
-      responseWriter.close();
+      if (entitiesResponse == null) {
+        throw new NotFoundException(entitySetName);
+      }
 
       ODataVersion version = ODataConstants.DATA_SERVICE_VERSION;
 
-      response = Response
-          .ok(responseWriter.getResponseHolder(), fw.getContentType())
-          .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
-          .build();
+      // Streaming responses are written straight to the servlet output stream, except inside a $batch
+      // where every part has to be rendered before the multipart body is assembled
+      if (entitiesResponse instanceof StreamingEntitiesResponse && !Boolean.TRUE.equals(BatchProcessThreadLocal.isBatchProcess())) {
+        try {
+          response = Response
+              .ok(getStreamingOutput(uriInfo, fw, (StreamingEntitiesResponse) entitiesResponse), fw.getContentType())
+              .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
+              .build();
+        } catch (RuntimeException e) {
+          // the streaming output will never be written
+          release(entitiesResponse);
+          throw e;
+        }
+      } else {
+        try {
+          //Use the buffered response writer for setting the response using the charset based on the media type
+          BufferOrFileResponseWriter responseWriter = new BufferOrFileResponseWriter(fw.getContentType());
+
+          try {
+            fw.write(uriInfo, responseWriter, entitiesResponse);
+
+            //Close the response writer and send the object to be written out
+            responseWriter.close();
+
+            response = Response
+                .ok(responseWriter.getResponseHolder(), fw.getContentType())
+                .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
+                .build();
+          } catch (Exception e) {
+            // Return the buffers to the pool, the holder will never be written
+            responseWriter.getResponseHolder().release();
+            throw e;
+          }
+        } finally {
+          release(entitiesResponse);
+        }
+      }
     }
     return response;
   }
 
+  /**
+   * Releases what a response built for a GET holds on to before its entity is written, for a request that
+   * will never have its entity written, such as a HEAD request.
+   *
+   * @param response  the response returned by {@link #getEntitiesImpl}
+   * @return the response without its entity
+   */
+  protected static Response withoutEntity(Response response) {
+    Object entity = response.getEntity();
+    if (entity instanceof FeedOutput) {
+      release(((FeedOutput) entity).entitiesResponse);
+    } else if (entity instanceof BufferOrFileResponseHolder) {
+      ((BufferOrFileResponseHolder) entity).release();
+    }
+    return Response.fromResponse(response).entity(null).build();
+  }
+
+  /**
+   * Creates a {@link StreamingOutput} that renders the feed while the producer yields its entities,
+   * so that only the entity currently being written is held in memory.
+   *
+   * <p>Since the status line and headers are committed before the first entity is written, a failure
+   * while iterating can only abort the response; it cannot be turned into an OData error payload.</p>
+   *
+   * @param uriInfo  the uri info of the request
+   * @param fw  the feed writer for the negotiated format
+   * @param entitiesResponse  the streaming response; closed once the feed has been written
+   * @return the streaming output
+   */
+  protected static StreamingOutput getStreamingOutput(UriInfo uriInfo, FormatWriter<EntitiesResponse> fw,
+      StreamingEntitiesResponse entitiesResponse) {
+    return new FeedOutput(uriInfo, fw, entitiesResponse);
+  }
+
+  private static class FeedOutput implements StreamingOutput {
+
+    private final UriInfo uriInfo;
+    private final FormatWriter<EntitiesResponse> fw;
+    private final StreamingEntitiesResponse entitiesResponse;
+
+    FeedOutput(UriInfo uriInfo, FormatWriter<EntitiesResponse> fw, StreamingEntitiesResponse entitiesResponse) {
+      this.uriInfo = uriInfo;
+      this.fw = fw;
+      this.entitiesResponse = entitiesResponse;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+      try {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output,
+            ReaderWriter.getCharset(MediaType.valueOf(fw.getContentType()))), ODataConstants.COPY_BUFFER_SIZE);
+        fw.write(uriInfo, writer, entitiesResponse);
+        // flush only, the container owns the output stream
+        writer.flush();
+      } finally {
+        entitiesResponse.close();
+      }
+    }
+  }
+
   @POST
   @Path("{batch: [$]batch}")
   @Consumes(ODataBatchProvider.MULTIPART_MIXED)
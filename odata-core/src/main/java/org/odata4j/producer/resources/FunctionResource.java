@@ -301,104 +301,109 @@ public class FunctionResource extends BaseResource {
       return Response.status(Status.NO_CONTENT).build();
     }
 
-    ODataVersion version = ODataConstants.DATA_SERVICE_VERSION;
-
-    StringWriter sw = new StringWriter();
-    FormatWriter<?> fwBase;
+    // the response is rendered into a string, so a streaming response is closed on every path
+    try {
+      ODataVersion version = ODataConstants.DATA_SERVICE_VERSION;
+
+      StringWriter sw = new StringWriter();
+      FormatWriter<?> fwBase;
+
+      // hmmh...we are missing an abstraction somewhere..
+      if (response instanceof ComplexObjectResponse) {
+        FormatWriter<ComplexObjectResponse> fw =
+            FormatWriterFactory.getFormatWriter(
+                ComplexObjectResponse.class,
+                httpHeaders.getAcceptableMediaTypes(),
+                format,
+                callback);
+
+        fw.write(uriInfo, sw, (ComplexObjectResponse) response);
+        fwBase = fw;
+      } else if (response instanceof CollectionResponse) {
+        CollectionResponse<?> collectionResponse = (CollectionResponse<?>) response;
 
-    // hmmh...we are missing an abstraction somewhere..
-    if (response instanceof ComplexObjectResponse) {
-      FormatWriter<ComplexObjectResponse> fw =
-          FormatWriterFactory.getFormatWriter(
-              ComplexObjectResponse.class,
+        if (collectionResponse.getCollection().getType() instanceof EdmEntityType) {
+          FormatWriter<EntitiesResponse> fw = FormatWriterFactory.getFormatWriter(
+              EntitiesResponse.class,
               httpHeaders.getAcceptableMediaTypes(),
               format,
               callback);
 
-      fw.write(uriInfo, sw, (ComplexObjectResponse) response);
-      fwBase = fw;
-    } else if (response instanceof CollectionResponse) {
-      CollectionResponse<?> collectionResponse = (CollectionResponse<?>) response;
-
-      if (collectionResponse.getCollection().getType() instanceof EdmEntityType) {
+          // collection of entities.
+          // Does anyone else see this in the v2 spec?  I sure don't.  This seems
+          // reasonable though given that inlinecount and skip tokens might be included...
+          ArrayList<OEntity> entities = new ArrayList<OEntity>(collectionResponse.getCollection().size());
+          Iterator iter = collectionResponse.getCollection().iterator();
+          while (iter.hasNext()) {
+            entities.add((OEntity) iter.next());
+          }
+          EntitiesResponse er = Responses.entities(entities,
+              collectionResponse.getEntitySet(),
+              collectionResponse.getInlineCount(),
+              collectionResponse.getSkipToken());
+          fw.write(uriInfo, sw, er);
+          fwBase = fw;
+        } else {
+          // non-entities
+          FormatWriter<CollectionResponse> fw = FormatWriterFactory.getFormatWriter(
+              CollectionResponse.class,
+              httpHeaders.getAcceptableMediaTypes(),
+              format,
+              callback);
+          fw.write(uriInfo, sw, collectionResponse);
+          fwBase = fw;
+        }
+      } else if (response instanceof EntitiesResponse) {
         FormatWriter<EntitiesResponse> fw = FormatWriterFactory.getFormatWriter(
             EntitiesResponse.class,
             httpHeaders.getAcceptableMediaTypes(),
             format,
             callback);
 
-        // collection of entities.
-        // Does anyone else see this in the v2 spec?  I sure don't.  This seems
-        // reasonable though given that inlinecount and skip tokens might be included...
-        ArrayList<OEntity> entities = new ArrayList<OEntity>(collectionResponse.getCollection().size());
-        Iterator iter = collectionResponse.getCollection().iterator();
-        while (iter.hasNext()) {
-          entities.add((OEntity) iter.next());
-        }
-        EntitiesResponse er = Responses.entities(entities,
-            collectionResponse.getEntitySet(),
-            collectionResponse.getInlineCount(),
-            collectionResponse.getSkipToken());
-        fw.write(uriInfo, sw, er);
+        fw.write(uriInfo, sw, (EntitiesResponse) response);
         fwBase = fw;
-      } else {
-        // non-entities
-        FormatWriter<CollectionResponse> fw = FormatWriterFactory.getFormatWriter(
-            CollectionResponse.class,
-            httpHeaders.getAcceptableMediaTypes(),
-            format,
-            callback);
-        fw.write(uriInfo, sw, collectionResponse);
+      } else if (response instanceof PropertyResponse) {
+        FormatWriter<PropertyResponse> fw =
+            FormatWriterFactory.getFormatWriter(
+                PropertyResponse.class,
+                httpHeaders.getAcceptableMediaTypes(),
+                format,
+                callback);
+
+        fw.write(uriInfo, sw, (PropertyResponse) response);
+        fwBase = fw;
+      } else if (response instanceof SimpleResponse) {
+        FormatWriter<SimpleResponse> fw =
+            FormatWriterFactory.getFormatWriter(
+                SimpleResponse.class,
+                httpHeaders.getAcceptableMediaTypes(),
+                format,
+                callback);
+
+        fw.write(uriInfo, sw, (SimpleResponse) response);
+        fwBase = fw;
+      } else if (response instanceof EntityResponse) {
+        FormatWriter<EntityResponse> fw =
+            FormatWriterFactory.getFormatWriter(
+                EntityResponse.class,
+                httpHeaders.getAcceptableMediaTypes(),
+                format,
+                callback);
+
+        fw.write(uriInfo, sw, (EntityResponse) response);
         fwBase = fw;
+      } else {
+        // TODO add in other response types.
+        throw new NotImplementedException("Unknown BaseResponse type: " + response.getClass().getName());
       }
-    } else if (response instanceof EntitiesResponse) {
-      FormatWriter<EntitiesResponse> fw = FormatWriterFactory.getFormatWriter(
-          EntitiesResponse.class,
-          httpHeaders.getAcceptableMediaTypes(),
-          format,
-          callback);
-
-      fw.write(uriInfo, sw, (EntitiesResponse) response);
-      fwBase = fw;
-    } else if (response instanceof PropertyResponse) {
-      FormatWriter<PropertyResponse> fw =
-          FormatWriterFactory.getFormatWriter(
-              PropertyResponse.class,
-              httpHeaders.getAcceptableMediaTypes(),
-              format,
-              callback);
-
-      fw.write(uriInfo, sw, (PropertyResponse) response);
-      fwBase = fw;
-    } else if (response instanceof SimpleResponse) {
-      FormatWriter<SimpleResponse> fw =
-          FormatWriterFactory.getFormatWriter(
-              SimpleResponse.class,
-              httpHeaders.getAcceptableMediaTypes(),
-              format,
-              callback);
 
-      fw.write(uriInfo, sw, (SimpleResponse) response);
-      fwBase = fw;
-    } else if (response instanceof EntityResponse) {
-      FormatWriter<EntityResponse> fw =
-          FormatWriterFactory.getFormatWriter(
-              EntityResponse.class,
-              httpHeaders.getAcceptableMediaTypes(),
-              format,
-              callback);
-
-      fw.write(uriInfo, sw, (EntityResponse) response);
-      fwBase = fw;
-    } else {
-      // TODO add in other response types.
-      throw new NotImplementedException("Unknown BaseResponse type: " + response.getClass().getName());
+      String entity = sw.toString();
+      return Response.ok(entity, fwBase.getContentType())
+          .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
+          .build();
+    } finally {
+      release(response);
     }
-
-    String entity = sw.toString();
-    return Response.ok(entity, fwBase.getContentType())
-        .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
-        .build();
   }
 
   /**
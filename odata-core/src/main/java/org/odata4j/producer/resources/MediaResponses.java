@@ -0,0 +1,268 @@
+package org.odata4j.producer.resources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.odata4j.core.Throwables;
+import org.odata4j.producer.ContextStream;
+
+/**
+ * Responses for media resources, named streams and stream properties.
+ *
+ * <p>Content of known length (a {@link SeekableByteChannel} or a {@link Blob}) is sent with
+ * <code>Accept-Ranges: bytes</code> and <code>Content-Length</code>, and a request for a single byte range
+ * is answered with <code>206 Partial Content</code> (or <code>416</code> if the range is not satisfiable).
+ * Ranges are ignored if the request has an <code>If-Range</code> header that does not match the entity-tag of
+ * the content. The content of a {@link FileChannel} is sent with <code>transferTo</code>.
+ */
+final class MediaResponses {
+
+  private static final String BYTES = "bytes";
+  private static final String CONTENT_DISPOSITION = "Content-Disposition";
+  private static final Pattern RANGE = Pattern.compile("\\s*bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*");
+
+  private MediaResponses() {}
+
+  /**
+   * Creates the response for a context stream; ranges are answered if the stream has a channel.
+   */
+  static Response create(HttpHeaders httpHeaders, ContextStream stream, String contentType, String contentDisposition) {
+    if (stream.getChannel() == null)
+      return Response.ok(ValueRequestResource.getOutputStreamFromInputStream(stream.getInputStream()), contentType)
+          .header(CONTENT_DISPOSITION, contentDisposition).build();
+    return create(httpHeaders, new ChannelContent(stream.getChannel()), stream.getEntityTag(), contentType, contentDisposition);
+  }
+
+  /**
+   * Creates the response for a blob.
+   */
+  static Response create(HttpHeaders httpHeaders, Blob blob, String contentType, String contentDisposition) {
+    return create(httpHeaders, new BlobContent(blob), null, contentType, contentDisposition);
+  }
+
+  private static Response create(HttpHeaders httpHeaders, Content content, String entityTag, String contentType, String contentDisposition) {
+    long size;
+    try {
+      size = content.size();
+    } catch (IOException e) {
+      content.close();
+      throw Throwables.propagate(e);
+    }
+
+    long[] range = null;
+    if (ifRangeMatches(httpHeaders.getRequestHeader("If-Range"), entityTag))
+      range = parseRange(httpHeaders.getRequestHeader("Range"), size);
+
+    ResponseBuilder rb;
+    if (range == null) {
+      rb = Response.ok(new ContentOutput(content, 0, size), contentType)
+          .header(HttpHeaders.CONTENT_LENGTH, size);
+    } else if (range.length == 0) {
+      content.close();
+      rb = Response.status(416).header("Content-Range", BYTES + " */" + size);
+    } else {
+      long length = range[1] - range[0] + 1;
+      rb = Response.status(206).entity(new ContentOutput(content, range[0], length)).type(contentType)
+          .header("Content-Range", BYTES + " " + range[0] + "-" + range[1] + "/" + size)
+          .header(HttpHeaders.CONTENT_LENGTH, length);
+    }
+    if (entityTag != null)
+      rb.tag(new EntityTag(entityTag));
+    return rb.header("Accept-Ranges", BYTES).header(CONTENT_DISPOSITION, contentDisposition).build();
+  }
+
+  /** A range request is only answered if it has no If-Range header, or one with the (strong) entity-tag. */
+  private static boolean ifRangeMatches(List<String> ifRange, String entityTag) {
+    if (ifRange == null || ifRange.isEmpty())
+      return true;
+    return entityTag != null && ifRange.get(0).trim().equals("\"" + entityTag + "\"");
+  }
+
+  /**
+   * Parses a Range header for the content of the given size.
+   *
+   * @return null for no (or an unsupported) range, an empty array for an unsatisfiable range, otherwise the
+   *         first and last byte position
+   */
+  private static long[] parseRange(List<String> headers, long size) {
+    if (headers == null || headers.size() != 1)
+      return null;
+    // multiple ranges are allowed to be answered with the whole content
+    Matcher m = RANGE.matcher(headers.get(0));
+    if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty()))
+      return null;
+    try {
+      if (m.group(1).isEmpty()) {
+        long suffix = Long.parseLong(m.group(2));
+        if (suffix == 0 || size == 0)
+          return new long[0];
+        return new long[] { Math.max(0, size - suffix), size - 1 };
+      }
+      long first = Long.parseLong(m.group(1));
+      long last = m.group(2).isEmpty() ? Long.MAX_VALUE : Long.parseLong(m.group(2));
+      if (last < first)
+        return null;
+      if (first >= size)
+        return new long[0];
+      return new long[] { first, Math.min(last, size - 1) };
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /** Content of known size that can be written from a position. */
+  private interface Content {
+
+    long size() throws IOException;
+
+    void write(OutputStream out, long position, long count) throws IOException;
+
+    void close();
+  }
+
+  private static class ChannelContent implements Content {
+
+    private final SeekableByteChannel channel;
+
+    ChannelContent(SeekableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public long size() throws IOException {
+      return channel.size();
+    }
+
+    @Override
+    public void write(OutputStream out, long position, long count) throws IOException {
+      WritableByteChannel target = Channels.newChannel(out);
+      if (channel instanceof FileChannel) {
+        FileChannel file = (FileChannel) channel;
+        while (count > 0) {
+          long n = file.transferTo(position, count, target);
+          if (n <= 0)
+            break;
+          position += n;
+          count -= n;
+        }
+        return;
+      }
+      channel.position(position);
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(ValueRequestResource.getStreamBufferSize(), Math.max(count, 1)));
+      while (count > 0) {
+        buffer.clear();
+        if (buffer.remaining() > count)
+          buffer.limit((int) count);
+        int n = channel.read(buffer);
+        if (n < 0)
+          break;
+        buffer.flip();
+        while (buffer.hasRemaining())
+          target.write(buffer);
+        count -= n;
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // nothing more to do with the channel
+      }
+    }
+  }
+
+  private static class BlobContent implements Content {
+
+    private final Blob blob;
+
+    BlobContent(Blob blob) {
+      this.blob = blob;
+    }
+
+    @Override
+    public long size() throws IOException {
+      try {
+        return blob.length();
+      } catch (SQLException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void write(OutputStream out, long position, long count) throws IOException {
+      if (count == 0)
+        return;
+      InputStream in;
+      try {
+        // many drivers do not support reading a part of a blob, so that is only done for ranges
+        if (position == 0 && count == blob.length())
+          in = blob.getBinaryStream();
+        else
+          // blob positions are one-based
+          in = blob.getBinaryStream(position + 1, count);
+      } catch (SQLException e) {
+        throw new IOException(e);
+      }
+      try {
+        byte[] buf = new byte[(int) Math.min(ValueRequestResource.getStreamBufferSize(), count)];
+        int n;
+        while ((n = in.read(buf)) != -1)
+          out.write(buf, 0, n);
+      } finally {
+        in.close();
+      }
+    }
+
+    @Override
+    public void close() {
+      // the blob belongs to the producer; only the streams read from it are closed
+    }
+  }
+
+  /** Writes (a range of) the content when the client starts reading, and releases the content. */
+  private static class ContentOutput implements StreamingOutput {
+
+    private final Content content;
+    private final long position;
+    private final long count;
+
+    ContentOutput(Content content, long position, long count) {
+      this.content = content;
+      this.position = position;
+      this.count = count;
+    }
+
+    @Override
+    public void write(OutputStream out) throws IOException, WebApplicationException {
+      // a failure is passed on, the Content-Length has been sent and the container must abort the response
+      try {
+        content.write(out, position, count);
+        out.flush();
+      } finally {
+        content.close();
+        out.close();
+      }
+    }
+  }
+
+}
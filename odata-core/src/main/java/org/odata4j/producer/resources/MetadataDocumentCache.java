@@ -0,0 +1,158 @@
+package org.odata4j.producer.resources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+
+import org.core4j.Func;
+import org.odata4j.core.ODataConstants;
+import org.odata4j.core.Throwables;
+import org.odata4j.edm.EdmDataServices;
+
+/**
+ * The serialized <code>$metadata</code> and service documents of the metadata objects producers return.
+ *
+ * <p>Documents are written once per metadata object and variant (format, base uri), together with their gzip
+ * encoding and a strong entity-tag. When a producer returns a new metadata object, its documents are written
+ * anew; the documents of the old object go when the object is collected.
+ */
+final class MetadataDocumentCache {
+
+  private static final String GZIP = "gzip";
+
+  private static final Map<EdmDataServices, Map<String, Document>> DOCUMENTS =
+      Collections.synchronizedMap(new WeakHashMap<EdmDataServices, Map<String, Document>>());
+
+  private MetadataDocumentCache() {}
+
+  /**
+   * Gets a document of a metadata object, written with the given function on first use.
+   *
+   * @param metadata  the metadata object
+   * @param variant  what else (than the metadata object) the document depends on
+   * @param contentType  the content type of the document
+   * @param writer  writes the document
+   * @return the document
+   */
+  static Document get(EdmDataServices metadata, String variant, String contentType, Func<String> writer) {
+    Map<String, Document> documents;
+    synchronized (DOCUMENTS) {
+      documents = DOCUMENTS.get(metadata);
+      if (documents == null) {
+        documents = Collections.synchronizedMap(new HashMap<String, Document>());
+        DOCUMENTS.put(metadata, documents);
+      }
+    }
+    String key = contentType + " " + variant;
+    Document document = documents.get(key);
+    if (document == null) {
+      // documents of the same metadata object are equal, a concurrent duplicate does no harm
+      document = new Document(contentType, writer.apply());
+      documents.put(key, document);
+    }
+    return document;
+  }
+
+  /** A serialized document. */
+  static final class Document {
+
+    private final String contentType;
+    private final byte[] content;
+    private final byte[] gzipContent;
+    private final EntityTag entityTag;
+    private final EntityTag gzipEntityTag;
+
+    Document(String contentType, String text) {
+      this.contentType = contentType;
+      try {
+        this.content = text.getBytes(ODataConstants.Charsets.Upper.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream(content.length / 4 + 64);
+        GZIPOutputStream out = new GZIPOutputStream(gzip);
+        out.write(content);
+        out.close();
+        this.gzipContent = gzip.toByteArray();
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(content))
+          hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        this.entityTag = new EntityTag(hash.toString());
+        this.gzipEntityTag = new EntityTag(hash + "-" + GZIP);
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      } catch (NoSuchAlgorithmException e) {
+        throw Throwables.propagate(e);
+      }
+    }
+
+    /**
+     * Creates the response to a request for this document: not modified if the request has a matching
+     * <code>If-None-Match</code> header, otherwise the document, gzip encoded if the request accepts it.
+     */
+    public Response toResponse(HttpHeaders httpHeaders) {
+      boolean gzip = acceptsGzip(httpHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+      EntityTag tag = gzip ? gzipEntityTag : entityTag;
+      ResponseBuilder rb;
+      if (matches(httpHeaders.getRequestHeader(HttpHeaders.IF_NONE_MATCH))) {
+        rb = Response.notModified(tag);
+      } else {
+        rb = Response.ok(gzip ? gzipContent : content, contentType).tag(tag);
+        if (gzip)
+          rb.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+      }
+      return rb.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+          .header(ODataConstants.Headers.DATA_SERVICE_VERSION, ODataConstants.DATA_SERVICE_VERSION_HEADER)
+          .build();
+    }
+
+    /** Weak comparison, so both encodings match. */
+    private boolean matches(List<String> ifNoneMatch) {
+      if (ifNoneMatch == null)
+        return false;
+      for (String header : ifNoneMatch) {
+        for (String value : header.split(",")) {
+          value = value.trim();
+          if (value.equals("*"))
+            return true;
+          if (value.startsWith("W/"))
+            value = value.substring(2);
+          if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\""))
+            value = value.substring(1, value.length() - 1);
+          if (value.equals(entityTag.getValue()) || value.equals(gzipEntityTag.getValue()))
+            return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean acceptsGzip(List<String> acceptEncoding) {
+      if (acceptEncoding == null)
+        return false;
+      for (String header : acceptEncoding) {
+        for (String coding : header.split(",")) {
+          String[] parts = coding.split(";");
+          if (!parts[0].trim().equalsIgnoreCase(GZIP))
+            continue;
+          for (int i = 1; i < parts.length; i++) {
+            if (parts[i].trim().matches("q\\s*=\\s*0(\\.0*)?"))
+              return false;
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+}
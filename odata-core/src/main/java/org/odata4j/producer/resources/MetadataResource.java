@@ -15,6 +15,7 @@ import jakarta.ws.rs.core.SecurityContext;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ContextResolver;
 
+import org.core4j.Func;
 import org.odata4j.core.ODataConstants;
 import org.odata4j.edm.EdmDataServices;
 import org.odata4j.exceptions.NotImplementedException;
@@ -47,17 +48,19 @@ public class MetadataResource {
       ServiceDocumentResource r = new ServiceDocumentResource();
       return r.getServiceDocument(httpHeaders, uriInfo, producerResolver, FormatType.ATOM.name(), null);
     } else {
-      StringWriter w = new StringWriter();
       ODataProducer source = "metamodel".equals(format) ? producer.getMetadataProducer() : producer;
       if (source == null) {
         throw newMetadataNotImplementedException();
       }
-      EdmDataServices s = source.getMetadata();
-      EdmxFormatWriter.write(s, w);
-
-      return Response.ok(w.toString(), ODataConstants.APPLICATION_XML_CHARSET_UTF8)
-          .header(ODataConstants.Headers.DATA_SERVICE_VERSION, ODataConstants.DATA_SERVICE_VERSION_HEADER)
-          .build();
+      final EdmDataServices s = source.getMetadata();
+      return MetadataDocumentCache.get(s, "$metadata", ODataConstants.APPLICATION_XML_CHARSET_UTF8, new Func<String>() {
+        @Override
+        public String apply() {
+          StringWriter w = new StringWriter();
+          EdmxFormatWriter.write(s, w);
+          return w.toString();
+        }
+      }).toResponse(httpHeaders);
     }
   }
 
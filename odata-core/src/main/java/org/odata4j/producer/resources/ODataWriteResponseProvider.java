@@ -1,6 +1,5 @@
 package org.odata4j.producer.resources;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
@@ -16,17 +15,16 @@ import jakarta.ws.rs.ext.Provider;
 import org.odata4j.core.ODataConstants;
 import org.odata4j.format.writer.BufferOrFileResponseHolder;
 
-import org.glassfish.jersey.message.internal.ReaderWriter;
-
 @Provider
-@Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8, ODataConstants.APPLICATION_XML_CHARSET_UTF8, ODataConstants.APPLICATION_JAVASCRIPT_VERBOSE_CHARSET_UTF8, ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8 })
+@Produces({ ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8, ODataConstants.APPLICATION_XML_CHARSET_UTF8, ODataConstants.APPLICATION_JAVASCRIPT_VERBOSE_CHARSET_UTF8, ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8,
+    ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1 })
 public class ODataWriteResponseProvider implements MessageBodyWriter<BufferOrFileResponseHolder> {
 
   /**
    * Called before writeTo to ascertain the length in bytes of the serialized form of responseHolder.
    * A non-negative return value is used in a HTTP Content-Length header<br><br>
    * 
-   * We always return the value of -1 so that it is not set in the content header.
+   * The content is already encoded at this point, so its exact length is known.
    *
    * @param responseHolder - the response holder which is the instance to write
    * @param type - the class of object that is to be written.
@@ -37,7 +35,7 @@ public class ODataWriteResponseProvider implements MessageBodyWriter<BufferOrFil
    */
   @Override
   public long getSize(BufferOrFileResponseHolder responseHolder, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-    return -1;
+    return responseHolder.getSize();
   }
 
   /**
@@ -70,28 +68,12 @@ public class ODataWriteResponseProvider implements MessageBodyWriter<BufferOrFil
    */
   @Override
   public void writeTo(BufferOrFileResponseHolder responseHolder, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> valueMap, OutputStream outputStream) throws IOException, WebApplicationException {
-    if (responseHolder.isFileUsedForStorage()) {
-      FileInputStream fileInputStream = null;
-      try {
-        fileInputStream = new FileInputStream(responseHolder.getResponseFile());
-        //The data is written to the output stream provided by the Jersey hook into MessageBodyWriter
-        ReaderWriter.writeTo(fileInputStream, outputStream);
-        //Flush any remaining data held in the writer
-        outputStream.flush();
-      } finally {
-        //Close the input stream to the file
-        if (fileInputStream != null) {
-          fileInputStream.close();
-          fileInputStream = null;
-        }
-        // Delete the temp file that was created
-        if (responseHolder.getResponseFile() != null && responseHolder.getResponseFile().exists()) {
-          responseHolder.getResponseFile().delete();
-        }
-      }
-    } else {
-      //Write contents of buffer to the outputstream
-      ReaderWriter.writeToAsString(responseHolder.getBuffer().toString(), outputStream, mediaType);
+    try {
+      //The already encoded content is written to the output stream provided by the Jersey hook into MessageBodyWriter
+      responseHolder.writeTo(outputStream);
+    } finally {
+      // Return the buffers to the pool and delete the temp file that was created
+      responseHolder.release();
     }
   }
 }
@@ -0,0 +1,223 @@
+package org.odata4j.producer.resources;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.odata4j.core.ODataConstants;
+import org.odata4j.internal.InternalUtil;
+
+/**
+ * A bounded least-recently-used cache of parsed query options, keyed by the kind of option and its raw string.
+ * Used by {@link OptionsQueryParser}, so that the same $filter, $orderby, $expand or $select string is only parsed
+ * once; the parsed expression trees are immutable and are shared between requests.
+ *
+ * <p>The cache is split into segments, each a synchronized access-ordered map, so that concurrent requests
+ * rarely contend. Option strings longer than {@link #getMaxKeyLength()} are not cached, so a few very large
+ * filters cannot push out the common ones.</p>
+ *
+ * <p>The hit, miss and eviction counters can be polled for monitoring.</p>
+ */
+public class OptionsQueryCache {
+
+  /** The default number of cached options. */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  /** The default length of the longest option string that is cached. */
+  public static final int DEFAULT_MAX_KEY_LENGTH = 4096;
+
+  private static final int SEGMENTS = 16;
+
+  private static final OptionsQueryCache DEFAULT = new OptionsQueryCache(getMaxEntriesSetting(), DEFAULT_MAX_KEY_LENGTH);
+
+  /** The kinds of query option. */
+  public enum Kind {
+    FILTER, ORDER_BY, EXPAND, SELECT
+  }
+
+  private final int maxEntries;
+  private final int maxKeyLength;
+  private final Segment[] segments;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public OptionsQueryCache(int maxEntries, int maxKeyLength) {
+    this.maxEntries = Math.max(0, maxEntries);
+    this.maxKeyLength = maxKeyLength;
+    int segmentCount = Math.max(1, Math.min(SEGMENTS, this.maxEntries));
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      // spread the capacity, so that the total never exceeds maxEntries
+      int capacity = this.maxEntries / segmentCount + (i < this.maxEntries % segmentCount ? 1 : 0);
+      segments[i] = new Segment(capacity);
+    }
+  }
+
+  /**
+   * Gets the process-wide cache used by {@link OptionsQueryParser}, sized by the {@link ODataConstants#ODATA_QUERY_CACHE_SIZE} system property.
+   *
+   * @return the default cache
+   */
+  public static OptionsQueryCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Looks up a parsed option.
+   *
+   * @param kind  the kind of option
+   * @param raw  the raw option string
+   * @return the parsed option, or null if it is not cached
+   */
+  public Object get(Kind kind, String raw) {
+    if (!isCacheable(raw))
+      return null;
+    Key key = new Key(kind, raw);
+    Object value = segmentFor(key).get(key);
+    if (value == null)
+      misses.incrementAndGet();
+    else
+      hits.incrementAndGet();
+    return value;
+  }
+
+  /**
+   * Caches a parsed option, evicting the least recently used option of its segment if it is full.
+   *
+   * @param kind  the kind of option
+   * @param raw  the raw option string
+   * @param value  the parsed option, must be immutable
+   */
+  public void put(Kind kind, String raw, Object value) {
+    if (value == null || !isCacheable(raw))
+      return;
+    Key key = new Key(kind, raw);
+    segmentFor(key).put(key, value);
+  }
+
+  /**
+   * Removes all cached options. The counters are kept.
+   */
+  public void clear() {
+    for (Segment segment : segments)
+      segment.clear();
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public int getMaxKeyLength() {
+    return maxKeyLength;
+  }
+
+  /** @return the number of cached options */
+  public int getSize() {
+    int rt = 0;
+    for (Segment segment : segments)
+      rt += segment.size();
+    return rt;
+  }
+
+  /** @return the number of lookups that found a parsed option */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /** @return the number of lookups of cacheable options that had to be parsed */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /** @return the number of options evicted to make room for others */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  private boolean isCacheable(String raw) {
+    return maxEntries > 0 && raw.length() <= maxKeyLength;
+  }
+
+  private Segment segmentFor(Key key) {
+    int h = key.hash ^ (key.hash >>> 16);
+    return segments[(h & 0x7fffffff) % segments.length];
+  }
+
+  private static int getMaxEntriesSetting() {
+    String value = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_QUERY_CACHE_SIZE);
+    if (value != null && !value.isEmpty()) {
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        // ignore and use the default
+      }
+    }
+    return DEFAULT_MAX_ENTRIES;
+  }
+
+  private class Segment {
+
+    private final LinkedHashMap<Key, Object> entries;
+
+    Segment(final int capacity) {
+      this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+          if (size() > capacity) {
+            evictions.incrementAndGet();
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    synchronized Object get(Key key) {
+      return entries.get(key);
+    }
+
+    synchronized void put(Key key, Object value) {
+      entries.put(key, value);
+    }
+
+    synchronized void clear() {
+      entries.clear();
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+
+  }
+
+  private static class Key {
+
+    private final Kind kind;
+    private final String raw;
+    private final int hash;
+
+    Key(Kind kind, String raw) {
+      this.kind = kind;
+      this.raw = raw;
+      this.hash = 31 * kind.ordinal() + raw.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key))
+        return false;
+      Key other = (Key) obj;
+      return kind == other.kind && raw.equals(other.raw);
+    }
+
+  }
+
+}
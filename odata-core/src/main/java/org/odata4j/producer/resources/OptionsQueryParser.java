@@ -1,5 +1,6 @@
 package org.odata4j.producer.resources;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +13,15 @@ import org.odata4j.expression.EntitySimpleProperty;
 import org.odata4j.expression.ExpressionParser;
 import org.odata4j.expression.OrderByExpression;
 import org.odata4j.producer.InlineCount;
+import org.odata4j.producer.resources.OptionsQueryCache.Kind;
 
+/**
+ * Parses the system query options of a request.
+ *
+ * <p>Parsed $filter, $orderby, $expand and $select options are kept in the {@link OptionsQueryCache#getDefault() default}
+ * {@link OptionsQueryCache}, so that a repeated option string is not parsed again. The returned expressions and lists
+ * are shared and must not be modified.</p>
+ */
 public class OptionsQueryParser {
 
   public static InlineCount parseInlineCount(String inlineCount) {
@@ -37,7 +46,12 @@ public class OptionsQueryParser {
     if (filter == null) {
       return null;
     }
-    CommonExpression ce = ExpressionParser.parse(filter);
+    OptionsQueryCache cache = OptionsQueryCache.getDefault();
+    CommonExpression ce = (CommonExpression) cache.get(Kind.FILTER, filter);
+    if (ce == null) {
+      ce = ExpressionParser.parse(filter);
+      cache.put(Kind.FILTER, filter, ce);
+    }
     if (!(ce instanceof BoolCommonExpression)) {
       throw new RuntimeException("Bad filter");
     }
@@ -48,7 +62,14 @@ public class OptionsQueryParser {
     if (orderBy == null) {
       return null;
     }
-    return ExpressionParser.parseOrderBy(orderBy);
+    OptionsQueryCache cache = OptionsQueryCache.getDefault();
+    @SuppressWarnings("unchecked")
+    List<OrderByExpression> rt = (List<OrderByExpression>) cache.get(Kind.ORDER_BY, orderBy);
+    if (rt == null) {
+      rt = Collections.unmodifiableList(ExpressionParser.parseOrderBy(orderBy));
+      cache.put(Kind.ORDER_BY, orderBy, rt);
+    }
+    return rt;
   }
 
   public static String parseSkipToken(String skipToken) {
@@ -70,14 +91,25 @@ public class OptionsQueryParser {
     if (expand == null) {
       return null;
     }
-    return ExpressionParser.parseExpand(expand);
+    return parsePropertyList(Kind.EXPAND, expand);
   }
 
   public static List<EntitySimpleProperty> parseSelect(String select) {
     if (select == null) {
       return null;
     }
-    return ExpressionParser.parseExpand(select);
+    return parsePropertyList(Kind.SELECT, select);
+  }
+
+  private static List<EntitySimpleProperty> parsePropertyList(Kind kind, String value) {
+    OptionsQueryCache cache = OptionsQueryCache.getDefault();
+    @SuppressWarnings("unchecked")
+    List<EntitySimpleProperty> rt = (List<EntitySimpleProperty>) cache.get(kind, value);
+    if (rt == null) {
+      rt = Collections.unmodifiableList(ExpressionParser.parseExpand(value));
+      cache.put(kind, value, rt);
+    }
+    return rt;
   }
 
 }
\ No newline at end of file
@@ -18,7 +18,6 @@ import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.SecurityContext;
-import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ContextResolver;
 
@@ -174,14 +173,13 @@ public class PropertyRequestResource extends BaseResource {
 
 //    ContextStream entityStreamCtx = namedStreamExtension.getInputStreamForNamedStream(odataContext, entitySetName, entityId, name, queryInfo);
     ContextStream entityStreamCtx = producer.getInputStreamForNamedStream(entitySetName, OEntityKey.parse(entityId), name, queryInfo);
-    StreamingOutput outputStream = ValueRequestResource.getOutputStreamFromInputStream(entityStreamCtx.getInputStream());
     String contentType = entityStreamCtx.getContentType();
     String contentDisposition = entityStreamCtx.getContentDisposition();
 
     // this is from latest odata4j code, why we choose outputStream?
     //return Response.ok(entityStream, contentType).header("Content-Disposition", contentDisposition).build();
 
-    return Response.ok(outputStream, contentType).header("Content-Disposition", contentDisposition).build();
+    return MediaResponses.create(httpHeaders, entityStreamCtx, contentType, contentDisposition);
   }
   
   
@@ -273,87 +271,90 @@ public class PropertyRequestResource extends BaseResource {
         throw new NotFoundException();
       }
 
-      ODataVersion version = ODataConstants.DATA_SERVICE_VERSION;
+      // the response is rendered into a string, so a streaming response is closed on every path
+      try {
+        ODataVersion version = ODataConstants.DATA_SERVICE_VERSION;
       
-      if (response instanceof PropertyResponse) {
-        String edmTypeName = ((PropertyResponse) response).getProperty().getType().getFullyQualifiedTypeName();
-        if (edmTypeName.equals("Edm.Stream")) {
-          Object object = ((PropertyResponse) response).getProperty().getValue();
-          if (object != null && object instanceof Blob) {
-            InputStream binaryStream = ((Blob) object).getBinaryStream();
-            StreamingOutput outputStream = ValueRequestResource.getOutputStreamFromInputStream(binaryStream);
-            String contentType = "application/octet-stream";
-            String contentDisposition = null;
-
-            return Response.ok(outputStream, contentType).header("Content-Disposition", contentDisposition).build();
+        if (response instanceof PropertyResponse) {
+          String edmTypeName = ((PropertyResponse) response).getProperty().getType().getFullyQualifiedTypeName();
+          if (edmTypeName.equals("Edm.Stream")) {
+            Object object = ((PropertyResponse) response).getProperty().getValue();
+            if (object != null && object instanceof Blob) {
+              String contentType = "application/octet-stream";
+              String contentDisposition = null;
+
+              return MediaResponses.create(httpHeaders, (Blob) object, contentType, contentDisposition);
+            }
           }
         }
-      }
 
 
-      StringWriter sw = new StringWriter();
-      FormatWriter<?> fwBase;
-
-      /**
-       * The raw value of properties should be represented using the text/plain media type.
-       * Response should be a plain text and shouldn't be wrapped by enclosing tags
-       */
-      if (navProp.endsWith("/$value")
-          || navProp.endsWith("/$value/")
-          || navProp.contains("/$value?")
-          || navProp.contains("/$value/?")) {
-        PropertyResponse pr = (PropertyResponse) response;
-        Object value = pr.getProperty().getValue();
-        if (value == null) {
-          // if value is null, send 404 response as per specs 
-          // http://www.odata.org/documentation/odata-v3-documentation/odata-core/#10221_Requesting_a_Propertys_Raw_Value_using_value
-          return Response.status(Status.NOT_FOUND).build();
+        StringWriter sw = new StringWriter();
+        FormatWriter<?> fwBase;
+
+        /**
+         * The raw value of properties should be represented using the text/plain media type.
+         * Response should be a plain text and shouldn't be wrapped by enclosing tags
+         */
+        if (navProp.endsWith("/$value")
+            || navProp.endsWith("/$value/")
+            || navProp.contains("/$value?")
+            || navProp.contains("/$value/?")) {
+          PropertyResponse pr = (PropertyResponse) response;
+          Object value = pr.getProperty().getValue();
+          if (value == null) {
+            // if value is null, send 404 response as per specs 
+            // http://www.odata.org/documentation/odata-v3-documentation/odata-core/#10221_Requesting_a_Propertys_Raw_Value_using_value
+            return Response.status(Status.NOT_FOUND).build();
+          } else {
+            return Response
+                .ok(value.toString(), ODataConstants.TEXT_PLAIN_CHARSET_UTF8)
+                .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
+                .build();
+          }
+        } else if (response instanceof PropertyResponse) {
+          FormatWriter<PropertyResponse> fw =
+              FormatWriterFactory.getFormatWriter(
+                  PropertyResponse.class,
+                  httpHeaders.getAcceptableMediaTypes(),
+                  format,
+                  callback);
+          fw.write(uriInfo, sw, (PropertyResponse) response);
+          fwBase = fw;
+        } else if (response instanceof EntityResponse) {
+          FormatWriter<EntityResponse> fw =
+              FormatWriterFactory.getFormatWriter(
+                  EntityResponse.class,
+                  httpHeaders.getAcceptableMediaTypes(),
+                  format,
+                  callback);
+          fw.write(uriInfo, sw, (EntityResponse) response);
+          fwBase = fw;
+        } else if (response instanceof EntitiesResponse) {
+          FormatWriter<EntitiesResponse> fw =
+              FormatWriterFactory.getFormatWriter(
+                  EntitiesResponse.class,
+                  httpHeaders.getAcceptableMediaTypes(),
+                  format,
+                  callback);
+          fw.write(uriInfo, sw, (EntitiesResponse) response);
+          fwBase = fw;
+
+          // TODO remove this hack, check whether we are Version 2.0 compatible anyway
+          // the JsonWriter writes feed currently always as Version 2.0
+          version = ODataConstants.DATA_SERVICE_VERSION;
         } else {
-          return Response
-              .ok(value.toString(), ODataConstants.TEXT_PLAIN_CHARSET_UTF8)
-              .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
-              .build();
+          throw new NotImplementedException("Unknown BaseResponse type: " + response.getClass().getName());
         }
-      } else if (response instanceof PropertyResponse) {
-        FormatWriter<PropertyResponse> fw =
-            FormatWriterFactory.getFormatWriter(
-                PropertyResponse.class,
-                httpHeaders.getAcceptableMediaTypes(),
-                format,
-                callback);
-        fw.write(uriInfo, sw, (PropertyResponse) response);
-        fwBase = fw;
-      } else if (response instanceof EntityResponse) {
-        FormatWriter<EntityResponse> fw =
-            FormatWriterFactory.getFormatWriter(
-                EntityResponse.class,
-                httpHeaders.getAcceptableMediaTypes(),
-                format,
-                callback);
-        fw.write(uriInfo, sw, (EntityResponse) response);
-        fwBase = fw;
-      } else if (response instanceof EntitiesResponse) {
-        FormatWriter<EntitiesResponse> fw =
-            FormatWriterFactory.getFormatWriter(
-                EntitiesResponse.class,
-                httpHeaders.getAcceptableMediaTypes(),
-                format,
-                callback);
-        fw.write(uriInfo, sw, (EntitiesResponse) response);
-        fwBase = fw;
-
-        // TODO remove this hack, check whether we are Version 2.0 compatible anyway
-        // the JsonWriter writes feed currently always as Version 2.0
-        version = ODataConstants.DATA_SERVICE_VERSION;
-      } else {
-        throw new NotImplementedException("Unknown BaseResponse type: " + response.getClass().getName());
-      }
 
-      String entity = sw.toString();
-      return Response
-          .ok(entity, fwBase.getContentType())
-          .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
-          .build();
+        String entity = sw.toString();
+        return Response
+            .ok(entity, fwBase.getContentType())
+            .header(ODataConstants.Headers.DATA_SERVICE_VERSION, version.asString)
+            .build();
+      } finally {
+        release(response);
+      }
     }
   }
 }
@@ -12,6 +12,7 @@ import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ContextResolver;
 
+import org.core4j.Func;
 import org.odata4j.core.ODataConstants;
 import org.odata4j.edm.EdmDataServices;
 import org.odata4j.format.FormatWriter;
@@ -25,22 +26,33 @@ public class ServiceDocumentResource {
   @Produces({ ODataConstants.APPLICATION_XML_CHARSET_UTF8, ODataConstants.TEXT_JAVASCRIPT_CHARSET_UTF8, ODataConstants.APPLICATION_JAVASCRIPT_CHARSET_UTF8 })
   public Response getServiceDocument(
       @Context HttpHeaders httpHeaders,
-      @Context UriInfo uriInfo,
+      @Context final UriInfo uriInfo,
       @Context ContextResolver<ODataProducer> producerResolver,
       @QueryParam("$format") String format,
       @QueryParam("$callback") String callback) {
 
     ODataProducer producer = producerResolver.getContext(ODataProducer.class);
 
-    EdmDataServices metadata = producer.getMetadata();
-
-    StringWriter w = new StringWriter();
-    FormatWriter<EdmDataServices> fw = FormatWriterFactory.getFormatWriter(EdmDataServices.class, httpHeaders.getAcceptableMediaTypes(), format, callback);
-    fw.write(uriInfo, w, metadata);
-
-    return Response.ok(w.toString(), fw.getContentType())
-        .header(ODataConstants.Headers.DATA_SERVICE_VERSION, ODataConstants.DATA_SERVICE_VERSION_HEADER)
-        .build();
+    final EdmDataServices metadata = producer.getMetadata();
+
+    final FormatWriter<EdmDataServices> fw = FormatWriterFactory.getFormatWriter(EdmDataServices.class, httpHeaders.getAcceptableMediaTypes(), format, callback);
+    Func<String> writer = new Func<String>() {
+      @Override
+      public String apply() {
+        StringWriter w = new StringWriter();
+        fw.write(uriInfo, w, metadata);
+        return w.toString();
+      }
+    };
+
+    // a JSONP callback is arbitrary, don't keep a document per callback
+    if (callback != null && callback.length() > 0) {
+      return Response.ok(writer.apply(), fw.getContentType())
+          .header(ODataConstants.Headers.DATA_SERVICE_VERSION, ODataConstants.DATA_SERVICE_VERSION_HEADER)
+          .build();
+    }
+    // the document has the base uri
+    return MetadataDocumentCache.get(metadata, "service " + uriInfo.getBaseUri(), fw.getContentType(), writer).toResponse(httpHeaders);
   }
 
 }
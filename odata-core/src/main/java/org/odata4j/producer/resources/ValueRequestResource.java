@@ -22,12 +22,14 @@ import org.odata4j.edm.EdmEntitySet;
 import org.odata4j.exceptions.NotFoundException;
 import org.odata4j.exceptions.NotImplementedException;
 import org.odata4j.internal.InternalUtil;
+import org.odata4j.producer.ContextStream;
 import org.odata4j.producer.EntityQueryInfo;
 import org.odata4j.producer.EntityResponse;
 import org.odata4j.producer.ODataContext;
 import org.odata4j.producer.ODataContextImpl;
 import org.odata4j.producer.ODataProducer;
 import org.odata4j.producer.OMediaLinkExtension;
+import org.odata4j.producer.OSeekableMediaLinkExtension;
 
 public class ValueRequestResource extends BaseResource {	
 
@@ -75,11 +77,19 @@ public class ValueRequestResource extends BaseResource {
 
     EntityResponse entityResponse = producer.getEntity(odataContext,
         entitySet.getName(), OEntityKey.parse(entityId), queryInfo);
-    InputStream entityStream = mediaLinkExtension.getInputStreamForMediaLinkEntry(odataContext, entityResponse.getEntity(), null, queryInfo);
-    StreamingOutput outputStream = getOutputStreamFromInputStream(entityStream);
     String contentType = mediaLinkExtension.getMediaLinkContentType(odataContext, entityResponse.getEntity());
     String contentDisposition = mediaLinkExtension.getMediaLinkContentDisposition(odataContext, entityResponse.getEntity());
 
+    if (mediaLinkExtension instanceof OSeekableMediaLinkExtension) {
+      ContextStream stream = ((OSeekableMediaLinkExtension) mediaLinkExtension).getContextStreamForMediaLinkEntry(odataContext, entityResponse.getEntity(), null, queryInfo);
+      return MediaResponses.create(httpHeaders, stream,
+          stream.getContentType() != null ? stream.getContentType() : contentType,
+          stream.getContentDisposition() != null ? stream.getContentDisposition() : contentDisposition);
+    }
+
+    InputStream entityStream = mediaLinkExtension.getInputStreamForMediaLinkEntry(odataContext, entityResponse.getEntity(), null, queryInfo);
+    StreamingOutput outputStream = getOutputStreamFromInputStream(entityStream);
+
     // this is from latest odata4j code, why we choose outputStream?
     //return Response.ok(entityStream, contentType).header("Content-Disposition", contentDisposition).build();
 
@@ -125,7 +135,7 @@ public class ValueRequestResource extends BaseResource {
     if (inStream == null) {
       return;
     }
-	  byte[] buf = new byte[setStreamBufferSize()];
+	  byte[] buf = new byte[getStreamBufferSize()];
 	    int n;
 	    try {
 			while ((n = inStream.read(buf)) != -1) {
@@ -139,9 +149,9 @@ public class ValueRequestResource extends BaseResource {
   /**
    * Gets the  stream buffer size for reading input stream which will only be called when the client starts reading the stream.
    *   
-   * @return the output stream from input stream
+   * @return the stream buffer size in bytes
    */
-  private static Integer setStreamBufferSize(){
+  static int getStreamBufferSize(){
 	  Integer defaultStreamBuffsize = ODataConstants.COPY_BUFFER_SIZE;
 	  //Property is read from the dsdsAppConfig.properties.
 	  String streamBufferSize = InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_STREAM_BUFFER_SIZE);
@@ -0,0 +1,144 @@
+package org.odata4j.stax2.staximpl;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.odata4j.core.ODataConstants;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.core.Throwables;
+import org.odata4j.stax2.QName2;
+import org.odata4j.stax2.XMLWriter2;
+
+/**
+ * An {@link XMLWriter2} that writes straight to an {@link XMLStreamWriter}, without creating an event for
+ * every element, attribute and text as {@link StaxXMLWriter2} does. The output is the same.
+ */
+public class StaxStreamXMLWriter2 implements XMLWriter2 {
+
+  private final Writer stream;
+  private final XMLStreamWriter writer;
+
+  public StaxStreamXMLWriter2(Writer stream) {
+    this(StaxXMLFactoryProvider2.getXMLOutputFactory(), stream);
+  }
+
+  public StaxStreamXMLWriter2(XMLOutputFactory factory, Writer stream) {
+    this.stream = stream;
+    try {
+      writer = factory.createXMLStreamWriter(stream);
+      writer.setDefaultNamespace("");
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void startElement(String name) {
+    try {
+      writer.writeStartElement("", name, "");
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void startElement(QName2 qname) {
+    startElement(qname, null);
+  }
+
+  public void startElement(QName2 qname, String xmlns) {
+    try {
+      writer.writeStartElement(prefix(qname), qname.getLocalPart(), namespaceUri(qname));
+      if (xmlns != null)
+        writer.writeNamespace("", xmlns);
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void writeAttribute(String localName, String value) {
+    try {
+      writer.writeAttribute("", "", localName, value);
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void writeAttribute(QName2 qname, String value) {
+    try {
+      writer.writeAttribute(prefix(qname), namespaceUri(qname), qname.getLocalPart(), value);
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void writeText(String content) {
+    try {
+      writer.writeCharacters(content);
+    } catch (XMLStreamException e) {
+      // don't throw an exception; instead write a message as part of data and continue.
+      this.writeErrorMessageAsCData(e.getMessage());
+    }
+  }
+
+  @Override
+  public void writeErrorMessageAsCData(String message) {
+    try {
+      StringBuilder errorMessageBuilder = new StringBuilder(ODataConstants.ERROR_TEXT);
+      if (message != null) {
+        errorMessageBuilder.append(message);
+      }
+      writer.writeCData(errorMessageBuilder.toString());
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void writeNamespace(String prefix, String namespaceUri) {
+    try {
+      writer.writeNamespace(prefix, namespaceUri);
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void startDocument() {
+    // as the event writer does; XMLStreamWriter cannot declare a standalone document
+    try {
+      writer.flush();
+      stream.write("<?xml version=\"1.0\" encoding=\"" + Charsets.Lower.UTF_8 + "\" standalone=\"yes\"?>");
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void endElement(String localName) {
+    try {
+      writer.writeEndElement();
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public void endDocument() {
+    try {
+      writer.writeEndDocument();
+      writer.flush();
+    } catch (XMLStreamException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static String prefix(QName2 qname) {
+    return qname.getPrefix() == null ? "" : qname.getPrefix();
+  }
+
+  private static String namespaceUri(QName2 qname) {
+    return qname.getNamespaceUri() == null ? "" : qname.getNamespaceUri();
+  }
+
+}
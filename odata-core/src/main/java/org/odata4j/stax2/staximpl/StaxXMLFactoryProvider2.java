@@ -22,7 +22,9 @@ import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 import org.core4j.Enumerable;
+import org.odata4j.core.ODataConstants;
 import org.odata4j.core.Throwables;
+import org.odata4j.internal.InternalUtil;
 import org.odata4j.stax2.Attribute2;
 import org.odata4j.stax2.Characters2;
 import org.odata4j.stax2.EndElement2;
@@ -40,6 +42,41 @@ import org.odata4j.stax2.XMLWriterFactory2;
 
 public class StaxXMLFactoryProvider2 extends XMLFactoryProvider2 {
 
+  private static final XMLWriterFactory2 EVENT_WRITER_FACTORY = new StaxXMLWriterFactory2();
+  private static final XMLWriterFactory2 STREAM_WRITER_FACTORY = new StaxStreamXMLWriterFactory2();
+
+  private final boolean streamWriters;
+
+  /**
+   * Creates a provider of {@link StaxStreamXMLWriter2} writers, or of {@link StaxXMLWriter2} writers if the
+   * {@link ODataConstants#ODATA_XML_WRITER} system property is <code>event</code>.
+   */
+  public StaxXMLFactoryProvider2() {
+    this(!"event".equalsIgnoreCase(InternalUtil.getSystemPropertyValue(ODataConstants.ODATA_XML_WRITER)));
+  }
+
+  /**
+   * Creates a provider.
+   *
+   * @param streamWriters  whether to provide {@link StaxStreamXMLWriter2} writers, which write straight to an
+   *                       <code>XMLStreamWriter</code>, rather than {@link StaxXMLWriter2} writers
+   */
+  public StaxXMLFactoryProvider2(boolean streamWriters) {
+    this.streamWriters = streamWriters;
+  }
+
+  /**
+   * Gets the output factory shared by the writers; looking up the implementation is far more expensive
+   * than creating a writer with it.
+   */
+  public static XMLOutputFactory getXMLOutputFactory() {
+    return OutputFactoryHolder.FACTORY;
+  }
+
+  private static class OutputFactoryHolder {
+    static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+  }
+
   public static QName toQName(QName2 qname) {
     if (qname.getPrefix() == null)
       return new QName(qname.getNamespaceUri(), qname.getLocalPart());
@@ -48,7 +85,16 @@ public class StaxXMLFactoryProvider2 extends XMLFactoryProvider2 {
 
   @Override
   public XMLWriterFactory2 newXMLWriterFactory2() {
-    return new StaxXMLWriterFactory2();
+    return streamWriters ? STREAM_WRITER_FACTORY : EVENT_WRITER_FACTORY;
+  }
+
+  private static class StaxStreamXMLWriterFactory2 implements XMLWriterFactory2 {
+
+    @Override
+    public XMLWriter2 createXMLWriter(Writer writer) {
+      return new StaxStreamXMLWriter2(writer);
+    }
+
   }
 
   private static class StaxXMLWriterFactory2 implements XMLWriterFactory2 {
@@ -128,7 +174,7 @@ public class StaxXMLFactoryProvider2 extends XMLFactoryProvider2 {
 
   @Override
   public XMLOutputFactory2 newXMLOutputFactory2() {
-    return new StaxXMLOutputFactory2(XMLOutputFactory.newInstance());
+    return new StaxXMLOutputFactory2(getXMLOutputFactory());
   }
 
   private static class StaxXMLOutputFactory2 implements XMLOutputFactory2 {
@@ -21,16 +21,18 @@ import org.odata4j.stax2.XMLWriter2;
 
 public class StaxXMLWriter2 implements XMLWriter2 {
 
+  private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+
   // private final XMLStreamWriter writer;
   private final XMLEventFactory eventFactory;
   private final XMLEventWriter eventWriter;
 
   public StaxXMLWriter2(Writer stream) {
-    XMLOutputFactory f = XMLOutputFactory.newInstance();
+    XMLOutputFactory f = StaxXMLFactoryProvider2.getXMLOutputFactory();
 
     try {
       // writer = f.createXMLStreamWriter(stream);
-      eventFactory = XMLEventFactory.newInstance();
+      eventFactory = EVENT_FACTORY;
       eventWriter = f.createXMLEventWriter(stream);
       eventWriter.setDefaultNamespace("");
 
@@ -0,0 +1,375 @@
+package org.odata4j.stax2.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.core4j.Enumerable;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.stax2.Attribute2;
+import org.odata4j.stax2.Characters2;
+import org.odata4j.stax2.EndElement2;
+import org.odata4j.stax2.Namespace2;
+import org.odata4j.stax2.QName2;
+import org.odata4j.stax2.StartElement2;
+import org.odata4j.stax2.XMLEvent2;
+import org.odata4j.stax2.XMLEventReader2;
+
+/**
+ * A compact binary form of a sequence of XML events, read back without parsing XML.
+ *
+ * <p>Each event is a one byte tag followed by its names, attributes, namespace declarations or text. Strings are
+ * written once and referred to by their index after that, so the repeated element and attribute names and values
+ * of documents like <code>$metadata</code> take a byte or two each.
+ *
+ * @see Recorder
+ * @see #read(byte[])
+ */
+public class BinaryXMLEvents {
+
+  private static final Charset UTF_8 = Charset.forName(Charsets.Upper.UTF_8);
+
+  private static final int END = 0;
+  private static final int START_ELEMENT = 1;
+  private static final int END_ELEMENT = 2;
+  private static final int CHARACTERS = 3;
+  private static final int OTHER = 4;
+
+  // string references: null, a new string, or an index (+ 2) into the strings written before
+  private static final int NULL_STRING = 0;
+  private static final int NEW_STRING = 1;
+
+  private static final String XMLNS_URI = "http://www.w3.org/2000/xmlns/";
+
+  private BinaryXMLEvents() {}
+
+  /**
+   * Reads events written by a {@link Recorder}.
+   *
+   * @param events  the binary events
+   * @return a reader of the events
+   */
+  public static XMLEventReader2 read(byte[] events) {
+    return new BinaryXMLEventReader2(events);
+  }
+
+  /**
+   * Reads events from another reader and records them, in their binary form, as they are read.
+   */
+  public static class Recorder implements XMLEventReader2 {
+
+    private final XMLEventReader2 source;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private boolean failed;
+
+    public Recorder(XMLEventReader2 source) {
+      this.source = source;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return source.hasNext();
+    }
+
+    @Override
+    public XMLEvent2 nextEvent() {
+      XMLEvent2 event = source.nextEvent();
+      if (!failed) {
+        try {
+          record(event);
+        } catch (UnsupportedOperationException e) {
+          // not all of the xml parsing implementations list attributes and namespaces
+          failed = true;
+        }
+      }
+      return event;
+    }
+
+    private void record(XMLEvent2 event) {
+      if (event.isStartElement()) {
+        StartElement2 element = event.asStartElement();
+        out.write(START_ELEMENT);
+        writeName(element.getName());
+        Enumerable<Attribute2> attributes = element.getAttributes();
+        writeInt(attributes.count());
+        for (Attribute2 attribute : attributes) {
+          writeName(attribute.getName());
+          writeString(attribute.getValue());
+        }
+        Enumerable<Namespace2> namespaces = element.getNamespaces();
+        writeInt(namespaces.count());
+        for (Namespace2 namespace : namespaces) {
+          writeString(namespace.getPrefix());
+          writeString(namespace.getNamespaceURI());
+        }
+      } else if (event.isEndElement()) {
+        out.write(END_ELEMENT);
+        writeName(event.asEndElement().getName());
+      } else if (event.isCharacters()) {
+        out.write(CHARACTERS);
+        writeString(event.asCharacters().getData());
+      } else {
+        out.write(OTHER);
+      }
+    }
+
+    @Override
+    public String getElementText() {
+      // read through nextEvent, so that the events are recorded
+      return BinaryXMLEvents.getElementText(this);
+    }
+
+    /**
+     * Gets the events read so far.
+     *
+     * @return the binary events, or null if the events of the source reader could not be recorded
+     */
+    public byte[] toByteArray() {
+      if (failed)
+        return null;
+      byte[] rt = out.toByteArray();
+      byte[] withEnd = new byte[rt.length + 1];
+      System.arraycopy(rt, 0, withEnd, 0, rt.length);
+      withEnd[rt.length] = END;
+      return withEnd;
+    }
+
+    private void writeName(QName2 name) {
+      writeString(name.getNamespaceUri());
+      writeString(name.getLocalPart());
+      writeString(name.getPrefix());
+    }
+
+    private void writeString(String value) {
+      if (value == null) {
+        writeInt(NULL_STRING);
+        return;
+      }
+      Integer index = strings.get(value);
+      if (index != null) {
+        writeInt(index + 2);
+        return;
+      }
+      strings.put(value, strings.size());
+      byte[] bytes = value.getBytes(UTF_8);
+      writeInt(NEW_STRING);
+      writeInt(bytes.length);
+      out.write(bytes, 0, bytes.length);
+    }
+
+    private void writeInt(int value) {
+      while ((value & ~0x7F) != 0) {
+        out.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.write(value);
+    }
+  }
+
+  private static String getElementText(XMLEventReader2 reader) {
+    StringBuilder rt = new StringBuilder();
+    while (reader.hasNext()) {
+      XMLEvent2 event = reader.nextEvent();
+      if (event.isEndElement())
+        return rt.toString();
+      if (event.isStartElement())
+        throw new IllegalStateException("Element text expected, found a start element");
+      if (event.isCharacters())
+        rt.append(event.asCharacters().getData());
+    }
+    throw new NoSuchElementException();
+  }
+
+  private static class BinaryXMLEventReader2 implements XMLEventReader2 {
+
+    private static final XMLEvent2 OTHER_EVENT = new InMemoryXMLEvent2(null, null, null);
+
+    private final byte[] in;
+    private final List<String> strings = new ArrayList<String>();
+    private int position;
+
+    BinaryXMLEventReader2(byte[] in) {
+      this.in = in;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < in.length && in[position] != END;
+    }
+
+    @Override
+    public XMLEvent2 nextEvent() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      try {
+        switch (in[position++]) {
+        case START_ELEMENT:
+          QName2 name = readName();
+          int attributeCount = readInt();
+          List<Attribute2> attributes = new ArrayList<Attribute2>(attributeCount);
+          for (int i = 0; i < attributeCount; i++)
+            attributes.add(new InMemoryAttribute2(readName(), readString()));
+          int namespaceCount = readInt();
+          List<Namespace2> namespaces = new ArrayList<Namespace2>(namespaceCount);
+          for (int i = 0; i < namespaceCount; i++)
+            namespaces.add(new BinaryNamespace2(readString(), readString()));
+          return new InMemoryXMLEvent2(new BinaryStartElement2(name, attributes, namespaces), null, null);
+        case END_ELEMENT:
+          final QName2 endName = readName();
+          return new InMemoryXMLEvent2(null, new EndElement2() {
+            @Override
+            public QName2 getName() {
+              return endName;
+            }
+          }, null);
+        case CHARACTERS:
+          final String data = readString();
+          return new InMemoryXMLEvent2(null, null, new Characters2() {
+            @Override
+            public String getData() {
+              return data;
+            }
+          });
+        case OTHER:
+          return OTHER_EVENT;
+        default:
+          throw new IOException("Unknown event at " + (position - 1));
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Invalid binary XML events", e);
+      } catch (IndexOutOfBoundsException e) {
+        throw new IllegalStateException("Truncated binary XML events", e);
+      }
+    }
+
+    @Override
+    public String getElementText() {
+      return BinaryXMLEvents.getElementText(this);
+    }
+
+    private QName2 readName() throws IOException {
+      String namespaceUri = readString();
+      String localPart = readString();
+      String prefix = readString();
+      return new QName2(namespaceUri, localPart, prefix);
+    }
+
+    private String readString() throws IOException {
+      int reference = readInt();
+      if (reference == NULL_STRING)
+        return null;
+      if (reference != NEW_STRING)
+        return strings.get(reference - 2);
+      int length = readInt();
+      if (length < 0 || position + length > in.length)
+        throw new IOException("Invalid string length at " + position);
+      String rt = new String(in, position, length, UTF_8);
+      position += length;
+      strings.add(rt);
+      return rt;
+    }
+
+    private int readInt() {
+      int rt = 0;
+      for (int shift = 0;; shift += 7) {
+        int b = in[position++];
+        rt |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0)
+          return rt;
+      }
+    }
+  }
+
+  private static class BinaryStartElement2 implements StartElement2 {
+
+    private final QName2 name;
+    private final List<Attribute2> attributes;
+    private final List<Namespace2> namespaces;
+
+    BinaryStartElement2(QName2 name, List<Attribute2> attributes, List<Namespace2> namespaces) {
+      this.name = name;
+      this.attributes = attributes;
+      this.namespaces = namespaces;
+    }
+
+    @Override
+    public QName2 getName() {
+      return name;
+    }
+
+    @Override
+    public Attribute2 getAttributeByName(QName2 name) {
+      for (Attribute2 attribute : attributes) {
+        // no namespace is null or empty, depending on the reader that was recorded
+        if (equal(attribute.getName().getNamespaceUri(), name.getNamespaceUri())
+            && attribute.getName().getLocalPart().equals(name.getLocalPart()))
+          return attribute;
+      }
+      return null;
+    }
+
+    @Override
+    public Attribute2 getAttributeByName(String name) {
+      return getAttributeByName(new QName2(name));
+    }
+
+    @Override
+    public Enumerable<Attribute2> getAttributes() {
+      return Enumerable.create(attributes);
+    }
+
+    @Override
+    public Enumerable<Namespace2> getNamespaces() {
+      return Enumerable.create(namespaces);
+    }
+
+    private static boolean equal(String lhs, String rhs) {
+      return (lhs == null || lhs.isEmpty()) ? (rhs == null || rhs.isEmpty()) : lhs.equals(rhs);
+    }
+  }
+
+  private static class BinaryNamespace2 implements Namespace2 {
+
+    private final String prefix;
+    private final String namespaceUri;
+
+    BinaryNamespace2(String prefix, String namespaceUri) {
+      this.prefix = prefix;
+      this.namespaceUri = namespaceUri;
+    }
+
+    @Override
+    public String getValue() {
+      return namespaceUri;
+    }
+
+    @Override
+    public QName2 getName() {
+      return isDefaultNamespaceDeclaration()
+          ? new QName2(XMLNS_URI, "xmlns", "")
+          : new QName2(XMLNS_URI, prefix, "xmlns");
+    }
+
+    @Override
+    public String getNamespaceURI() {
+      return namespaceUri;
+    }
+
+    @Override
+    public String getPrefix() {
+      return prefix;
+    }
+
+    @Override
+    public boolean isDefaultNamespaceDeclaration() {
+      return prefix == null || prefix.isEmpty();
+    }
+  }
+
+}
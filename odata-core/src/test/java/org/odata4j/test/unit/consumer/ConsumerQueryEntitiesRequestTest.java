@@ -0,0 +1,266 @@
+package org.odata4j.test.unit.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response.StatusType;
+
+import org.junit.Test;
+import org.odata4j.consumer.AbstractODataClient;
+import org.odata4j.consumer.ConsumerQueryEntitiesRequest;
+import org.odata4j.consumer.ODataClientBatchResponse;
+import org.odata4j.consumer.ODataClientRequest;
+import org.odata4j.consumer.ODataClientResponse;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.Responses;
+import org.odata4j.stax2.XMLEventReader2;
+
+public class ConsumerQueryEntitiesRequestTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/test.svc/";
+
+  private final EdmDataServices metadata = metadata();
+
+  @Test
+  public void pagesAreFetchedOneAfterAnother() {
+    PagingClient client = new PagingClient(5, 3);
+    assertEquals(ids(15), ids(request(client).execute()));
+    assertEquals(5, client.requests.get());
+    assertEquals(0, client.open.get());
+  }
+
+  @Test
+  public void responsesAreClosedWhenEnumerationStopsEarly() {
+    PagingClient client = new PagingClient(5, 3);
+    assertEquals(0, request(client).execute().first().getProperty("Id").getValue());
+    assertEquals(1, client.requests.get());
+    assertEquals(0, client.open.get());
+
+    assertEquals(ids(2), ids(request(client).execute().take(2)));
+    assertEquals(0, client.open.get());
+  }
+
+  @Test
+  public void pagesAreStreamed() {
+    PagingClient client = new PagingClient(5, 3);
+    assertEquals(ids(15), ids(request(client).streaming(true).execute()));
+    assertEquals(5, client.requests.get());
+    assertEquals(0, client.open.get());
+
+    // the response of a page is open until its entries have been enumerated
+    Iterator<OEntity> entities = request(client).streaming(true).execute().iterator();
+    entities.next();
+    assertEquals(1, client.open.get());
+    entities.next();
+    entities.next();
+    entities.next();
+    assertEquals(1, client.open.get());
+  }
+
+  @Test
+  public void pagesArePrefetched() {
+    PagingClient client = new PagingClient(5, 3);
+    CountingExecutor executor = new CountingExecutor();
+    assertEquals(ids(15), ids(request(client).prefetch(2, executor).execute()));
+    assertEquals(5, client.requests.get());
+    // every page but the first one
+    assertEquals(4, executor.executions.get());
+    assertEquals(0, client.open.get());
+
+    // the default executor
+    assertEquals(ids(15), ids(request(new PagingClient(5, 3)).prefetch(1).execute()));
+  }
+
+  @Test
+  public void longSkipChainsDoNotRecurse() {
+    PagingClient client = new PagingClient(5000, 0);
+    assertEquals(0, ids(request(client).execute()).size());
+    assertEquals(5000, client.requests.get());
+  }
+
+  @Test
+  public void prefetchingIsBounded() {
+    PagingClient client = new PagingClient(10, 3);
+    Executor direct = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    };
+    Iterator<OEntity> entities = request(client).prefetch(2, direct).execute().iterator();
+    entities.next();
+    // the first page being enumerated and the two pages after it
+    assertEquals(3, client.requests.get());
+    for (int i = 1; i < 4; i++)
+      entities.next();
+    // taking the second page makes room for one more
+    assertEquals(4, client.requests.get());
+    for (int i = 4; i < 6; i++)
+      entities.next();
+    assertEquals(4, client.requests.get());
+  }
+
+  private ConsumerQueryEntitiesRequest<OEntity> request(PagingClient client) {
+    return new ConsumerQueryEntitiesRequest<OEntity>(client, OEntity.class, SERVICE_ROOT, metadata, "Products", null);
+  }
+
+  private static List<Object> ids(Iterable<OEntity> entities) {
+    List<Object> rt = new ArrayList<Object>();
+    for (OEntity entity : entities)
+      rt.add(entity.getProperty("Id").getValue());
+    return rt;
+  }
+
+  private static List<Object> ids(int count) {
+    List<Object> rt = new ArrayList<Object>();
+    for (int i = 0; i < count; i++)
+      rt.add(i);
+    return rt;
+  }
+
+  private static class CountingExecutor implements Executor {
+
+    final AtomicInteger executions = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable command) {
+      executions.incrementAndGet();
+      new Thread(command).start();
+    }
+  }
+
+  /** Answers entity-set requests with pages linked by skip tokens. */
+  private class PagingClient extends AbstractODataClient {
+
+    private final int pages;
+    private final int pageSize;
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger open = new AtomicInteger();
+
+    PagingClient(int pages, int pageSize) {
+      super(FormatType.ATOM);
+      this.pages = pages;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    protected ODataClientResponse doRequest(FormatType reqType, ODataClientRequest request, StatusType... expectedResponseStatus) {
+      requests.incrementAndGet();
+      String skipToken = request.getQueryParams().get("$skiptoken");
+      if (skipToken == null && request.getUrl().contains("skiptoken="))
+        skipToken = request.getUrl().substring(request.getUrl().indexOf("skiptoken=") + "skiptoken=".length());
+      int page = skipToken == null ? 0 : Integer.parseInt(skipToken);
+
+      EdmEntitySet entitySet = metadata.getEdmEntitySet("Products");
+      List<OEntity> entities = new ArrayList<OEntity>();
+      for (int i = page * pageSize; i < (page + 1) * pageSize; i++) {
+        List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+        properties.add(OProperties.int32("Id", i));
+        entities.add(OEntities.create(entitySet, OEntityKey.create(i), properties, new ArrayList<OLink>()));
+      }
+      EntitiesResponse response = Responses.entities(entities, entitySet, null, page + 1 < pages ? Integer.toString(page + 1) : null);
+      StringWriter out = new StringWriter();
+      FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, FormatType.ATOM.toString(), null)
+          .write(new ODataBatchUriInfo(URI.create(SERVICE_ROOT + "Products"), URI.create(SERVICE_ROOT)), out, response);
+
+      open.incrementAndGet();
+      final String body = out.toString();
+      return new ODataClientResponse() {
+        private boolean closed;
+
+        @Override
+        public MultivaluedMap<String, String> getHeaders() {
+          return new MultivaluedHashMap<String, String>();
+        }
+
+        @Override
+        public InputStream getEntityInputStream() {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MediaType getMediaType() {
+          return MediaType.APPLICATION_ATOM_XML_TYPE;
+        }
+
+        @Override
+        public void close() {
+          if (!closed)
+            open.decrementAndGet();
+          closed = true;
+        }
+
+        @Override
+        public String toString() {
+          return body;
+        }
+      };
+    }
+
+    @Override
+    public Reader getFeedReader(ODataClientResponse response) {
+      assertTrue(response.getMediaType() != null);
+      return new StringReader(response.toString());
+    }
+
+    @Override
+    public Reader getFeedReader(String payload) {
+      return new StringReader(payload);
+    }
+
+    @Override
+    protected XMLEventReader2 toXml(ODataClientResponse response) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<ODataClientBatchResponse> batchRequest(FormatType formatType, ODataClientRequest batchRequest, List<?> childRequests) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String requestBody(FormatType formatType, ODataClientRequest request) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static EdmDataServices metadata() {
+    EdmEntityType.Builder product = EdmEntityType.newBuilder().setNamespace("Test").setName("Product").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32));
+    EdmEntitySet.Builder products = EdmEntitySet.newBuilder().setName("Products").setEntityType(product);
+    EdmSchema.Builder schema = EdmSchema.newBuilder().setNamespace("Test").addEntityTypes(product)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName("Container").setIsDefault(true).addEntitySets(products));
+    return EdmDataServices.newBuilder().addSchemas(schema).build();
+  }
+
+}
@@ -0,0 +1,272 @@
+package org.odata4j.test.unit.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.Response.StatusType;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.odata4j.consumer.AbstractODataClient;
+import org.odata4j.consumer.MetadataCache;
+import org.odata4j.consumer.ODataClientBatchResponse;
+import org.odata4j.consumer.ODataClientRequest;
+import org.odata4j.consumer.ODataClientResponse;
+import org.odata4j.consumer.ODataClientStatusResponse;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.xml.EdmxFormatWriter;
+import org.odata4j.stax2.XMLEventReader2;
+import org.odata4j.stax2.util.StaxUtil;
+
+public class MetadataCacheTest {
+
+  private static final String METADATA_URI = "http://localhost/test.svc/$metadata";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void metadataIsRevalidated() throws Exception {
+    MetadataClient client = new MetadataClient(new MetadataCache(0));
+    EdmDataServices metadata = client.getMetadata(ODataClientRequest.get(METADATA_URI));
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals(2, client.requests);
+    assertEquals(1, client.downloads);
+
+    client.entityTag = "\"2\"";
+    assertNotSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals(2, client.downloads);
+  }
+
+  @Test
+  public void notModifiedIsTheStatus() throws Exception {
+    MetadataClient client = new MetadataClient(new MetadataCache(0));
+    EdmDataServices metadata = client.getMetadata(ODataClientRequest.get(METADATA_URI));
+
+    // a 304 without an entity tag keeps the stored one
+    client.notModifiedEntityTag = null;
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals("\"1\"", client.ifNoneMatch);
+    assertEquals(1, client.downloads);
+
+    // one with another entity tag replaces it
+    client.notModifiedEntityTag = "W/\"1\"";
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals("W/\"1\"", client.ifNoneMatch);
+    assertEquals(1, client.downloads);
+  }
+
+  @Test
+  public void responsesWithoutStatusAreMatchedByEntityTag() throws Exception {
+    MetadataClient client = new MetadataClient(new MetadataCache(0));
+    client.exposesStatus = false;
+    EdmDataServices metadata = client.getMetadata(ODataClientRequest.get(METADATA_URI));
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals(1, client.downloads);
+
+    client.entityTag = "\"2\"";
+    assertNotSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals(2, client.downloads);
+  }
+
+  @Test
+  public void freshMetadataIsNotRevalidated() throws Exception {
+    MetadataClient client = new MetadataClient(new MetadataCache(60 * 1000));
+    EdmDataServices metadata = client.getMetadata(ODataClientRequest.get(METADATA_URI));
+    assertSame(metadata, client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals(1, client.requests);
+  }
+
+  @Test
+  public void snapshotsAreUsedByOtherCaches() throws Exception {
+    File directory = folder.newFolder();
+    MetadataClient client = new MetadataClient(new MetadataCache(directory, 60 * 1000));
+    String expected = write(client.getMetadata(ODataClientRequest.get(METADATA_URI)));
+    assertEquals(1, directory.list().length);
+
+    // as in a new process
+    client = new MetadataClient(new MetadataCache(directory, 60 * 1000));
+    assertEquals(expected, write(client.getMetadata(ODataClientRequest.get(METADATA_URI))));
+    assertEquals(0, client.requests);
+
+    // revalidated, then downloaded once the service has changed it
+    client = new MetadataClient(new MetadataCache(directory, 0));
+    assertEquals(expected, write(client.getMetadata(ODataClientRequest.get(METADATA_URI))));
+    assertEquals(1, client.requests);
+    assertEquals(0, client.downloads);
+    // an entity tag sent with a 304 replaces the one of the snapshot
+    client = new MetadataClient(new MetadataCache(directory, 0));
+    client.notModifiedEntityTag = "W/\"1\"";
+    client.getMetadata(ODataClientRequest.get(METADATA_URI));
+    client = new MetadataClient(new MetadataCache(directory, 0));
+    assertEquals(expected, write(client.getMetadata(ODataClientRequest.get(METADATA_URI))));
+    assertEquals("W/\"1\"", client.ifNoneMatch);
+    assertEquals(0, client.downloads);
+
+    client = new MetadataClient(new MetadataCache(directory, 0));
+    client.entityTag = "\"2\"";
+    assertEquals(expected, write(client.getMetadata(ODataClientRequest.get(METADATA_URI))));
+    assertEquals(1, client.downloads);
+  }
+
+  @Test
+  public void unreadableSnapshotsAreIgnored() throws Exception {
+    File directory = folder.newFolder();
+    new MetadataClient(new MetadataCache(directory, 60 * 1000)).getMetadata(ODataClientRequest.get(METADATA_URI));
+    for (File file : directory.listFiles()) {
+      FileOutputStream out = new FileOutputStream(file);
+      out.write(new byte[] { 0x4F, 0x44, 0x4D });
+      out.close();
+    }
+
+    MetadataClient client = new MetadataClient(new MetadataCache(directory, 60 * 1000));
+    assertTrue(client.getMetadata(ODataClientRequest.get(METADATA_URI)).getSchemas().size() > 0);
+    assertEquals(1, client.downloads);
+  }
+
+  private static String write(EdmDataServices metadata) {
+    StringWriter rt = new StringWriter();
+    EdmxFormatWriter.write(metadata, rt);
+    return rt.toString();
+  }
+
+  private static class DocumentResponse implements ODataClientResponse {
+
+    private final MultivaluedMap<String, String> headers;
+    private final String body;
+
+    DocumentResponse(MultivaluedMap<String, String> headers, String body) {
+      this.headers = headers;
+      this.body = body;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public InputStream getEntityInputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public MediaType getMediaType() {
+      return MediaType.APPLICATION_XML_TYPE;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public String toString() {
+      return body;
+    }
+  }
+
+  private static class StatusResponse extends DocumentResponse implements ODataClientStatusResponse {
+
+    private final int status;
+
+    StatusResponse(MultivaluedMap<String, String> headers, String body, int status) {
+      super(headers, body);
+      this.status = status;
+    }
+
+    @Override
+    public int getStatus() {
+      return status;
+    }
+  }
+
+  /** Answers $metadata requests, with 304 if the request has the entity tag of the document. */
+  private static class MetadataClient extends AbstractODataClient {
+
+    private final String document;
+    String entityTag = "\"1\"";
+    // the entity tag sent with a 304, null to send none
+    String notModifiedEntityTag = entityTag;
+    String ifNoneMatch;
+    // whether responses implement ODataClientStatusResponse
+    boolean exposesStatus = true;
+    int requests;
+    int downloads;
+
+    MetadataClient(MetadataCache cache) throws Exception {
+      super(FormatType.ATOM);
+      setMetadataCache(cache);
+      InputStreamReader reader = new InputStreamReader(getClass().getResourceAsStream("/META-INF/edmx.xml"), Charsets.Upper.UTF_8);
+      StringWriter document = new StringWriter();
+      char[] buffer = new char[4096];
+      for (int n; (n = reader.read(buffer)) > 0;)
+        document.write(buffer, 0, n);
+      reader.close();
+      this.document = document.toString();
+    }
+
+    @Override
+    protected ODataClientResponse doRequest(FormatType reqType, ODataClientRequest request, StatusType... expectedResponseStatus) {
+      requests++;
+      ifNoneMatch = request.getHeaders().get(HttpHeaders.IF_NONE_MATCH);
+      final boolean notModified = entityTag.equals(ifNoneMatch) || ("W/" + entityTag).equals(ifNoneMatch);
+      if (notModified)
+        assertTrue(Arrays.asList(expectedResponseStatus).contains(Status.NOT_MODIFIED));
+      else
+        downloads++;
+      final MultivaluedMap<String, String> headers = new MultivaluedHashMap<String, String>();
+      String responseEntityTag = notModified ? notModifiedEntityTag : entityTag;
+      if (responseEntityTag != null)
+        headers.putSingle(HttpHeaders.ETAG, responseEntityTag);
+      String body = notModified ? "" : document;
+      return exposesStatus ? new StatusResponse(headers, body, notModified ? 304 : 200) : new DocumentResponse(headers, body);
+    }
+
+    @Override
+    protected XMLEventReader2 toXml(ODataClientResponse response) {
+      return StaxUtil.newXMLEventReader(new StringReader(response.toString()));
+    }
+
+    @Override
+    public Reader getFeedReader(ODataClientResponse response) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Reader getFeedReader(String payload) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<ODataClientBatchResponse> batchRequest(FormatType formatType, ODataClientRequest batchRequest, List<?> childRequests) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String requestBody(FormatType formatType, ODataClientRequest request) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
@@ -0,0 +1,307 @@
+package org.odata4j.test.unit.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response.StatusType;
+import jakarta.ws.rs.core.UriBuilder;
+
+import org.core4j.Func;
+import org.junit.Test;
+import org.odata4j.consumer.AbstractODataClient;
+import org.odata4j.consumer.ConsumerQueryEntitiesRequest;
+import org.odata4j.consumer.ODataClientBatchResponse;
+import org.odata4j.consumer.ODataClientRequest;
+import org.odata4j.consumer.ODataClientResponse;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntity;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.inmemory.InMemoryProducer;
+import org.odata4j.producer.resources.OptionsQueryParser;
+import org.odata4j.stax2.XMLEventReader2;
+import org.odata4j.urlencoder.ConversionUtil;
+
+public class PartitionedQueryTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/test.svc/";
+  private static final int COUNT = 100;
+
+  private final List<Product> products = products();
+  private final InMemoryProducer producer = producer(products);
+
+  @Test
+  public void everyEntityIsReturnedOnce() {
+    ProducerClient client = new ProducerClient();
+    CountingExecutor executor = new CountingExecutor();
+    List<Integer> ids = ids(request(client).partition("Id", 4, executor).execute());
+    Collections.sort(ids);
+    assertEquals(ids(products), ids);
+    assertEquals(4, client.partitions());
+    // every page is fetched on the executor
+    assertEquals(client.pages.get(), executor.executions.get());
+    assertEquals(0, client.open.get());
+  }
+
+  @Test
+  public void partitionsAreMergedInOrder() {
+    ProducerClient client = new ProducerClient();
+    List<Product> expected = new ArrayList<Product>();
+    for (Product product : products)
+      if (product.getId() >= 10)
+        expected.add(product);
+    Collections.sort(expected, new Comparator<Product>() {
+      @Override
+      public int compare(Product a, Product b) {
+        return b.getName().compareTo(a.getName());
+      }
+    });
+    expected = expected.subList(5, 35);
+
+    List<Integer> ids = ids(request(client).filter("Id ge 10").orderBy("Name desc").skip(5).top(30).partition("Id", 3).execute());
+    assertEquals(ids(expected), ids);
+    assertEquals(3, client.partitions());
+    // every sub-query returns at most skip + top entities
+    for (String top : client.tops)
+      assertEquals("35", top);
+  }
+
+  @Test
+  public void nullValuesHaveTheirOwnPartition() {
+    ProducerClient client = new ProducerClient();
+    List<Integer> ids = ids(request(client).partition("Rank", 3).execute());
+    Collections.sort(ids);
+    assertEquals(ids(products), ids);
+    assertEquals(4, client.partitions());
+  }
+
+  @Test
+  public void partitionsAreBoundedByTheCount() {
+    ProducerClient client = new ProducerClient();
+    List<Integer> ids = ids(request(client).filter("Id lt 2").partition("Id", 8).execute());
+    Collections.sort(ids);
+    assertEquals(ids(products.subList(0, 2)), ids);
+    assertEquals(2, client.partitions());
+  }
+
+  @Test
+  public void onlyIntegralPropertiesCanBePartitioned() {
+    try {
+      request(new ProducerClient()).partition("Name", 2).execute();
+      fail("partitioned on a string");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private ConsumerQueryEntitiesRequest<OEntity> request(ProducerClient client) {
+    return new ConsumerQueryEntitiesRequest<OEntity>(client, OEntity.class, SERVICE_ROOT, producer.getMetadata(), "Products", null);
+  }
+
+  private static List<Integer> ids(Iterable<OEntity> entities) {
+    List<Integer> rt = new ArrayList<Integer>();
+    for (OEntity entity : entities)
+      rt.add((Integer) entity.getProperty("Id").getValue());
+    return rt;
+  }
+
+  private static List<Integer> ids(List<Product> products) {
+    List<Integer> rt = new ArrayList<Integer>();
+    for (Product product : products)
+      rt.add(product.getId());
+    return rt;
+  }
+
+  private static List<Product> products() {
+    List<Product> rt = new ArrayList<Product>();
+    for (int i = 0; i < COUNT; i++)
+      rt.add(new Product(i, i % 10 == 0 ? null : i % 7, String.format("Product %03d", (i * 37) % COUNT)));
+    return rt;
+  }
+
+  private static InMemoryProducer producer(final List<Product> products) {
+    InMemoryProducer producer = new InMemoryProducer("Test", 7);
+    producer.register(Product.class, "Products", new Func<Iterable<Product>>() {
+      @Override
+      public Iterable<Product> apply() {
+        return products;
+      }
+    }, "Id");
+    return producer;
+  }
+
+  public static class Product {
+
+    private final int id;
+    private final Integer rank;
+    private final String name;
+
+    Product(int id, Integer rank, String name) {
+      this.id = id;
+      this.rank = rank;
+      this.name = name;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public Integer getRank() {
+      return rank;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private static class CountingExecutor implements Executor {
+
+    final AtomicInteger executions = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable command) {
+      executions.incrementAndGet();
+      new Thread(command).start();
+    }
+  }
+
+  /** Answers entity-set and count requests from the in-memory producer. */
+  private class ProducerClient extends AbstractODataClient {
+
+    final AtomicInteger open = new AtomicInteger();
+    // pages of sub-queries, not probes
+    final AtomicInteger pages = new AtomicInteger();
+    // the $filter and $top of the first page of every sub-query
+    final List<String> filters = Collections.synchronizedList(new ArrayList<String>());
+    final List<String> tops = Collections.synchronizedList(new ArrayList<String>());
+
+    ProducerClient() {
+      super(FormatType.ATOM);
+    }
+
+    int partitions() {
+      return filters.size();
+    }
+
+    /** The decoded query options, given as parameters or, in next links, in the URL. */
+    private Map<String, String> params(ODataClientRequest request) {
+      Map<String, String> rt = new HashMap<String, String>();
+      for (Map.Entry<String, String> param : request.getQueryParams().entrySet())
+        rt.put(param.getKey(), param.getKey().equals("$filter") ? ConversionUtil.decodeString(param.getValue()) : param.getValue());
+      MultivaluedMap<String, String> query = ConversionUtil.decodeQueryString(URI.create(request.getUrl()));
+      for (String name : query.keySet())
+        rt.put(name, query.getFirst(name));
+      return rt;
+    }
+
+    private QueryInfo query(Map<String, String> params) {
+      return QueryInfo.newBuilder()
+          .setTop(OptionsQueryParser.parseTop(params.get("$top")))
+          .setSkip(OptionsQueryParser.parseSkip(params.get("$skip")))
+          .setFilter(OptionsQueryParser.parseFilter(params.get("$filter")))
+          .setOrderBy(OptionsQueryParser.parseOrderBy(params.get("$orderby")))
+          .setSkipToken(OptionsQueryParser.parseSkipToken(params.get("$skiptoken")))
+          .build();
+    }
+
+    @Override
+    protected ODataClientResponse doRequest(FormatType reqType, ODataClientRequest request, StatusType... expectedResponseStatus) {
+      Map<String, String> params = params(request);
+      if (!"1".equals(params.get("$top")))
+        pages.incrementAndGet();
+      if (params.get("$skiptoken") == null && !"1".equals(params.get("$top"))) {
+        filters.add(params.get("$filter"));
+        tops.add(params.get("$top"));
+      }
+      EntitiesResponse response = producer.getEntities(null, "Products", query(params));
+      // next links keep the query options, as they do in a service
+      UriBuilder requestUri = UriBuilder.fromUri(SERVICE_ROOT + "Products");
+      for (Map.Entry<String, String> param : params.entrySet())
+        requestUri.queryParam(param.getKey(), param.getValue());
+      StringWriter out = new StringWriter();
+      FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, FormatType.ATOM.toString(), null)
+          .write(new ODataBatchUriInfo(requestUri.build(), URI.create(SERVICE_ROOT)), out, response);
+
+      open.incrementAndGet();
+      final String body = out.toString();
+      return new ODataClientResponse() {
+        private boolean closed;
+
+        @Override
+        public MultivaluedMap<String, String> getHeaders() {
+          return new MultivaluedHashMap<String, String>();
+        }
+
+        @Override
+        public InputStream getEntityInputStream() {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MediaType getMediaType() {
+          return MediaType.APPLICATION_ATOM_XML_TYPE;
+        }
+
+        @Override
+        public synchronized void close() {
+          if (!closed)
+            open.decrementAndGet();
+          closed = true;
+        }
+
+        @Override
+        public String toString() {
+          return body;
+        }
+      };
+    }
+
+    @Override
+    public String requestBody(FormatType formatType, ODataClientRequest request) {
+      assertTrue(request.getUrl(), request.getUrl().endsWith("/$count"));
+      return Long.toString(producer.getEntitiesCount(null, "Products", query(params(request))).getCount());
+    }
+
+    @Override
+    public Reader getFeedReader(ODataClientResponse response) {
+      return new StringReader(response.toString());
+    }
+
+    @Override
+    public Reader getFeedReader(String payload) {
+      return new StringReader(payload);
+    }
+
+    @Override
+    protected XMLEventReader2 toXml(ODataClientResponse response) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<ODataClientBatchResponse> batchRequest(FormatType formatType, ODataClientRequest batchRequest, List<?> childRequests) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
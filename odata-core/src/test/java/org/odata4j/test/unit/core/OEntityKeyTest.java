@@ -11,6 +11,7 @@ import org.odata4j.core.NamedValue;
 import org.odata4j.core.OEntityKey;
 import org.odata4j.core.OEntityKey.KeyType;
 import org.odata4j.core.OProperties;
+import org.odata4j.urlencoder.ConversionUtil;
 
 public class OEntityKeyTest {
 
@@ -65,6 +66,13 @@ public class OEntityKeyTest {
     Assert.fail("Did not throw expected IllegalArgumentException");
   }
 
+  @Test
+  public void uriKeyStringTests() {
+    OEntityKey k = k("a b/c'd");
+    Assert.assertEquals(ConversionUtil.encodeString(k.toKeyString()), k.toUriKeyString());
+    Assert.assertSame(k.toUriKeyString(), k.toUriKeyString());
+  }
+
   private static OEntityKey k(Object value) {
     return OEntityKey.create(value);
   }
@@ -0,0 +1,145 @@
+package org.odata4j.test.unit.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.odata4j.core.OComplexObject;
+import org.odata4j.core.OComplexObjects;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.core.OPropertyValues;
+import org.odata4j.edm.EdmComplexType;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmPropertyLayout;
+import org.odata4j.edm.EdmSimpleType;
+
+public class OPropertyValuesTest {
+
+  private static final EdmEntityType.Builder BASE_TYPE = EdmEntityType.newBuilder().setNamespace("Test").setName("Base")
+      .addKeys("Id")
+      .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32));
+
+  private static final EdmEntitySet PRODUCTS = EdmEntitySet.newBuilder().setName("Products")
+      .setEntityType(EdmEntityType.newBuilder().setNamespace("Test").setName("Product").setBaseType(BASE_TYPE)
+          .addProperties(EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING),
+              EdmProperty.newBuilder("Price").setType(EdmSimpleType.DOUBLE),
+              EdmProperty.newBuilder("Stock").setType(EdmSimpleType.INT64),
+              EdmProperty.newBuilder("Discontinued").setType(EdmSimpleType.BOOLEAN),
+              EdmProperty.newBuilder("Weight").setType(EdmSimpleType.SINGLE),
+              EdmProperty.newBuilder("Rating").setType(EdmSimpleType.SBYTE),
+              EdmProperty.newBuilder("Shelf").setType(EdmSimpleType.INT16),
+              EdmProperty.newBuilder("Cost").setType(EdmSimpleType.DECIMAL)))
+      .build();
+
+  @Test
+  public void layout() {
+    EdmPropertyLayout layout = PRODUCTS.getType().getPropertyLayout();
+    assertSame(layout, PRODUCTS.getType().getPropertyLayout());
+    assertEquals(9, layout.size());
+    assertEquals(0, layout.slotOf("Id"));
+    assertEquals(2, layout.slotOf("Price"));
+    assertEquals(-1, layout.slotOf("Missing"));
+    assertEquals(EdmPropertyLayout.DOUBLE, layout.getKind(2));
+    assertEquals(EdmPropertyLayout.OBJECT, layout.getKind(1));
+    assertEquals(2, layout.getObjectCount());
+    assertEquals(7, layout.getPrimitiveCount());
+  }
+
+  @Test
+  public void compactEntitiesHaveTheProperties() {
+    List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+    properties.add(OProperties.int32("Id", 7));
+    properties.add(OProperties.string("Name", "Widget"));
+    properties.add(OProperties.double_("Price", 2.5d));
+    properties.add(OProperties.int64("Stock", 1L << 40));
+    properties.add(OProperties.boolean_("Discontinued", true));
+    properties.add(OProperties.single("Weight", 0.1f));
+    properties.add(OProperties.sbyte_("Rating", (byte) -3));
+    properties.add(OProperties.int16("Shelf", (short) 12));
+    properties.add(OProperties.decimal("Cost", new BigDecimal("1.25")));
+    OEntity expected = OEntities.create(PRODUCTS, OEntityKey.create(7), properties, new ArrayList<OLink>());
+
+    OPropertyValues values = OPropertyValues.create(PRODUCTS.getType()).setAll(properties);
+    OEntity entity = OEntities.createCompact(PRODUCTS, OEntityKey.create(7), values, new ArrayList<OLink>());
+
+    assertEquals(expected.getProperties().toString(), entity.getProperties().toString());
+    assertEquals(expected.toString(), entity.toString());
+    assertEquals(0.1f, entity.getProperty("Weight").getValue());
+    assertSame(EdmSimpleType.INT64, entity.getProperty("Stock").getType());
+    assertSame(PRODUCTS.getType(), entity.getEntityType());
+    try {
+      entity.getProperty("Missing");
+      fail();
+    } catch (RuntimeException e) {
+      // as for other entities
+    }
+  }
+
+  @Test
+  public void valuesAreConvertedAndCopied() {
+    EdmPropertyLayout layout = PRODUCTS.getType().getPropertyLayout();
+    OPropertyValues values = new OPropertyValues(layout)
+        .setInt(layout.slotOf("Id"), 1)
+        .set("Stock", 5)
+        .set("Price", "3.5")
+        .set("Name", 'x');
+    OEntity first = OEntities.createCompact(PRODUCTS, OEntityKey.create(1), values, null);
+
+    values.clear().setInt(0, 2).setDouble(2, 4d);
+    OEntity second = OEntities.createCompact(PRODUCTS, OEntityKey.create(2), values, null);
+
+    assertEquals(5L, first.getProperty("Stock").getValue());
+    assertEquals(3.5d, first.getProperty("Price").getValue());
+    assertEquals("x", first.getProperty("Name").getValue());
+    assertNull(first.getProperty("Discontinued").getValue());
+    assertEquals(2, second.getProperty("Id").getValue());
+    assertNull(second.getProperty("Stock").getValue());
+    assertNull(second.getProperty("Name").getValue());
+
+    try {
+      values.setInt(layout.slotOf("Stock"), 1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Int64
+    }
+    try {
+      values.set("Missing", 1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void compactComplexObjects() {
+    EdmComplexType address = EdmComplexType.newBuilder().setNamespace("Test").setName("Address")
+        .addProperties(EdmProperty.newBuilder("Street").setType(EdmSimpleType.STRING),
+            EdmProperty.newBuilder("Number").setType(EdmSimpleType.INT32))
+        .build();
+    OComplexObject object = OComplexObjects.createCompact(address, OPropertyValues.create(address).set("Street", "Main").set("Number", 12));
+    assertEquals("Main", object.getProperty("Street").getValue());
+    assertEquals(12, object.getProperty("Number", Integer.class).getValue().intValue());
+    assertEquals(2, object.getProperties().size());
+
+    try {
+      OComplexObjects.createCompact(address, OPropertyValues.create(PRODUCTS.getType()));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // values of another type
+    }
+  }
+
+}
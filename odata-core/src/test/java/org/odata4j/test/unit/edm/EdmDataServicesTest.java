@@ -0,0 +1,125 @@
+package org.odata4j.test.unit.edm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.core4j.Enumerable;
+import org.junit.Test;
+import org.odata4j.edm.EdmComplexType;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmFunctionImport;
+import org.odata4j.edm.EdmFunctionImport.FunctionKind;
+import org.odata4j.edm.EdmFunctionParameter;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.edm.EdmStructuralType;
+import org.odata4j.edm.EdmType;
+import org.odata4j.exceptions.BadRequestException;
+import org.odata4j.exceptions.NotFoundException;
+
+public class EdmDataServicesTest {
+
+  private static EdmDataServices createMetadata() {
+    EdmEntityType.Builder product = EdmEntityType.newBuilder().setNamespace("NS").setName("Product").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32), EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING));
+    EdmEntityType.Builder book = EdmEntityType.newBuilder().setNamespace("NS").setName("Book").setBaseType(product)
+        .addProperties(EdmProperty.newBuilder("Isbn").setType(EdmSimpleType.STRING));
+    EdmEntityType.Builder order = EdmEntityType.newBuilder().setNamespace("Other").setName("Order").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32));
+    EdmComplexType.Builder address = EdmComplexType.newBuilder().setNamespace("NS").setName("Address")
+        .addProperties(EdmProperty.newBuilder("City").setType(EdmSimpleType.STRING));
+
+    EdmEntitySet.Builder products = EdmEntitySet.newBuilder().setName("Products").setEntityType(product);
+    EdmEntitySet.Builder orders = EdmEntitySet.newBuilder().setName("Orders").setEntityType(order);
+    EdmEntitySet.Builder otherProducts = EdmEntitySet.newBuilder().setName("Products").setEntityType(order);
+
+    EdmFunctionImport.Builder topProducts = EdmFunctionImport.newBuilder().setName("Top").setReturnType(EdmSimpleType.INT32);
+    EdmFunctionImport.Builder boundTop = EdmFunctionImport.newBuilder().setName("Top").setBindable(true)
+        .setReturnType(EdmSimpleType.INT32)
+        .addParameters(EdmFunctionParameter.newBuilder().setName("p").setType(product).setBound(true));
+    EdmFunctionImport.Builder otherTop = EdmFunctionImport.newBuilder().setName("Top").setReturnType(EdmSimpleType.INT32);
+
+    EdmSchema.Builder ns = EdmSchema.newBuilder().setNamespace("NS")
+        .addEntityTypes(product, book).addComplexTypes(address)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName("Container").setIsDefault(true)
+            .addEntitySets(products).addFunctionImports(topProducts, boundTop));
+    EdmSchema.Builder other = EdmSchema.newBuilder().setNamespace("Other")
+        .addEntityTypes(order)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName("OtherContainer")
+            .addEntitySets(orders, otherProducts).addFunctionImports(otherTop));
+    return EdmDataServices.newBuilder().addSchemas(ns, other).build();
+  }
+
+  @Test
+  public void entitySets() {
+    EdmDataServices metadata = createMetadata();
+    assertEquals(3, Enumerable.create(metadata.getEntitySets()).count());
+
+    EdmEntitySet products = metadata.findEdmEntitySet("Products");
+    assertEquals("NS.Product", products.getType().getFullyQualifiedTypeName());
+    assertSame(products, metadata.findEdmEntitySet("Container.Products"));
+    EdmEntitySet otherProducts = metadata.findEdmEntitySet("OtherContainer.Products");
+    assertEquals("Other.Order", otherProducts.getType().getFullyQualifiedTypeName());
+    assertNull(metadata.findEdmEntitySet("Missing"));
+    assertNull(metadata.findEdmEntitySet("Missing.Products2"));
+
+    assertEquals("NS", metadata.getSchemaNamespaceOfEdmEntitySet(products));
+    assertEquals("Other", metadata.getSchemaNamespaceOfEdmEntitySet(otherProducts));
+
+    EdmEntityType order = (EdmEntityType) metadata.findEdmEntityType("Other.Order");
+    assertSame(metadata.findEdmEntitySet("Orders"), metadata.getEdmEntitySet(order));
+    try {
+      metadata.getEdmEntitySet((EdmEntityType) metadata.findEdmEntityType("NS.Book"));
+      fail("expected NotFoundException");
+    } catch (NotFoundException expected) {}
+  }
+
+  @Test
+  public void types() {
+    EdmDataServices metadata = createMetadata();
+    assertEquals("Address", metadata.findEdmComplexType("NS.Address").getName());
+    assertNull(metadata.findEdmComplexType("NS.Product"));
+    assertNull(metadata.findEdmEntityType("NS.Address"));
+    assertSame(metadata.findSchema("Other"), metadata.getSchemas().get(1));
+    assertEquals(4, Enumerable.create(metadata.getStructuralTypes()).count());
+    assertEquals("Name", metadata.findEdmProperty("Name").getName());
+
+    EdmStructuralType product = (EdmStructuralType) metadata.findEdmEntityType("NS.Product");
+    List<EdmStructuralType> subTypes = Enumerable.create(metadata.getSubTypes(product)).toList();
+    assertEquals(1, subTypes.size());
+    assertEquals("NS.Book", subTypes.get(0).getFullyQualifiedTypeName());
+    assertTrue(Enumerable.create(metadata.getSubTypes(subTypes.get(0))).toList().isEmpty());
+  }
+
+  @Test
+  public void functionImports() {
+    EdmDataServices metadata = createMetadata();
+    assertTrue(metadata.containsEdmFunctionImport("Top"));
+    assertTrue(metadata.containsEdmFunctionImport("Other.Top"));
+    assertFalse(metadata.containsEdmFunctionImport("Missing.Top"));
+
+    EdmType productType = metadata.findEdmEntityType("NS.Product");
+    assertEquals(1, metadata.findBindableEdmFunctionImport(productType).size());
+    assertTrue(metadata.findEdmFunctionImport("Top", productType).isBindable());
+    assertFalse(metadata.findEdmFunctionImport("Other.Top").isBindable());
+    assertEquals(3, Enumerable.create(metadata.getFunctions(FunctionKind.Function)).count());
+    assertFalse(metadata.getFunctions(FunctionKind.ServiceOperation).iterator().hasNext());
+    try {
+      metadata.findEdmFunctionImport("NS.Top");
+      fail("expected BadRequestException");
+    } catch (BadRequestException e) {
+      assertTrue(e.getMessage().contains("'Top'"));
+    }
+  }
+
+}
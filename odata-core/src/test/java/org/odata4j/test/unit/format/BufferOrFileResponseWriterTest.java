@@ -0,0 +1,91 @@
+package org.odata4j.test.unit.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Test;
+import org.odata4j.core.ODataConstants;
+import org.odata4j.format.writer.BufferOrFileResponseHolder;
+import org.odata4j.format.writer.BufferOrFileResponseWriter;
+import org.odata4j.format.writer.ByteBufferPool;
+
+public class BufferOrFileResponseWriterTest {
+
+  // multi-byte characters and a surrogate pair, so that characters straddle the small segments
+  private static final String CONTENT = "<entry>café € 😀 abcdefghij</entry>";
+
+  @After
+  public void clearThreshold() {
+    System.clearProperty(ODataConstants.ODATA_WRITER_THRESHOLD_SIZE);
+  }
+
+  @Test
+  public void inMemory() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(8, 4);
+    BufferOrFileResponseWriter writer = new BufferOrFileResponseWriter(ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8, pool);
+    String expected = write(writer, 50);
+    BufferOrFileResponseHolder holder = writer.getResponseHolder();
+
+    assertFalse(holder.isFileUsedForStorage());
+    assertEquals(expected.getBytes("UTF-8").length, holder.getSize());
+    assertEquals(expected, holder.getContentAsString());
+    assertEquals(expected, writeOut(holder));
+    assertTrue(pool.getSegmentsInUse() > 0);
+
+    holder.release();
+    assertEquals(0, pool.getSegmentsInUse());
+    assertEquals(4, pool.getSegmentsPooled());
+    assertEquals(0, pool.getSpills());
+  }
+
+  @Test
+  public void spillToFile() throws Exception {
+    System.setProperty(ODataConstants.ODATA_WRITER_THRESHOLD_SIZE, "0");
+    ByteBufferPool pool = new ByteBufferPool(16, 4);
+    BufferOrFileResponseWriter writer = new BufferOrFileResponseWriter(ODataConstants.APPLICATION_ATOM_XML_CHARSET_UTF8, pool);
+    String expected = write(writer, 20);
+    BufferOrFileResponseHolder holder = writer.getResponseHolder();
+
+    assertTrue(holder.isFileUsedForStorage());
+    File file = holder.getResponseFile();
+    assertTrue(file.exists());
+    assertEquals(1, pool.getSpills());
+    assertTrue(pool.getBytesSpilled() > 0);
+    // only the segment being filled stays in memory
+    assertEquals(1, pool.getSegmentsInUse());
+
+    assertEquals(expected, holder.getContentAsString());
+    assertEquals(expected, writeOut(holder));
+
+    holder.release();
+    assertFalse(file.exists());
+    assertEquals(0, pool.getSegmentsInUse());
+  }
+
+  private static String write(BufferOrFileResponseWriter writer, int times) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      writer.write(CONTENT);
+      writer.write('\n');
+      sb.append(CONTENT).append('\n');
+    }
+    // a surrogate pair split across two writes
+    writer.write("\ud83d");
+    writer.write("\ude00");
+    sb.append("😀");
+    writer.close();
+    return sb.toString();
+  }
+
+  private static String writeOut(BufferOrFileResponseHolder holder) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    holder.writeTo(out);
+    return new String(out.toByteArray(), "UTF-8");
+  }
+
+}
@@ -0,0 +1,169 @@
+package org.odata4j.test.unit.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.ODataConstants;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.format.Entry;
+import org.odata4j.format.Feed;
+import org.odata4j.format.FormatParser;
+import org.odata4j.format.FormatParserFactory;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.LazyFeed;
+import org.odata4j.format.LazyFeedParser;
+import org.odata4j.format.Settings;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.Responses;
+
+public class LazyFeedTest {
+
+  private static final int COUNT = 2000;
+
+  private final EdmDataServices metadata = metadata();
+
+  @Test
+  public void atomEntriesAreParsedAsTheyAreIterated() {
+    entriesAreParsedAsTheyAreIterated(FormatType.ATOM);
+  }
+
+  @Test
+  public void jsonEntriesAreParsedAsTheyAreIterated() {
+    entriesAreParsedAsTheyAreIterated(FormatType.JSON);
+  }
+
+  @Test
+  public void nextLinkReadsAhead() {
+    for (FormatType format : new FormatType[] { FormatType.ATOM, FormatType.JSON }) {
+      LazyFeed feed = parser(format).parseLazily(new StringReader(write(format)));
+      assertTrue(feed.getNext(), feed.getNext().contains("skiptoken=next"));
+      assertTrue(feed.isEnded());
+      int count = 0;
+      for (Entry entry : feed.getEntries())
+        assertEquals(count++, entry.getEntity().getProperty("Id").getValue());
+      assertEquals(COUNT, count);
+      try {
+        feed.getEntries().iterator();
+        fail("iterated twice");
+      } catch (IllegalStateException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void eagerParsingIsUnchanged() {
+    for (FormatType format : new FormatType[] { FormatType.ATOM, FormatType.JSON }) {
+      FormatParser<Feed> parser = FormatParserFactory.getParser(Feed.class, format, settings());
+      Feed feed = parser.parse(new StringReader(write(format)));
+      int count = 0;
+      for (Iterator<Entry> it = feed.getEntries().iterator(); it.hasNext(); it.next())
+        count++;
+      assertEquals(COUNT, count);
+      assertTrue(feed.getNext().contains("skiptoken=next"));
+    }
+  }
+
+  private void entriesAreParsedAsTheyAreIterated(FormatType format) {
+    String text = write(format);
+    CountingReader reader = new CountingReader(text);
+    LazyFeed feed = parser(format).parseLazily(reader);
+
+    Iterator<Entry> entries = feed.getEntries().iterator();
+    assertEquals(0, entries.next().getEntity().getProperty("Id").getValue());
+    assertTrue(format + " read " + reader.read, reader.read < text.length() / 4);
+    assertFalse(reader.closed);
+
+    int count = 1;
+    while (entries.hasNext())
+      assertEquals(count++, entries.next().getEntity().getProperty("Id").getValue());
+    assertEquals(COUNT, count);
+    assertTrue(reader.closed);
+    assertTrue(feed.getNext().contains("skiptoken=next"));
+  }
+
+  private LazyFeedParser parser(FormatType format) {
+    return (LazyFeedParser) FormatParserFactory.getParser(Feed.class, format, settings());
+  }
+
+  private Settings settings() {
+    return new Settings(ODataConstants.DATA_SERVICE_VERSION, metadata, "Products", null, null);
+  }
+
+  private String write(FormatType format) {
+    EdmEntitySet entitySet = metadata.getEdmEntitySet("Products");
+    List<OEntity> entities = new ArrayList<OEntity>();
+    for (int i = 0; i < COUNT; i++) {
+      List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+      properties.add(OProperties.int32("Id", i));
+      properties.add(OProperties.string("Name", "Product " + i));
+      entities.add(OEntities.create(entitySet, OEntityKey.create(i), properties, new ArrayList<OLink>()));
+    }
+    EntitiesResponse response = Responses.entities(entities, entitySet, null, "next");
+    ODataBatchUriInfo uriInfo = new ODataBatchUriInfo(URI.create("http://localhost/test.svc/Products"), URI.create("http://localhost/test.svc/"));
+    StringWriter out = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, format.toString(), null).write(uriInfo, out, response);
+    return out.toString();
+  }
+
+  private static EdmDataServices metadata() {
+    EdmEntityType.Builder product = EdmEntityType.newBuilder().setNamespace("Test").setName("Product").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32),
+            EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING).setNullable(true));
+    EdmEntitySet.Builder products = EdmEntitySet.newBuilder().setName("Products").setEntityType(product);
+    EdmSchema.Builder schema = EdmSchema.newBuilder().setNamespace("Test").addEntityTypes(product)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName("Container").setIsDefault(true).addEntitySets(products));
+    return EdmDataServices.newBuilder().addSchemas(schema).build();
+  }
+
+  private static class CountingReader extends Reader {
+
+    private final StringReader reader;
+    int read;
+    boolean closed;
+
+    CountingReader(String text) {
+      this.reader = new StringReader(text);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      int n = reader.read(cbuf, off, len);
+      if (n > 0)
+        read += n;
+      return n;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+}
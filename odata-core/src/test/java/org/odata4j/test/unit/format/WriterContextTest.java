@@ -0,0 +1,52 @@
+package org.odata4j.test.unit.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URI;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.format.WriterContext;
+
+public class WriterContextTest {
+
+  private static final ODataBatchUriInfo URI_INFO = new ODataBatchUriInfo(URI.create("http://localhost/test.svc/Products"), URI.create("http://localhost/test.svc/"));
+
+  @Test
+  public void idsAreBuiltOncePerEntity() {
+    EdmEntityType.Builder product = EdmEntityType.newBuilder().setNamespace("Test").setName("Product").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.STRING));
+    EdmEntitySet products = EdmEntitySet.newBuilder().setName("Products").setEntityType(product).build();
+    OEntity first = OEntities.create(products, OEntityKey.create("a b"), Collections.<OProperty<?>> singletonList(OProperties.string("Id", "a b")), Collections.<OLink> emptyList());
+    OEntity second = OEntities.create(products, OEntityKey.create("c"), Collections.<OProperty<?>> singletonList(OProperties.string("Id", "c")), Collections.<OLink> emptyList());
+
+    WriterContext context = new WriterContext(URI_INFO);
+    assertEquals("http://localhost/test.svc/", context.getBaseUri());
+    assertEquals("Products" + OEntityKey.create("a b").toUriKeyString(), context.getEntityRelId(first));
+    assertSame(context.getEntityRelId(first), context.getEntityRelId(first));
+    assertEquals("http://localhost/test.svc/Products('c')", context.getEntityId(second));
+    assertEquals(context.getBaseUri() + context.getEntityRelId(first), context.getEntityId(first));
+  }
+
+  @Test
+  public void contextsAreSharedPerUriInfo() {
+    WriterContext context = new WriterContext(URI_INFO);
+    assertSame(context, WriterContext.of(context, URI_INFO));
+    assertNotSame(context, WriterContext.of(context, new ODataBatchUriInfo(URI.create("http://other/"), URI.create("http://other/"))));
+    assertEquals("", WriterContext.of(null, null).getBaseUri());
+  }
+
+}
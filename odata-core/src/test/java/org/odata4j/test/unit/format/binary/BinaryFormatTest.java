@@ -0,0 +1,350 @@
+package org.odata4j.test.unit.format.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import jakarta.ws.rs.core.MediaType;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
+import org.junit.Test;
+import org.odata4j.core.Guid;
+import org.odata4j.core.OCollection;
+import org.odata4j.core.OCollections;
+import org.odata4j.core.OComplexObject;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.ODataConstants;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OLinks;
+import org.odata4j.core.OObject;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.core.OSimpleObjects;
+import org.odata4j.core.UnsignedByte;
+import org.odata4j.edm.EdmCollectionType;
+import org.odata4j.edm.EdmComplexType;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmProperty.CollectionKind;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.format.Entry;
+import org.odata4j.format.Feed;
+import org.odata4j.format.FormatParserFactory;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriter;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.Settings;
+import org.odata4j.format.binary.BinaryFeedFormatParser.BinaryFeed;
+import org.odata4j.format.binary.BinaryFeedFormatWriter;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.EntityResponse;
+import org.odata4j.producer.Responses;
+
+public class BinaryFormatTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/test.svc/";
+
+  private final EdmDataServices metadata = metadata();
+
+  @Test
+  public void formatIsNegotiated() {
+    assertEquals(FormatType.BINARY, FormatType.parse("binary"));
+    assertTrue(FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, "binary", null) instanceof BinaryFeedFormatWriter);
+    List<MediaType> accept = Collections.singletonList(MediaType.valueOf(ODataConstants.APPLICATION_ODATA4J_BINARY));
+    FormatWriter<EntitiesResponse> writer = FormatWriterFactory.getFormatWriter(EntitiesResponse.class, accept, null, null);
+    assertTrue(writer instanceof BinaryFeedFormatWriter);
+    assertEquals(ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1, writer.getContentType());
+  }
+
+  @Test
+  public void feedRoundTrips() {
+    EdmEntitySet orders = metadata.getEdmEntitySet("Orders");
+    List<OEntity> entities = new ArrayList<OEntity>();
+    for (int i = 0; i < 3; i++)
+      entities.add(order(i));
+    EntitiesResponse response = Responses.entities(entities, orders, 42, "next");
+
+    StringWriter out = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, "binary", null).write(uriInfo("Orders"), out, response);
+    for (char c : out.toString().toCharArray())
+      assertTrue(c <= 0xFF);
+
+    Feed feed = FormatParserFactory.getParser(Feed.class, FormatType.BINARY, settings("Orders")).parse(new StringReader(out.toString()));
+    Iterator<Entry> it = feed.getEntries().iterator();
+    for (int i = 0; i < 3; i++) {
+      Entry entry = it.next();
+      assertEquals(SERVICE_ROOT + "Orders(" + i + ")", entry.getUri());
+      assertOrder(order(i), entry.getEntity());
+    }
+    assertTrue(!it.hasNext());
+    assertEquals(Integer.valueOf(42), ((BinaryFeed) feed).getInlineCount());
+    assertTrue(feed.getNext(), feed.getNext().contains("skiptoken=next"));
+  }
+
+  @Test
+  public void entryRoundTrips() {
+    OEntity order = order(7);
+    StringWriter out = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntityResponse.class, null, "binary", null).write(uriInfo("Orders(7)"), out, Responses.entity(order));
+    Entry entry = FormatParserFactory.getParser(Entry.class, MediaType.valueOf(ODataConstants.APPLICATION_ODATA4J_BINARY_CHARSET_ISO_8859_1), settings("Orders"))
+        .parse(new StringReader(out.toString()));
+    assertOrder(order, entry.getEntity());
+  }
+
+  @Test
+  public void nullsAndUndeclaredPropertiesRoundTrip() {
+    EdmEntitySet orders = metadata.getEdmEntitySet("Orders");
+    List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+    properties.add(OProperties.int32("Id", 1));
+    properties.add(OProperties.string("Name", null));
+    properties.add(OProperties.string("Note", "not in the type"));
+    OEntity order = OEntities.create(orders, OEntityKey.create(1), properties, Collections.<OLink> emptyList());
+
+    OEntity read = roundTrip(order);
+    assertEquals(3, read.getProperties().size());
+    assertNull(read.getProperty("Name").getValue());
+    assertEquals("not in the type", read.getProperty("Note").getValue());
+    assertEquals(EdmSimpleType.STRING, read.getProperty("Note").getType());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void everySimpleTypeRoundTrips() throws Exception {
+    List<EdmSimpleType<?>> types = new ArrayList<EdmSimpleType<?>>(EdmSimpleType.ALL);
+    List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+    properties.add(OProperties.int32("Id", 1));
+    for (int i = 0; i < types.size(); i++)
+      properties.add(OProperties.simple("P" + i, (EdmSimpleType<Object>) types.get(i), sample(types.get(i))));
+    OEntity read = roundTrip(OEntities.create(metadata.getEdmEntitySet("Orders"), OEntityKey.create(1), properties, Collections.<OLink> emptyList()));
+
+    for (int i = 0; i < types.size(); i++) {
+      EdmSimpleType<?> type = types.get(i);
+      OProperty<?> property = read.getProperty("P" + i);
+      assertEquals(type, property.getType());
+      if (EdmSimpleType.STREAM.equals(type) || type == EdmSimpleType.BINARY)
+        assertArrayEquals(type.getFullyQualifiedTypeName(), new byte[] { 0, 1, (byte) 0xFF }, bytes(property.getValue()));
+      else
+        assertEquals(type.getFullyQualifiedTypeName(), sample(type), property.getValue());
+    }
+  }
+
+  @Test
+  public void inlineEntitiesAndComplexKeysRoundTrip() {
+    EdmEntitySet lines = metadata.getEdmEntitySet("Lines");
+    List<OEntity> related = new ArrayList<OEntity>();
+    for (int i = 0; i < 2; i++) {
+      List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+      properties.add(OProperties.int32("OrderId", 5));
+      properties.add(OProperties.string("Line", "L" + i));
+      related.add(OEntities.create(lines, OEntityKey.create("OrderId", 5, "Line", "L" + i), properties, Collections.<OLink> emptyList()));
+    }
+    List<OLink> links = new ArrayList<OLink>();
+    links.add(OLinks.relatedEntitiesInline("Lines", "Lines", "Orders(5)/Lines", related));
+    links.add(OLinks.relatedEntityInline("First", "First", "Orders(5)/First", related.get(0)));
+    links.add(OLinks.relatedEntity("Customer", "Customer", "Orders(5)/Customer"));
+    OEntity order = OEntities.create(metadata.getEdmEntitySet("Orders"), OEntityKey.create(5), properties(5), links);
+
+    OEntity read = roundTrip(order);
+    assertEquals(3, read.getLinks().size());
+    List<OEntity> readLines = read.getLinks().get(0).getRelatedEntities();
+    assertEquals(2, readLines.size());
+    assertEquals(OEntityKey.create("OrderId", 5, "Line", "L1"), readLines.get(1).getEntityKey());
+    assertEquals("L1", readLines.get(1).getProperty("Line").getValue());
+    assertEquals("L0", read.getLinks().get(1).getRelatedEntity().getProperty("Line").getValue());
+    assertEquals("Orders(5)/Customer", read.getLinks().get(2).getHref());
+    assertTrue(!read.getLinks().get(2).isInline());
+  }
+
+  @Test
+  public void truncatedPayloadsAreRejected() {
+    StringWriter out = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntityResponse.class, null, "binary", null).write(uriInfo("Orders(1)"), out, Responses.entity(order(1)));
+    String payload = out.toString();
+    try {
+      FormatParserFactory.getParser(Entry.class, FormatType.BINARY, settings("Orders")).parse(new StringReader(payload.substring(0, payload.length() / 2)));
+      fail("parsed a truncated payload");
+    } catch (RuntimeException e) {
+      // expected
+    }
+  }
+
+  private OEntity roundTrip(OEntity entity) {
+    StringWriter out = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntityResponse.class, null, "binary", null).write(uriInfo("Orders"), out, Responses.entity(entity));
+    return FormatParserFactory.getParser(Entry.class, FormatType.BINARY, settings(entity.getEntitySet().getName()))
+        .parse(new StringReader(out.toString())).getEntity();
+  }
+
+  private static void assertOrder(OEntity expected, OEntity actual) {
+    assertEquals(expected.getEntityKey(), actual.getEntityKey());
+    assertEquals(expected.getProperties().size(), actual.getProperties().size());
+    for (OProperty<?> property : expected.getProperties()) {
+      Object value = property.getValue();
+      Object actualValue = actual.getProperty(property.getName()).getValue();
+      if (value instanceof byte[])
+        assertArrayEquals((byte[]) value, (byte[]) actualValue);
+      else if (value instanceof OCollection)
+        assertEquals(values((OCollection<?>) value), values((OCollection<?>) actualValue));
+      else if (value instanceof List)
+        assertEquals(value.toString(), actualValue.toString());
+      else
+        assertEquals(property.getName(), value, actualValue);
+    }
+  }
+
+  private static Object sample(EdmSimpleType<?> type) throws Exception {
+    byte[] bytes = new byte[] { 0, 1, (byte) 0xFF };
+    if (type == EdmSimpleType.BINARY)
+      return bytes;
+    if (type == EdmSimpleType.STREAM)
+      return new SerialBlob(bytes);
+    if (type == EdmSimpleType.INPUTSTREAM)
+      return new ByteArrayInputStream(bytes);
+    if (type == EdmSimpleType.BOOLEAN)
+      return Boolean.TRUE;
+    if (type == EdmSimpleType.BYTE)
+      return UnsignedByte.valueOf(255);
+    if (type == EdmSimpleType.SBYTE)
+      return Byte.valueOf((byte) -128);
+    if (type == EdmSimpleType.DATETIME)
+      return new LocalDateTime(2012, 3, 4, 5, 6, 7, 8);
+    if (type == EdmSimpleType.DATETIMEOFFSET)
+      return new DateTime(2012, 3, 4, 5, 6, 7, 8, DateTimeZone.forOffsetHoursMinutes(5, 30));
+    if (type == EdmSimpleType.DECIMAL)
+      return new BigDecimal("-0.000123");
+    if (type == EdmSimpleType.DOUBLE)
+      return Double.valueOf(-1.5e300);
+    if (type == EdmSimpleType.GUID)
+      return Guid.fromString("12345678-1234-1234-1234-1234567890ab");
+    if (type == EdmSimpleType.INT16)
+      return Short.valueOf(Short.MIN_VALUE);
+    if (type == EdmSimpleType.INT32)
+      return Integer.valueOf(Integer.MAX_VALUE);
+    if (type == EdmSimpleType.INT64)
+      return Long.valueOf(Long.MAX_VALUE);
+    if (type == EdmSimpleType.SINGLE)
+      return Float.valueOf(0.1f);
+    if (type == EdmSimpleType.STRING)
+      return "\u00e9\u4e2d";
+    if (type == EdmSimpleType.TIME)
+      return new LocalTime(23, 59, 59, 999);
+    throw new AssertionError("no sample of " + type);
+  }
+
+  private static byte[] bytes(Object value) throws Exception {
+    if (value instanceof Blob)
+      return ((Blob) value).getBytes(1, (int) ((Blob) value).length());
+    if (value instanceof InputStream) {
+      InputStream input = (InputStream) value;
+      byte[] rt = new byte[input.available()];
+      assertEquals(rt.length, input.read(rt));
+      return rt;
+    }
+    return (byte[]) value;
+  }
+
+  private static List<Object> values(OCollection<?> collection) {
+    List<Object> rt = new ArrayList<Object>();
+    for (OObject item : collection)
+      rt.add(item instanceof OComplexObject ? ((OComplexObject) item).getProperties().toString() : item.toString());
+    return rt;
+  }
+
+  private OEntity order(int id) {
+    return OEntities.create(metadata.getEdmEntitySet("Orders"), OEntityKey.create(id), properties(id), Collections.<OLink> emptyList());
+  }
+
+  private List<OProperty<?>> properties(int id) {
+    EdmComplexType address = metadata.findEdmComplexType("Test.Address");
+    List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+    properties.add(OProperties.int32("Id", id));
+    properties.add(OProperties.string("Name", id % 2 == 0 ? "Order " + id : null));
+    properties.add(OProperties.decimal("Price", new BigDecimal("-1234.50").add(BigDecimal.valueOf(id))));
+    properties.add(OProperties.datetime("Created", new LocalDateTime(2012, 3, 4, 5, 6, 7, id)));
+    properties.add(OProperties.datetimeOffset("Shipped", new DateTime(2012, 3, 4, 5, 6, 7, id, DateTimeZone.forOffsetHours(-5))));
+    properties.add(OProperties.time("At", new LocalTime(13, 14, 15, id)));
+    properties.add(OProperties.guid("Code", Guid.fromString("12345678-1234-1234-1234-1234567890a" + id)));
+    properties.add(OProperties.binary("Data", new byte[] { 0, (byte) 0xFF, (byte) id, 10, 13 }));
+    properties.add(OProperties.boolean_("Flag", id % 2 == 0));
+    properties.add(OProperties.double_("Rate", -id / 3.0));
+    properties.add(OProperties.single("Ratio", id / 7f));
+    properties.add(OProperties.int16("Small", (short) -id));
+    properties.add(OProperties.int64("Big", Long.MIN_VALUE + id));
+    properties.add(OProperties.byte_("Tiny", UnsignedByte.valueOf(200 + id)));
+    List<OProperty<?>> street = new ArrayList<OProperty<?>>();
+    street.add(OProperties.string("Street", "Main Street " + id));
+    street.add(OProperties.string("City", "\u00e9\u4e2d"));
+    properties.add(OProperties.complex("Address", address, street));
+    properties.add(OProperties.collection("Tags", new EdmCollectionType(CollectionKind.Bag, EdmSimpleType.STRING),
+        OCollections.newBuilder(EdmSimpleType.STRING).add(OSimpleObjects.create(EdmSimpleType.STRING, "a"))
+            .add(OSimpleObjects.create(EdmSimpleType.STRING, "b" + id)).build()));
+    return properties;
+  }
+
+  private static ODataBatchUriInfo uriInfo(String path) {
+    return new ODataBatchUriInfo(URI.create(SERVICE_ROOT + path), URI.create(SERVICE_ROOT));
+  }
+
+  private Settings settings(String entitySetName) {
+    return new Settings(ODataConstants.DATA_SERVICE_VERSION, metadata, entitySetName, null, null);
+  }
+
+  private static EdmDataServices metadata() {
+    EdmComplexType.Builder address = EdmComplexType.newBuilder().setNamespace("Test").setName("Address")
+        .addProperties(EdmProperty.newBuilder("Street").setType(EdmSimpleType.STRING),
+            EdmProperty.newBuilder("City").setType(EdmSimpleType.STRING));
+    EdmEntityType.Builder order = EdmEntityType.newBuilder().setNamespace("Test").setName("Order").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32),
+            EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING).setNullable(true),
+            EdmProperty.newBuilder("Price").setType(EdmSimpleType.DECIMAL),
+            EdmProperty.newBuilder("Created").setType(EdmSimpleType.DATETIME),
+            EdmProperty.newBuilder("Shipped").setType(EdmSimpleType.DATETIMEOFFSET),
+            EdmProperty.newBuilder("At").setType(EdmSimpleType.TIME),
+            EdmProperty.newBuilder("Code").setType(EdmSimpleType.GUID),
+            EdmProperty.newBuilder("Data").setType(EdmSimpleType.BINARY),
+            EdmProperty.newBuilder("Flag").setType(EdmSimpleType.BOOLEAN),
+            EdmProperty.newBuilder("Rate").setType(EdmSimpleType.DOUBLE),
+            EdmProperty.newBuilder("Ratio").setType(EdmSimpleType.SINGLE),
+            EdmProperty.newBuilder("Small").setType(EdmSimpleType.INT16),
+            EdmProperty.newBuilder("Big").setType(EdmSimpleType.INT64),
+            EdmProperty.newBuilder("Tiny").setType(EdmSimpleType.BYTE),
+            EdmProperty.newBuilder("Address").setType(address),
+            EdmProperty.newBuilder("Tags").setType(new EdmCollectionType(CollectionKind.Bag, EdmSimpleType.STRING)));
+    EdmEntityType.Builder line = EdmEntityType.newBuilder().setNamespace("Test").setName("Line").addKeys("OrderId", "Line")
+        .addProperties(EdmProperty.newBuilder("OrderId").setType(EdmSimpleType.INT32),
+            EdmProperty.newBuilder("Line").setType(EdmSimpleType.STRING));
+    EdmSchema.Builder schema = EdmSchema.newBuilder().setNamespace("Test").addComplexTypes(Collections.singletonList(address))
+        .addEntityTypes(order, line)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName("Container").setIsDefault(true)
+            .addEntitySets(EdmEntitySet.newBuilder().setName("Orders").setEntityType(order),
+                EdmEntitySet.newBuilder().setName("Lines").setEntityType(line)));
+    return EdmDataServices.newBuilder().addSchemas(schema).build();
+  }
+
+}
@@ -0,0 +1,135 @@
+package org.odata4j.test.unit.format.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.odata4j.format.json.JsonStreamReaderFactory;
+import org.odata4j.format.json.JsonStreamReaderFactory.JsonParseException;
+import org.odata4j.format.json.JsonStreamReaderFactory.JsonStreamReader;
+import org.odata4j.format.json.JsonStreamReaderFactory.JsonStreamReader.JsonEvent;
+import org.odata4j.format.json.JsonStreamReaderFactory.JsonStreamTokenizer;
+import org.odata4j.format.json.JsonStreamReaderFactory.JsonStreamTokenizer.JsonToken;
+
+public class JsonStreamTokenizerTest {
+
+  private static final String JSON = "{\"a\\\"b\" : \"x\\\\y\\n\\t\\u00e9\\/\", \"n\":[-1.5e+3, 0, 12, true, false, null, NaN], \"e\" : \"\"}";
+
+  private static final String TOKENS = "LEFT_CURLY_BRACKET STRING(a\"b) COLON STRING(x\\y\n\té/) COMMA STRING(n) COLON LEFT_BRACKET"
+      + " NUMBER(-1.5e+3) COMMA NUMBER(0) COMMA NUMBER(12) COMMA TRUE(true) COMMA FALSE(false) COMMA NULL(null) COMMA NaN(NaN)"
+      + " RIGHT_BRACKET COMMA STRING(e) COLON STRING() RIGHT_CURLY_BRACKET";
+
+  @Test
+  public void tokens() {
+    assertEquals(TOKENS, tokens(new StringReader(JSON)));
+  }
+
+  @Test
+  public void tokensAcrossBlocks() {
+    // every token spans reads
+    assertEquals(TOKENS, tokens(new TrickleReader(JSON)));
+  }
+
+  @Test
+  public void largeDocument() {
+    StringBuilder json = new StringBuilder("{\"d\" : [");
+    for (int i = 0; i < 2000; i++)
+      json.append(i == 0 ? "" : ", ").append("{\"Id\" : ").append(i).append(", \"Name\" : \"Name ").append(i).append("\"}");
+    json.append("]}");
+
+    JsonStreamReader reader = JsonStreamReaderFactory.createJsonStreamReader(new StringReader(json.toString()));
+    int ids = 0;
+    String first = null;
+    while (reader.hasNext()) {
+      JsonEvent event = reader.nextEvent();
+      if (event.isStartProperty() && event.asStartProperty().getName().equals("Id")) {
+        // names are shared between entries
+        if (first == null)
+          first = event.asStartProperty().getName();
+        assertSame(first, event.asStartProperty().getName());
+        JsonEvent value = reader.nextEvent();
+        assertEquals(Integer.toString(ids++), value.asEndProperty().getValue());
+      }
+    }
+    assertEquals(2000, ids);
+  }
+
+  @Test
+  public void valuesAreNotInterned() {
+    JsonStreamTokenizer t = JsonStreamReaderFactory.createJsonStreamTokenizer(new StringReader("[\"v\", \"v\"]"));
+    t.nextToken();
+    JsonToken first = t.nextToken();
+    t.nextToken();
+    JsonToken second = t.nextToken();
+    assertEquals(first.value, second.value);
+    assertNotSame(first.value, second.value);
+  }
+
+  @Test
+  public void empty() {
+    assertFalse(JsonStreamReaderFactory.createJsonStreamTokenizer(new StringReader(" \n ")).hasNext());
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void illegalNumber() {
+    tokens(new StringReader("[1-2]"));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void illegalExponent() {
+    tokens(new StringReader("[1e]"));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void unknownConstant() {
+    tokens(new StringReader("[undefined]"));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void unterminatedString() {
+    tokens(new StringReader("[\"abc"));
+  }
+
+  private static String tokens(Reader reader) {
+    JsonStreamTokenizer t = JsonStreamReaderFactory.createJsonStreamTokenizer(reader);
+    List<String> rt = new ArrayList<String>();
+    while (t.hasNext())
+      rt.add(t.nextToken().toString());
+    StringBuilder sb = new StringBuilder();
+    for (String token : rt)
+      sb.append(sb.length() == 0 ? "" : " ").append(token);
+    return sb.toString();
+  }
+
+  /** Returns one character per read. */
+  private static class TrickleReader extends Reader {
+
+    private final String value;
+    private int position;
+
+    TrickleReader(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      if (position == value.length())
+        return -1;
+      cbuf[off] = value.charAt(position++);
+      return 1;
+    }
+
+    @Override
+    public void close() throws IOException {}
+
+  }
+
+}
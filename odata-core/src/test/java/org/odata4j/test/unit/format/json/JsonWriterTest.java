@@ -0,0 +1,114 @@
+package org.odata4j.test.unit.format.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.odata4j.format.json.JsonWriter;
+
+public class JsonWriterTest {
+
+  @Test
+  public void escaping() {
+    StringWriter sw = new StringWriter();
+    JsonWriter jw = new JsonWriter(sw);
+    jw.startObject();
+    jw.writeName("a\"b");
+    jw.writeString("x\\y\n\r\t\f\b\"z/é");
+    jw.endObject();
+    jw.flush();
+    assertEquals("{\n\"a\\\"b\" : \"x\\\\y\\n\\r\\t\\f\\b\\\"z/é\"\n}", sw.toString());
+  }
+
+  @Test
+  public void numbers() {
+    assertEquals("0", write(0));
+    assertEquals("-42", write(-42));
+    assertEquals(Integer.toString(Integer.MIN_VALUE), write(Integer.MIN_VALUE));
+    assertEquals(Long.toString(Long.MAX_VALUE), write(Long.MAX_VALUE));
+    assertEquals(Long.toString(Long.MIN_VALUE), write(Long.MIN_VALUE));
+
+    StringWriter sw = new StringWriter();
+    JsonWriter jw = new JsonWriter(sw);
+    jw.writeQuoted(-9000000000L);
+    jw.writeSeparator();
+    jw.writeNumber(2.5d);
+    jw.writeSeparator();
+    jw.writeNumber(new BigDecimal("1E+3"));
+    jw.writeSeparator();
+    jw.writeBoolean(true);
+    jw.writeSeparator();
+    jw.writeNull();
+    jw.flush();
+    assertEquals("\"-9000000000\", 2.5, 1000, true, null", sw.toString());
+  }
+
+  @Test
+  public void floats() {
+    assertEquals("1", write(1.0f));
+    assertEquals("-2.5", write(-2.5f));
+    assertEquals("100", write(100f));
+    assertEquals("0", write(0f));
+    // the exponent is left alone
+    assertEquals("1.0E10", write(1.0E10f));
+    assertEquals("1.5E-5", write(1.5E-5f));
+  }
+
+  @Test
+  public void smallBuffer() {
+    StringWriter sw = new StringWriter();
+    JsonWriter jw = new JsonWriter(sw, 1);
+    StringBuilder expected = new StringBuilder("[\n");
+    jw.startArray();
+    for (int i = 0; i < 200; i++) {
+      if (i > 0) {
+        jw.writeSeparator();
+        expected.append(", ");
+      }
+      jw.startObject();
+      jw.writeName("Name" + (i % 3));
+      jw.writeString("value \"" + i + "\" with a long enough text to span the buffer");
+      jw.writeSeparator();
+      jw.writeName("Id");
+      jw.writeNumber(i * 1000003L);
+      jw.endObject();
+      expected.append("{\n\"Name").append(i % 3).append("\" : \"value \\\"").append(i)
+          .append("\\\" with a long enough text to span the buffer\", \"Id\" : ").append(i * 1000003L).append("\n}");
+    }
+    jw.endArray();
+    jw.flush();
+    expected.append("\n]");
+    assertEquals(expected.toString(), sw.toString());
+  }
+
+  @Test
+  public void nothingWrittenBeforeFlush() {
+    StringWriter sw = new StringWriter();
+    JsonWriter jw = new JsonWriter(sw);
+    jw.startCallback("cb");
+    jw.writeRaw("1");
+    jw.endCallback();
+    assertEquals("", sw.toString());
+    jw.flush();
+    assertEquals("cb(1);", sw.toString());
+  }
+
+  private static String write(long value) {
+    StringWriter sw = new StringWriter();
+    JsonWriter jw = new JsonWriter(sw);
+    jw.writeNumber(value);
+    jw.flush();
+    return sw.toString();
+  }
+
+  private static String write(float value) {
+    StringWriter sw = new StringWriter();
+    JsonWriter jw = new JsonWriter(sw);
+    jw.writeNumber(value);
+    jw.flush();
+    return sw.toString();
+  }
+
+}
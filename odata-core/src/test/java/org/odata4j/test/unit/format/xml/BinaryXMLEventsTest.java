@@ -0,0 +1,90 @@
+package org.odata4j.test.unit.format.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.core4j.Enumerable;
+import org.junit.Test;
+import org.odata4j.core.ODataConstants.Charsets;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.xml.EdmxFormatParser;
+import org.odata4j.format.xml.EdmxFormatWriter;
+import org.odata4j.stax2.Namespace2;
+import org.odata4j.stax2.QName2;
+import org.odata4j.stax2.XMLEvent2;
+import org.odata4j.stax2.XMLEventReader2;
+import org.odata4j.stax2.util.BinaryXMLEvents;
+import org.odata4j.stax2.util.StaxUtil;
+
+public class BinaryXMLEventsTest {
+
+  @Test
+  public void metadataIsParsedFromRecordedEvents() throws Exception {
+    for (String resource : new String[] { "/META-INF/edmx.xml", "/META-INF/sap_ds_sample_edmx.xml", "/META-INF/sample_v3_edmx.xml" }) {
+      String xml = read(resource);
+      BinaryXMLEvents.Recorder recorder = new BinaryXMLEvents.Recorder(StaxUtil.newXMLEventReader(new StringReader(xml)));
+      EdmDataServices parsed = new EdmxFormatParser().parseMetadata(recorder);
+      byte[] events = recorder.toByteArray();
+      EdmDataServices replayed = new EdmxFormatParser().parseMetadata(BinaryXMLEvents.read(events));
+
+      assertEquals(resource, write(parsed), write(replayed));
+      assertTrue(resource + ": " + events.length + " bytes", events.length < xml.length() / 2);
+    }
+  }
+
+  @Test
+  public void eventsAreReplayed() {
+    String xml = "<a xmlns=\"urn:a\" xmlns:b=\"urn:b\" x=\"1\" b:y=\"2\"><b:c>text &amp; more</b:c><!-- comment --><c/></a>";
+    BinaryXMLEvents.Recorder recorder = new BinaryXMLEvents.Recorder(StaxUtil.newXMLEventReader(new StringReader(xml)));
+    XMLEvent2 start = recorder.nextEvent();
+    while (!start.isStartElement())
+      start = recorder.nextEvent();
+    while (recorder.hasNext())
+      recorder.nextEvent();
+
+    XMLEventReader2 reader = BinaryXMLEvents.read(recorder.toByteArray());
+    XMLEvent2 event = reader.nextEvent();
+    while (!event.isStartElement())
+      event = reader.nextEvent();
+    assertEquals(new QName2("urn:a", "a", ""), event.asStartElement().getName());
+    assertEquals("1", event.asStartElement().getAttributeByName("x").getValue());
+    assertEquals("2", event.asStartElement().getAttributeByName(new QName2("urn:b", "y")).getValue());
+    Enumerable<Namespace2> namespaces = event.asStartElement().getNamespaces();
+    assertEquals(2, namespaces.count());
+    assertEquals("urn:b", namespaces.last().getNamespaceURI());
+
+    event = reader.nextEvent();
+    assertEquals(new QName2("urn:b", "c", "b"), event.asStartElement().getName());
+    assertEquals("text & more", reader.getElementText());
+
+    // the comment
+    event = reader.nextEvent();
+    assertFalse(event.isStartElement() || event.isEndElement() || event.isCharacters());
+
+    assertEquals("c", reader.nextEvent().asStartElement().getName().getLocalPart());
+    assertEquals("c", reader.nextEvent().asEndElement().getName().getLocalPart());
+    assertEquals("a", reader.nextEvent().asEndElement().getName().getLocalPart());
+  }
+
+  private String read(String resource) throws Exception {
+    InputStreamReader reader = new InputStreamReader(getClass().getResourceAsStream(resource), Charsets.Upper.UTF_8);
+    StringWriter rt = new StringWriter();
+    char[] buffer = new char[4096];
+    for (int n; (n = reader.read(buffer)) > 0;)
+      rt.write(buffer, 0, n);
+    reader.close();
+    return rt.toString();
+  }
+
+  private static String write(EdmDataServices metadata) {
+    StringWriter rt = new StringWriter();
+    EdmxFormatWriter.write(metadata, rt);
+    return rt.toString();
+  }
+
+}
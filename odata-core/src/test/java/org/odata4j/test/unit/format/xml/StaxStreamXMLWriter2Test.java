@@ -0,0 +1,128 @@
+package org.odata4j.test.unit.format.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.edm.EdmEntityContainer;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSchema;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.format.FormatType;
+import org.odata4j.format.FormatWriterFactory;
+import org.odata4j.format.xml.EdmxFormatWriter;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.Responses;
+import org.odata4j.stax2.QName2;
+import org.odata4j.stax2.XMLFactoryProvider2;
+import org.odata4j.stax2.XMLWriter2;
+import org.odata4j.stax2.staximpl.StaxStreamXMLWriter2;
+import org.odata4j.stax2.staximpl.StaxXMLFactoryProvider2;
+import org.odata4j.stax2.staximpl.StaxXMLWriter2;
+
+public class StaxStreamXMLWriter2Test {
+
+  private final XMLFactoryProvider2 provider = XMLFactoryProvider2.getInstance();
+
+  @After
+  public void tearDown() {
+    XMLFactoryProvider2.setInstance(provider);
+  }
+
+  @Test
+  public void writesLikeTheEventWriter() {
+    StringWriter events = new StringWriter();
+    write(new StaxXMLWriter2(events));
+    StringWriter stream = new StringWriter();
+    write(new StaxStreamXMLWriter2(stream));
+
+    assertEquals(events.toString(), stream.toString());
+    assertTrue(stream.toString(), stream.toString().contains("<m:properties x=\"a&lt;&amp;&quot;b\" m:null=\"true\">"));
+  }
+
+  @Test
+  public void writesFeedsAndMetadataLikeTheEventWriter() {
+    EdmDataServices metadata = metadata();
+    EntitiesResponse response = Responses.entities(entities(metadata), metadata.getEdmEntitySet("Products"), null, null);
+    ODataBatchUriInfo uriInfo = new ODataBatchUriInfo(URI.create("http://localhost/test.svc/Products"), URI.create("http://localhost/test.svc/"));
+
+    XMLFactoryProvider2.setInstance(new StaxXMLFactoryProvider2(false));
+    StringWriter eventFeed = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, FormatType.ATOM.toString(), null).write(uriInfo, eventFeed, response);
+    StringWriter eventMetadata = new StringWriter();
+    EdmxFormatWriter.write(metadata, eventMetadata);
+
+    XMLFactoryProvider2.setInstance(new StaxXMLFactoryProvider2(true));
+    StringWriter streamFeed = new StringWriter();
+    FormatWriterFactory.getFormatWriter(EntitiesResponse.class, null, FormatType.ATOM.toString(), null).write(uriInfo, streamFeed, response);
+    StringWriter streamMetadata = new StringWriter();
+    EdmxFormatWriter.write(metadata, streamMetadata);
+
+    assertEquals(removeUpdated(eventFeed.toString()), removeUpdated(streamFeed.toString()));
+    assertEquals(eventMetadata.toString(), streamMetadata.toString());
+  }
+
+  private static void write(XMLWriter2 writer) {
+    String m = "http://schemas.microsoft.com/ado/2007/08/dataservices/metadata";
+    writer.startDocument();
+    writer.startElement(new QName2("feed"), "http://www.w3.org/2005/Atom");
+    writer.writeNamespace("m", m);
+    writer.writeAttribute("xml:base", "http://localhost/");
+    writer.startElement("title");
+    writer.writeAttribute("type", "text");
+    writer.writeText("Products & <more>");
+    writer.endElement("title");
+    writer.startElement(new QName2(m, "properties", "m"));
+    writer.writeAttribute("x", "a<&\"b");
+    writer.writeAttribute(new QName2(m, "null", "m"), "true");
+    writer.endElement("properties");
+    writer.startElement("empty");
+    writer.endElement("empty");
+    writer.writeErrorMessageAsCData("failed");
+    writer.endElement("feed");
+    writer.endDocument();
+  }
+
+  private static EdmDataServices metadata() {
+    EdmEntityType.Builder product = EdmEntityType.newBuilder().setNamespace("Test").setName("Product").addKeys("Id")
+        .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32),
+            EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING).setNullable(true));
+    EdmEntitySet.Builder products = EdmEntitySet.newBuilder().setName("Products").setEntityType(product);
+    EdmSchema.Builder schema = EdmSchema.newBuilder().setNamespace("Test").addEntityTypes(product)
+        .addEntityContainers(EdmEntityContainer.newBuilder().setName("Container").setIsDefault(true).addEntitySets(products));
+    return EdmDataServices.newBuilder().addSchemas(schema).build();
+  }
+
+  private static List<OEntity> entities(EdmDataServices metadata) {
+    EdmEntitySet entitySet = metadata.getEdmEntitySet("Products");
+    List<OEntity> rt = new ArrayList<OEntity>();
+    for (int i = 0; i < 3; i++) {
+      List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+      properties.add(OProperties.int32("Id", i));
+      properties.add(i == 1 ? OProperties.null_("Name", EdmSimpleType.STRING) : OProperties.string("Name", "Product <" + i + "> & \"more\""));
+      rt.add(OEntities.create(entitySet, OEntityKey.create(i), properties, new ArrayList<OLink>()));
+    }
+    return rt;
+  }
+
+  private static String removeUpdated(String xml) {
+    return xml.replaceAll("<updated>[^<]*</updated>", "");
+  }
+
+}
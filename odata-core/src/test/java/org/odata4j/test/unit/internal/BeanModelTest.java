@@ -0,0 +1,200 @@
+package org.odata4j.test.unit.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.internal.BeanModel;
+import org.odata4j.internal.InternalUtil;
+
+public class BeanModelTest {
+
+  private static final EdmEntitySet PRODUCTS = EdmEntitySet.newBuilder().setName("Products")
+      .setEntityType(EdmEntityType.newBuilder().setNamespace("Test").setName("Product").addKeys("Id")
+          .addProperties(EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32),
+              EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING),
+              EdmProperty.newBuilder("Price").setType(EdmSimpleType.DOUBLE),
+              EdmProperty.newBuilder("Stock").setType(EdmSimpleType.INT64)))
+      .build();
+
+  @Test
+  public void modelsAreShared() {
+    assertSame(BeanModel.forClass(Product.class), BeanModel.forClass(Product.class));
+    assertSame(BeanModel.forClass(Product.class), BeanModel.forClass(Product.class, true));
+    BeanModel hierarchical = BeanModel.forClass(Product.class, false);
+    assertSame(hierarchical, BeanModel.forClass(Product.class, false));
+    assertSame(BeanModel.forClass(Object.class, false), hierarchical.getSuperClassModel());
+  }
+
+  @Test
+  public void getsAndSetsProperties() {
+    for (Class<?> beanClass : Arrays.<Class<?>> asList(Product.class, HiddenProduct.class)) {
+      BeanModel model = BeanModel.forClass(beanClass);
+      Object bean = newInstance(beanClass);
+      model.setPropertyValue(bean, "Name", "Widget");
+      model.setPropertyValue(bean, "Price", 2.5d);
+      model.setPropertyValue(bean, "Stock", 7L);
+      assertEquals("Widget", model.getPropertyValue(bean, "Name"));
+      assertEquals(2.5d, model.getPropertyValue(bean, "Price"));
+      assertEquals(7L, model.getPropertyValue(bean, "Stock"));
+
+      // as with reflection, values are widened and nulls are no primitives
+      model.setPropertyValue(bean, "Stock", 8);
+      assertEquals(8L, model.getPropertyValue(bean, "Stock"));
+      try {
+        model.setPropertyValue(bean, "Price", null);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        model.setPropertyValue(bean, "Name", 1);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void exceptionsOfAccessorsPropagate() {
+    Product product = new Product();
+    try {
+      BeanModel.forClass(Product.class).setPropertyValue(product, "Id", -1);
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("negative id", e.getMessage());
+    }
+  }
+
+  @Test
+  public void toPojo() {
+    // the properties of the entity type, in order
+    Product product = InternalUtil.toPojo(Product.class, product(OProperties.int32("Id", 1), OProperties.string("Name", "Widget"),
+        OProperties.double_("Price", 2.5d), OProperties.int64("Stock", 7L)));
+    assertEquals("1 Widget 2.5 7", product.toString());
+
+    // some missing, some extra and out of order
+    product = InternalUtil.toPojo(Product.class, product(OProperties.int64("Stock", 7L), OProperties.string("Extra", "x"),
+        OProperties.int32("Id", 2), OProperties.string("Name", null)));
+    assertEquals("2 null 0.0 7", product.toString());
+
+    // without an entity type
+    List<OProperty<?>> properties = new ArrayList<OProperty<?>>();
+    properties.add(OProperties.int32("Id", 3));
+    OEntity untyped = OEntities.create(EdmEntitySet.newBuilder().setName("Untyped").build(), OEntityKey.create(3), properties, new ArrayList<OLink>());
+    assertEquals("3 null 0.0 0", InternalUtil.toPojo(Product.class, untyped).toString());
+
+    HiddenProduct hidden = InternalUtil.toPojo(HiddenProduct.class, product(OProperties.int32("Id", 4), OProperties.string("Name", "Hidden")));
+    assertEquals("Hidden", hidden.getName());
+  }
+
+  private static OEntity product(OProperty<?>... properties) {
+    return OEntities.create(PRODUCTS, OEntityKey.create(1), Arrays.<OProperty<?>> asList(properties), new ArrayList<OLink>());
+  }
+
+  private static Object newInstance(Class<?> beanClass) {
+    try {
+      return beanClass.getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static class Product {
+
+    private int id;
+    private String name;
+    private double price;
+    private long stock;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      if (id < 0)
+        throw new IllegalStateException("negative id");
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public long getStock() {
+      return stock;
+    }
+
+    public void setStock(long stock) {
+      this.stock = stock;
+    }
+
+    @Override
+    public String toString() {
+      return id + " " + name + " " + price + " " + stock;
+    }
+  }
+
+  /** Not public, so it is accessed by reflection. */
+  static class HiddenProduct {
+
+    private String name;
+    private double price;
+    private long stock;
+
+    HiddenProduct() {}
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public long getStock() {
+      return stock;
+    }
+
+    public void setStock(long stock) {
+      this.stock = stock;
+    }
+  }
+
+}
@@ -0,0 +1,160 @@
+package org.odata4j.test.unit.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.odata4j.edm.EdmEntityType;
+import org.odata4j.edm.EdmProperty;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.expression.BoolCommonExpression;
+import org.odata4j.producer.CompiledFilter;
+import org.odata4j.producer.ExpressionEvaluator;
+import org.odata4j.producer.ExpressionEvaluator.SlotResolver;
+import org.odata4j.producer.ExpressionEvaluator.VariableResolver;
+import org.odata4j.producer.resources.OptionsQueryParser;
+
+public class CompiledFilterTest {
+
+  private static final EdmEntityType TYPE = EdmEntityType.newBuilder().setNamespace("NS").setName("Product").addKeys("Id")
+      .addProperties(
+          EdmProperty.newBuilder("Id").setType(EdmSimpleType.INT32),
+          EdmProperty.newBuilder("Name").setType(EdmSimpleType.STRING),
+          EdmProperty.newBuilder("Price").setType(EdmSimpleType.DOUBLE),
+          EdmProperty.newBuilder("Rating").setType(EdmSimpleType.SINGLE),
+          EdmProperty.newBuilder("Stock").setType(EdmSimpleType.INT64),
+          EdmProperty.newBuilder("Cost").setType(EdmSimpleType.DECIMAL),
+          EdmProperty.newBuilder("Active").setType(EdmSimpleType.BOOLEAN),
+          EdmProperty.newBuilder("Code").setType(EdmSimpleType.STRING))
+      .build();
+
+  private static final String[] NAMES = { "Id", "Name", "Price", "Rating", "Stock", "Cost", "Active", "Code" };
+
+  private static final Object[][] ROWS = {
+      { 1, "Bread", 2.5d, 4.0f, 10L, new BigDecimal("1.20"), true, null },
+      { 2, "Milk", 3.0d, 3.5f, 0L, new BigDecimal("2"), false, "M" },
+      { 3, "Cheese", 12.75d, 4.5f, 250L, new BigDecimal("8.4"), true, "C" },
+  };
+
+  private static final String[] FILTERS = {
+      "Id eq 2",
+      "Id ne 2",
+      "Id gt 1 and Id lt 3",
+      "Id ge 2 or Id le 1",
+      "Price gt 3",
+      "Price eq 3",
+      "Price ge 3.0",
+      "Price lt 12.75",
+      "Rating gt 3.5",
+      "Rating eq 4",
+      "Stock gt 5",
+      "Stock eq 0",
+      "Stock gt Id",
+      "Price gt Id",
+      "Cost eq 2",
+      "Cost gt 2",
+      "Cost le 8.4M",
+      "Name eq 'Milk'",
+      "Name gt 'Bread'",
+      "Name ne 'Milk'",
+      "Active eq true",
+      "not (Active eq true)",
+      "Code eq null",
+      "Code ne null",
+      "substringof('ee', Name)",
+      "Id add 1 eq 3",
+      "Price mul 2 gt 6",
+      "Stock sub Id ge 9",
+      "(Id eq 1 or Id eq 3) and Price lt 10",
+      "true",
+      "Unknown eq 5",
+  };
+
+  @Test
+  public void sameResultsAsEvaluator() {
+    BoolCommonExpression[] filters = new BoolCommonExpression[FILTERS.length];
+    CompiledFilter[] compiled = new CompiledFilter[FILTERS.length];
+    for (int i = 0; i < FILTERS.length; i++) {
+      filters[i] = OptionsQueryParser.parseFilter(FILTERS[i]);
+      compiled[i] = CompiledFilter.compile(filters[i], TYPE);
+    }
+    for (Object[] row : ROWS) {
+      VariableResolver byName = new NameResolver(row);
+      VariableResolver bySlot = new RowResolver(row);
+      ExpressionEvaluator evaluator = new ExpressionEvaluator(byName);
+      for (int i = 0; i < FILTERS.length; i++) {
+        boolean expected = evaluator.evaluate(filters[i]);
+        assertEquals(FILTERS[i] + " on " + row[0], expected, compiled[i].apply(bySlot));
+        assertEquals(FILTERS[i] + " on " + row[0], expected, compiled[i].apply(byName));
+        assertEquals(FILTERS[i] + " on " + row[0], expected, evaluator.evaluate(compiled[i]));
+      }
+    }
+  }
+
+  @Test
+  public void orderingWithNullIsFalse() {
+    CompiledFilter filter = CompiledFilter.compile(OptionsQueryParser.parseFilter("Code gt 'A'"), TYPE);
+    assertFalse(filter.apply(new RowResolver(ROWS[0])));
+    assertTrue(filter.apply(new RowResolver(ROWS[1])));
+  }
+
+  @Test
+  public void withoutType() {
+    CompiledFilter filter = CompiledFilter.compile(OptionsQueryParser.parseFilter("Price gt 3 and Name eq 'Cheese'"), null);
+    assertFalse(filter.apply(new NameResolver(ROWS[1])));
+    assertTrue(filter.apply(new NameResolver(ROWS[2])));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void unsupportedExpression() {
+    CompiledFilter.compile(OptionsQueryParser.parseFilter("tolower(Name) eq 'b'"), TYPE);
+  }
+
+  private static class NameResolver implements VariableResolver {
+
+    private final Object[] row;
+
+    NameResolver(Object[] row) {
+      this.row = row;
+    }
+
+    @Override
+    public Object resolveVariable(String path) {
+      if (path.equals("Unknown"))
+        return 5;
+      for (int i = 0; i < NAMES.length; i++)
+        if (NAMES[i].equals(path))
+          return row[i];
+      throw new IllegalArgumentException(path);
+    }
+
+  }
+
+  private static class RowResolver extends NameResolver implements SlotResolver {
+
+    private final Object[] row;
+
+    RowResolver(Object[] row) {
+      super(row);
+      this.row = row;
+    }
+
+    @Override
+    public Object resolveSlot(int slot) {
+      return row[slot];
+    }
+
+    @Override
+    public Object resolveVariable(String path) {
+      // properties of the type must be read by slot
+      if (!path.equals("Unknown"))
+        throw new IllegalStateException(path);
+      return super.resolveVariable(path);
+    }
+
+  }
+
+}
@@ -0,0 +1,96 @@
+package org.odata4j.test.unit.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+import org.odata4j.core.Guid;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.exceptions.BadRequestException;
+import org.odata4j.expression.OrderByExpression;
+import org.odata4j.producer.SkipToken;
+import org.odata4j.producer.resources.OptionsQueryParser;
+
+/**
+ * Tests for {@link SkipToken}
+ */
+public class SkipTokenTest {
+
+  private static final List<OrderByExpression> ORDER_BY = OptionsQueryParser.parseOrderBy("Name,Price desc,Created,Id,Rank,Code");
+
+  @Test
+  public void valuesAreEncodedWithTheirTypes() {
+    Guid guid = Guid.randomGuid();
+    SkipToken skipToken = SkipToken.create(ORDER_BY,
+        Arrays.<Object> asList("a,b:\u00e9'", new BigDecimal("1.50"), new LocalDateTime(2012, 3, 4, 5, 6, 7, 8), (short) 7, null, guid),
+        OEntityKey.create("Id", 7, "Name", "x"));
+
+    String encoded = skipToken.encode();
+    assertTrue(encoded, encoded.matches("[A-Za-z0-9_\\-]+\\.[A-Za-z0-9_\\-]+"));
+
+    SkipToken decoded = SkipToken.decode(encoded, ORDER_BY);
+    assertEquals(skipToken.getOrderByValues(), decoded.getOrderByValues());
+    assertEquals(Short.class, decoded.getOrderByValues().get(3).getClass());
+    assertEquals(OEntityKey.create("Id", 7, "Name", "x"), decoded.getEntityKey());
+  }
+
+  @Test
+  public void keyOnlyTokens() {
+    SkipToken decoded = SkipToken.decode(SkipToken.create(null, null, OEntityKey.create(3L)).encode(), null);
+    assertNull(decoded.getOrderByValues());
+    assertEquals(OEntityKey.create(3L), decoded.getEntityKey());
+  }
+
+  @Test
+  public void changedTokensAreRejected() {
+    String encoded = SkipToken.create(ORDER_BY.subList(0, 1), Arrays.asList("abc"), OEntityKey.create(1)).encode();
+    assertRejected(encoded, OptionsQueryParser.parseOrderBy("Name desc"));
+    assertRejected(encoded, OptionsQueryParser.parseOrderBy("Code"));
+    assertRejected(encoded, null);
+    assertRejected(encoded.substring(0, encoded.indexOf('.')), ORDER_BY.subList(0, 1));
+    assertRejected("1", ORDER_BY.subList(0, 1));
+
+    String forged = SkipToken.create(ORDER_BY.subList(0, 1), Arrays.asList("abd"), OEntityKey.create(1)).encode();
+    assertRejected(forged.substring(0, forged.indexOf('.')) + encoded.substring(encoded.indexOf('.')), ORDER_BY.subList(0, 1));
+  }
+
+  @Test
+  public void valuesAreComparedInTheDirectionsOfTheOrderings() {
+    List<OrderByExpression> orderBy = OptionsQueryParser.parseOrderBy("Name,Price desc");
+    SkipToken skipToken = SkipToken.create(orderBy, Arrays.asList("b", 10), OEntityKey.create(1));
+    assertTrue(skipToken.compareTo(Arrays.asList("a", 0)) < 0);
+    assertTrue(skipToken.compareTo(Arrays.asList(null, 0)) < 0);
+    assertTrue(skipToken.compareTo(Arrays.asList("b", 11)) < 0);
+    assertEquals(0, skipToken.compareTo(Arrays.asList("b", 10)));
+    assertTrue(skipToken.compareTo(Arrays.asList("b", 9)) > 0);
+    assertTrue(skipToken.compareTo(Arrays.asList("b", null)) > 0);
+    assertTrue(skipToken.compareTo(Arrays.asList("c", 99)) > 0);
+
+    // values are compared as the values of their edm types
+    skipToken = SkipToken.create(orderBy.subList(0, 1), Arrays.asList(new Date(1000)), OEntityKey.create(1));
+    assertEquals(0, SkipToken.decode(skipToken.encode(), orderBy.subList(0, 1)).compareTo(Arrays.asList(new Date(1000))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void valuesMustBeOfSimpleTypes() {
+    SkipToken.create(ORDER_BY.subList(0, 1), Arrays.asList(new Object()), OEntityKey.create(1));
+  }
+
+  private static void assertRejected(String skipToken, List<OrderByExpression> orderBy) {
+    try {
+      SkipToken.decode(skipToken, orderBy);
+      fail("accepted " + skipToken);
+    } catch (BadRequestException e) {
+      // expected
+    }
+  }
+
+}
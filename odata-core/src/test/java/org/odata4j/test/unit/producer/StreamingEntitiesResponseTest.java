@@ -0,0 +1,259 @@
+package org.odata4j.test.unit.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.ContextResolver;
+
+import org.junit.Test;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntities;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OLink;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.OProperty;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.format.FormatWriter;
+import org.odata4j.format.json.JsonFeedFormatWriter;
+import org.odata4j.internal.InternalUtil;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.ODataContext;
+import org.odata4j.producer.ODataProducer;
+import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.Responses;
+import org.odata4j.producer.StreamingEntitiesResponse;
+import org.odata4j.producer.inmemory.InMemoryProducer;
+import org.odata4j.producer.resources.EntitiesRequestResource;
+
+/**
+ * Tests for {@link Responses#streamingEntities}
+ */
+public class StreamingEntitiesResponseTest {
+
+  private static final EdmEntitySet ENTITY_SET = EdmEntitySet.newBuilder().setName("Items").build();
+
+  @Test
+  public void entitiesAreIteratedOnce() {
+    StreamingEntitiesResponse response = Responses.streamingEntities(entities(3).iterator(), ENTITY_SET, null, "tok");
+    int count = 0;
+    for (OEntity entity : InternalUtil.iterateEntities(response)) {
+      assertEquals(count, entity.getProperty("Id").getValue());
+      count++;
+    }
+    assertEquals(3, count);
+    assertEquals("tok", response.getSkipToken());
+    assertSame(ENTITY_SET, response.getEntitySet());
+    try {
+      response.getEntityIterator();
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {}
+  }
+
+  @Test
+  public void getEntitiesMaterializes() {
+    StreamingEntitiesResponse response = Responses.streamingEntities(entities(5).iterator(), ENTITY_SET, 5, null);
+    assertEquals(5, response.getEntities().size());
+    assertEquals(5, response.getEntities().size());
+    assertTrue(response.getEntityIterator().hasNext());
+    assertEquals(Integer.valueOf(5), response.getInlineCount());
+  }
+
+  @Test
+  public void closeReleasesResource() throws IOException {
+    final boolean[] closed = new boolean[1];
+    Iterator<OEntity> it = entities(1).iterator();
+    StreamingEntitiesResponse response = Responses.streamingEntities(it, ENTITY_SET, null, null, new Closeable() {
+      @Override
+      public void close() throws IOException {
+        closed[0] = true;
+      }
+    });
+    assertFalse(closed[0]);
+    response.close();
+    assertTrue(closed[0]);
+  }
+
+  @Test
+  public void feedsAreStreamedOnceAndClosed() throws IOException {
+    final int[] iterated = new int[1];
+    final int[] iteratedBeforeSkipToken = new int[] { -1 };
+    final boolean[] closed = new boolean[1];
+    final Iterator<OEntity> entities = entities(3).iterator();
+    Iterator<OEntity> counting = new Iterator<OEntity>() {
+      public boolean hasNext() {
+        return entities.hasNext();
+      }
+
+      public OEntity next() {
+        iterated[0]++;
+        return entities.next();
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+    final StreamingEntitiesResponse delegate = Responses.streamingEntities(counting, ENTITY_SET, 3, null, new Closeable() {
+      @Override
+      public void close() throws IOException {
+        closed[0] = true;
+      }
+    });
+    StreamingEntitiesResponse response = new StreamingEntitiesResponse() {
+      public Iterator<OEntity> getEntityIterator() {
+        return delegate.getEntityIterator();
+      }
+
+      public List<OEntity> getEntities() {
+        return delegate.getEntities();
+      }
+
+      public EdmEntitySet getEntitySet() {
+        return ENTITY_SET;
+      }
+
+      public Integer getInlineCount() {
+        return delegate.getInlineCount();
+      }
+
+      public String getSkipToken() {
+        // computed while iterating
+        iteratedBeforeSkipToken[0] = iterated[0];
+        return "tok";
+      }
+
+      public void close() throws IOException {
+        delegate.close();
+      }
+    };
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    StreamingOutput streamingOutput = StreamingResource.output(
+        new ODataBatchUriInfo(URI.create("http://localhost/test.svc/Items"), URI.create("http://localhost/test.svc/")),
+        new JsonFeedFormatWriter(null), response);
+    assertFalse(closed[0]);
+    streamingOutput.write(output);
+
+    String json = new String(output.toByteArray(), "UTF-8");
+    assertTrue(json, json.contains("\"__count\" : \"3\""));
+    assertTrue(json, json.contains("skiptoken=tok"));
+    assertEquals(3, iterated[0]);
+    assertEquals(3, iteratedBeforeSkipToken[0]);
+    assertTrue(closed[0]);
+    try {
+      response.getEntityIterator();
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {}
+  }
+
+  @Test
+  public void cursorIsNotLeftOpenWhenTheFormatIsRejected() throws Exception {
+    CursorProducer producer = new CursorProducer();
+    try {
+      new StreamingResource().getEntitiesImpl(headers(), uriInfo(), null, producer, "Items", false,
+          null, null, null, null, null, "bogus", null, null, null, null);
+      fail("expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {}
+    assertEquals(0, producer.open);
+  }
+
+  @Test
+  public void cursorIsReleasedOnHead() throws Exception {
+    final CursorProducer producer = new CursorProducer();
+    Response response = new StreamingResource().getEntitiesHead(headers(), uriInfo(), new ContextResolver<ODataProducer>() {
+      @Override
+      public ODataProducer getContext(Class<?> type) {
+        return producer;
+      }
+    }, null, "Items", null, null, null, null, null, "json", null, null, null, null);
+    assertEquals(200, response.getStatus());
+    assertNull(response.getEntity());
+    assertEquals(1, producer.opened);
+    assertEquals(0, producer.open);
+  }
+
+  private static class StreamingResource extends EntitiesRequestResource {
+
+    static StreamingOutput output(UriInfo uriInfo, FormatWriter<EntitiesResponse> fw, StreamingEntitiesResponse response) {
+      return EntitiesRequestResource.getStreamingOutput(uriInfo, fw, response);
+    }
+
+    @Override
+    protected Response getEntitiesImpl(HttpHeaders httpHeaders, UriInfo uriInfo, SecurityContext securityContext, ODataProducer producer,
+        String entitySetName, boolean isCount, String inlineCount, String top, String skip, String filter, String orderBy, String format,
+        String callback, String skipToken, String expand, String select) throws Exception {
+      return super.getEntitiesImpl(httpHeaders, uriInfo, securityContext, producer, entitySetName, isCount, inlineCount, top, skip, filter,
+          orderBy, format, callback, skipToken, expand, select);
+    }
+  }
+
+  /** Hands out streaming responses and counts the ones that have not been closed yet. */
+  private static class CursorProducer extends InMemoryProducer {
+
+    int opened;
+    int open;
+
+    CursorProducer() {
+      super("Cursors");
+    }
+
+    @Override
+    public EntitiesResponse getEntities(ODataContext context, String entitySetName, QueryInfo queryInfo) {
+      opened++;
+      open++;
+      return Responses.streamingEntities(entities(3).iterator(), ENTITY_SET, null, null, new Closeable() {
+        @Override
+        public void close() throws IOException {
+          open--;
+        }
+      });
+    }
+  }
+
+  private static UriInfo uriInfo() {
+    return new ODataBatchUriInfo(URI.create("http://localhost/test.svc/Items"), URI.create("http://localhost/test.svc/"));
+  }
+
+  private static HttpHeaders headers() {
+    return (HttpHeaders) Proxy.newProxyInstance(HttpHeaders.class.getClassLoader(), new Class<?>[] { HttpHeaders.class },
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            return method.getReturnType() == List.class ? Collections.emptyList() : null;
+          }
+        });
+  }
+
+  private static List<OEntity> entities(int n) {
+    List<OEntity> rt = new ArrayList<OEntity>();
+    for (int i = 0; i < n; i++) {
+      List<OProperty<?>> props = new ArrayList<OProperty<?>>();
+      props.add(OProperties.int32("Id", i));
+      rt.add(OEntities.create(ENTITY_SET, OEntityKey.create(i), props, new ArrayList<OLink>()));
+    }
+    return rt;
+  }
+
+}
@@ -128,6 +128,38 @@ public class InMemoryProducerTest {
     Assert.assertEquals(data.getEntities().size(), 2);
   }
 
+  @Test
+  public void compiledFilter() {
+    InMemoryProducer p = new InMemoryProducer("compiledFilter");
+    p.register(SimpleEntity.class, "setName", "typeName", new Func<Iterable<SimpleEntity>>() {
+      @Override
+      public Iterable<SimpleEntity> apply() {
+        return Enumerable.range(1, 10).select(new Func1<Integer, SimpleEntity>() {
+          @Override
+          public SimpleEntity apply(Integer input) {
+            return new SimpleEntity(input);
+          }
+        });
+      }
+    }, "Id");
+
+    QueryInfo qi = new QueryInfo(InlineCount.ALLPAGES, null, null,
+        OptionsQueryParser.parseFilter("Integer ge 3 and Integer lt 8.5 and startswith(String,'string-') and Bool eq false"), null, null, null, null, null);
+    EntitiesResponse response = p.getEntities(null, "setName", qi);
+    Assert.assertEquals(6, response.getEntities().size());
+    Assert.assertEquals(Integer.valueOf(6), response.getInlineCount());
+    Assert.assertEquals(3, response.getEntities().get(0).getProperty("Integer").getValue());
+
+    // a filter that cannot be compiled is evaluated for every entity
+    qi = new QueryInfo(InlineCount.NONE, null, null,
+        OptionsQueryParser.parseFilter("Integer mod 2 eq 0 and length(String) gt 7"), null, null, null, null, null);
+    Assert.assertEquals(5, p.getEntities(null, "setName", qi).getEntities().size());
+
+    CountResponse count = p.getEntitiesCount(null, "setName", new QueryInfo(InlineCount.NONE, null, null,
+        OptionsQueryParser.parseFilter("Integer le 2 or endswith(String,'x')"), null, null, null, null, null));
+    Assert.assertEquals(2L, count.getCount());
+  }
+
   @Test
   public void testSimpleCount() {
     InMemoryProducer p = new InMemoryProducer("testSimpleCount");
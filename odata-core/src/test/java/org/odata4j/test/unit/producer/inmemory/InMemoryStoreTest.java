@@ -0,0 +1,226 @@
+package org.odata4j.test.unit.producer.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.core4j.Func;
+import org.junit.Before;
+import org.junit.Test;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.exceptions.NotFoundException;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.InlineCount;
+import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.inmemory.InMemoryProducer;
+import org.odata4j.producer.inmemory.InMemoryStore;
+import org.odata4j.producer.resources.OptionsQueryParser;
+
+public class InMemoryStoreTest {
+
+  private InMemoryProducer producer;
+  private InMemoryStore<Product> store;
+
+  @Before
+  public void setUp() {
+    final List<Product> products = new ArrayList<Product>();
+    for (int i = 0; i < 500; i++)
+      products.add(new Product(i, "Category" + (i % 7), (i * 37) % 101, i % 10 == 9 ? null : i % 13));
+
+    producer = new InMemoryProducer("InMemoryStoreTest", 50);
+    producer.register(Product.class, "Scanned", new Func<Iterable<Product>>() {
+      @Override
+      public Iterable<Product> apply() {
+        return products;
+      }
+    }, "Id");
+    store = producer.registerStore(Product.class, "Stored", "Id")
+        .addHashIndex("Category")
+        .addSortedIndex("Price")
+        .addSortedIndex("Rank");
+    store.putAll(products);
+  }
+
+  @Test
+  public void queriesMatchUnindexedSet() {
+    String[][] queries = {
+        { "Category eq 'Category3'", null },
+        { "'Category3' eq Category and Price gt 50", null },
+        { "Price ge 20 and Price lt 30", null },
+        { "40 lt Price and Price le 40.5", null },
+        { "Price eq 17L", null },
+        { "Id eq 42", null },
+        { "Rank eq 4 or Category eq 'Category1'", null },
+        { null, "Price" },
+        { null, "Price desc" },
+        { null, "Rank" },
+        { null, "Rank desc,Id desc" },
+        { "Category eq 'Category2'", "Price desc" },
+        { "Rank ne null and Rank ge 3", "Category,Price desc" },
+        { "Id eq 42L", null } };
+    for (String[] query : queries) {
+      for (Integer top : new Integer[] { null, 1, 7 }) {
+        for (Integer skip : new Integer[] { null, 3, 60 }) {
+          QueryInfo queryInfo = query(query[0], query[1], top, skip, null);
+          String message = query[0] + " / " + query[1] + " / " + top + " / " + skip;
+          assertEquals(message, keys(producer.getEntities(null, "Scanned", queryInfo)), keys(producer.getEntities(null, "Stored", queryInfo)));
+          assertEquals(message, producer.getEntities(null, "Scanned", queryInfo).getInlineCount(),
+              producer.getEntities(null, "Stored", queryInfo).getInlineCount());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void pagesWithSkipToken() {
+    String[][] queries = {
+        { "Price lt 90", "Rank desc" },
+        { "Price lt 90", null },
+        { null, null },
+        { null, "Category,Rank desc" },
+        { "Category eq 'Category2'", "Price" },
+        { null, "Rank" },
+        { null, "Rank desc" },
+        { null, "Price desc" } };
+    int[] counts = { 446, 446, 500, 500, 72, 500, 500, 500 };
+    for (int i = 0; i < queries.length; i++) {
+      String message = queries[i][0] + " / " + queries[i][1];
+      List<String> all = pages("Stored", queries[i][0], queries[i][1]);
+      assertEquals(message, pages("Scanned", queries[i][0], queries[i][1]), all);
+      assertEquals(message, counts[i], all.size());
+      assertEquals(message, counts[i], new HashSet<String>(all).size());
+    }
+  }
+
+  @Test
+  public void skipTokenOfRemovedEntitySkipsItsValue() {
+    EntitiesResponse first = producer.getEntities(null, "Stored", query(null, "Price", null, null, null));
+    OEntity last = first.getEntities().get(first.getEntities().size() - 1);
+    double price = (Double) last.getProperty("Price").getValue();
+    store.remove(last.getEntityKey());
+
+    EntitiesResponse second = producer.getEntities(null, "Stored", query(null, "Price", null, null, first.getSkipToken()));
+    assertTrue((Double) second.getEntities().get(0).getProperty("Price").getValue() > price);
+  }
+
+  private List<String> pages(String entitySetName, String filter, String orderBy) {
+    List<String> rt = new ArrayList<String>();
+    String skipToken = null;
+    do {
+      EntitiesResponse response = producer.getEntities(null, entitySetName, query(filter, orderBy, null, null, skipToken));
+      rt.addAll(keys(response));
+      skipToken = response.getSkipToken();
+    } while (skipToken != null);
+    return rt;
+  }
+
+  @Test
+  public void nullsComeFirstInAscendingOrder() {
+    List<OEntity> entities = producer.getEntities(null, "Stored", query(null, "Rank", 3, null, null)).getEntities();
+    assertNull(entities.get(0).getProperty("Rank").getValue());
+    assertEquals(OEntityKey.create(9), entities.get(0).getEntityKey());
+    assertEquals(OEntityKey.create(19), entities.get(1).getEntityKey());
+  }
+
+  @Test
+  public void putReplacesAndRemoveRemoves() {
+    Product product = new Product(5, "Other", 5000, 1);
+    assertEquals(5, store.put(product).getId());
+    assertSame(product, store.get(OEntityKey.create(5)));
+    assertEquals(500, store.size());
+
+    // the replacement keeps its position, and is found by its new values only
+    EntitiesResponse response = producer.getEntities(null, "Stored", query(null, null, 10, null, null));
+    assertEquals("(5)", response.getEntities().get(5).getEntityKey().toKeyString());
+    assertEquals("[(5)]", keys(producer.getEntities(null, "Stored", query("Category eq 'Other'", null, null, null, null))).toString());
+    assertEquals("[(5)]", keys(producer.getEntities(null, "Stored", query("Price gt 4000", null, null, null, null))).toString());
+    assertEquals(70, producer.getEntities(null, "Stored", query("Category eq 'Category5'", null, null, null, null)).getInlineCount().intValue());
+
+    assertSame(product, store.remove(OEntityKey.create(5)));
+    assertNull(store.get(OEntityKey.create(5)));
+    assertEquals(499, store.size());
+    assertEquals("[]", keys(producer.getEntities(null, "Stored", query("Price gt 4000", null, null, null, null))).toString());
+  }
+
+  @Test
+  public void getEntityByKey() {
+    assertEquals(Integer.valueOf(42), producer.getEntity(null, "Stored", OEntityKey.create(42), null).getEntity().getProperty("Id").getValue());
+    // the key value is converted to the type of the key property
+    assertEquals(Integer.valueOf(42), producer.getEntity(null, "Stored", OEntityKey.parse("(42L)"), null).getEntity().getProperty("Id").getValue());
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void getMissingEntity() {
+    producer.getEntity(null, "Stored", OEntityKey.create(4242), null);
+  }
+
+  private static QueryInfo query(String filter, String orderBy, Integer top, Integer skip, String skipToken) {
+    return new QueryInfo(InlineCount.ALLPAGES, top, skip,
+        filter == null ? null : OptionsQueryParser.parseFilter(filter),
+        orderBy == null ? null : OptionsQueryParser.parseOrderBy(orderBy),
+        skipToken, null, null, null);
+  }
+
+  private static List<String> keys(EntitiesResponse response) {
+    List<String> rt = new ArrayList<String>();
+    for (OEntity entity : response.getEntities())
+      rt.add(entity.getEntityKey().toKeyString());
+    return rt;
+  }
+
+  public static class Product {
+
+    private int id;
+    private String category;
+    private double price;
+    private Integer rank;
+
+    public Product() {}
+
+    public Product(int id, String category, double price, Integer rank) {
+      this.id = id;
+      this.category = category;
+      this.price = price;
+      this.rank = rank;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getCategory() {
+      return category;
+    }
+
+    public void setCategory(String category) {
+      this.category = category;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    public Integer getRank() {
+      return rank;
+    }
+
+    public void setRank(Integer rank) {
+      this.rank = rank;
+    }
+  }
+
+}
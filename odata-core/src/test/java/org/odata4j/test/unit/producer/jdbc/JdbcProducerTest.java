@@ -0,0 +1,303 @@
+package org.odata4j.test.unit.producer.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.hsqldb.jdbc.jdbcDataSource;
+import org.joda.time.LocalDateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.edm.EdmEntitySet;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.exceptions.BadRequestException;
+import org.odata4j.exceptions.NotFoundException;
+import org.odata4j.exceptions.NotImplementedException;
+import org.odata4j.producer.EntitiesResponse;
+import org.odata4j.producer.InlineCount;
+import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.StreamingEntitiesResponse;
+import org.odata4j.producer.jdbc.JdbcProducer;
+import org.odata4j.producer.resources.OptionsQueryParser;
+
+public class JdbcProducerTest {
+
+  private static final int COUNT = 25;
+
+  private jdbcDataSource dataSource;
+  private JdbcProducer producer;
+
+  @Before
+  public void setUp() throws Exception {
+    dataSource = new jdbcDataSource();
+    dataSource.setDatabase("jdbc:hsqldb:mem:jdbcproducertest");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+    Connection connection = dataSource.getConnection();
+    Statement statement = connection.createStatement();
+    statement.execute("CREATE TABLE PRODUCTS (ID INTEGER PRIMARY KEY, NAME VARCHAR(50) NOT NULL, PRICE DECIMAL(10,2), "
+        + "CATEGORY VARCHAR(20), CREATED TIMESTAMP)");
+    statement.execute("CREATE TABLE LINES (ORDERID INTEGER, LINE INTEGER, QUANTITY INTEGER, PRIMARY KEY (ORDERID, LINE))");
+    statement.close();
+    PreparedStatement insert = connection.prepareStatement("INSERT INTO PRODUCTS VALUES (?, ?, ?, ?, ?)");
+    for (int i = 1; i <= COUNT; i++) {
+      insert.setInt(1, i);
+      insert.setString(2, "Product " + i);
+      insert.setBigDecimal(3, new BigDecimal(i).multiply(new BigDecimal("1.50")));
+      insert.setString(4, category(i));
+      insert.setTimestamp(5, Timestamp.valueOf((2010 + i % 3) + "-01-02 03:04:05"));
+      insert.execute();
+    }
+    insert.close();
+    insert = connection.prepareStatement("INSERT INTO LINES VALUES (?, ?, ?)");
+    for (int i = 0; i < 6; i++) {
+      insert.setInt(1, i / 3);
+      insert.setInt(2, i % 3);
+      insert.setInt(3, i * 10);
+      insert.execute();
+    }
+    insert.close();
+    connection.close();
+
+    producer = JdbcProducer.newBuilder(dataSource).setNamespace("Test").setMaxResults(4)
+        .addTable("PRODUCTS")
+        .addTable("Lines", null, "LINES")
+        .build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Connection connection = dataSource.getConnection();
+    connection.createStatement().execute("SHUTDOWN");
+    connection.close();
+  }
+
+  private static String category(int i) {
+    return i % 3 == 0 ? null : i % 2 == 0 ? "A" : "B";
+  }
+
+  @Test
+  public void metadataIsReadFromTheTables() {
+    EdmEntitySet products = producer.getMetadata().getEdmEntitySet("PRODUCTS");
+    assertEquals("Test.PRODUCTS", products.getType().getFullyQualifiedTypeName());
+    assertEquals("[ID]", products.getType().getKeys().toString());
+    assertEquals(EdmSimpleType.DECIMAL, products.getType().findProperty("PRICE").getType());
+    assertEquals(EdmSimpleType.DATETIME, products.getType().findProperty("CREATED").getType());
+    assertTrue(!products.getType().findProperty("NAME").isNullable());
+    assertEquals("[ORDERID, LINE]", producer.getMetadata().getEdmEntitySet("Lines").getType().getKeys().toString());
+  }
+
+  @Test
+  public void queriesArePushedDown() throws Exception {
+    List<OEntity> entities = entities("PRODUCTS", query()
+        .setFilter(OptionsQueryParser.parseFilter("PRICE gt 10 and substringof('1', NAME) and year(CREATED) ne 2010"))
+        .setOrderBy(OptionsQueryParser.parseOrderBy("PRICE desc"))
+        .setTop(3));
+    // 10 to 19 and 21, without the multiples of 3
+    assertEquals("[19, 17, 16]", ids(entities));
+    assertEquals(new BigDecimal("28.50"), entities.get(0).getProperty("PRICE").getValue());
+    assertEquals(new LocalDateTime(2011, 1, 2, 3, 4, 5), entities.get(0).getProperty("CREATED").getValue());
+
+    entities = entities("PRODUCTS", query()
+        .setFilter(OptionsQueryParser.parseFilter("CATEGORY eq null or startswith(tolower(NAME), 'product 2')"))
+        .setOrderBy(OptionsQueryParser.parseOrderBy("ID"))
+        .setSkip(2));
+    assertEquals("[6, 9, 12, 15]", ids(entities));
+  }
+
+  @Test
+  public void selectIsPushedDown() throws Exception {
+    List<OEntity> entities = entities("PRODUCTS", query().setSelect(OptionsQueryParser.parseSelect("NAME")).setTop(1));
+    assertEquals(1, entities.get(0).getProperties().size());
+    assertEquals("Product 1", entities.get(0).getProperty("NAME").getValue());
+    assertEquals(OEntityKey.create(1), entities.get(0).getEntityKey());
+  }
+
+  @Test
+  public void pagesAreContinuedBySkipTokens() throws Exception {
+    for (String orderBy : new String[] { null, "CATEGORY", "CATEGORY desc", "CATEGORY desc,NAME", "PRICE desc" }) {
+      List<Integer> ids = new ArrayList<Integer>();
+      String skipToken = null;
+      int pages = 0;
+      do {
+        QueryInfo.Builder query = query().setSkipToken(skipToken).setInlineCount(InlineCount.ALLPAGES);
+        if (orderBy != null)
+          query.setOrderBy(OptionsQueryParser.parseOrderBy(orderBy));
+        StreamingEntitiesResponse response = (StreamingEntitiesResponse) producer.getEntities(null, "PRODUCTS", query.build());
+        for (OEntity entity : response.getEntities())
+          ids.add((Integer) entity.getEntityKey().asSingleValue());
+        assertEquals(Integer.valueOf(COUNT), response.getInlineCount());
+        skipToken = response.getSkipToken();
+        pages++;
+      } while (skipToken != null);
+
+      assertEquals(orderBy, (COUNT + 3) / 4, pages);
+      assertEquals(orderBy, COUNT, ids.size());
+      assertEquals(orderBy, COUNT, new HashSet<Integer>(ids).size());
+      if ("CATEGORY desc,NAME".equals(orderBy)) {
+        Set<String> seen = new HashSet<String>();
+        String last = "";
+        for (Integer id : ids) {
+          String category = String.valueOf(category(id));
+          if (!category.equals(last))
+            assertTrue(orderBy + " " + ids, seen.add(category));
+          last = category;
+        }
+      }
+    }
+  }
+
+  @Test
+  public void complexKeysAreSupported() throws Exception {
+    List<OEntity> entities = entities("Lines", query().setFilter(OptionsQueryParser.parseFilter("QUANTITY ge 10")));
+    assertEquals(4, entities.size());
+    assertEquals(OEntityKey.create("ORDERID", 0, "LINE", 1), entities.get(0).getEntityKey());
+
+    EntitiesResponse response = producer.getEntities(null, "Lines", query().build());
+    assertEquals(4, response.getEntities().size());
+    List<OEntity> next = entities("Lines", query().setSkipToken(response.getSkipToken()));
+    assertEquals(OEntityKey.create("ORDERID", 1, "LINE", 1), next.get(0).getEntityKey());
+    assertEquals(2, next.size());
+
+    OEntity line = producer.getEntity(null, "Lines", OEntityKey.create("ORDERID", 1, "LINE", 2), null).getEntity();
+    assertEquals(50, line.getProperty("QUANTITY").getValue());
+  }
+
+  @Test
+  public void countsAreComputedByTheDatabase() {
+    assertEquals(8, producer.getEntitiesCount(null, "PRODUCTS",
+        query().setFilter(OptionsQueryParser.parseFilter("CATEGORY eq null")).build()).getCount());
+    assertEquals(5, producer.getEntitiesCount(null, "PRODUCTS", query().setTop(5).build()).getCount());
+    assertEquals(COUNT - 20, producer.getEntitiesCount(null, "PRODUCTS", query().setSkip(20).build()).getCount());
+  }
+
+  @Test
+  public void entitiesAreFoundByKey() {
+    OEntity entity = producer.getEntity(null, "PRODUCTS", OEntityKey.create(3), null).getEntity();
+    assertEquals("Product 3", entity.getProperty("NAME").getValue());
+    assertNull(entity.getProperty("CATEGORY").getValue());
+    try {
+      producer.getEntity(null, "PRODUCTS", OEntityKey.create(COUNT + 1), null);
+      fail("found a missing entity");
+    } catch (NotFoundException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void skipTokensAreBoundToTheOrdering() throws Exception {
+    EntitiesResponse response = producer.getEntities(null, "PRODUCTS", query().setOrderBy(OptionsQueryParser.parseOrderBy("NAME")).build());
+    String skipToken = response.getSkipToken();
+    ((StreamingEntitiesResponse) response).close();
+    try {
+      producer.getEntities(null, "PRODUCTS", query().setOrderBy(OptionsQueryParser.parseOrderBy("NAME desc")).setSkipToken(skipToken).build());
+      fail("accepted the skip token of another ordering");
+    } catch (BadRequestException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void pagingByUnmappedTypesIsRejected() throws Exception {
+    // a driver that reports the prices as a vendor type
+    final int[] open = new int[1];
+    DataSource vendor = (DataSource) unmapped(dataSource, DataSource.class, "PRICE", open);
+    JdbcProducer producer = JdbcProducer.newBuilder(vendor).setNamespace("Test").setMaxResults(4).addTable("PRODUCTS").build();
+    try {
+      producer.getEntities(null, "PRODUCTS", query().setOrderBy(OptionsQueryParser.parseOrderBy("PRICE")).build());
+      fail("accepted an ordering whose values cannot go into a skip token");
+    } catch (BadRequestException e) {
+      // expected
+    }
+    assertEquals(0, open[0]);
+
+    // a single page needs no skip token
+    EntitiesResponse response = producer.getEntities(null, "PRODUCTS", query().setOrderBy(OptionsQueryParser.parseOrderBy("PRICE desc")).setTop(2).build());
+    assertEquals("[25, 24]", ids(response.getEntities()));
+    assertNull(response.getSkipToken());
+  }
+
+  @Test
+  public void unsupportedExpressionsAreRejected() {
+    try {
+      producer.getEntities(null, "PRODUCTS", query().setFilter(OptionsQueryParser.parseFilter("isof('Test.PRODUCTS')")).build());
+      fail("translated isof");
+    } catch (NotImplementedException e) {
+      // expected
+    }
+  }
+
+  private static QueryInfo.Builder query() {
+    return QueryInfo.newBuilder();
+  }
+
+  private List<OEntity> entities(String entitySetName, QueryInfo.Builder query) throws IOException {
+    EntitiesResponse response = producer.getEntities(null, entitySetName, query.build());
+    try {
+      return response.getEntities();
+    } finally {
+      ((StreamingEntitiesResponse) response).close();
+    }
+  }
+
+  /**
+   * Wraps a JDBC object so that the result sets it returns report the columns labeled {@code label} as
+   * {@link Types#OTHER}, counting the connections left open in {@code open}.
+   */
+  private static Object unmapped(final Object target, Class<?> type, final String label, final int[] open) {
+    return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("getColumnType") && ((ResultSetMetaData) target).getColumnLabel((Integer) args[0]).equals(label))
+          return Types.OTHER;
+        Object rt;
+        try {
+          rt = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+        if (method.getName().equals("close") && target instanceof Connection)
+          open[0]--;
+        Class<?> returnType = method.getReturnType();
+        if (returnType == Connection.class)
+          open[0]++;
+        if (rt != null && (returnType == Connection.class || returnType == PreparedStatement.class || returnType == ResultSet.class
+            || returnType == ResultSetMetaData.class))
+          return unmapped(rt, returnType, label, open);
+        return rt;
+      }
+    });
+  }
+
+  private static String ids(List<OEntity> entities) {
+    List<Object> rt = new ArrayList<Object>();
+    for (OEntity entity : entities)
+      rt.add(entity.getEntityKey().asSingleValue());
+    return rt.toString();
+  }
+
+}
@@ -0,0 +1,182 @@
+package org.odata4j.test.unit.producer.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.ContextResolver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.odata4j.format.writer.BufferOrFileResponseWriter;
+import org.odata4j.producer.ODataProducer;
+import org.odata4j.producer.resources.BatchProcessThreadLocal;
+import org.odata4j.producer.resources.BatchRequestResource;
+import org.odata4j.producer.resources.ODataBatchGetUnit;
+import org.odata4j.producer.resources.ODataBatchUnit;
+
+public class BatchRequestResourceTest {
+
+  private static final URI BASE_URI = URI.create("http://localhost/test.svc/");
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final AtomicInteger completedQueries = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    // as set by processBatch for the request thread
+    BatchProcessThreadLocal.setBatchProcessFlag(true);
+  }
+
+  @After
+  public void tearDown() {
+    BatchProcessThreadLocal.setBatchProcessFlag(null);
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void queriesRunConcurrentlyAndChangeSetsSerially() throws Exception {
+    // the first four queries only complete if they run at the same time
+    CountDownLatch together = new CountDownLatch(4);
+    final List<ODataBatchUnit> units = new ArrayList<ODataBatchUnit>();
+    for (int i = 0; i < 4; i++)
+      units.add(new Query("q" + i, together));
+    units.add(new ChangeSet("c1", 4));
+    units.add(new Query("q4", null));
+    units.add(new ChangeSet("c2", 5));
+
+    List<Object> results = new TestResource(executor).execute(units);
+
+    assertEquals(7, results.size());
+    String[] expected = { "q0", "q1", "q2", "q3", "c1", "q4", "c2" };
+    for (int i = 0; i < expected.length; i++)
+      assertEquals(expected[i], ((Response) results.get(i)).getEntity());
+  }
+
+  @Test
+  public void failuresArePerUnit() throws Exception {
+    List<ODataBatchUnit> units = Arrays.<ODataBatchUnit> asList(new Query("q0", null), new Query(null, null), new ChangeSet("c1", 1));
+    List<Object> results = new TestResource(executor).execute(units);
+    assertEquals("q0", ((Response) results.get(0)).getEntity());
+    assertEquals("no entity", ((Exception) results.get(1)).getMessage());
+    assertEquals("c1", ((Response) results.get(2)).getEntity());
+  }
+
+  @Test
+  public void sequentialWithoutExecutor() throws Exception {
+    List<ODataBatchUnit> units = Arrays.<ODataBatchUnit> asList(new Query("q0", null), new ChangeSet("c1", 1), new Query("q1", null));
+    List<Object> results = new TestResource(null).execute(units);
+    assertEquals("q1", ((Response) results.get(2)).getEntity());
+  }
+
+  @Test
+  public void streamsPartsInOrder() throws Exception {
+    BufferOrFileResponseWriter writer = new BufferOrFileResponseWriter("application/json;charset=utf-8");
+    writer.write("{\"d\" : \"héllo\"}");
+    writer.close();
+
+    List<ODataBatchUnit> units = Arrays.<ODataBatchUnit> asList(new Query("q0", null), new ChangeSet("c1", 0), new Query("q1", null));
+    List<Object> results = new ArrayList<Object>();
+    results.add(Response.ok(writer.getResponseHolder()).build());
+    results.add(new IllegalStateException("failed"));
+    results.add(Response.ok("plain").build());
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    TestResource.output("b", units, results).write(output);
+    String body = new String(output.toByteArray(), "UTF-8");
+
+    assertTrue(body, body.startsWith("--b\r\nContent-Type: application/http\r\nContent-Transfer-Encoding: binary\r\n\r\nHTTP/1.1 200 OK\r\n"));
+    int first = body.indexOf("{\"d\" : \"héllo\"}\r\n");
+    int second = body.indexOf("\r\n--b\r\nContent-Type:application/http");
+    int third = body.indexOf("failed");
+    int fourth = body.indexOf("plain\r\n--b--\r\n");
+    assertTrue(body, first > 0 && second > first && third > second && fourth > third);
+  }
+
+  private static class TestResource extends BatchRequestResource {
+
+    private final ExecutorService executor;
+
+    TestResource(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    protected ExecutorService getBatchExecutor() {
+      return executor;
+    }
+
+    List<Object> execute(List<ODataBatchUnit> units) {
+      return executeBatchUnits(units, null, null, BASE_URI);
+    }
+
+    static StreamingOutput output(String boundary, List<ODataBatchUnit> units, List<Object> results) {
+      return getBatchResponseOutput(boundary, units, results);
+    }
+  }
+
+  private class Query extends ODataBatchGetUnit {
+
+    private final String name;
+    private final CountDownLatch together;
+
+    Query(String name, CountDownLatch together) throws URISyntaxException {
+      super(null, null, BASE_URI + "Products", null);
+      this.name = name;
+      this.together = together;
+    }
+
+    @Override
+    protected Response delegate(HttpHeaders httpHeaders, URI baseUri, ContextResolver<ODataProducer> producerResolver) throws Exception {
+      assertEquals(Boolean.TRUE, BatchProcessThreadLocal.isBatchProcess());
+      if (together != null) {
+        together.countDown();
+        if (!together.await(10, TimeUnit.SECONDS))
+          throw new IllegalStateException("not concurrent");
+      }
+      if (name == null)
+        throw new IllegalArgumentException("no entity");
+      completedQueries.incrementAndGet();
+      return Response.ok(name).build();
+    }
+  }
+
+  private class ChangeSet extends ODataBatchUnit {
+
+    private final String name;
+    private final int queriesBefore;
+
+    ChangeSet(String name, int queriesBefore) {
+      this.name = name;
+      this.queriesBefore = queriesBefore;
+    }
+
+    @Override
+    public Response execute(HttpHeaders httpHeaders, ContextResolver<ODataProducer> producerResolver, URI baseUrI) throws Exception {
+      // all queries before the change set have completed, none after it has started
+      assertEquals(queriesBefore, completedQueries.get());
+      return Response.ok(name).build();
+    }
+
+    @Override
+    public String getBatchUnitContentType() {
+      return "\nContent-Type: multipart/mixed; boundary=changeset\n";
+    }
+  }
+
+}
@@ -0,0 +1,208 @@
+package org.odata4j.test.unit.producer.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.ContextResolver;
+
+import org.core4j.Enumerable;
+import org.core4j.Func;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.core.OEntityKey;
+import org.odata4j.core.OProperties;
+import org.odata4j.edm.EdmSimpleType;
+import org.odata4j.producer.BaseResponse;
+import org.odata4j.producer.ContextStream;
+import org.odata4j.producer.ODataContext;
+import org.odata4j.producer.ODataProducer;
+import org.odata4j.producer.QueryInfo;
+import org.odata4j.producer.Responses;
+import org.odata4j.producer.inmemory.InMemoryProducer;
+import org.odata4j.producer.resources.PropertyRequestResource;
+
+public class MediaResponsesTest {
+
+  private File file;
+  private FileChannel channel;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("MediaResponsesTest", ".bin");
+    Files.write(file.toPath(), "0123456789".getBytes("US-ASCII"));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (channel != null)
+      channel.close();
+    file.delete();
+  }
+
+  @Test
+  public void wholeContent() throws IOException {
+    Response response = get(new RequestHeaders());
+    assertEquals(200, response.getStatus());
+    assertEquals("bytes", response.getHeaderString("Accept-Ranges"));
+    assertEquals("10", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("0123456789", write(response));
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void byteRanges() throws IOException {
+    Response response = get(new RequestHeaders().add("Range", "bytes=2-5"));
+    assertEquals(206, response.getStatus());
+    assertEquals("bytes 2-5/10", response.getHeaderString("Content-Range"));
+    assertEquals("4", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("2345", write(response));
+
+    assertEquals("789", write(get(new RequestHeaders().add("Range", "bytes=7-"))));
+    assertEquals("6789", write(get(new RequestHeaders().add("Range", "bytes=-4"))));
+    assertEquals("89", write(get(new RequestHeaders().add("Range", "bytes=8-100"))));
+
+    // multiple and malformed ranges get the whole content
+    assertEquals(200, get(new RequestHeaders().add("Range", "bytes=0-1,4-5")).getStatus());
+    assertEquals(200, get(new RequestHeaders().add("Range", "bytes=5-2")).getStatus());
+
+    Response unsatisfiable = get(new RequestHeaders().add("Range", "bytes=10-"));
+    assertEquals(416, unsatisfiable.getStatus());
+    assertEquals("bytes */10", unsatisfiable.getHeaderString("Content-Range"));
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void ifRange() throws IOException {
+    assertEquals(206, get(new RequestHeaders().add("Range", "bytes=0-0").add("If-Range", "\"v1\""), "v1").getStatus());
+    assertEquals(200, get(new RequestHeaders().add("Range", "bytes=0-0").add("If-Range", "\"v0\""), "v1").getStatus());
+    Response noTag = get(new RequestHeaders().add("Range", "bytes=0-0").add("If-Range", "Mon, 01 Jan 2001 00:00:00 GMT"));
+    assertEquals(200, noTag.getStatus());
+    assertNull(noTag.getHeaderString(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void failuresAreNotSwallowed() throws IOException {
+    Response response = get(new RequestHeaders());
+    try {
+      ((StreamingOutput) response.getEntity()).write(new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          throw new IOException("connection reset");
+        }
+      });
+      fail("the response must be aborted");
+    } catch (IOException e) {
+      assertEquals("connection reset", e.getMessage());
+    }
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void blobs() throws Exception {
+    WholeBlob blob = new WholeBlob("0123456789".getBytes("US-ASCII"));
+    Response response = getBlob(new RequestHeaders(), blob);
+    assertEquals(200, response.getStatus());
+    assertEquals("10", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("0123456789", write(response));
+
+    // only ranges read a part of the blob
+    blob.partial = true;
+    response = getBlob(new RequestHeaders().add("Range", "bytes=2-5"), blob);
+    assertEquals(206, response.getStatus());
+    assertEquals("2345", write(response));
+  }
+
+  private Response getBlob(HttpHeaders headers, final SerialBlob blob) throws Exception {
+    final InMemoryProducer producer = new InMemoryProducer("MediaResponsesTest") {
+      @Override
+      public BaseResponse getNavProperty(ODataContext context, String entitySetName, OEntityKey entityKey, String navProp, QueryInfo queryInfo) {
+        return Responses.property(OProperties.simple(navProp, EdmSimpleType.STREAM, blob));
+      }
+    };
+    producer.register(Integer.class, "Files", new Func<Iterable<Integer>>() {
+      @Override
+      public Iterable<Integer> apply() {
+        return Enumerable.create(1);
+      }
+    }, "IntValue");
+    UriInfo uriInfo = new ODataBatchUriInfo(URI.create("http://localhost/test.svc/Files(1)/Content"), URI.create("http://localhost/test.svc/"));
+    return new PropertyRequestResource().getNavProperty(headers, uriInfo, new ContextResolver<ODataProducer>() {
+      @Override
+      public ODataProducer getContext(Class<?> type) {
+        return producer;
+      }
+    }, null, "Files", "1", "Content", null, null, null, null, null, null, null, null, null, null);
+  }
+
+  private Response get(HttpHeaders headers) throws IOException {
+    return get(headers, null);
+  }
+
+  private Response get(HttpHeaders headers, String entityTag) throws IOException {
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    final ContextStream stream = new ContextStream(channel, "application/octet-stream", null);
+    stream.setEntityTag(entityTag);
+    InMemoryProducer producer = new InMemoryProducer("MediaResponsesTest") {
+      @Override
+      public ContextStream getInputStreamForNamedStream(String entitySetName, OEntityKey entityKey, String columnName, QueryInfo queryInfo) {
+        return stream;
+      }
+    };
+    return new NamedStreamResource().get(headers, producer);
+  }
+
+  private static String write(Response response) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    return out.toString("US-ASCII");
+  }
+
+  /** A blob that, like many JDBC drivers, cannot read a part of itself unless told to. */
+  private static class WholeBlob extends SerialBlob {
+
+    private static final long serialVersionUID = 1L;
+
+    boolean partial;
+
+    WholeBlob(byte[] b) throws SQLException {
+      super(b);
+    }
+
+    @Override
+    public InputStream getBinaryStream(long pos, long length) throws SQLException {
+      if (!partial)
+        throw new SQLFeatureNotSupportedException();
+      return super.getBinaryStream(pos, length);
+    }
+  }
+
+  private static class NamedStreamResource extends PropertyRequestResource {
+
+    Response get(HttpHeaders headers, InMemoryProducer producer) {
+      return getStreamResponse(headers, null, producer, "Files", "1", "Content", null, null, null);
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+package org.odata4j.test.unit.producer.resources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ContextResolver;
+
+import org.core4j.Func;
+import org.junit.Before;
+import org.junit.Test;
+import org.odata4j.core.ODataBatchUriInfo;
+import org.odata4j.producer.ODataProducer;
+import org.odata4j.producer.inmemory.InMemoryProducer;
+import org.odata4j.producer.resources.MetadataResource;
+import org.odata4j.producer.resources.ServiceDocumentResource;
+
+public class MetadataResourceTest {
+
+  private InMemoryProducer producer;
+  private ContextResolver<ODataProducer> producerResolver;
+
+  @Before
+  public void setUp() {
+    producer = new InMemoryProducer("MetadataResourceTest");
+    producer.register(Integer.class, "Numbers", numbers(), "IntValue");
+    producerResolver = new ContextResolver<ODataProducer>() {
+      @Override
+      public ODataProducer getContext(Class<?> type) {
+        return producer;
+      }
+    };
+  }
+
+  @Test
+  public void metadataIsWrittenOnceAndRevalidated() throws IOException {
+    Response first = getMetadata(new RequestHeaders());
+    Response second = getMetadata(new RequestHeaders());
+    assertEquals(200, first.getStatus());
+    assertSame(first.getEntity(), second.getEntity());
+    assertTrue(new String((byte[]) first.getEntity(), "UTF-8").contains("EntitySet Name=\"Numbers\""));
+    String etag = first.getHeaderString(HttpHeaders.ETAG);
+    assertTrue(etag, etag.matches("\"[0-9a-f]{40}\""));
+    assertNull(first.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+
+    Response notModified = getMetadata(new RequestHeaders().add(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag));
+    assertEquals(304, notModified.getStatus());
+    assertFalse(notModified.hasEntity());
+
+    Response gzip = getMetadata(new RequestHeaders().add(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"));
+    assertEquals("gzip", gzip.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals((byte[]) first.getEntity(), gunzip((byte[]) gzip.getEntity()));
+    assertFalse(etag.equals(gzip.getHeaderString(HttpHeaders.ETAG)));
+    assertEquals(304, getMetadata(new RequestHeaders().add(HttpHeaders.IF_NONE_MATCH, gzip.getHeaderString(HttpHeaders.ETAG))).getStatus());
+    assertNull(getMetadata(new RequestHeaders().add(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")).getHeaderString(HttpHeaders.CONTENT_ENCODING));
+
+    // registering an entity set makes new metadata
+    producer.register(Integer.class, "MoreNumbers", numbers(), "IntValue");
+    Response changed = getMetadata(new RequestHeaders().add(HttpHeaders.IF_NONE_MATCH, etag));
+    assertEquals(200, changed.getStatus());
+    assertTrue(new String((byte[]) changed.getEntity(), "UTF-8").contains("EntitySet Name=\"MoreNumbers\""));
+  }
+
+  @Test
+  public void serviceDocumentsArePerBaseUri() throws IOException {
+    ServiceDocumentResource resource = new ServiceDocumentResource();
+    Response first = resource.getServiceDocument(new RequestHeaders(), uriInfo("http://a/test.svc/"), producerResolver, null, null);
+    Response same = resource.getServiceDocument(new RequestHeaders(), uriInfo("http://a/test.svc/"), producerResolver, null, null);
+    Response other = resource.getServiceDocument(new RequestHeaders(), uriInfo("http://b/test.svc/"), producerResolver, null, null);
+    assertSame(first.getEntity(), same.getEntity());
+    assertTrue(new String((byte[]) other.getEntity(), "UTF-8").contains("http://b/test.svc/"));
+    assertFalse(first.getHeaderString(HttpHeaders.ETAG).equals(other.getHeaderString(HttpHeaders.ETAG)));
+
+    Response json = resource.getServiceDocument(new RequestHeaders(), uriInfo("http://a/test.svc/"), producerResolver, "json", null);
+    assertTrue(json.getMediaType().toString(), json.getMediaType().toString().startsWith("application/json"));
+
+    Response jsonp = resource.getServiceDocument(new RequestHeaders(), uriInfo("http://a/test.svc/"), producerResolver, "json", "cb");
+    assertTrue(((String) jsonp.getEntity()).startsWith("cb("));
+  }
+
+  private Response getMetadata(HttpHeaders headers) {
+    return new MetadataResource().getMetadata(headers, uriInfo("http://localhost/test.svc/"), producerResolver, null);
+  }
+
+  private static ODataBatchUriInfo uriInfo(String baseUri) {
+    return new ODataBatchUriInfo(URI.create(baseUri + "$metadata"), URI.create(baseUri));
+  }
+
+  private static Func<Iterable<Integer>> numbers() {
+    return new Func<Iterable<Integer>>() {
+      @Override
+      public Iterable<Integer> apply() {
+        return Arrays.asList(1, 2, 3);
+      }
+    };
+  }
+
+  private static byte[] gunzip(byte[] gzip) throws IOException {
+    InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int n;
+    while ((n = in.read(buffer)) > 0)
+      out.write(buffer, 0, n);
+    return out.toByteArray();
+  }
+
+}
@@ -0,0 +1,79 @@
+package org.odata4j.test.unit.producer.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.odata4j.expression.BoolCommonExpression;
+import org.odata4j.expression.OrderByExpression;
+import org.odata4j.producer.resources.OptionsQueryCache;
+import org.odata4j.producer.resources.OptionsQueryCache.Kind;
+import org.odata4j.producer.resources.OptionsQueryParser;
+
+public class OptionsQueryCacheTest {
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    // a single segment
+    OptionsQueryCache cache = new OptionsQueryCache(1, 100);
+    cache.put(Kind.FILTER, "a eq 1", "first");
+    assertEquals("first", cache.get(Kind.FILTER, "a eq 1"));
+    assertNull(cache.get(Kind.ORDER_BY, "a eq 1"));
+    cache.put(Kind.FILTER, "a eq 2", "second");
+    assertNull(cache.get(Kind.FILTER, "a eq 1"));
+    assertEquals("second", cache.get(Kind.FILTER, "a eq 2"));
+
+    assertEquals(1, cache.getSize());
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.getEvictions());
+  }
+
+  @Test
+  public void boundedSize() {
+    OptionsQueryCache cache = new OptionsQueryCache(40, 100);
+    for (int i = 0; i < 1000; i++)
+      cache.put(Kind.SELECT, "Name" + i, "value" + i);
+    assertEquals(40, cache.getSize());
+    assertEquals(960, cache.getEvictions());
+  }
+
+  @Test
+  public void longOptionsAreNotCached() {
+    OptionsQueryCache cache = new OptionsQueryCache(10, 5);
+    cache.put(Kind.FILTER, "a eq 10", "value");
+    assertNull(cache.get(Kind.FILTER, "a eq 10"));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getMisses());
+  }
+
+  @Test
+  public void disabled() {
+    OptionsQueryCache cache = new OptionsQueryCache(0, 100);
+    cache.put(Kind.FILTER, "a eq 1", "value");
+    assertNull(cache.get(Kind.FILTER, "a eq 1"));
+  }
+
+  @Test
+  public void parserReusesParsedOptions() {
+    BoolCommonExpression filter = OptionsQueryParser.parseFilter("Price gt 10 and Name ne 'x'");
+    assertSame(filter, OptionsQueryParser.parseFilter("Price gt 10 and Name ne 'x'"));
+
+    List<OrderByExpression> orderBy = OptionsQueryParser.parseOrderBy("Name desc, Price");
+    assertSame(orderBy, OptionsQueryParser.parseOrderBy("Name desc, Price"));
+    assertEquals(2, orderBy.size());
+
+    // $expand and $select are parsed alike but cached apart
+    assertSame(OptionsQueryParser.parseExpand("Orders"), OptionsQueryParser.parseExpand("Orders"));
+    assertEquals(1, OptionsQueryParser.parseSelect("Orders").size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void parsedListsAreShared() {
+    OptionsQueryParser.parseOrderBy("Name").clear();
+  }
+
+}
@@ -0,0 +1,75 @@
+package org.odata4j.test.unit.producer.resources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/** Request headers for calling resources directly. */
+public class RequestHeaders implements HttpHeaders {
+
+  private final MultivaluedMap<String, String> headers = new MultivaluedHashMap<String, String>();
+
+  public RequestHeaders add(String name, String value) {
+    headers.add(name, value);
+    return this;
+  }
+
+  @Override
+  public List<String> getRequestHeader(String name) {
+    return headers.get(name);
+  }
+
+  @Override
+  public String getHeaderString(String name) {
+    return headers.getFirst(name);
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getRequestHeaders() {
+    return headers;
+  }
+
+  @Override
+  public List<MediaType> getAcceptableMediaTypes() {
+    return new ArrayList<MediaType>(Collections.singletonList(MediaType.WILDCARD_TYPE));
+  }
+
+  @Override
+  public List<Locale> getAcceptableLanguages() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public MediaType getMediaType() {
+    return null;
+  }
+
+  @Override
+  public Locale getLanguage() {
+    return null;
+  }
+
+  @Override
+  public Map<String, Cookie> getCookies() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public Date getDate() {
+    return null;
+  }
+
+  @Override
+  public int getLength() {
+    return -1;
+  }
+}
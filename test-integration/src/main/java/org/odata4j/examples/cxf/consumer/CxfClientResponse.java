@@ -11,11 +11,11 @@ import jakarta.ws.rs.core.MultivaluedMap;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
 import org.apache.http.HttpResponse;
-import org.odata4j.consumer.ODataClientResponse;
+import org.odata4j.consumer.ODataClientStatusResponse;
 import org.odata4j.core.Throwables;
 import org.odata4j.producer.resources.HeaderMap;
 
-public class CxfClientResponse implements ODataClientResponse {
+public class CxfClientResponse implements ODataClientStatusResponse {
 
   private final HttpResponse httpResponse;
 
@@ -27,6 +27,11 @@ public class CxfClientResponse implements ODataClientResponse {
     return httpResponse;
   }
 
+  @Override
+  public int getStatus() {
+    return httpResponse.getStatusLine().getStatusCode();
+  }
+
   @Override
   public MultivaluedMap<String, String> getHeaders() {
     HeaderMap headers = new HeaderMap();
@@ -86,8 +86,11 @@ public class ODataCxfClient extends AbstractODataClient {
   public Reader getFeedReader(ODataClientResponse response) {
     HttpResponse httpResponse = ((CxfClientResponse) response).getHttpResponse();
     try {
-      InputStream textEntity = httpResponse.getEntity().getContent();
-      return new BOMWorkaroundReader(new InputStreamReader(textEntity, Charsets.Upper.UTF_8));
+      HttpEntity entity = httpResponse.getEntity();
+      // the charset of the response, utf-8 by default
+      String charset = entity.getContentType() == null ? null
+          : MediaType.valueOf(entity.getContentType().getValue()).getParameters().get(MediaType.CHARSET_PARAMETER);
+      return new BOMWorkaroundReader(new InputStreamReader(entity.getContent(), charset == null ? Charsets.Upper.UTF_8 : charset));
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }
@@ -5,11 +5,11 @@ import java.io.InputStream;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
 
-import org.odata4j.consumer.ODataClientResponse;
+import org.odata4j.consumer.ODataClientStatusResponse;
 
 import org.glassfish.jersey.client.ClientResponse;
 
-public class JerseyClientResponse implements ODataClientResponse {
+public class JerseyClientResponse implements ODataClientStatusResponse {
 
   private ClientResponse clientResponse;
 
@@ -21,6 +21,11 @@ public class JerseyClientResponse implements ODataClientResponse {
     return clientResponse;
   }
 
+  @Override
+  public int getStatus() {
+    return clientResponse.getStatus();
+  }
+
   @Override
   public MultivaluedMap<String, String> getHeaders() {
     return clientResponse.getHeaders();
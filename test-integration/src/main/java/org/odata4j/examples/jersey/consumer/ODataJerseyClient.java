@@ -13,6 +13,7 @@ import org.core4j.Enumerable;
 import org.core4j.xml.XDocument;
 import org.core4j.xml.XmlFormat;
 import org.glassfish.jersey.message.internal.HttpHeaderReader;
+import org.glassfish.jersey.message.internal.ReaderWriter;
 import org.odata4j.consumer.*;
 import org.odata4j.consumer.behaviors.OClientBehavior;
 import org.odata4j.consumer.behaviors.OClientBehaviors;
@@ -85,7 +86,8 @@ class ODataJerseyClient extends AbstractODataClient {
 
     InputStream textEntity = clientResponse.getEntityStream();
     try {
-      return new BOMWorkaroundReader(new InputStreamReader(textEntity, Charsets.Upper.UTF_8));
+      // the charset of the response, utf-8 by default
+      return new BOMWorkaroundReader(new InputStreamReader(textEntity, ReaderWriter.getCharset(clientResponse.getMediaType())));
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }